@@ -0,0 +1,158 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.aksw.palmetto.instrumentation.FlightRecorderEvent;
+import org.aksw.palmetto.instrumentation.InstrumentationRegistry;
+import org.aksw.palmetto.instrumentation.PalmettoEvents;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * This decorator caches the coherence values calculated by the decorated
+ * coherence. The values are identified by the name of the coherence and the
+ * words of the word set. Thus, a cache can be shared by several decorators.
+ * The values of all word sets of a request that are not cached are calculated
+ * with a single call of the decorated coherence.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class CachingCoherenceDecorator implements Coherence {
+
+    public static final int DEFAULT_CACHE_SIZE = 100000;
+
+    protected Coherence coherence;
+    protected Cache<CoherenceResultKey, Double> cache;
+
+    public CachingCoherenceDecorator(Coherence coherence) {
+        this(coherence, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param coherence
+     *            the decorated coherence
+     * @param cacheSize
+     *            the maximum number of cached coherence values
+     */
+    public CachingCoherenceDecorator(Coherence coherence, int cacheSize) {
+        this(coherence, CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats()
+                .<CoherenceResultKey, Double> build());
+    }
+
+    public CachingCoherenceDecorator(Coherence coherence, Cache<CoherenceResultKey, Double> cache) {
+        this.coherence = coherence;
+        this.cache = cache;
+    }
+
+    @Override
+    public double[] calculateCoherences(String[][] wordsets) {
+        double coherences[] = new double[wordsets.length];
+        String name = coherence.getName();
+        CoherenceResultKey keys[] = new CoherenceResultKey[wordsets.length];
+        List<String[]> missedWordsets = new ArrayList<String[]>();
+        Double value;
+        FlightRecorderEvent event = PalmettoEvents.CACHE_LOOKUP.begin();
+        for (int i = 0; i < wordsets.length; ++i) {
+            keys[i] = new CoherenceResultKey(name, wordsets[i]);
+            value = cache.getIfPresent(keys[i]);
+            if (value != null) {
+                coherences[i] = value;
+            } else {
+                keys[i].missId = missedWordsets.size();
+                missedWordsets.add(wordsets[i]);
+            }
+        }
+        InstrumentationRegistry.get().cacheLookup(getClass().getSimpleName(), wordsets.length, wordsets.length - missedWordsets.size());
+        if (event != null) {
+            event.set(PalmettoEvents.CACHE_LOOKUP_CACHE, getClass().getSimpleName());
+            event.set(PalmettoEvents.CACHE_LOOKUP_LOOKUPS, (long) wordsets.length);
+            event.set(PalmettoEvents.CACHE_LOOKUP_HITS, (long) (wordsets.length - missedWordsets.size()));
+            event.commit();
+        }
+        if (missedWordsets.size() > 0) {
+            double missedCoherences[] = coherence.calculateCoherences(missedWordsets
+                    .toArray(new String[missedWordsets.size()][]));
+            for (int i = 0; i < wordsets.length; ++i) {
+                if (keys[i].missId >= 0) {
+                    coherences[i] = missedCoherences[keys[i].missId];
+                    cache.put(keys[i], coherences[i]);
+                }
+            }
+        }
+        return coherences;
+    }
+
+    @Override
+    public String getName() {
+        return coherence.getName();
+    }
+
+    public Coherence getCoherence() {
+        return coherence;
+    }
+
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * The key of a cached coherence value.
+     */
+    public static class CoherenceResultKey {
+        private final String coherenceName;
+        private final String words[];
+        private final int hashCode;
+        /**
+         * The position of the word set in the request to the decorated
+         * coherence or -1. It is not part of the identity of the key.
+         */
+        private int missId = -1;
+
+        public CoherenceResultKey(String coherenceName, String words[]) {
+            this.coherenceName = coherenceName;
+            this.words = words.clone();
+            hashCode = (31 * coherenceName.hashCode()) + Arrays.hashCode(words);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            CoherenceResultKey other = (CoherenceResultKey) obj;
+            return coherenceName.equals(other.coherenceName) && Arrays.equals(words, other.words);
+        }
+    }
+}
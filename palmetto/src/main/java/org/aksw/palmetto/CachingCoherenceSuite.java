@@ -0,0 +1,128 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import org.aksw.palmetto.CachingCoherenceDecorator.CoherenceResultKey;
+import org.aksw.palmetto.instrumentation.FlightRecorderEvent;
+import org.aksw.palmetto.instrumentation.InstrumentationRegistry;
+import org.aksw.palmetto.instrumentation.PalmettoEvents;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * A {@link CoherenceSuite} that caches the coherence values of the single
+ * word sets. In contrast to wrapping the members of the suite into
+ * {@link CachingCoherenceDecorator}s, the members still share their
+ * probability models since the cache is applied on the level of the suite,
+ * i.e., a cache entry comprises the values of all coherences of the suite for
+ * a single word set. The word sets of a request that are not cached are
+ * calculated with a single call of the suite.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class CachingCoherenceSuite extends CoherenceSuite {
+
+    protected Cache<CoherenceResultKey, double[]> cache;
+    /**
+     * The name used to identify the values of this suite inside the cache.
+     */
+    protected String suiteName;
+
+    /**
+     * Constructor.
+     * 
+     * @param cacheSize
+     *            the maximum number of cached word sets
+     * @param coherences
+     *            the coherences of the suite
+     */
+    public CachingCoherenceSuite(int cacheSize, Coherence... coherences) {
+        this(CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats()
+                .<CoherenceResultKey, double[]> build(), coherences);
+    }
+
+    public CachingCoherenceSuite(Cache<CoherenceResultKey, double[]> cache, Coherence... coherences) {
+        super(coherences);
+        this.cache = cache;
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < coherences.length; ++i) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(coherences[i].getName());
+        }
+        suiteName = builder.toString();
+    }
+
+    @Override
+    public double[][] calculateCoherences(String[][] wordsets, ExecutorService executor) {
+        double coherenceValues[][] = new double[coherences.length][wordsets.length];
+        CoherenceResultKey keys[] = new CoherenceResultKey[wordsets.length];
+        int missIds[] = new int[wordsets.length];
+        List<String[]> missedWordsets = new ArrayList<String[]>();
+        double values[];
+        FlightRecorderEvent event = PalmettoEvents.CACHE_LOOKUP.begin();
+        for (int w = 0; w < wordsets.length; ++w) {
+            keys[w] = new CoherenceResultKey(suiteName, wordsets[w]);
+            values = cache.getIfPresent(keys[w]);
+            if (values != null) {
+                for (int c = 0; c < coherences.length; ++c) {
+                    coherenceValues[c][w] = values[c];
+                }
+                missIds[w] = -1;
+            } else {
+                missIds[w] = missedWordsets.size();
+                missedWordsets.add(wordsets[w]);
+            }
+        }
+        InstrumentationRegistry.get().cacheLookup(getClass().getSimpleName(), wordsets.length,
+                wordsets.length - missedWordsets.size());
+        if (event != null) {
+            event.set(PalmettoEvents.CACHE_LOOKUP_CACHE, getClass().getSimpleName());
+            event.set(PalmettoEvents.CACHE_LOOKUP_LOOKUPS, (long) wordsets.length);
+            event.set(PalmettoEvents.CACHE_LOOKUP_HITS, (long) (wordsets.length - missedWordsets.size()));
+            event.commit();
+        }
+        if (missedWordsets.size() > 0) {
+            double missedValues[][] = super.calculateCoherences(
+                    missedWordsets.toArray(new String[missedWordsets.size()][]), executor);
+            for (int w = 0; w < wordsets.length; ++w) {
+                if (missIds[w] >= 0) {
+                    values = new double[coherences.length];
+                    for (int c = 0; c < coherences.length; ++c) {
+                        values[c] = missedValues[c][missIds[w]];
+                        coherenceValues[c][w] = values[c];
+                    }
+                    cache.put(keys[w], values);
+                }
+            }
+        }
+        return coherenceValues;
+    }
+
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto;
+
+import org.aksw.palmetto.instrumentation.ExplainingInstrumentation;
+import org.aksw.palmetto.instrumentation.Explanation;
+import org.aksw.palmetto.instrumentation.Instrumentation;
+import org.aksw.palmetto.instrumentation.InstrumentationRegistry;
+
+/**
+ * Calculates coherences for a single word set and explains the costs of the
+ * calculation, i.e., the calculation is executed with an
+ * {@link ExplainingInstrumentation} as instrumentation of the current thread.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class CoherenceExplainer {
+
+    /**
+     * Calculates the given coherence for the given words and returns the
+     * value together with the explanation of its costs.
+     */
+    public static Explanation explain(Coherence coherence, String words[]) {
+        ExplainingInstrumentation instrumentation = new ExplainingInstrumentation(
+                InstrumentationRegistry.getGlobal());
+        Instrumentation previous = InstrumentationRegistry.setThreadInstrumentation(instrumentation);
+        long startTime = System.nanoTime();
+        double values[];
+        try {
+            values = coherence.calculateCoherences(new String[][] { words });
+        } finally {
+            InstrumentationRegistry.setThreadInstrumentation(previous);
+        }
+        return instrumentation.createExplanation(new String[] { coherence.getName() }, values, words,
+                System.nanoTime() - startTime);
+    }
+
+    /**
+     * Calculates the coherences of the given suite for the given words and
+     * returns the values together with the explanation of their costs.
+     */
+    public static Explanation explain(CoherenceSuite suite, String words[]) {
+        ExplainingInstrumentation instrumentation = new ExplainingInstrumentation(
+                InstrumentationRegistry.getGlobal());
+        Instrumentation previous = InstrumentationRegistry.setThreadInstrumentation(instrumentation);
+        long startTime = System.nanoTime();
+        double suiteValues[][];
+        try {
+            suiteValues = suite.calculateCoherences(new String[][] { words });
+        } finally {
+            InstrumentationRegistry.setThreadInstrumentation(previous);
+        }
+        double values[] = new double[suiteValues.length];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = suiteValues[i][0];
+        }
+        return instrumentation.createExplanation(suite.getNames(), values, words, System.nanoTime() - startTime);
+    }
+}
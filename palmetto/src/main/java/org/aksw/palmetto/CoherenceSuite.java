@@ -0,0 +1,358 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.aksw.palmetto.data.SegmentationDefinition;
+import org.aksw.palmetto.data.SubsetProbabilities;
+import org.aksw.palmetto.data.SubsetVectors;
+import org.aksw.palmetto.instrumentation.FlightRecorderEvent;
+import org.aksw.palmetto.instrumentation.Instrumentation;
+import org.aksw.palmetto.instrumentation.InstrumentationRegistry;
+import org.aksw.palmetto.instrumentation.PalmettoEvents;
+import org.aksw.palmetto.instrumentation.Stage;
+import org.aksw.palmetto.prob.AbstractProbabilitySupplier;
+import org.aksw.palmetto.prob.ProbabilityEstimator;
+import org.aksw.palmetto.vector.AbstractVectorCreator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.carrotsearch.hppc.BitSet;
+import com.carrotsearch.hppc.IntArrayList;
+
+/**
+ * A suite of coherences that are calculated for the same word sets. The
+ * coherences are grouped by their probability model, i.e., the probability
+ * estimator, its minimum frequency and the sliding window model. For every
+ * group, the counts needed by all members of the group are determined only
+ * once and the single coherences are derived from these shared
+ * probabilities. Coherences that are not based on a probability model that
+ * could be shared (e.g., decorated coherences) are calculated independently.
+ * 
+ * <p>
+ * Note that all coherences of a suite have to be based on the same corpus.
+ * The postings of the corpus can be shared between different probability
+ * models (e.g., different window sizes) by using a single
+ * {@link org.aksw.palmetto.corpus.decorator.WordPositionCachingAdapterDecorator}
+ * for all of them.
+ * </p>
+ * 
+ * @author m.roeder
+ * 
+ */
+public class CoherenceSuite {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CoherenceSuite.class);
+
+    protected Coherence coherences[];
+
+    /**
+     * Groups of coherences sharing the same probability model.
+     */
+    protected ProbabilityModelGroup groups[];
+
+    /**
+     * Ids of the coherences that have to be calculated independently.
+     */
+    protected int independentCoherences[];
+
+    public CoherenceSuite(Coherence... coherences) {
+        this.coherences = coherences;
+        createGroups();
+    }
+
+    /**
+     * Creates the groups of coherences sharing the same probability model.
+     */
+    protected void createGroups() {
+        Map<String, ProbabilityModelGroup> groupMap = new LinkedHashMap<String, ProbabilityModelGroup>();
+        IntArrayList independent = new IntArrayList();
+        ProbabilityEstimator estimator;
+        String modelKey;
+        ProbabilityModelGroup group;
+        for (int i = 0; i < coherences.length; ++i) {
+            estimator = getProbabilityEstimator(coherences[i]);
+            if (estimator != null) {
+                modelKey = getModelKey(estimator);
+                if (groupMap.containsKey(modelKey)) {
+                    group = groupMap.get(modelKey);
+                } else {
+                    group = new ProbabilityModelGroup(estimator);
+                    groupMap.put(modelKey, group);
+                }
+                group.coherenceIds.add(i);
+            } else {
+                independent.add(i);
+            }
+        }
+        groups = groupMap.values().toArray(new ProbabilityModelGroup[groupMap.size()]);
+        independentCoherences = independent.toArray();
+        LOGGER.debug("Created a suite of {} coherences sharing {} probability models.", coherences.length,
+                groups.length);
+    }
+
+    /**
+     * Calculates the coherences of the suite for the given word sets.
+     * 
+     * @param wordsets
+     *            the word sets for which the coherences should be calculated
+     * @return the coherence values with the first index identifying the
+     *         coherence and the second index identifying the word set
+     */
+    public double[][] calculateCoherences(String[][] wordsets) {
+        return calculateCoherences(wordsets, null);
+    }
+
+    /**
+     * Calculates the coherences of the suite for the given word sets. The
+     * probabilities of a group are still determined only once and by the
+     * calling thread, but the members of the group are calculated
+     * concurrently using the given executor. Note that the members of the
+     * suite must not share confirmation measures, segmentations or
+     * aggregations that are not thread safe.
+     * 
+     * @param wordsets
+     *            the word sets for which the coherences should be calculated
+     * @param executor
+     *            the executor used to calculate the members of the groups or
+     *            null if they should be calculated by the calling thread
+     * @return the coherence values with the first index identifying the
+     *         coherence and the second index identifying the word set
+     */
+    public double[][] calculateCoherences(String[][] wordsets, ExecutorService executor) {
+        double coherenceValues[][] = new double[coherences.length][];
+        for (int i = 0; i < groups.length; ++i) {
+            calculateCoherences(groups[i], wordsets, coherenceValues, executor);
+        }
+        for (int i = 0; i < independentCoherences.length; ++i) {
+            coherenceValues[independentCoherences[i]] = coherences[independentCoherences[i]]
+                    .calculateCoherences(wordsets);
+        }
+        return coherenceValues;
+    }
+
+    /**
+     * Determines the probabilities needed by all members of the given group
+     * with a single request and calculates the coherences of the members.
+     */
+    protected void calculateCoherences(ProbabilityModelGroup group, String[][] wordsets,
+            double coherenceValues[][], ExecutorService executor) {
+        FlightRecorderEvent event = PalmettoEvents.TOPIC_EVALUATION.begin();
+        int memberIds[] = group.coherenceIds.toArray();
+        SegmentationDefinition memberDefinitions[][] = new SegmentationDefinition[memberIds.length][wordsets.length];
+        SegmentationDefinition unionDefinitions[] = new SegmentationDefinition[wordsets.length];
+        BitSet neededCounts;
+        boolean countAllSubsets;
+        for (int w = 0; w < wordsets.length; ++w) {
+            neededCounts = new BitSet(1 << wordsets[w].length);
+            countAllSubsets = false;
+            for (int m = 0; m < memberIds.length; ++m) {
+                memberDefinitions[m][w] = getSubsetDefinition(coherences[memberIds[m]], wordsets[w].length);
+                if (memberDefinitions[m][w].neededCounts == null) {
+                    countAllSubsets = true;
+                } else {
+                    neededCounts.union(memberDefinitions[m][w].neededCounts);
+                }
+                if (coherences[memberIds[m]] instanceof VectorBasedCoherence) {
+                    addSinglesAndPairs(wordsets[w].length, neededCounts);
+                }
+            }
+            unionDefinitions[w] = new SegmentationDefinition(new int[0], new int[0][0], countAllSubsets ? null
+                    : neededCounts);
+        }
+        Instrumentation instrumentation = InstrumentationRegistry.get();
+        long start = instrumentation.start();
+        SubsetProbabilities sharedProbabilities[] = group.estimator.getProbabilities(wordsets, unionDefinitions);
+        instrumentation.stageFinished(Stage.PROBABILITY_ESTIMATION, start);
+        instrumentation.probabilitiesEstimated(wordsets, sharedProbabilities);
+        unionDefinitions = null;
+
+        if (executor == null) {
+            for (int m = 0; m < memberIds.length; ++m) {
+                coherenceValues[memberIds[m]] = calculateMemberCoherences(memberIds[m], wordsets,
+                        memberDefinitions[m], sharedProbabilities);
+            }
+        } else {
+            List<Future<double[]>> futures = new ArrayList<Future<double[]>>(memberIds.length);
+            for (int m = 0; m < memberIds.length; ++m) {
+                futures.add(executor.submit(new MemberCalculation(memberIds[m], wordsets, memberDefinitions[m],
+                        sharedProbabilities)));
+            }
+            try {
+                for (int m = 0; m < memberIds.length; ++m) {
+                    coherenceValues[memberIds[m]] = futures.get(m).get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the coherence calculations.", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Exception while calculating coherence.", e.getCause());
+            }
+        }
+        if (event != null) {
+            StringBuilder names = new StringBuilder();
+            for (int m = 0; m < memberIds.length; ++m) {
+                if (m > 0) {
+                    names.append(',');
+                }
+                names.append(coherences[memberIds[m]].getName());
+            }
+            event.set(PalmettoEvents.TOPIC_EVALUATION_COHERENCE, names.toString());
+            event.set(PalmettoEvents.TOPIC_EVALUATION_TOPICS, PalmettoEvents.toString(wordsets));
+            event.set(PalmettoEvents.TOPIC_EVALUATION_NUMBER_OF_TOPICS, wordsets.length);
+            event.commit();
+        }
+    }
+
+    /**
+     * Calculates the coherence values of a single group member based on the
+     * probabilities shared inside the group.
+     */
+    protected double[] calculateMemberCoherences(int coherenceId, String[][] wordsets,
+            SegmentationDefinition definitions[], SubsetProbabilities sharedProbabilities[]) {
+        SubsetProbabilities probabilities[] = new SubsetProbabilities[wordsets.length];
+        for (int w = 0; w < wordsets.length; ++w) {
+            probabilities[w] = new SubsetProbabilities(definitions[w].segments, definitions[w].conditions,
+                    sharedProbabilities[w].probabilities);
+        }
+        Coherence coherence = coherences[coherenceId];
+        if (coherence instanceof DirectConfirmationBasedCoherence) {
+            return ((DirectConfirmationBasedCoherence) coherence).calculateCoherences(probabilities);
+        } else {
+            VectorBasedCoherence vectorCoherence = (VectorBasedCoherence) coherence;
+            SubsetVectors vectors[] = ((AbstractVectorCreator) vectorCoherence.vectorCreator).getVectors(wordsets,
+                    definitions, probabilities);
+            return vectorCoherence.calculateCoherences(vectors);
+        }
+    }
+
+    private static void addSinglesAndPairs(int wordsetSize, BitSet neededCounts) {
+        for (int i = 0; i < wordsetSize; ++i) {
+            neededCounts.set(1 << i);
+            for (int j = i + 1; j < wordsetSize; ++j) {
+                neededCounts.set((1 << i) | (1 << j));
+            }
+        }
+    }
+
+    /**
+     * Returns the probability estimator of the given coherence or null if the
+     * coherence can not share its probabilities with other coherences.
+     */
+    protected static ProbabilityEstimator getProbabilityEstimator(Coherence coherence) {
+        if (coherence instanceof DirectConfirmationBasedCoherence) {
+            return ((DirectConfirmationBasedCoherence) coherence).probEstimator;
+        }
+        if ((coherence instanceof VectorBasedCoherence)
+                && (((VectorBasedCoherence) coherence).vectorCreator instanceof AbstractVectorCreator)) {
+            return ((AbstractVectorCreator) ((VectorBasedCoherence) coherence).vectorCreator)
+                    .getProbabilityEstimator();
+        }
+        return null;
+    }
+
+    private static SegmentationDefinition getSubsetDefinition(Coherence coherence, int wordsetSize) {
+        if (coherence instanceof DirectConfirmationBasedCoherence) {
+            return ((DirectConfirmationBasedCoherence) coherence).getSubsetDefinition(wordsetSize);
+        } else {
+            return ((VectorBasedCoherence) coherence).getSubsetDefinition(wordsetSize);
+        }
+    }
+
+    /**
+     * Returns a key identifying the probability model of the given estimator.
+     * Estimators with the same key derive the same probabilities from the same
+     * corpus.
+     */
+    protected static String getModelKey(ProbabilityEstimator estimator) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(estimator.getClass().getName());
+        builder.append('|');
+        builder.append(estimator.getName());
+        if (estimator instanceof AbstractProbabilitySupplier) {
+            builder.append('|');
+            builder.append(((AbstractProbabilitySupplier) estimator).getMinFrequency());
+        }
+        return builder.toString();
+    }
+
+    public Coherence[] getCoherences() {
+        return coherences;
+    }
+
+    public String[] getNames() {
+        String names[] = new String[coherences.length];
+        for (int i = 0; i < coherences.length; ++i) {
+            names[i] = coherences[i].getName();
+        }
+        return names;
+    }
+
+    /**
+     * Returns the number of probability models that are used to calculate the
+     * coherences of this suite, i.e., the number of shared models plus the
+     * number of independently calculated coherences.
+     */
+    public int getNumberOfProbabilityModels() {
+        return groups.length + independentCoherences.length;
+    }
+
+    /**
+     * The calculation of a single group member that can be executed by
+     * another thread.
+     */
+    protected class MemberCalculation implements Callable<double[]> {
+        private int coherenceId;
+        private String wordsets[][];
+        private SegmentationDefinition definitions[];
+        private SubsetProbabilities sharedProbabilities[];
+
+        public MemberCalculation(int coherenceId, String[][] wordsets, SegmentationDefinition[] definitions,
+                SubsetProbabilities[] sharedProbabilities) {
+            this.coherenceId = coherenceId;
+            this.wordsets = wordsets;
+            this.definitions = definitions;
+            this.sharedProbabilities = sharedProbabilities;
+        }
+
+        @Override
+        public double[] call() throws Exception {
+            return calculateMemberCoherences(coherenceId, wordsets, definitions, sharedProbabilities);
+        }
+    }
+
+    /**
+     * A group of coherences sharing the same probability model.
+     */
+    protected static class ProbabilityModelGroup {
+        public final ProbabilityEstimator estimator;
+        public final IntArrayList coherenceIds = new IntArrayList();
+
+        public ProbabilityModelGroup(ProbabilityEstimator estimator) {
+            this.estimator = estimator;
+        }
+    }
+}
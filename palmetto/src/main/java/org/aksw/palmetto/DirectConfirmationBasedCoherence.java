@@ -17,11 +17,26 @@
  */
 package org.aksw.palmetto;
 
+import java.util.Arrays;
+
 import org.aksw.palmetto.aggregation.Aggregation;
+import org.aksw.palmetto.aggregation.AggregationAccumulator;
+import org.aksw.palmetto.aggregation.BufferingAggregationAccumulator;
+import org.aksw.palmetto.calculations.direct.AccumulatingConfirmationMeasure;
+import org.aksw.palmetto.calculations.direct.AccumulatingConfirmationMeasureAdapter;
 import org.aksw.palmetto.calculations.direct.DirectConfirmationMeasure;
 import org.aksw.palmetto.data.SegmentationDefinition;
 import org.aksw.palmetto.data.SubsetProbabilities;
+import org.aksw.palmetto.data.SubsetProbabilitiesBatch;
+import org.aksw.palmetto.instrumentation.FlightRecorderEvent;
+import org.aksw.palmetto.instrumentation.Instrumentation;
+import org.aksw.palmetto.instrumentation.InstrumentationRegistry;
+import org.aksw.palmetto.instrumentation.PalmettoEvents;
+import org.aksw.palmetto.instrumentation.Stage;
 import org.aksw.palmetto.prob.ProbabilityEstimator;
+import org.aksw.palmetto.subsets.LazySegmentator;
+import org.aksw.palmetto.subsets.SegmentationPlan;
+import org.aksw.palmetto.subsets.SegmentationPlanCache;
 import org.aksw.palmetto.subsets.Segmentator;
 import org.aksw.palmetto.weight.Weighter;
 
@@ -35,6 +50,12 @@ import org.aksw.palmetto.weight.Weighter;
 @SuppressWarnings("deprecation")
 public class DirectConfirmationBasedCoherence implements Coherence {
 
+    /**
+     * Default threshold of subset pairs above which a word set is segmented
+     * lazily.
+     */
+    public static final long DEFAULT_LAZY_SEGMENTATION_THRESHOLD = 1 << 20;
+
     /**
      * The segmentation used to create the subset pairs.
      */
@@ -58,10 +79,23 @@ public class DirectConfirmationBasedCoherence implements Coherence {
     @Deprecated
     protected Weighter weighter;
 
+    /**
+     * The compiled segmentation plans of the segmentation.
+     */
+    protected SegmentationPlanCache plans;
+
+    /**
+     * If the segmentation is a {@link LazySegmentator}, word sets with more
+     * subset pairs than this threshold are segmented lazily, i.e., their
+     * pairs are never materialized.
+     */
+    protected long lazySegmentationThreshold = DEFAULT_LAZY_SEGMENTATION_THRESHOLD;
+
     @Deprecated
     public DirectConfirmationBasedCoherence(Segmentator segmentation, ProbabilityEstimator probEstimator,
             DirectConfirmationMeasure confirmation, Aggregation aggregation, Weighter weighter) {
         this.segmentation = segmentation;
+        this.plans = new SegmentationPlanCache(segmentation);
         this.probEstimator = probEstimator;
         this.confirmation = confirmation;
         this.aggregation = aggregation;
@@ -71,6 +105,7 @@ public class DirectConfirmationBasedCoherence implements Coherence {
     public DirectConfirmationBasedCoherence(Segmentator segmentation, ProbabilityEstimator probEstimator,
             DirectConfirmationMeasure confirmation, Aggregation aggregation) {
         this.segmentation = segmentation;
+        this.plans = new SegmentationPlanCache(segmentation);
         this.probEstimator = probEstimator;
         this.confirmation = confirmation;
         this.aggregation = aggregation;
@@ -78,30 +113,168 @@ public class DirectConfirmationBasedCoherence implements Coherence {
 
     @Override
     public double[] calculateCoherences(String[][] wordsets) {
+        FlightRecorderEvent event = PalmettoEvents.TOPIC_EVALUATION.begin();
         // create subset definitions
         SegmentationDefinition definitions[] = new SegmentationDefinition[wordsets.length];
         for (int i = 0; i < definitions.length; i++) {
-            definitions[i] = segmentation.getSubsetDefinition(wordsets[i].length);
+            definitions[i] = getSubsetDefinition(wordsets[i].length);
         }
 
         // get the probabilities
+        Instrumentation instrumentation = InstrumentationRegistry.get();
+        long start = instrumentation.start();
         SubsetProbabilities probabilities[] = probEstimator.getProbabilities(wordsets, definitions);
+        instrumentation.stageFinished(Stage.PROBABILITY_ESTIMATION, start);
+        instrumentation.probabilitiesEstimated(wordsets, probabilities);
         definitions = null;
 
+        double coherences[] = calculateCoherences(probabilities);
+        if (event != null) {
+            event.set(PalmettoEvents.TOPIC_EVALUATION_COHERENCE, getName());
+            event.set(PalmettoEvents.TOPIC_EVALUATION_TOPICS, PalmettoEvents.toString(wordsets));
+            event.set(PalmettoEvents.TOPIC_EVALUATION_NUMBER_OF_TOPICS, wordsets.length);
+            event.commit();
+        }
+        return coherences;
+    }
+
+    /**
+     * Calculates the coherences based on the given probabilities.
+     */
+    protected double[] calculateCoherences(SubsetProbabilities probabilities[]) {
+        Instrumentation instrumentation = InstrumentationRegistry.get();
+        long start = instrumentation.start();
         double coherences[] = new double[probabilities.length];
         if (weighter != null) {
             for (int i = 0; i < probabilities.length; i++) {
                 coherences[i] = aggregation.summarize(confirmation.calculateConfirmationValues(probabilities[i]),
                         weighter.createWeights(probabilities[i]));
             }
+        } else if ((confirmation instanceof AccumulatingConfirmationMeasure) || isSegmentedLazily()) {
+            // stream the confirmation values directly into the aggregation
+            AccumulatingConfirmationMeasure measure = AccumulatingConfirmationMeasureAdapter.create(confirmation);
+            AggregationAccumulator accumulator = BufferingAggregationAccumulator.create(aggregation);
+            SegmentationPlan plan;
+            int wordsetSize;
+            for (int i = 0; i < probabilities.length; i++) {
+                wordsetSize = Integer.numberOfTrailingZeros(probabilities[i].probabilities.length);
+                if (isSegmentedLazily(wordsetSize)) {
+                    coherences[i] = measure.aggregateConfirmationValues(probabilities[i].probabilities,
+                            ((LazySegmentator) segmentation).getSegmentationIterator(wordsetSize), accumulator);
+                    continue;
+                }
+                plan = getPlan(probabilities[i]);
+                if (plan != null) {
+                    coherences[i] = measure.aggregateConfirmationValues(probabilities[i].probabilities, plan,
+                            accumulator);
+                } else {
+                    coherences[i] = measure.aggregateConfirmationValues(probabilities[i], accumulator);
+                }
+            }
         } else {
             for (int i = 0; i < probabilities.length; i++) {
                 coherences[i] = aggregation.summarize(confirmation.calculateConfirmationValues(probabilities[i]));
             }
         }
+        instrumentation.stageFinished(Stage.CONFIRMATION_AGGREGATION, start);
+        return coherences;
+    }
+
+    /**
+     * Calculates the coherences of the word sets of the given batch. The batch
+     * should have been filled by an estimator writing the probability tables
+     * directly into the flat array of the batch (see
+     * {@link SubsetProbabilitiesBatch#addTable()}). Copying existing tables
+     * into a batch costs more than evaluating them one by one.
+     * 
+     * @param batch
+     *            the probabilities of the word sets
+     * @return the coherences of the word sets of the batch
+     */
+    public double[] calculateCoherences(SubsetProbabilitiesBatch batch) {
+        if (weighter != null) {
+            SubsetProbabilities probabilities[] = new SubsetProbabilities[batch.size];
+            for (int i = 0; i < probabilities.length; ++i) {
+                probabilities[i] = new SubsetProbabilities(batch.plan.definition.segments,
+                        batch.plan.definition.conditions, Arrays.copyOfRange(batch.probabilities, i
+                                * batch.numberOfSubsets, (i + 1) * batch.numberOfSubsets));
+            }
+            return calculateCoherences(probabilities);
+        }
+        Instrumentation instrumentation = InstrumentationRegistry.get();
+        long start = instrumentation.start();
+        double coherences[] = new double[batch.size];
+        AccumulatingConfirmationMeasureAdapter.create(confirmation).aggregateConfirmationValues(batch,
+                BufferingAggregationAccumulator.create(aggregation), coherences, 0);
+        instrumentation.stageFinished(Stage.CONFIRMATION_AGGREGATION, start);
         return coherences;
     }
 
+    /**
+     * Returns the definition for word sets of the given size. If the word
+     * sets are segmented lazily, the definition contains only the needed
+     * counts but no subset pairs.
+     */
+    protected SegmentationDefinition getSubsetDefinition(int wordsetSize) {
+        if (isSegmentedLazily(wordsetSize)) {
+            return new SegmentationDefinition(new int[0], new int[0][0],
+                    ((LazySegmentator) segmentation).getNeededCounts(wordsetSize));
+        } else {
+            return plans.getSubsetDefinition(wordsetSize);
+        }
+    }
+
+    /**
+     * Returns true if word sets with the given size are segmented lazily.
+     */
+    protected boolean isSegmentedLazily(int wordsetSize) {
+        return (weighter == null) && (segmentation instanceof LazySegmentator)
+                && (((LazySegmentator) segmentation).getNumberOfPairs(wordsetSize) > lazySegmentationThreshold);
+    }
+
+    /**
+     * Returns true if word sets might be segmented lazily.
+     */
+    private boolean isSegmentedLazily() {
+        return (weighter == null) && (segmentation instanceof LazySegmentator);
+    }
+
+    /**
+     * Returns the cached plan for the given probabilities or null if they
+     * have not been created based on a definition of the plan cache.
+     */
+    protected SegmentationPlan getPlan(SubsetProbabilities probabilities) {
+        int wordsetSize = Integer.numberOfTrailingZeros(probabilities.probabilities.length);
+        if ((probabilities.probabilities.length != (1 << wordsetSize)) || (wordsetSize > 31)) {
+            return null;
+        }
+        SegmentationPlan plan = plans.getPlan(wordsetSize);
+        if (plan.definition.segments == probabilities.segments) {
+            return plan;
+        } else {
+            return null;
+        }
+    }
+
+    public long getLazySegmentationThreshold() {
+        return lazySegmentationThreshold;
+    }
+
+    /**
+     * Sets the number of subset pairs above which word sets are segmented
+     * lazily if the segmentation is a {@link LazySegmentator}.
+     */
+    public void setLazySegmentationThreshold(long lazySegmentationThreshold) {
+        this.lazySegmentationThreshold = lazySegmentationThreshold;
+    }
+
+    /**
+     * Returns the cache of the compiled segmentation plans of this coherence.
+     */
+    public SegmentationPlanCache getPlanCache() {
+        return plans;
+    }
+
     @Override
     public String getName() {
         StringBuilder builder = new StringBuilder();
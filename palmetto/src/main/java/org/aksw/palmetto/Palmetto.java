@@ -17,6 +17,8 @@
  */
 package org.aksw.palmetto;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.util.Arrays;
 
@@ -28,9 +30,12 @@ import org.aksw.palmetto.calculations.direct.NormalizedLogRatioConfirmationMeasu
 import org.aksw.palmetto.calculations.indirect.CosinusConfirmationMeasure;
 import org.aksw.palmetto.corpus.CorpusAdapter;
 import org.aksw.palmetto.corpus.WindowSupportingAdapter;
+import org.aksw.palmetto.corpus.decorator.WordPositionCachingAdapterDecorator;
 import org.aksw.palmetto.corpus.lucene.LuceneCorpusAdapter;
 import org.aksw.palmetto.corpus.lucene.WindowSupportingLuceneCorpusAdapter;
-import org.aksw.palmetto.io.SimpleWordSetReader;
+import org.aksw.palmetto.instrumentation.HistogramInstrumentation;
+import org.aksw.palmetto.instrumentation.InstrumentationRegistry;
+import org.aksw.palmetto.io.StreamingWordSetReader;
 import org.aksw.palmetto.prob.bd.BooleanDocumentProbabilitySupplier;
 import org.aksw.palmetto.prob.window.BooleanSlidingWindowFrequencyDeterminer;
 import org.aksw.palmetto.prob.window.ContextWindowFrequencyDeterminer;
@@ -39,6 +44,8 @@ import org.aksw.palmetto.subsets.OneOne;
 import org.aksw.palmetto.subsets.OnePreceding;
 import org.aksw.palmetto.subsets.OneSet;
 import org.aksw.palmetto.vector.DirectConfirmationBasedVectorCreator;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,38 +53,140 @@ public class Palmetto {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Palmetto.class);
 
-    private static final String USAGE = "palmetto.jar <index-directory> <coherence-name> <input-file>";
+    public static final String COHERENCE_CACHE_SIZE_OPTION = "-cacheSize";
+    public static final String CHUNK_SIZE_OPTION = "-chunkSize";
+    public static final String CHECKPOINT_OPTION = "-checkpoint";
+    public static final String INSTRUMENTATION_OPTION = "-instrument";
+
+    private static final String USAGE = "palmetto.jar [options] <index-directory> <coherence-name> <input-file>\n"
+            + "Several coherences can be calculated at once using a comma separated list of coherence names, e.g., \"uci,npmi,c_v\".\n"
+            + "The word sets are read from stdin if the input file is \"-\".\n"
+            + "Options:\n  " + COHERENCE_CACHE_SIZE_OPTION
+            + " <size>  caches up to <size> coherence values, e.g., if word sets occur several times\n  "
+            + CHUNK_SIZE_OPTION + " <size>  number of word sets that are processed at once (default: "
+            + StreamingCoherencePipeline.DEFAULT_CHUNK_SIZE + ")\n  " + CHECKPOINT_OPTION
+            + " <file>  stores the progress in the given file and resumes from it if it exists\n  "
+            + INSTRUMENTATION_OPTION
+            + " <file>  records the latencies and volumes of the single stages and writes a report to the given file";
 
     public static final String DEFAULT_TEXT_INDEX_FIELD_NAME = "text";
     public static final String DEFAULT_DOCUMENT_LENGTH_INDEX_FIELD_NAME = "length";
 
     public static void main(String[] args) {
-        if (args.length < 3) {
+        int coherenceCacheSize = 0;
+        int chunkSize = StreamingCoherencePipeline.DEFAULT_CHUNK_SIZE;
+        File checkpointFile = null;
+        File instrumentationReportFile = null;
+        int pos = 0;
+        while ((pos < args.length) && args[pos].startsWith("-") && ((pos + 1) < args.length)) {
+            if (COHERENCE_CACHE_SIZE_OPTION.equals(args[pos]) || CHUNK_SIZE_OPTION.equals(args[pos])) {
+                int value;
+                try {
+                    value = Integer.parseInt(args[pos + 1]);
+                } catch (NumberFormatException e) {
+                    LOGGER.error("Couldn't parse the value \"" + args[pos + 1] + "\" of " + args[pos] + ". Usage:\n"
+                            + USAGE);
+                    return;
+                }
+                if (COHERENCE_CACHE_SIZE_OPTION.equals(args[pos])) {
+                    coherenceCacheSize = value;
+                } else {
+                    chunkSize = value;
+                }
+                pos += 2;
+            } else if (CHECKPOINT_OPTION.equals(args[pos])) {
+                checkpointFile = new File(args[pos + 1]);
+                pos += 2;
+            } else if (INSTRUMENTATION_OPTION.equals(args[pos])) {
+                instrumentationReportFile = new File(args[pos + 1]);
+                pos += 2;
+            } else {
+                LOGGER.error("Unknown option \"" + args[pos] + "\". Usage:\n" + USAGE);
+                return;
+            }
+        }
+        if ((args.length - pos) < 3) {
             LOGGER.error("Wrong number of arguments. Usage:\n" + USAGE);
             return;
         }
-        String indexPath = args[0];
-        String calcType = args[1].toLowerCase();
-        String inputFile = args[2];
-
-        CorpusAdapter corpusAdapter = getCorpusAdapter(calcType, indexPath);
-        if (corpusAdapter == null) {
+        if (chunkSize < 1) {
+            LOGGER.error("The chunk size has to be at least 1. Usage:\n" + USAGE);
             return;
         }
+        String indexPath = args[pos];
+        String calcTypes[] = args[pos + 1].toLowerCase().split(",");
+        String inputFile = args[pos + 2];
 
-        Coherence coherence = getCoherence(calcType, corpusAdapter);
-        if (coherence == null) {
+        String adapterType = "umass";
+        for (int i = 0; i < calcTypes.length; ++i) {
+            calcTypes[i] = calcTypes[i].trim();
+            if (!"umass".equals(calcTypes[i])) {
+                adapterType = calcTypes[i];
+            }
+        }
+        CorpusAdapter corpusAdapter = getCorpusAdapter(adapterType, indexPath);
+        if (corpusAdapter == null) {
             return;
         }
+        // several window based coherences share the positions of the words
+        CorpusAdapter windowAdapter = corpusAdapter;
+        if ((calcTypes.length > 1) && (corpusAdapter instanceof WindowSupportingAdapter)) {
+            windowAdapter = new WordPositionCachingAdapterDecorator((WindowSupportingAdapter) corpusAdapter);
+        }
 
-        SimpleWordSetReader reader = new SimpleWordSetReader();
-        String wordsets[][] = reader.readWordSets(inputFile);
-        LOGGER.info("Read " + wordsets.length + " from file.");
+        Coherence coherences[] = new Coherence[calcTypes.length];
+        for (int i = 0; i < calcTypes.length; ++i) {
+            coherences[i] = getCoherence(calcTypes[i], "umass".equals(calcTypes[i]) ? corpusAdapter
+                    : windowAdapter);
+            if (coherences[i] == null) {
+                windowAdapter.close();
+                return;
+            }
+        }
+        StreamingCoherencePipeline pipeline = new StreamingCoherencePipeline(createSuite(coherences,
+                coherenceCacheSize), chunkSize);
+        HistogramInstrumentation instrumentation = null;
+        if (instrumentationReportFile != null) {
+            instrumentation = new HistogramInstrumentation();
+            InstrumentationRegistry.set(instrumentation);
+        }
 
-        double coherences[] = coherence.calculateCoherences(wordsets);
-        corpusAdapter.close();
+        StreamingWordSetReader reader = null;
+        try {
+            if ("-".equals(inputFile)) {
+                reader = new StreamingWordSetReader(System.in);
+            } else {
+                reader = new StreamingWordSetReader(new File(inputFile));
+            }
+            pipeline.run(reader, System.out, checkpointFile);
+        } catch (IOException e) {
+            LOGGER.error("Error while calculating the coherences. Aborting.", e);
+        } finally {
+            IOUtils.closeQuietly(reader);
+            windowAdapter.close();
+        }
+        if (instrumentation != null) {
+            InstrumentationRegistry.set(null);
+            try {
+                FileUtils.writeStringToFile(instrumentationReportFile, instrumentation.createReport());
+            } catch (IOException e) {
+                LOGGER.error("Couldn't write instrumentation report.", e);
+            }
+        }
+    }
 
-        printCoherences(coherences, wordsets, System.out);
+    /**
+     * Creates a suite of the given coherences. If the given cache size is
+     * larger than 0, the values of the suite are cached. Note that the cache
+     * is applied on the level of the suite since decorated coherences could
+     * not share their probability models inside the suite.
+     */
+    public static CoherenceSuite createSuite(Coherence coherences[], int coherenceCacheSize) {
+        if (coherenceCacheSize > 0) {
+            return new CachingCoherenceSuite(coherenceCacheSize, coherences);
+        } else {
+            return new CoherenceSuite(coherences);
+        }
     }
 
     public static CorpusAdapter getCorpusAdapter(String calcType, String indexPath) {
@@ -114,12 +223,9 @@ public class Palmetto {
         }
 
         if ("c_a".equals(calcType)) {
-            int windowSize = 5;
-            WindowBasedProbabilityEstimator probEstimator = new WindowBasedProbabilityEstimator(
-                    new ContextWindowFrequencyDeterminer((WindowSupportingAdapter) corpusAdapter, windowSize));
-            probEstimator.setMinFrequency(WindowBasedProbabilityEstimator.DEFAULT_MIN_FREQUENCY * windowSize);
             return new VectorBasedCoherence(
-                    new OneOne(), new DirectConfirmationBasedVectorCreator(probEstimator,
+                    new OneOne(), new DirectConfirmationBasedVectorCreator(
+                            getContextWindowBasedProbabilityEstimator(5, (WindowSupportingAdapter) corpusAdapter),
                             new NormalizedLogRatioConfirmationMeasure()), new CosinusConfirmationMeasure(),
                     new ArithmeticMean());
         }
@@ -153,6 +259,16 @@ public class Palmetto {
                 new BooleanSlidingWindowFrequencyDeterminer(
                         corpusAdapter, windowSize));
         probEstimator.setMinFrequency(WindowBasedProbabilityEstimator.DEFAULT_MIN_FREQUENCY * windowSize);
+        probEstimator.setTermDictionary(WindowBasedProbabilityEstimator.getTermDictionary(corpusAdapter));
+        return probEstimator;
+    }
+
+    public static WindowBasedProbabilityEstimator getContextWindowBasedProbabilityEstimator(int windowSize,
+            WindowSupportingAdapter corpusAdapter) {
+        WindowBasedProbabilityEstimator probEstimator = new WindowBasedProbabilityEstimator(
+                new ContextWindowFrequencyDeterminer(corpusAdapter, windowSize));
+        probEstimator.setMinFrequency(WindowBasedProbabilityEstimator.DEFAULT_MIN_FREQUENCY * windowSize);
+        probEstimator.setTermDictionary(WindowBasedProbabilityEstimator.getTermDictionary(corpusAdapter));
         return probEstimator;
     }
 
@@ -0,0 +1,187 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import org.aksw.palmetto.io.StreamingWordSetReader;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A pipeline that calculates the coherences of a stream of word sets with a
+ * bounded amount of memory. The word sets are read lazily and are processed
+ * in chunks of a fixed size. The results of a chunk are written before the
+ * next chunk is read. If a checkpoint file is given, the number of consumed
+ * input lines is stored in it after every chunk so that an interrupted run
+ * can be resumed by appending the output of a second run with the same
+ * checkpoint file to the output of the first run.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class StreamingCoherencePipeline {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StreamingCoherencePipeline.class);
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private static final Charset CHECKPOINT_CHARSET = Charset.forName("UTF-8");
+
+    protected CoherenceSuite suite;
+    protected int chunkSize;
+
+    public StreamingCoherencePipeline(CoherenceSuite suite) {
+        this(suite, DEFAULT_CHUNK_SIZE);
+    }
+
+    public StreamingCoherencePipeline(CoherenceSuite suite, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("The chunk size has to be at least 1.");
+        }
+        this.suite = suite;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Calculates the coherences of all word sets of the given reader and
+     * writes them to the given stream.
+     * 
+     * @return the number of word sets that have been processed
+     */
+    public long run(StreamingWordSetReader reader, PrintStream out) throws IOException {
+        return run(reader, out, null);
+    }
+
+    /**
+     * Calculates the coherences of all word sets of the given reader and
+     * writes them to the given stream. If the given checkpoint file exists,
+     * the lines that have been processed by a previous run are skipped.
+     * 
+     * @param checkpointFile
+     *            file in which the progress is stored after every chunk or
+     *            null if no checkpoints should be written
+     * @return the number of word sets that have been processed in this run
+     */
+    public long run(StreamingWordSetReader reader, PrintStream out, File checkpointFile) throws IOException {
+        long wordsetCount = 0;
+        boolean resumed = false;
+        if ((checkpointFile != null) && checkpointFile.exists()) {
+            long checkpoint[] = readCheckpoint(checkpointFile);
+            if (reader.skipLines(checkpoint[0]) < checkpoint[0]) {
+                throw new IOException("The input has less lines than the checkpoint \""
+                        + checkpointFile.getAbsolutePath() + "\" refers to.");
+            }
+            wordsetCount = checkpoint[1];
+            resumed = true;
+            LOGGER.info("Resuming after line {} ({} word sets have already been processed).", checkpoint[0],
+                    wordsetCount);
+        }
+        String names[] = suite.getNames();
+        if ((!resumed) && (names.length > 1)) {
+            printHeader(names, out);
+        }
+
+        String chunk[][] = new String[chunkSize][];
+        String wordsets[][];
+        double coherences[][];
+        long processedWordsets = 0;
+        int count = reader.readWordSets(chunk);
+        while (count > 0) {
+            wordsets = (count < chunk.length) ? Arrays.copyOf(chunk, count) : chunk;
+            coherences = suite.calculateCoherences(wordsets);
+            printCoherences(coherences, wordsets, wordsetCount, out);
+            out.flush();
+            if (out.checkError()) {
+                throw new IOException("Couldn't write the coherences.");
+            }
+            wordsetCount += count;
+            processedWordsets += count;
+            if (checkpointFile != null) {
+                writeCheckpoint(checkpointFile, reader.getLineCount(), wordsetCount);
+            }
+            LOGGER.debug("Processed {} word sets.", wordsetCount);
+            count = (count < chunk.length) ? 0 : reader.readWordSets(chunk);
+        }
+        LOGGER.info("Processed {} word sets.", processedWordsets);
+        return processedWordsets;
+    }
+
+    public static void printHeader(String names[], PrintStream out) {
+        out.print("    #");
+        for (int c = 0; c < names.length; ++c) {
+            out.print('\t');
+            out.print(names[c]);
+        }
+        out.println("\twords");
+    }
+
+    /**
+     * Prints one line per word set containing its id, its coherence values
+     * and the words.
+     * 
+     * @param firstId
+     *            the id of the first word set
+     */
+    public static void printCoherences(double[][] coherences, String[][] wordsets, long firstId, PrintStream out) {
+        for (int i = 0; i < wordsets.length; i++) {
+            out.format("%5d", firstId + i);
+            for (int c = 0; c < coherences.length; ++c) {
+                out.format("\t%3.5f", coherences[c][i]);
+            }
+            out.format("\t%s%n", Arrays.toString(wordsets[i]));
+        }
+    }
+
+    /**
+     * Reads the checkpoint file and returns the number of consumed lines and
+     * the number of processed word sets.
+     */
+    protected static long[] readCheckpoint(File checkpointFile) throws IOException {
+        String content = FileUtils.readFileToString(checkpointFile, CHECKPOINT_CHARSET.name()).trim();
+        String values[] = content.split("\\s+");
+        if (values.length != 2) {
+            throw new IOException("The checkpoint \"" + checkpointFile.getAbsolutePath() + "\" is malformed.");
+        }
+        try {
+            return new long[] { Long.parseLong(values[0]), Long.parseLong(values[1]) };
+        } catch (NumberFormatException e) {
+            throw new IOException("The checkpoint \"" + checkpointFile.getAbsolutePath() + "\" is malformed.", e);
+        }
+    }
+
+    /**
+     * Writes the checkpoint to a temporary file which replaces the checkpoint
+     * file afterwards. Thus, the checkpoint file is never left in an
+     * incomplete state.
+     */
+    protected static void writeCheckpoint(File checkpointFile, long lineCount, long wordsetCount)
+            throws IOException {
+        File tempFile = new File(checkpointFile.getAbsolutePath() + ".tmp");
+        FileUtils.writeStringToFile(tempFile, lineCount + " " + wordsetCount, CHECKPOINT_CHARSET.name());
+        Files.move(tempFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+}
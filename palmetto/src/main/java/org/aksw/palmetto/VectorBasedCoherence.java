@@ -18,13 +18,25 @@
 package org.aksw.palmetto;
 
 import org.aksw.palmetto.aggregation.Aggregation;
+import org.aksw.palmetto.aggregation.AggregationAccumulator;
+import org.aksw.palmetto.aggregation.BufferingAggregationAccumulator;
+import org.aksw.palmetto.calculations.indirect.AccumulatingVectorBasedConfirmationMeasure;
 import org.aksw.palmetto.calculations.indirect.VectorBasedConfirmationMeasure;
 import org.aksw.palmetto.data.SegmentationDefinition;
 import org.aksw.palmetto.data.SubsetVectors;
+import org.aksw.palmetto.instrumentation.FlightRecorderEvent;
+import org.aksw.palmetto.instrumentation.Instrumentation;
+import org.aksw.palmetto.instrumentation.InstrumentationRegistry;
+import org.aksw.palmetto.instrumentation.PalmettoEvents;
+import org.aksw.palmetto.instrumentation.Stage;
+import org.aksw.palmetto.subsets.LazySegmentator;
+import org.aksw.palmetto.subsets.SegmentationPlanCache;
 import org.aksw.palmetto.subsets.Segmentator;
 import org.aksw.palmetto.vector.VectorCreator;
 import org.aksw.palmetto.weight.Weighter;
 
+import com.carrotsearch.hppc.BitSet;
+
 /**
  * This is a vector-based coherence measure.
  * 
@@ -57,10 +69,24 @@ public class VectorBasedCoherence implements Coherence {
     @Deprecated
     protected Weighter weighter;
 
+    /**
+     * The compiled segmentation plans of the segmentator.
+     */
+    protected SegmentationPlanCache plans;
+
+    /**
+     * If the segmentation is a {@link LazySegmentator} and the confirmation
+     * measure is able to accumulate its values, word sets with more subset
+     * pairs than this threshold are segmented lazily, i.e., their pairs are
+     * never materialized.
+     */
+    protected long lazySegmentationThreshold = DirectConfirmationBasedCoherence.DEFAULT_LAZY_SEGMENTATION_THRESHOLD;
+
     @Deprecated
     public VectorBasedCoherence(Segmentator segmentator, VectorCreator vectorCreator,
             VectorBasedConfirmationMeasure confirmation, Aggregation aggregation, Weighter weighter) {
         this.segmentator = segmentator;
+        this.plans = new SegmentationPlanCache(segmentator);
         this.vectorCreator = vectorCreator;
         this.confirmation = confirmation;
         this.aggregation = aggregation;
@@ -70,6 +96,7 @@ public class VectorBasedCoherence implements Coherence {
     public VectorBasedCoherence(Segmentator segmentator, VectorCreator vectorCreator,
             VectorBasedConfirmationMeasure confirmation, Aggregation aggregation) {
         this.segmentator = segmentator;
+        this.plans = new SegmentationPlanCache(segmentator);
         this.vectorCreator = vectorCreator;
         this.confirmation = confirmation;
         this.aggregation = aggregation;
@@ -77,30 +104,113 @@ public class VectorBasedCoherence implements Coherence {
 
     @Override
     public double[] calculateCoherences(String[][] wordsets) {
+        FlightRecorderEvent event = PalmettoEvents.TOPIC_EVALUATION.begin();
         // create subset definitions
         SegmentationDefinition definitions[] = new SegmentationDefinition[wordsets.length];
         for (int i = 0; i < definitions.length; i++) {
-            definitions[i] = segmentator.getSubsetDefinition(wordsets[i].length);
+            definitions[i] = getSubsetDefinition(wordsets[i].length);
         }
 
         // get the probabilities
         SubsetVectors vectors[] = vectorCreator.getVectors(wordsets, definitions);
         definitions = null;
 
+        double coherences[] = calculateCoherences(vectors);
+        if (event != null) {
+            event.set(PalmettoEvents.TOPIC_EVALUATION_COHERENCE, getName());
+            event.set(PalmettoEvents.TOPIC_EVALUATION_TOPICS, PalmettoEvents.toString(wordsets));
+            event.set(PalmettoEvents.TOPIC_EVALUATION_NUMBER_OF_TOPICS, wordsets.length);
+            event.commit();
+        }
+        return coherences;
+    }
+
+    /**
+     * Calculates the coherences based on the given vectors. If the
+     * confirmation measure is able to accumulate its values, they are
+     * streamed directly into the aggregation.
+     */
+    protected double[] calculateCoherences(SubsetVectors vectors[]) {
+        Instrumentation instrumentation = InstrumentationRegistry.get();
+        long start = instrumentation.start();
         double coherences[] = new double[vectors.length];
         if (weighter != null) {
             for (int i = 0; i < vectors.length; i++) {
                 coherences[i] = aggregation.summarize(confirmation.calculateConfirmationValues(vectors[i]),
                         weighter.createWeights(vectors[i]));
             }
+        } else if (confirmation instanceof AccumulatingVectorBasedConfirmationMeasure) {
+            AccumulatingVectorBasedConfirmationMeasure measure;
+            measure = (AccumulatingVectorBasedConfirmationMeasure) confirmation;
+            AggregationAccumulator accumulator = BufferingAggregationAccumulator.create(aggregation);
+            int wordsetSize;
+            for (int i = 0; i < vectors.length; i++) {
+                wordsetSize = vectors[i].getNumberOfVectors();
+                if (isSegmentedLazily(wordsetSize)) {
+                    coherences[i] = measure.aggregateConfirmationValues(vectors[i],
+                            ((LazySegmentator) segmentator).getSegmentationIterator(wordsetSize), accumulator);
+                } else {
+                    coherences[i] = measure.aggregateConfirmationValues(vectors[i], accumulator);
+                }
+            }
         } else {
             for (int i = 0; i < vectors.length; i++) {
                 coherences[i] = aggregation.summarize(confirmation.calculateConfirmationValues(vectors[i]));
             }
         }
+        instrumentation.stageFinished(Stage.CONFIRMATION_AGGREGATION, start);
         return coherences;
     }
 
+    /**
+     * Returns the definition for word sets of the given size. If the word
+     * sets are segmented lazily, the definition contains no subset pairs and
+     * only the counts of the single words and word pairs, which are needed to
+     * create the word vectors.
+     */
+    protected SegmentationDefinition getSubsetDefinition(int wordsetSize) {
+        if (isSegmentedLazily(wordsetSize)) {
+            BitSet neededCounts = new BitSet(1 << wordsetSize);
+            for (int i = 0; i < wordsetSize; ++i) {
+                neededCounts.set(1 << i);
+                for (int j = i + 1; j < wordsetSize; ++j) {
+                    neededCounts.set((1 << i) | (1 << j));
+                }
+            }
+            return new SegmentationDefinition(new int[0], new int[0][0], neededCounts);
+        } else {
+            return plans.getSubsetDefinition(wordsetSize);
+        }
+    }
+
+    /**
+     * Returns true if word sets with the given size are segmented lazily.
+     */
+    protected boolean isSegmentedLazily(int wordsetSize) {
+        return (weighter == null) && (confirmation instanceof AccumulatingVectorBasedConfirmationMeasure)
+                && (segmentator instanceof LazySegmentator)
+                && (((LazySegmentator) segmentator).getNumberOfPairs(wordsetSize) > lazySegmentationThreshold);
+    }
+
+    public long getLazySegmentationThreshold() {
+        return lazySegmentationThreshold;
+    }
+
+    /**
+     * Sets the number of subset pairs above which word sets are segmented
+     * lazily if the segmentation is a {@link LazySegmentator}.
+     */
+    public void setLazySegmentationThreshold(long lazySegmentationThreshold) {
+        this.lazySegmentationThreshold = lazySegmentationThreshold;
+    }
+
+    /**
+     * Returns the cache of the compiled segmentation plans of this coherence.
+     */
+    public SegmentationPlanCache getPlanCache() {
+        return plans;
+    }
+
     @Override
     public String getName() {
         StringBuilder builder = new StringBuilder();
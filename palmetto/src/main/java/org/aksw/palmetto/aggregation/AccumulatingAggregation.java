@@ -0,0 +1,39 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.aggregation;
+
+/**
+ * An aggregation that is able to aggregate a stream of values using an
+ * {@link AggregationAccumulator}.
+ * 
+ * @author m.roeder
+ * 
+ */
+public interface AccumulatingAggregation extends Aggregation {
+
+    /**
+     * Creates a new accumulator for this aggregation. The result of the
+     * accumulator has to be the same as the result of
+     * {@link #summarize(double[])} for the same values unless the
+     * aggregation has been explicitly configured to approximate its result
+     * (e.g., {@link Median#Median(boolean)}).
+     * 
+     * @return a new accumulator
+     */
+    public AggregationAccumulator createAccumulator();
+}
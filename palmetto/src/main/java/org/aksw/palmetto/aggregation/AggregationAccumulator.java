@@ -0,0 +1,51 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.aggregation;
+
+/**
+ * An accumulator aggregates a stream of confirmation values without storing
+ * them in an intermediate array. An accumulator is not thread safe but can be
+ * reused for several aggregations by calling {@link #reset()} before every
+ * new aggregation.
+ * 
+ * @author m.roeder
+ * 
+ */
+public interface AggregationAccumulator {
+
+    /**
+     * Removes all values that have been added before.
+     */
+    public void reset();
+
+    /**
+     * Adds the given confirmation value.
+     * 
+     * @param value
+     *            confirmation value that should be aggregated
+     */
+    public void add(double value);
+
+    /**
+     * Returns the aggregation of all values that have been added since the
+     * last reset.
+     * 
+     * @return aggregated value
+     */
+    public double getResult();
+}
@@ -17,7 +17,7 @@
  */
 package org.aksw.palmetto.aggregation;
 
-public class ArithmeticMean implements Aggregation {
+public class ArithmeticMean implements AccumulatingAggregation {
 
     @Override
     public double summarize(double[] values) {
@@ -54,4 +54,35 @@ public class ArithmeticMean implements Aggregation {
             return 0;
         }
     }
+
+    @Override
+    public AggregationAccumulator createAccumulator() {
+        return new ArithmeticMeanAccumulator();
+    }
+
+    /**
+     * Sums up the values and counts them.
+     */
+    protected static class ArithmeticMeanAccumulator implements AggregationAccumulator {
+
+        private double sum = 0;
+        private int count = 0;
+
+        @Override
+        public void reset() {
+            sum = 0;
+            count = 0;
+        }
+
+        @Override
+        public void add(double value) {
+            sum += value;
+            ++count;
+        }
+
+        @Override
+        public double getResult() {
+            return sum / (double) count;
+        }
+    }
 }
@@ -0,0 +1,67 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.aggregation;
+
+import com.carrotsearch.hppc.DoubleArrayList;
+
+/**
+ * Adapter that makes every {@link Aggregation} usable as
+ * {@link AggregationAccumulator}. The values are collected in an internal
+ * buffer that is reused after a reset and a copy of it is handed to the
+ * aggregation. Thus, aggregations that change the given array (e.g., the
+ * {@link Median}) do not influence the buffer.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class BufferingAggregationAccumulator implements AggregationAccumulator {
+
+    /**
+     * Returns the accumulator of the given aggregation if it is an
+     * {@link AccumulatingAggregation} or a buffering adapter, otherwise.
+     */
+    public static AggregationAccumulator create(Aggregation aggregation) {
+        if (aggregation instanceof AccumulatingAggregation) {
+            return ((AccumulatingAggregation) aggregation).createAccumulator();
+        } else {
+            return new BufferingAggregationAccumulator(aggregation);
+        }
+    }
+
+    private Aggregation aggregation;
+    private DoubleArrayList buffer = new DoubleArrayList();
+
+    public BufferingAggregationAccumulator(Aggregation aggregation) {
+        this.aggregation = aggregation;
+    }
+
+    @Override
+    public void reset() {
+        buffer.elementsCount = 0;
+    }
+
+    @Override
+    public void add(double value) {
+        buffer.add(value);
+    }
+
+    @Override
+    public double getResult() {
+        return aggregation.summarize(buffer.toArray());
+    }
+}
@@ -17,7 +17,7 @@
  */
 package org.aksw.palmetto.aggregation;
 
-public class GeometricMean implements Aggregation {
+public class GeometricMean implements AccumulatingAggregation {
 
     @Override
     public double summarize(double[] values) {
@@ -64,4 +64,46 @@ public class GeometricMean implements Aggregation {
             return 0;
         }
     }
+
+    @Override
+    public AggregationAccumulator createAccumulator() {
+        return new GeometricMeanAccumulator();
+    }
+
+    /**
+     * Sums up the logarithms of the values and remembers whether a value
+     * has been seen for which the geometric mean is not defined.
+     */
+    protected static class GeometricMeanAccumulator implements AggregationAccumulator {
+
+        private double logSum = 0;
+        private int count = 0;
+        private boolean undefined = false;
+
+        @Override
+        public void reset() {
+            logSum = 0;
+            count = 0;
+            undefined = false;
+        }
+
+        @Override
+        public void add(double value) {
+            if (value <= 0) {
+                // the geometric mean is not defined for negative numbers
+                undefined = true;
+            } else {
+                logSum += Math.log(value);
+            }
+            ++count;
+        }
+
+        @Override
+        public double getResult() {
+            if (undefined) {
+                return 0;
+            }
+            return Math.exp(logSum / count);
+        }
+    }
 }
@@ -17,7 +17,7 @@
  */
 package org.aksw.palmetto.aggregation;
 
-public class HarmonicMean implements Aggregation {
+public class HarmonicMean implements AccumulatingAggregation {
 
     @Override
     public double summarize(double[] values) {
@@ -66,4 +66,46 @@ public class HarmonicMean implements Aggregation {
             return weightSum / sum;
         }
     }
+
+    @Override
+    public AggregationAccumulator createAccumulator() {
+        return new HarmonicMeanAccumulator();
+    }
+
+    /**
+     * Sums up the reciprocals of the values and counts them.
+     */
+    protected static class HarmonicMeanAccumulator implements AggregationAccumulator {
+
+        private double sum = 0;
+        private int count = 0;
+        private boolean containsZero = false;
+
+        @Override
+        public void reset() {
+            sum = 0;
+            count = 0;
+            containsZero = false;
+        }
+
+        @Override
+        public void add(double value) {
+            if (value == 0) {
+                // if one if the values is 0 the harmonic mean goes against 0
+                containsZero = true;
+            } else {
+                sum += 1.0 / value;
+            }
+            ++count;
+        }
+
+        @Override
+        public double getResult() {
+            if (containsZero || (sum == 0)) {
+                return 0;
+            } else {
+                return count / sum;
+            }
+        }
+    }
 }
@@ -17,7 +17,7 @@
  */
 package org.aksw.palmetto.aggregation;
 
-public class Max implements Aggregation {
+public class Max implements AccumulatingAggregation {
 
     @Override
     public double summarize(double[] values) {
@@ -55,4 +55,33 @@ public class Max implements Aggregation {
         }
     }
 
+    @Override
+    public AggregationAccumulator createAccumulator() {
+        return new MaxAccumulator();
+    }
+
+    /**
+     * Keeps the largest value.
+     */
+    protected static class MaxAccumulator implements AggregationAccumulator {
+
+        private double max = Double.NEGATIVE_INFINITY;
+
+        @Override
+        public void reset() {
+            max = Double.NEGATIVE_INFINITY;
+        }
+
+        @Override
+        public void add(double value) {
+            if (value > max) {
+                max = value;
+            }
+        }
+
+        @Override
+        public double getResult() {
+            return max;
+        }
+    }
 }
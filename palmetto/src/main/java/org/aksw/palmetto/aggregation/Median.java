@@ -21,20 +21,54 @@ import java.util.Arrays;
 
 import com.carrotsearch.hppc.DoubleArrayList;
 
-public class Median implements Aggregation {
+/**
+ * The median of the given values. It is determined with a quickselect in
+ * expected linear time instead of sorting the values.
+ * 
+ * <p>
+ * The accumulators of this aggregation can work in two modes. By default,
+ * they buffer the values and determine the exact median. If the approximate
+ * accumulation is enabled, they use the P² algorithm (Jain and Chlamtac,
+ * 1985) that estimates the median based on five markers, i.e., with constant
+ * memory regardless of the number of aggregated values.
+ * </p>
+ * 
+ * @author m.roeder
+ * 
+ */
+public class Median implements AccumulatingAggregation {
+
+    private static final String EMPTY_ARRAY_ERROR_MSG = "The given array has to have at least one element to determine the modus.";
+
+    /**
+     * Flag whether the accumulators created by this aggregation estimate
+     * the median instead of determining it exactly.
+     */
+    private boolean approximateAccumulation;
+
+    public Median() {
+        this(false);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param approximateAccumulation
+     *            true if the accumulators created by this aggregation should
+     *            estimate the median with constant memory instead of
+     *            buffering all values
+     */
+    public Median(boolean approximateAccumulation) {
+        this.approximateAccumulation = approximateAccumulation;
+    }
 
     @Override
     public double summarize(double[] values) {
         if (values.length == 0) {
-            throw new IllegalArgumentException(
-                    "The given array has to have at least one element to determine the modus.");
-        }
-        Arrays.sort(values);
-        if ((values.length & 1) > 0) {
-            return values[values.length / 2];
-        } else {
-            return (values[values.length / 2] + values[(values.length / 2) - 1]) / 2;
+            throw new IllegalArgumentException(EMPTY_ARRAY_ERROR_MSG);
         }
+        // the selection reorders the values, i.e., the given array is not used
+        return median(values.clone(), values.length);
     }
 
     @Override
@@ -45,8 +79,7 @@ public class Median implements Aggregation {
     @Override
     public double summarize(double[] values, double[] weights) {
         if (values.length == 0) {
-            throw new IllegalArgumentException(
-                    "The given array has to have at least one element to determine the modus.");
+            throw new IllegalArgumentException(EMPTY_ARRAY_ERROR_MSG);
         }
         DoubleArrayList weightedValues = new DoubleArrayList(values.length);
         for (int i = 0; i < values.length; ++i) {
@@ -57,13 +90,303 @@ public class Median implements Aggregation {
         if (weightedValues.size() == 0) {
             return 0;
         }
-        double weightedValuesAsArray[] = weightedValues.toArray();
-        Arrays.sort(weightedValuesAsArray);
-        if ((weightedValuesAsArray.length & 1) > 0) {
-            return weightedValuesAsArray[weightedValuesAsArray.length / 2];
+        return median(weightedValues.buffer, weightedValues.elementsCount);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>
+     * Note that if the approximate accumulation is enabled, the result of the
+     * accumulator is only an estimation of the median if more than five
+     * values have been added.
+     * </p>
+     */
+    @Override
+    public AggregationAccumulator createAccumulator() {
+        if (approximateAccumulation) {
+            return new P2MedianAccumulator();
         } else {
-            return (weightedValuesAsArray[weightedValuesAsArray.length / 2] + weightedValuesAsArray[(weightedValuesAsArray.length / 2) - 1]) / 2.0;
+            return new MedianAccumulator();
         }
     }
 
+    public boolean isApproximateAccumulation() {
+        return approximateAccumulation;
+    }
+
+    /**
+     * Determines the median of the first length values of the given array.
+     * The order of these values is changed. As it would be the case for a
+     * sorted array, NaN values are treated as the largest values.
+     * 
+     * @param values
+     *            the array containing the values
+     * @param length
+     *            the number of values that should be used (has to be larger
+     *            than 0)
+     * @return the median of the values
+     */
+    protected static double median(double values[], int length) {
+        // move NaN values to the end of the array
+        int end = length;
+        int i = 0;
+        while (i < end) {
+            if (Double.isNaN(values[i])) {
+                --end;
+                values[i] = values[end];
+                values[end] = Double.NaN;
+            } else {
+                ++i;
+            }
+        }
+        int upperMiddle = length / 2;
+        if (upperMiddle >= end) {
+            return Double.NaN;
+        }
+        double upperValue = select(values, end, upperMiddle);
+        if ((length & 1) > 0) {
+            return upperValue;
+        }
+        // after the selection, the values in front of the upper middle are
+        // not larger than it. Thus, the lower middle is their maximum.
+        double lowerValue = values[0];
+        for (i = 1; i < upperMiddle; ++i) {
+            if (values[i] > lowerValue) {
+                lowerValue = values[i];
+            }
+        }
+        return (upperValue + lowerValue) / 2.0;
+    }
+
+    /**
+     * Moves the k-th smallest of the first length values to position k and
+     * returns it. The values in front of it are not larger and the values
+     * behind it are not smaller. The array must not contain NaN values.
+     */
+    protected static double select(double values[], int length, int k) {
+        int left = 0, right = length - 1;
+        int middle, i, j;
+        double pivot, temp;
+        while (left < right) {
+            // use the median of the first, middle and last value as pivot
+            middle = (left + right) >>> 1;
+            if (values[middle] < values[left]) {
+                temp = values[middle];
+                values[middle] = values[left];
+                values[left] = temp;
+            }
+            if (values[right] < values[left]) {
+                temp = values[right];
+                values[right] = values[left];
+                values[left] = temp;
+            }
+            if (values[right] < values[middle]) {
+                temp = values[right];
+                values[right] = values[middle];
+                values[middle] = temp;
+            }
+            pivot = values[middle];
+            i = left;
+            j = right;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    ++i;
+                }
+                while (values[j] > pivot) {
+                    --j;
+                }
+                if (i <= j) {
+                    temp = values[i];
+                    values[i] = values[j];
+                    values[j] = temp;
+                    ++i;
+                    --j;
+                }
+            }
+            // values[left..j] <= pivot, values[j+1..i-1] == pivot and
+            // values[i..right] >= pivot
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return values[k];
+            }
+        }
+        return values[k];
+    }
+
+    /**
+     * Buffers the values and determines their exact median.
+     */
+    protected static class MedianAccumulator implements AggregationAccumulator {
+
+        private DoubleArrayList buffer = new DoubleArrayList();
+
+        @Override
+        public void reset() {
+            buffer.elementsCount = 0;
+        }
+
+        @Override
+        public void add(double value) {
+            buffer.add(value);
+        }
+
+        @Override
+        public double getResult() {
+            if (buffer.elementsCount == 0) {
+                throw new IllegalArgumentException(EMPTY_ARRAY_ERROR_MSG);
+            }
+            // the selection only reorders the buffer which does not change
+            // the median
+            return median(buffer.buffer, buffer.elementsCount);
+        }
+    }
+
+    /**
+     * Estimates the median using the P² algorithm. It keeps five markers
+     * (the minimum, the 25%, 50% and 75% quantiles and the maximum) whose
+     * heights are adjusted with a piecewise-parabolic prediction every time
+     * a new value is added. Until five values have been added, the exact
+     * median is returned.
+     * 
+     * <p>
+     * As for the exact median, NaN values are treated as the largest values.
+     * They are only counted and the median is NaN if at least half of the
+     * values are NaN. Otherwise, the median is located among the other values
+     * at a rank that might be higher than their middle. In this case, its
+     * height is interpolated linearly between the markers surrounding this
+     * rank.
+     * </p>
+     */
+    protected static class P2MedianAccumulator implements AggregationAccumulator {
+
+        private static final int NUMBER_OF_MARKERS = 5;
+        private static final double DESIRED_POSITION_INCREMENTS[] = { 0, 0.25, 0.5, 0.75, 1 };
+
+        private double heights[] = new double[NUMBER_OF_MARKERS];
+        private double positions[] = new double[NUMBER_OF_MARKERS];
+        private double desiredPositions[] = new double[NUMBER_OF_MARKERS];
+        private int count = 0;
+        private int nanCount = 0;
+
+        @Override
+        public void reset() {
+            count = 0;
+            nanCount = 0;
+        }
+
+        @Override
+        public void add(double value) {
+            if (Double.isNaN(value)) {
+                ++nanCount;
+                return;
+            }
+            if (count < NUMBER_OF_MARKERS) {
+                heights[count] = value;
+                ++count;
+                if (count == NUMBER_OF_MARKERS) {
+                    Arrays.sort(heights);
+                    for (int i = 0; i < NUMBER_OF_MARKERS; ++i) {
+                        positions[i] = i + 1;
+                        desiredPositions[i] = 1 + (4 * DESIRED_POSITION_INCREMENTS[i]);
+                    }
+                }
+                return;
+            }
+            // find the cell of the value and update the extreme markers
+            int cell;
+            if (value < heights[0]) {
+                heights[0] = value;
+                cell = 0;
+            } else if (value >= heights[NUMBER_OF_MARKERS - 1]) {
+                heights[NUMBER_OF_MARKERS - 1] = value;
+                cell = NUMBER_OF_MARKERS - 2;
+            } else {
+                cell = 0;
+                while (value >= heights[cell + 1]) {
+                    ++cell;
+                }
+            }
+            for (int i = cell + 1; i < NUMBER_OF_MARKERS; ++i) {
+                ++positions[i];
+            }
+            for (int i = 0; i < NUMBER_OF_MARKERS; ++i) {
+                desiredPositions[i] += DESIRED_POSITION_INCREMENTS[i];
+            }
+            ++count;
+            // adjust the heights of the inner markers if necessary
+            double delta, height;
+            int sign;
+            for (int i = 1; i < (NUMBER_OF_MARKERS - 1); ++i) {
+                delta = desiredPositions[i] - positions[i];
+                if (((delta >= 1) && ((positions[i + 1] - positions[i]) > 1))
+                        || ((delta <= -1) && ((positions[i - 1] - positions[i]) < -1))) {
+                    sign = (delta > 0) ? 1 : -1;
+                    height = parabolicPrediction(i, sign);
+                    if ((heights[i - 1] < height) && (height < heights[i + 1])) {
+                        heights[i] = height;
+                    } else {
+                        heights[i] = linearPrediction(i, sign);
+                    }
+                    positions[i] += sign;
+                }
+            }
+        }
+
+        private double parabolicPrediction(int i, int sign) {
+            return heights[i] + ((sign / (positions[i + 1] - positions[i - 1]))
+                    * ((((positions[i] - positions[i - 1]) + sign) * (heights[i + 1] - heights[i])
+                            / (positions[i + 1] - positions[i]))
+                            + (((positions[i + 1] - positions[i]) - sign) * (heights[i] - heights[i - 1])
+                                    / (positions[i] - positions[i - 1]))));
+        }
+
+        private double linearPrediction(int i, int sign) {
+            return heights[i] + ((sign * (heights[i + sign] - heights[i])) / (positions[i + sign] - positions[i]));
+        }
+
+        @Override
+        public double getResult() {
+            int length = count + nanCount;
+            if (length == 0) {
+                throw new IllegalArgumentException(EMPTY_ARRAY_ERROR_MSG);
+            }
+            if (count < NUMBER_OF_MARKERS) {
+                double values[] = Arrays.copyOf(heights, length);
+                Arrays.fill(values, count, length, Double.NaN);
+                return median(values, length);
+            }
+            if (nanCount == 0) {
+                return heights[NUMBER_OF_MARKERS / 2];
+            }
+            int upperMiddle = length / 2;
+            if (upperMiddle >= count) {
+                return Double.NaN;
+            }
+            double upperValue = estimateValueAtRank(upperMiddle + 1);
+            if ((length & 1) > 0) {
+                return upperValue;
+            }
+            return (upperValue + estimateValueAtRank(upperMiddle)) / 2.0;
+        }
+
+        /**
+         * Interpolates the value with the given (1-based) rank among the
+         * values that are not NaN using the two surrounding markers.
+         */
+        private double estimateValueAtRank(double rank) {
+            int i = 1;
+            while ((i < (NUMBER_OF_MARKERS - 1)) && (positions[i] < rank)) {
+                ++i;
+            }
+            if (positions[i] <= rank) {
+                return heights[i];
+            }
+            return heights[i - 1] + (((rank - positions[i - 1]) * (heights[i] - heights[i - 1]))
+                    / (positions[i] - positions[i - 1]));
+        }
+    }
 }
@@ -17,7 +17,7 @@
  */
 package org.aksw.palmetto.aggregation;
 
-public class Min implements Aggregation {
+public class Min implements AccumulatingAggregation {
 
     @Override
     public double summarize(double[] values) {
@@ -54,4 +54,33 @@ public class Min implements Aggregation {
         }
     }
 
+    @Override
+    public AggregationAccumulator createAccumulator() {
+        return new MinAccumulator();
+    }
+
+    /**
+     * Keeps the smallest value.
+     */
+    protected static class MinAccumulator implements AggregationAccumulator {
+
+        private double min = Double.POSITIVE_INFINITY;
+
+        @Override
+        public void reset() {
+            min = Double.POSITIVE_INFINITY;
+        }
+
+        @Override
+        public void add(double value) {
+            if (value < min) {
+                min = value;
+            }
+        }
+
+        @Override
+        public double getResult() {
+            return min;
+        }
+    }
 }
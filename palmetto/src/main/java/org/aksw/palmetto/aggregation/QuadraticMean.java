@@ -17,7 +17,7 @@
  */
 package org.aksw.palmetto.aggregation;
 
-public class QuadraticMean implements Aggregation {
+public class QuadraticMean implements AccumulatingAggregation {
 
     @Override
     public double summarize(double[] values) {
@@ -57,4 +57,35 @@ public class QuadraticMean implements Aggregation {
             return 0;
         }
     }
+
+    @Override
+    public AggregationAccumulator createAccumulator() {
+        return new QuadraticMeanAccumulator();
+    }
+
+    /**
+     * Sums up the squared values and counts them.
+     */
+    protected static class QuadraticMeanAccumulator implements AggregationAccumulator {
+
+        private double sum = 0;
+        private int count = 0;
+
+        @Override
+        public void reset() {
+            sum = 0;
+            count = 0;
+        }
+
+        @Override
+        public void add(double value) {
+            sum += value * value;
+            ++count;
+        }
+
+        @Override
+        public double getResult() {
+            return Math.sqrt(sum / count);
+        }
+    }
 }
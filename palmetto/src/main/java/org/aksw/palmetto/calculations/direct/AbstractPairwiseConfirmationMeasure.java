@@ -0,0 +1,158 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.calculations.direct;
+
+import org.aksw.palmetto.aggregation.AggregationAccumulator;
+import org.aksw.palmetto.data.SubsetProbabilities;
+import org.aksw.palmetto.data.SubsetProbabilitiesBatch;
+import org.aksw.palmetto.subsets.SegmentationIterator;
+import org.aksw.palmetto.subsets.SegmentationPlan;
+
+/**
+ * Abstract class of all direct confirmation measures that calculate the
+ * confirmation of a single pair of W' and W* based on the probabilities P(W'),
+ * P(W*) and P(W',W*). It contains the loops over the subset pairs for the
+ * array based, the accumulating, the plan based and the batch calculation,
+ * i.e., subclasses only have to implement
+ * {@link #calculateConfirmation(double, double, double)}.
+ * 
+ * @author m.roeder
+ * 
+ */
+public abstract class AbstractPairwiseConfirmationMeasure extends AbstractUndefinedResultHandlingConfirmationMeasure
+        implements AccumulatingConfirmationMeasure {
+
+    public AbstractPairwiseConfirmationMeasure() {
+        super();
+    }
+
+    public AbstractPairwiseConfirmationMeasure(double resultIfCalcUndefined) {
+        super(resultIfCalcUndefined);
+    }
+
+    @Override
+    public double[] calculateConfirmationValues(SubsetProbabilities subsetProbabilities) {
+        int pos = 0;
+        for (int i = 0; i < subsetProbabilities.segments.length; ++i) {
+            pos += subsetProbabilities.conditions[i].length;
+        }
+        double values[] = new double[pos];
+
+        double probabilities[] = subsetProbabilities.probabilities;
+        int segment, condition;
+        pos = 0;
+        for (int i = 0; i < subsetProbabilities.segments.length; ++i) {
+            segment = subsetProbabilities.segments[i];
+            for (int j = 0; j < subsetProbabilities.conditions[i].length; ++j) {
+                condition = subsetProbabilities.conditions[i][j];
+                values[pos] = calculateConfirmation(probabilities[segment], probabilities[condition],
+                        probabilities[segment | condition]);
+                ++pos;
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public double aggregateConfirmationValues(SubsetProbabilities subsetProbabilities,
+            AggregationAccumulator accumulator) {
+        accumulator.reset();
+        double probabilities[] = subsetProbabilities.probabilities;
+        int segment, condition;
+        for (int i = 0; i < subsetProbabilities.segments.length; ++i) {
+            segment = subsetProbabilities.segments[i];
+            for (int j = 0; j < subsetProbabilities.conditions[i].length; ++j) {
+                condition = subsetProbabilities.conditions[i][j];
+                accumulator.add(calculateConfirmation(probabilities[segment], probabilities[condition],
+                        probabilities[segment | condition]));
+            }
+        }
+        return accumulator.getResult();
+    }
+
+    @Override
+    public double aggregateConfirmationValues(double probabilities[], SegmentationPlan plan,
+            AggregationAccumulator accumulator) {
+        return aggregateConfirmationValues(probabilities, 0, plan.getInstructions(), accumulator);
+    }
+
+    @Override
+    public double aggregateConfirmationValues(double probabilities[], SegmentationIterator pairs,
+            AggregationAccumulator accumulator) {
+        accumulator.reset();
+        int segment, condition;
+        while (pairs.next()) {
+            segment = pairs.getSegment();
+            condition = pairs.getCondition();
+            accumulator.add(calculateConfirmation(probabilities[segment], probabilities[condition],
+                    probabilities[segment | condition]));
+        }
+        return accumulator.getResult();
+    }
+
+    @Override
+    public void calculateConfirmationValues(double probabilities[], SegmentationPlan plan, double values[]) {
+        int instructions[] = plan.getInstructions();
+        int pos = 0;
+        for (int i = 0; i < instructions.length; i += 3) {
+            values[pos] = calculateConfirmation(probabilities[instructions[i]], probabilities[instructions[i + 1]],
+                    probabilities[instructions[i + 2]]);
+            ++pos;
+        }
+    }
+
+    @Override
+    public void aggregateConfirmationValues(SubsetProbabilitiesBatch batch, AggregationAccumulator accumulator,
+            double results[], int offset) {
+        int instructions[] = batch.plan.getInstructions();
+        int tableStart = 0;
+        for (int w = 0; w < batch.size; ++w) {
+            results[offset + w] = aggregateConfirmationValues(batch.probabilities, tableStart, instructions,
+                    accumulator);
+            tableStart += batch.numberOfSubsets;
+        }
+    }
+
+    /**
+     * Executes the given instructions on the probability table starting at the
+     * given position of the probabilities array.
+     */
+    protected double aggregateConfirmationValues(double probabilities[], int tableStart, int instructions[],
+            AggregationAccumulator accumulator) {
+        accumulator.reset();
+        for (int i = 0; i < instructions.length; i += 3) {
+            accumulator.add(calculateConfirmation(probabilities[tableStart + instructions[i]],
+                    probabilities[tableStart + instructions[i + 1]], probabilities[tableStart + instructions[i + 2]]));
+        }
+        return accumulator.getResult();
+    }
+
+    /**
+     * Calculates the confirmation of a single pair of W' and W*.
+     * 
+     * @param segmentProbability
+     *            P(W')
+     * @param conditionProbability
+     *            P(W*)
+     * @param intersectionProbability
+     *            P(W',W*)
+     * @return the confirmation value of the pair
+     */
+    protected abstract double calculateConfirmation(double segmentProbability, double conditionProbability,
+            double intersectionProbability);
+}
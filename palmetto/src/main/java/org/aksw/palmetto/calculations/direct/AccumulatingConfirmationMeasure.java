@@ -0,0 +1,112 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.calculations.direct;
+
+import org.aksw.palmetto.aggregation.AggregationAccumulator;
+import org.aksw.palmetto.data.SubsetProbabilities;
+import org.aksw.palmetto.data.SubsetProbabilitiesBatch;
+import org.aksw.palmetto.subsets.SegmentationIterator;
+import org.aksw.palmetto.subsets.SegmentationPlan;
+
+/**
+ * A direct confirmation measure that is able to stream its confirmation
+ * values directly into an {@link AggregationAccumulator} without creating an
+ * intermediate array.
+ * 
+ * @author m.roeder
+ * 
+ */
+public interface AccumulatingConfirmationMeasure extends DirectConfirmationMeasure {
+
+    /**
+     * Calculates the confirmation values for the given subset probabilities
+     * and aggregates them using the given accumulator. The accumulator is
+     * reset before it is used.
+     * 
+     * @param subsetProbabilities
+     *            subset probabilities used for the calculation
+     * @param accumulator
+     *            accumulator used to aggregate the confirmation values
+     * @return the aggregated confirmation value
+     */
+    public double aggregateConfirmationValues(SubsetProbabilities subsetProbabilities,
+            AggregationAccumulator accumulator);
+
+    /**
+     * Calculates the confirmation values of the subset pairs of the given plan
+     * and aggregates them using the given accumulator. The accumulator is
+     * reset before it is used.
+     * 
+     * @param probabilities
+     *            the probabilities of the subsets of the word set
+     * @param plan
+     *            the segmentation plan of the word set
+     * @param accumulator
+     *            accumulator used to aggregate the confirmation values
+     * @return the aggregated confirmation value
+     */
+    public double aggregateConfirmationValues(double probabilities[], SegmentationPlan plan,
+            AggregationAccumulator accumulator);
+
+    /**
+     * Calculates the confirmation values of the subset pairs returned by the
+     * given iterator and aggregates them using the given accumulator. The
+     * accumulator is reset before it is used.
+     * 
+     * @param probabilities
+     *            the probabilities of the subsets of the word set
+     * @param pairs
+     *            iterator over the subset pairs of the word set
+     * @param accumulator
+     *            accumulator used to aggregate the confirmation values
+     * @return the aggregated confirmation value
+     */
+    public double aggregateConfirmationValues(double probabilities[], SegmentationIterator pairs,
+            AggregationAccumulator accumulator);
+
+    /**
+     * Calculates the confirmation values of the subset pairs of the given plan
+     * and writes them into the given array.
+     * 
+     * @param probabilities
+     *            the probabilities of the subsets of the word set
+     * @param plan
+     *            the segmentation plan of the word set
+     * @param values
+     *            array with at least {@link SegmentationPlan#getNumberOfPairs()}
+     *            elements to which the values are written
+     */
+    public void calculateConfirmationValues(double probabilities[], SegmentationPlan plan, double values[]);
+
+    /**
+     * Calculates and aggregates the confirmation values for all word sets of
+     * the given batch.
+     * 
+     * @param batch
+     *            the probabilities of the word sets
+     * @param accumulator
+     *            accumulator used to aggregate the confirmation values
+     * @param results
+     *            array to which the aggregated values are written
+     * @param offset
+     *            position in the results array at which the value of the
+     *            first word set of the batch is written
+     */
+    public void aggregateConfirmationValues(SubsetProbabilitiesBatch batch, AggregationAccumulator accumulator,
+            double results[], int offset);
+}
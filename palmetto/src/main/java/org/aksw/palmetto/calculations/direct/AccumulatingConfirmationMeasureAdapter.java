@@ -0,0 +1,148 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.calculations.direct;
+
+import java.util.Arrays;
+
+import org.aksw.palmetto.aggregation.AggregationAccumulator;
+import org.aksw.palmetto.data.SubsetProbabilities;
+import org.aksw.palmetto.data.SubsetProbabilitiesBatch;
+import org.aksw.palmetto.subsets.SegmentationIterator;
+import org.aksw.palmetto.subsets.SegmentationPlan;
+
+/**
+ * Adapter that makes every {@link DirectConfirmationMeasure} usable as
+ * {@link AccumulatingConfirmationMeasure}. The values are calculated using
+ * {@link DirectConfirmationMeasure#calculateConfirmationValues(SubsetProbabilities)}
+ * and are added to the accumulator afterwards.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class AccumulatingConfirmationMeasureAdapter implements AccumulatingConfirmationMeasure {
+
+    /**
+     * The number of subset pairs that are handed to the measure at once if
+     * the pairs are generated lazily.
+     */
+    public static final int PAIRS_PER_CHUNK = 4096;
+
+    /**
+     * Returns the given measure if it is an
+     * {@link AccumulatingConfirmationMeasure} or an adapter for it,
+     * otherwise.
+     */
+    public static AccumulatingConfirmationMeasure create(DirectConfirmationMeasure measure) {
+        if (measure instanceof AccumulatingConfirmationMeasure) {
+            return (AccumulatingConfirmationMeasure) measure;
+        } else {
+            return new AccumulatingConfirmationMeasureAdapter(measure);
+        }
+    }
+
+    private DirectConfirmationMeasure measure;
+
+    public AccumulatingConfirmationMeasureAdapter(DirectConfirmationMeasure measure) {
+        this.measure = measure;
+    }
+
+    @Override
+    public double[] calculateConfirmationValues(SubsetProbabilities subsetProbabilities) {
+        return measure.calculateConfirmationValues(subsetProbabilities);
+    }
+
+    @Override
+    public double aggregateConfirmationValues(SubsetProbabilities subsetProbabilities,
+            AggregationAccumulator accumulator) {
+        accumulator.reset();
+        double values[] = measure.calculateConfirmationValues(subsetProbabilities);
+        for (int i = 0; i < values.length; ++i) {
+            accumulator.add(values[i]);
+        }
+        return accumulator.getResult();
+    }
+
+    @Override
+    public double aggregateConfirmationValues(double probabilities[], SegmentationPlan plan,
+            AggregationAccumulator accumulator) {
+        return aggregateConfirmationValues(new SubsetProbabilities(plan.definition.segments,
+                plan.definition.conditions, probabilities), accumulator);
+    }
+
+    /**
+     * Collects chunks of {@link #PAIRS_PER_CHUNK} pairs from the given
+     * iterator and calculates their confirmation values. Thus, the pairs are
+     * never materialized completely.
+     */
+    @Override
+    public double aggregateConfirmationValues(double probabilities[], SegmentationIterator pairs,
+            AggregationAccumulator accumulator) {
+        accumulator.reset();
+        int segments[] = new int[PAIRS_PER_CHUNK];
+        int conditions[][] = new int[PAIRS_PER_CHUNK][1];
+        int pairCount = 0;
+        boolean hasNext = pairs.next();
+        double values[];
+        while (hasNext) {
+            segments[pairCount] = pairs.getSegment();
+            conditions[pairCount][0] = pairs.getCondition();
+            ++pairCount;
+            hasNext = pairs.next();
+            if ((pairCount == PAIRS_PER_CHUNK) || ((!hasNext) && (pairCount > 0))) {
+                if (pairCount < PAIRS_PER_CHUNK) {
+                    segments = Arrays.copyOf(segments, pairCount);
+                    conditions = Arrays.copyOf(conditions, pairCount);
+                }
+                values = measure.calculateConfirmationValues(new SubsetProbabilities(segments, conditions,
+                        probabilities));
+                for (int i = 0; i < values.length; ++i) {
+                    accumulator.add(values[i]);
+                }
+                pairCount = 0;
+            }
+        }
+        return accumulator.getResult();
+    }
+
+    @Override
+    public void calculateConfirmationValues(double probabilities[], SegmentationPlan plan, double values[]) {
+        double calculatedValues[] = measure.calculateConfirmationValues(new SubsetProbabilities(
+                plan.definition.segments, plan.definition.conditions, probabilities));
+        System.arraycopy(calculatedValues, 0, values, 0, calculatedValues.length);
+    }
+
+    @Override
+    public void aggregateConfirmationValues(SubsetProbabilitiesBatch batch, AggregationAccumulator accumulator,
+            double results[], int offset) {
+        int tableStart = 0;
+        for (int w = 0; w < batch.size; ++w) {
+            results[offset + w] = aggregateConfirmationValues(Arrays.copyOfRange(batch.probabilities, tableStart,
+                    tableStart + batch.numberOfSubsets), batch.plan, accumulator);
+            tableStart += batch.numberOfSubsets;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return measure.getName();
+    }
+
+    public DirectConfirmationMeasure getMeasure() {
+        return measure;
+    }
+}
@@ -17,8 +17,6 @@
  */
 package org.aksw.palmetto.calculations.direct;
 
-import org.aksw.palmetto.data.SubsetProbabilities;
-
 /**
  * This confirmation measure calculates the difference of the conditional
  * probability of W' given W* and the conditional probability of W' given ¬W*.
@@ -28,7 +26,7 @@ import org.aksw.palmetto.data.SubsetProbabilities;
  * @author Michael Röder
  * 
  */
-public class FitelsonConfirmationMeasure extends AbstractUndefinedResultHandlingConfirmationMeasure {
+public class FitelsonConfirmationMeasure extends AbstractPairwiseConfirmationMeasure {
 
     public FitelsonConfirmationMeasure() {
         super();
@@ -39,45 +37,24 @@ public class FitelsonConfirmationMeasure extends AbstractUndefinedResultHandling
     }
 
     @Override
-    public double[] calculateConfirmationValues(SubsetProbabilities subsetProbabilities) {
-        int pos = 0;
-        for (int i = 0; i < subsetProbabilities.segments.length; ++i) {
-            pos += subsetProbabilities.conditions[i].length;
+    protected double calculateConfirmation(double segmentProbability, double conditionProbability,
+            double intersectionProbability) {
+        double conditionalProbability, otherCondProb;
+        if (conditionProbability > 0) {
+            conditionalProbability = intersectionProbability / conditionProbability;
+        } else {
+            conditionalProbability = 0;
         }
-        double values[] = new double[pos];
-
-        double segmentProbability,
-                intersectionProbability,
-                conditionProbability,
-                conditionalProbability,
-                otherCondProb;
-        pos = 0;
-        for (int i = 0; i < subsetProbabilities.segments.length; ++i) {
-            segmentProbability = subsetProbabilities.probabilities[subsetProbabilities.segments[i]];
-            for (int j = 0; j < subsetProbabilities.conditions[i].length; ++j) {
-                conditionProbability = subsetProbabilities.probabilities[subsetProbabilities.conditions[i][j]];
-                intersectionProbability = subsetProbabilities.probabilities[subsetProbabilities.segments[i]
-                        | subsetProbabilities.conditions[i][j]];
-                if (conditionProbability > 0) {
-                    conditionalProbability = intersectionProbability
-                            / subsetProbabilities.probabilities[subsetProbabilities.conditions[i][j]];
-                } else {
-                    conditionalProbability = 0;
-                }
-                if (conditionProbability < 1) {
-                    otherCondProb = (segmentProbability - intersectionProbability) / (1 - conditionProbability);
-                } else {
-                    otherCondProb = 0;
-                }
-                if ((conditionalProbability > 0) || (otherCondProb > 0)) {
-                    values[pos] = (conditionalProbability - otherCondProb) / (conditionalProbability + otherCondProb);
-                } else {
-                    values[pos] = resultIfCalcUndefined;
-                }
-                ++pos;
-            }
+        if (conditionProbability < 1) {
+            otherCondProb = (segmentProbability - intersectionProbability) / (1 - conditionProbability);
+        } else {
+            otherCondProb = 0;
+        }
+        if ((conditionalProbability > 0) || (otherCondProb > 0)) {
+            return (conditionalProbability - otherCondProb) / (conditionalProbability + otherCondProb);
+        } else {
+            return resultIfCalcUndefined;
         }
-        return values;
     }
 
     @Override
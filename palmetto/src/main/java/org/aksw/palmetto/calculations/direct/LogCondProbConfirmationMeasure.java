@@ -17,8 +17,6 @@
  */
 package org.aksw.palmetto.calculations.direct;
 
-import org.aksw.palmetto.data.SubsetProbabilities;
-
 /**
  * This confirmation measure calculates the logarithm of the conditional
  * probability of W' given W*. result = log(P(W',W*)/P(W*))
@@ -26,7 +24,7 @@ import org.aksw.palmetto.data.SubsetProbabilities;
  * @author Michael Röder
  * 
  */
-public class LogCondProbConfirmationMeasure extends AbstractUndefinedResultHandlingConfirmationMeasure implements
+public class LogCondProbConfirmationMeasure extends AbstractPairwiseConfirmationMeasure implements
         LogBasedCalculation {
 
     /**
@@ -48,37 +46,17 @@ public class LogCondProbConfirmationMeasure extends AbstractUndefinedResultHandl
     }
 
     @Override
-    public double[] calculateConfirmationValues(SubsetProbabilities subsetProbabilities) {
-        int pos = 0;
-        for (int i = 0; i < subsetProbabilities.segments.length; ++i) {
-            pos += subsetProbabilities.conditions[i].length;
-        }
-        double values[] = new double[pos];
-
-        double segmentProbability,
-                conditionProbability,
-                intersectionProbability;
-        pos = 0;
-        for (int i = 0; i < subsetProbabilities.segments.length; ++i) {
-            segmentProbability = subsetProbabilities.probabilities[subsetProbabilities.segments[i]];
-            if (segmentProbability > 0) {
-                for (int j = 0; j < subsetProbabilities.conditions[i].length; ++j) {
-                    conditionProbability = subsetProbabilities.probabilities[subsetProbabilities.conditions[i][j]];
-                    intersectionProbability = subsetProbabilities.probabilities[subsetProbabilities.segments[i]
-                            | subsetProbabilities.conditions[i][j]];
-                    if (conditionProbability > 0) {
-                        values[pos] = Math.log((intersectionProbability + LogBasedCalculation.EPSILON)
-                                / conditionProbability);
-                    } else {
-                        values[pos] = resultIfCalcUndefined;
-                    }
-                    ++pos;
-                }
+    protected double calculateConfirmation(double segmentProbability, double conditionProbability,
+            double intersectionProbability) {
+        if (segmentProbability > 0) {
+            if (conditionProbability > 0) {
+                return Math.log((intersectionProbability + LogBasedCalculation.EPSILON) / conditionProbability);
             } else {
-                pos += subsetProbabilities.conditions[i].length;
+                return resultIfCalcUndefined;
             }
+        } else {
+            return 0;
         }
-        return values;
     }
 
     @Override
@@ -18,7 +18,6 @@
 package org.aksw.palmetto.calculations.direct;
 
 import org.aksw.palmetto.calculations.direct.LogBasedCalculation;
-import org.aksw.palmetto.data.SubsetProbabilities;
 
 /**
  * This confirmation measure calculates the logarithm of the ratio between the
@@ -32,7 +31,7 @@ import org.aksw.palmetto.data.SubsetProbabilities;
  * @author Michael Röder
  * 
  */
-public class LogRatioConfirmationMeasure extends AbstractUndefinedResultHandlingConfirmationMeasure implements
+public class LogRatioConfirmationMeasure extends AbstractPairwiseConfirmationMeasure implements
         LogBasedCalculation {
 
     public LogRatioConfirmationMeasure() {
@@ -44,40 +43,14 @@ public class LogRatioConfirmationMeasure extends AbstractUndefinedResultHandling
     }
 
     @Override
-    public double[] calculateConfirmationValues(SubsetProbabilities subsetProbabilities) {
-        int pos = 0;
-        for (int i = 0; i < subsetProbabilities.segments.length; ++i) {
-            pos += subsetProbabilities.conditions[i].length;
+    protected double calculateConfirmation(double segmentProbability, double conditionProbability,
+            double intersectionProbability) {
+        if ((segmentProbability > 0) && (conditionProbability > 0)) {
+            return Math.log((intersectionProbability + LogBasedCalculation.EPSILON)
+                    / (segmentProbability * conditionProbability));
+        } else {
+            return resultIfCalcUndefined;
         }
-        double values[] = new double[pos];
-
-        double segmentProbability,
-                conditionProbability,
-                intersectionProbability;
-        pos = 0;
-        for (int i = 0; i < subsetProbabilities.segments.length; ++i) {
-            segmentProbability = subsetProbabilities.probabilities[subsetProbabilities.segments[i]];
-            if (segmentProbability > 0) {
-                for (int j = 0; j < subsetProbabilities.conditions[i].length; ++j) {
-                    conditionProbability = subsetProbabilities.probabilities[subsetProbabilities.conditions[i][j]];
-                    intersectionProbability = subsetProbabilities.probabilities[subsetProbabilities.segments[i]
-                            | subsetProbabilities.conditions[i][j]];
-                    if (conditionProbability > 0) {
-                        values[pos] = Math.log((intersectionProbability + LogBasedCalculation.EPSILON)
-                                / (segmentProbability * conditionProbability));
-                    } else {
-                        values[pos] = resultIfCalcUndefined;
-                    }
-                    ++pos;
-                }
-            } else {
-                for (int j = 0; j < subsetProbabilities.conditions[i].length; ++j) {
-                    values[pos] = resultIfCalcUndefined;
-                    ++pos;
-                }
-            }
-        }
-        return values;
     }
 
     @Override
@@ -18,7 +18,6 @@
 package org.aksw.palmetto.calculations.direct;
 
 import org.aksw.palmetto.calculations.direct.LogBasedCalculation;
-import org.aksw.palmetto.data.SubsetProbabilities;
 
 /**
  * This confirmation measure calculates the logarithm of the ratio between the
@@ -34,7 +33,7 @@ import org.aksw.palmetto.data.SubsetProbabilities;
  * @author Michael Röder
  * 
  */
-public class NormalizedLogRatioConfirmationMeasure extends AbstractUndefinedResultHandlingConfirmationMeasure
+public class NormalizedLogRatioConfirmationMeasure extends AbstractPairwiseConfirmationMeasure
         implements LogBasedCalculation {
 
     public NormalizedLogRatioConfirmationMeasure() {
@@ -46,41 +45,15 @@ public class NormalizedLogRatioConfirmationMeasure extends AbstractUndefinedResu
     }
 
     @Override
-    public double[] calculateConfirmationValues(SubsetProbabilities subsetProbabilities) {
-        int pos = 0;
-        for (int i = 0; i < subsetProbabilities.segments.length; ++i) {
-            pos += subsetProbabilities.conditions[i].length;
+    protected double calculateConfirmation(double segmentProbability, double conditionProbability,
+            double intersectionProbability) {
+        if ((segmentProbability > 0) && (conditionProbability > 0)) {
+            intersectionProbability += LogBasedCalculation.EPSILON;
+            return Math.log(intersectionProbability / (segmentProbability * conditionProbability))
+                    / -Math.log(intersectionProbability);
+        } else {
+            return resultIfCalcUndefined;
         }
-        double values[] = new double[pos];
-
-        double segmentProbability,
-                conditionProbability,
-                intersectionProbability;
-        pos = 0;
-        for (int i = 0; i < subsetProbabilities.segments.length; ++i) {
-            segmentProbability = subsetProbabilities.probabilities[subsetProbabilities.segments[i]];
-            if (segmentProbability > 0) {
-                for (int j = 0; j < subsetProbabilities.conditions[i].length; ++j) {
-                    conditionProbability = subsetProbabilities.probabilities[subsetProbabilities.conditions[i][j]];
-                    intersectionProbability = subsetProbabilities.probabilities[subsetProbabilities.segments[i]
-                            | subsetProbabilities.conditions[i][j]];
-                    if (conditionProbability > 0) {
-                        intersectionProbability += LogBasedCalculation.EPSILON;
-                        values[pos] = Math.log(intersectionProbability / (segmentProbability * conditionProbability))
-                                / -Math.log(intersectionProbability);
-                    } else {
-                        values[pos] = resultIfCalcUndefined;
-                    }
-                    ++pos;
-                }
-            } else {
-                for (int j = 0; j < subsetProbabilities.conditions[i].length; ++j) {
-                    values[pos] = resultIfCalcUndefined;
-                    ++pos;
-                }
-            }
-        }
-        return values;
     }
 
     @Override
@@ -17,12 +17,22 @@
  */
 package org.aksw.palmetto.calculations.indirect;
 
+import java.util.Arrays;
+
+import org.aksw.palmetto.aggregation.AggregationAccumulator;
 import org.aksw.palmetto.data.SubsetVectors;
+import org.aksw.palmetto.subsets.SegmentationIterator;
 
 import com.carrotsearch.hppc.IntObjectOpenHashMap;
 
-public abstract class AbstractVectorBasedCalculation implements VectorBasedConfirmationMeasure {
+public abstract class AbstractVectorBasedCalculation implements AccumulatingVectorBasedConfirmationMeasure {
 
+    /**
+     * Calculates the similarities of the segmentation. If the subset vectors
+     * contain a flat matrix, the vectors of the single words are read
+     * directly from this matrix. Only the vectors of subsets with more than
+     * one word are created.
+     */
     @Override
     public double[] calculateConfirmationValues(SubsetVectors subsetVectors) {
         int pos = 0;
@@ -31,35 +41,182 @@ public abstract class AbstractVectorBasedCalculation implements VectorBasedConfi
         }
         double values[] = new double[pos];
 
+        int length = subsetVectors.getVectorLength();
+        double wordVectors[][] = getWordVectors(subsetVectors);
+        int offsets[] = getWordVectorOffsets(subsetVectors);
         IntObjectOpenHashMap<double[]> vectorCache = new IntObjectOpenHashMap<double[]>();
-        for (int i = 0; i < subsetVectors.vectors.length; ++i) {
-            vectorCache.put(1 << i, subsetVectors.vectors[i]);
-        }
-        double segmentVector[],
-                conditionVector[];
+        double segmentVector[];
+        int segmentOffset;
         pos = 0;
         for (int i = 0; i < subsetVectors.segments.length; ++i) {
-            if (vectorCache.containsKey(subsetVectors.segments[i])) {
-                segmentVector = vectorCache.lget();
-            } else {
-                segmentVector = createVector(subsetVectors.segments[i], subsetVectors.vectors);
-                vectorCache.put(subsetVectors.segments[i], segmentVector);
-            }
+            segmentVector = getVector(subsetVectors.segments[i], wordVectors, offsets, length, vectorCache);
+            segmentOffset = getVectorOffset(subsetVectors.segments[i], offsets);
             for (int j = 0; j < subsetVectors.conditions[i].length; ++j) {
-                if (vectorCache.containsKey(subsetVectors.conditions[i][j])) {
-                    conditionVector = vectorCache.lget();
-                } else {
-                    conditionVector = createVector(subsetVectors.conditions[i][j], subsetVectors.vectors);
-                    vectorCache.put(subsetVectors.conditions[i][j], conditionVector);
-                }
-                values[pos] = calculateSimilarity(segmentVector, conditionVector);
+                values[pos] = calculateSimilarity(segmentVector, segmentOffset,
+                        getVector(subsetVectors.conditions[i][j], wordVectors, offsets, length, vectorCache),
+                        getVectorOffset(subsetVectors.conditions[i][j], offsets), length);
                 ++pos;
             }
         }
         return values;
     }
 
-    protected abstract double calculateSimilarity(double[] vector1, double[] vector2);
+    @Override
+    public double aggregateConfirmationValues(SubsetVectors subsetVectors, AggregationAccumulator accumulator) {
+        accumulator.reset();
+        int length = subsetVectors.getVectorLength();
+        double wordVectors[][] = getWordVectors(subsetVectors);
+        int offsets[] = getWordVectorOffsets(subsetVectors);
+        IntObjectOpenHashMap<double[]> vectorCache = new IntObjectOpenHashMap<double[]>();
+        double segmentVector[];
+        int segmentOffset;
+        for (int i = 0; i < subsetVectors.segments.length; ++i) {
+            segmentVector = getVector(subsetVectors.segments[i], wordVectors, offsets, length, vectorCache);
+            segmentOffset = getVectorOffset(subsetVectors.segments[i], offsets);
+            for (int j = 0; j < subsetVectors.conditions[i].length; ++j) {
+                accumulator.add(calculateSimilarity(segmentVector, segmentOffset,
+                        getVector(subsetVectors.conditions[i][j], wordVectors, offsets, length, vectorCache),
+                        getVectorOffset(subsetVectors.conditions[i][j], offsets), length));
+            }
+        }
+        return accumulator.getResult();
+    }
+
+    /**
+     * Calculates the similarities of the pairs returned by the iterator. Since
+     * the number of subsets of a lazily segmented word set is large, the
+     * subset vectors are not cached. Instead, the vector of the current
+     * segment is kept until the iterator moves to the next segment and the
+     * vector of a condition is summed up in a reused buffer.
+     */
+    @Override
+    public double aggregateConfirmationValues(SubsetVectors subsetVectors, SegmentationIterator pairs,
+            AggregationAccumulator accumulator) {
+        accumulator.reset();
+        int length = subsetVectors.getVectorLength();
+        double wordVectors[][] = getWordVectors(subsetVectors);
+        int offsets[] = getWordVectorOffsets(subsetVectors);
+        double segmentBuffer[] = new double[length];
+        double conditionBuffer[] = new double[length];
+        double segmentVector[] = null;
+        int segment = 0, segmentOffset = 0, condition;
+        while (pairs.next()) {
+            if (pairs.getSegment() != segment) {
+                segment = pairs.getSegment();
+                segmentVector = sumVectors(segment, wordVectors, offsets, length, segmentBuffer);
+                segmentOffset = getVectorOffset(segment, offsets);
+            }
+            condition = pairs.getCondition();
+            accumulator.add(calculateSimilarity(segmentVector, segmentOffset,
+                    sumVectors(condition, wordVectors, offsets, length, conditionBuffer),
+                    getVectorOffset(condition, offsets), length));
+        }
+        return accumulator.getResult();
+    }
+
+    /**
+     * Returns the arrays containing the vectors of the single words, i.e.,
+     * the flat matrix for every word if the subset vectors contain a flat
+     * matrix.
+     */
+    protected static double[][] getWordVectors(SubsetVectors subsetVectors) {
+        int numberOfVectors = subsetVectors.getNumberOfVectors();
+        double wordVectors[][] = new double[numberOfVectors][];
+        for (int i = 0; i < numberOfVectors; ++i) {
+            if (subsetVectors.flatVectors != null) {
+                wordVectors[i] = subsetVectors.flatVectors;
+            } else {
+                wordVectors[i] = subsetVectors.vectors[i];
+            }
+        }
+        return wordVectors;
+    }
+
+    /**
+     * Returns the offsets at which the vectors of the single words start
+     * inside the arrays returned by {@link #getWordVectors(SubsetVectors)}.
+     */
+    protected static int[] getWordVectorOffsets(SubsetVectors subsetVectors) {
+        int numberOfVectors = subsetVectors.getNumberOfVectors();
+        int offsets[] = new int[numberOfVectors];
+        if (subsetVectors.flatVectors != null) {
+            int length = subsetVectors.getVectorLength();
+            for (int i = 0; i < numberOfVectors; ++i) {
+                offsets[i] = i * length;
+            }
+        }
+        return offsets;
+    }
+
+    protected double calculateSimilarity(double[] vector1, double[] vector2) {
+        return calculateSimilarity(vector1, 0, vector2, 0, vector1.length);
+    }
+
+    /**
+     * Calculates the similarity of the two vectors with the given length
+     * starting at the given offsets of the two arrays.
+     */
+    protected abstract double calculateSimilarity(double[] vector1, int offset1, double[] vector2, int offset2,
+            int length);
+
+    /**
+     * Returns the array containing the vector of the given subset. The vector
+     * of a single word is the array of this word (which might be the flat
+     * matrix), i.e., it starts at {@link #getVectorOffset(int, int[])}. The
+     * vector of a larger subset starts at 0. If it is not already cached, it is
+     * derived from the vector of the subset without its lowest word, i.e.,
+     * every subset vector is created with a single vector addition.
+     */
+    protected double[] getVector(int id, double[][] wordVectors, int offsets[], int length,
+            IntObjectOpenHashMap<double[]> vectorCache) {
+        int lowestWord = Integer.numberOfTrailingZeros(id);
+        int rest = id & (id - 1);
+        if (rest == 0) {
+            return wordVectors[lowestWord];
+        }
+        if (vectorCache.containsKey(id)) {
+            return vectorCache.lget();
+        }
+        double restVector[] = getVector(rest, wordVectors, offsets, length, vectorCache);
+        double vector[] = new double[length];
+        VectorKernels.add(restVector, getVectorOffset(rest, offsets), wordVectors[lowestWord], offsets[lowestWord],
+                vector, 0, length);
+        vectorCache.put(id, vector);
+        return vector;
+    }
+
+    /**
+     * Returns the array containing the vector of the given subset like
+     * {@link #getVector(int, double[][], int[], int, IntObjectOpenHashMap)}
+     * but sums up the vector of a larger subset in the given buffer instead
+     * of caching it.
+     */
+    protected static double[] sumVectors(int id, double[][] wordVectors, int offsets[], int length,
+            double buffer[]) {
+        if ((id & (id - 1)) == 0) {
+            return wordVectors[Integer.numberOfTrailingZeros(id)];
+        }
+        Arrays.fill(buffer, 0, length, 0);
+        int word;
+        for (int subset = id; subset != 0; subset &= subset - 1) {
+            word = Integer.numberOfTrailingZeros(subset);
+            VectorKernels.add(buffer, 0, wordVectors[word], offsets[word], buffer, 0, length);
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns the offset at which the vector of the given subset starts
+     * inside the array returned by
+     * {@link #getVector(int, double[][], int[], int, IntObjectOpenHashMap)}.
+     */
+    protected static int getVectorOffset(int id, int offsets[]) {
+        if ((id & (id - 1)) == 0) {
+            return offsets[Integer.numberOfTrailingZeros(id)];
+        } else {
+            return 0;
+        }
+    }
 
     protected double[] createVector(int id, double[][] vectors) {
         int vectorCount = Integer.bitCount(id);
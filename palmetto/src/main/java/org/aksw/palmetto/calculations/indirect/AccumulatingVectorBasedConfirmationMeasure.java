@@ -0,0 +1,63 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.calculations.indirect;
+
+import org.aksw.palmetto.aggregation.AggregationAccumulator;
+import org.aksw.palmetto.data.SubsetVectors;
+import org.aksw.palmetto.subsets.SegmentationIterator;
+
+/**
+ * A vector based confirmation measure that is able to stream its confirmation
+ * values directly into an {@link AggregationAccumulator} without creating an
+ * intermediate array.
+ * 
+ * @author m.roeder
+ * 
+ */
+public interface AccumulatingVectorBasedConfirmationMeasure extends VectorBasedConfirmationMeasure {
+
+    /**
+     * Calculates the confirmation values for the subset pairs of the given
+     * subset vectors and aggregates them using the given accumulator. The
+     * accumulator is reset before it is used.
+     * 
+     * @param subsetVectors
+     *            subset vectors used for the calculation
+     * @param accumulator
+     *            accumulator used to aggregate the confirmation values
+     * @return the aggregated confirmation value
+     */
+    public double aggregateConfirmationValues(SubsetVectors subsetVectors, AggregationAccumulator accumulator);
+
+    /**
+     * Calculates the confirmation values of the subset pairs returned by the
+     * given iterator and aggregates them using the given accumulator. The
+     * segments and conditions of the given subset vectors are ignored. The
+     * accumulator is reset before it is used.
+     * 
+     * @param subsetVectors
+     *            the vectors of the single words of the word set
+     * @param pairs
+     *            iterator over the subset pairs of the word set
+     * @param accumulator
+     *            accumulator used to aggregate the confirmation values
+     * @return the aggregated confirmation value
+     */
+    public double aggregateConfirmationValues(SubsetVectors subsetVectors, SegmentationIterator pairs,
+            AggregationAccumulator accumulator);
+}
@@ -17,7 +17,9 @@
  */
 package org.aksw.palmetto.calculations.indirect;
 
+import org.aksw.palmetto.aggregation.AggregationAccumulator;
 import org.aksw.palmetto.data.SubsetVectors;
+import org.aksw.palmetto.subsets.SegmentationIterator;
 
 import com.carrotsearch.hppc.IntObjectOpenHashMap;
 
@@ -33,12 +35,13 @@ public class CentroidConfirmationMeasure extends CosinusConfirmationMeasure {
     public double[] calculateConfirmationValues(SubsetVectors subsetVectors) {
         double values[] = new double[subsetVectors.segments.length];
 
-        double centroid[] = new double[subsetVectors.vectors[0].length];
+        double vectors[][] = subsetVectors.getVectors();
+        double centroid[] = new double[vectors[0].length];
         IntObjectOpenHashMap<double[]> vectorCache = new IntObjectOpenHashMap<double[]>();
-        for (int i = 0; i < subsetVectors.vectors.length; ++i) {
-            vectorCache.put(1 << i, subsetVectors.vectors[i]);
+        for (int i = 0; i < vectors.length; ++i) {
+            vectorCache.put(1 << i, vectors[i]);
             for (int j = 0; j < centroid.length; j++) {
-                centroid[j] += subsetVectors.vectors[i][j];
+                centroid[j] += vectors[i][j];
             }
         }
         // for (int j = 0; j < centroid.length; j++) {
@@ -49,7 +52,7 @@ public class CentroidConfirmationMeasure extends CosinusConfirmationMeasure {
             if (vectorCache.containsKey(subsetVectors.segments[i])) {
                 segmentVector = vectorCache.lget();
             } else {
-                segmentVector = createVector(subsetVectors.segments[i], subsetVectors.vectors);
+                segmentVector = createVector(subsetVectors.segments[i], vectors);
                 vectorCache.put(subsetVectors.segments[i], segmentVector);
             }
             values[i] = calculateSimilarity(segmentVector, centroid);
@@ -57,4 +60,39 @@ public class CentroidConfirmationMeasure extends CosinusConfirmationMeasure {
         return values;
     }
 
+    @Override
+    public double aggregateConfirmationValues(SubsetVectors subsetVectors, AggregationAccumulator accumulator) {
+        accumulator.reset();
+        double values[] = calculateConfirmationValues(subsetVectors);
+        for (int i = 0; i < values.length; ++i) {
+            accumulator.add(values[i]);
+        }
+        return accumulator.getResult();
+    }
+
+    /**
+     * Rates every segment returned by the iterator once. The pairs of a
+     * segment are expected to be returned consecutively.
+     */
+    @Override
+    public double aggregateConfirmationValues(SubsetVectors subsetVectors, SegmentationIterator pairs,
+            AggregationAccumulator accumulator) {
+        accumulator.reset();
+        int length = subsetVectors.getVectorLength();
+        double wordVectors[][] = getWordVectors(subsetVectors);
+        int offsets[] = getWordVectorOffsets(subsetVectors);
+        double centroid[] = sumVectors((1 << wordVectors.length) - 1, wordVectors, offsets, length,
+                new double[length]);
+        double segmentBuffer[] = new double[length];
+        int segment = 0;
+        while (pairs.next()) {
+            if (pairs.getSegment() != segment) {
+                segment = pairs.getSegment();
+                accumulator.add(calculateSimilarity(sumVectors(segment, wordVectors, offsets, length, segmentBuffer),
+                        getVectorOffset(segment, offsets), centroid, 0, length));
+            }
+        }
+        return accumulator.getResult();
+    }
+
 }
@@ -17,28 +17,137 @@
  */
 package org.aksw.palmetto.calculations.indirect;
 
+import org.aksw.palmetto.aggregation.AggregationAccumulator;
+import org.aksw.palmetto.data.SubsetVectors;
+import org.aksw.palmetto.subsets.SegmentationIterator;
+
+import com.carrotsearch.hppc.IntDoubleOpenHashMap;
+
 public class CosinusConfirmationMeasure extends AbstractVectorBasedCalculation {
 
+    /**
+     * Calculates the cosine similarities using the {@link GramMatrix} of the
+     * word vectors. Thus, the subset vectors are never created and every dot
+     * product of two word vectors is calculated only once. If there are not
+     * more pairs than words (e.g., for a one-set segmentation), creating the
+     * Gram matrix does not pay off and the subset vectors are compared
+     * directly.
+     */
     @Override
-    public String getName() {
-        return "m_cos";
+    public double[] calculateConfirmationValues(SubsetVectors subsetVectors) {
+        int pos = getNumberOfPairs(subsetVectors);
+        if (pos <= subsetVectors.getNumberOfVectors()) {
+            return super.calculateConfirmationValues(subsetVectors);
+        }
+        double values[] = new double[pos];
+
+        GramMatrix gram = createGramMatrix(subsetVectors);
+        double length1;
+        pos = 0;
+        for (int i = 0; i < subsetVectors.segments.length; ++i) {
+            length1 = gram.squaredNorm(subsetVectors.segments[i]);
+            for (int j = 0; j < subsetVectors.conditions[i].length; ++j) {
+                values[pos] = cosine(gram.dotProduct(subsetVectors.segments[i], subsetVectors.conditions[i][j]),
+                        length1, gram.squaredNorm(subsetVectors.conditions[i][j]));
+                ++pos;
+            }
+        }
+        return values;
     }
 
     @Override
-    protected double calculateSimilarity(double[] vector1, double[] vector2) {
-        double length1 = 0,
-                length2 = 0,
-                sum = 0;
-        for (int i = 0; i < vector1.length; ++i) {
-            sum += vector1[i] * vector2[i];
-            length1 += Math.pow(vector1[i], 2);
-            length2 += Math.pow(vector2[i], 2);
-        }
-        if ((length1 > 0) && (length2 > 0)) {
-            return sum / (Math.sqrt(length1) * Math.sqrt(length2));
+    public double aggregateConfirmationValues(SubsetVectors subsetVectors, AggregationAccumulator accumulator) {
+        if (getNumberOfPairs(subsetVectors) <= subsetVectors.getNumberOfVectors()) {
+            return super.aggregateConfirmationValues(subsetVectors, accumulator);
+        }
+        accumulator.reset();
+        GramMatrix gram = createGramMatrix(subsetVectors);
+        double length1;
+        for (int i = 0; i < subsetVectors.segments.length; ++i) {
+            length1 = gram.squaredNorm(subsetVectors.segments[i]);
+            for (int j = 0; j < subsetVectors.conditions[i].length; ++j) {
+                accumulator.add(cosine(gram.dotProduct(subsetVectors.segments[i], subsetVectors.conditions[i][j]),
+                        length1, gram.squaredNorm(subsetVectors.conditions[i][j])));
+            }
+        }
+        return accumulator.getResult();
+    }
+
+    /**
+     * Calculates the cosine similarities of the pairs returned by the iterator
+     * using the {@link GramMatrix} of the word vectors. Since the number of
+     * subsets of a lazily segmented word set is large, the row sums of the
+     * subsets are not cached. The row sums of the current segment are kept
+     * until the iterator moves to the next segment and only the squared
+     * norms of the conditions are cached.
+     */
+    @Override
+    public double aggregateConfirmationValues(SubsetVectors subsetVectors, SegmentationIterator pairs,
+            AggregationAccumulator accumulator) {
+        accumulator.reset();
+        GramMatrix gram = createGramMatrix(subsetVectors);
+        double segmentSums[] = new double[gram.getSize()];
+        double conditionSums[] = new double[gram.getSize()];
+        IntDoubleOpenHashMap squaredNorms = new IntDoubleOpenHashMap();
+        int segment = 0, condition;
+        double length1 = 0, length2;
+        while (pairs.next()) {
+            if (pairs.getSegment() != segment) {
+                segment = pairs.getSegment();
+                gram.sumRows(segment, segmentSums);
+                length1 = GramMatrix.sumSubset(segmentSums, segment);
+            }
+            condition = pairs.getCondition();
+            if (squaredNorms.containsKey(condition)) {
+                length2 = squaredNorms.lget();
+            } else {
+                gram.sumRows(condition, conditionSums);
+                length2 = GramMatrix.sumSubset(conditionSums, condition);
+                squaredNorms.put(condition, length2);
+            }
+            accumulator.add(cosine(GramMatrix.sumSubset(segmentSums, condition), length1, length2));
+        }
+        return accumulator.getResult();
+    }
+
+    private static int getNumberOfPairs(SubsetVectors subsetVectors) {
+        int numberOfPairs = 0;
+        for (int i = 0; i < subsetVectors.segments.length; ++i) {
+            numberOfPairs += subsetVectors.conditions[i].length;
+        }
+        return numberOfPairs;
+    }
+
+    private static GramMatrix createGramMatrix(SubsetVectors subsetVectors) {
+        if (subsetVectors.flatVectors != null) {
+            return new GramMatrix(subsetVectors.flatVectors, subsetVectors.getNumberOfVectors());
+        } else {
+            return new GramMatrix(subsetVectors.vectors);
+        }
+    }
+
+    /**
+     * Returns the cosine of two vectors with the given dot product and squared
+     * norms or 0 if one of the vectors is a zero vector.
+     */
+    private static double cosine(double dotProduct, double squaredNorm1, double squaredNorm2) {
+        if ((squaredNorm1 > 0) && (squaredNorm2 > 0)) {
+            return dotProduct / (Math.sqrt(squaredNorm1) * Math.sqrt(squaredNorm2));
         } else {
             return 0;
         }
     }
 
+    @Override
+    public String getName() {
+        return "m_cos";
+    }
+
+    @Override
+    protected double calculateSimilarity(double[] vector1, int offset1, double[] vector2, int offset2, int length) {
+        return cosine(VectorKernels.dotProduct(vector1, offset1, vector2, offset2, length),
+                VectorKernels.squaredNorm(vector1, offset1, length),
+                VectorKernels.squaredNorm(vector2, offset2, length));
+    }
+
 }
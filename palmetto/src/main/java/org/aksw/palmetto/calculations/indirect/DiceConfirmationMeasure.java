@@ -25,14 +25,9 @@ public class DiceConfirmationMeasure extends AbstractVectorBasedCalculation {
     }
 
     @Override
-    protected double calculateSimilarity(double[] vector1, double[] vector2) {
-        double minSum = 0;
-        double sum = 0;
-
-        for (int i = 0; i < vector1.length; ++i) {
-            minSum += vector1[i] < vector2[i] ? vector1[i] : vector2[i];
-            sum += vector1[i] + vector2[i];
-        }
+    protected double calculateSimilarity(double[] vector1, int offset1, double[] vector2, int offset2, int length) {
+        double minSum = VectorKernels.minSum(vector1, offset1, vector2, offset2, length);
+        double sum = VectorKernels.sum(vector1, offset1, length) + VectorKernels.sum(vector2, offset2, length);
 
         if (sum > 0) {
             return 2 * minSum / sum;
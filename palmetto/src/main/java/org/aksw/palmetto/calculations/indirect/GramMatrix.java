@@ -0,0 +1,198 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.calculations.indirect;
+
+import java.util.Arrays;
+
+import com.carrotsearch.hppc.IntDoubleOpenHashMap;
+import com.carrotsearch.hppc.IntObjectOpenHashMap;
+
+/**
+ * The Gram matrix of the context vectors of a single word set, i.e., the dot
+ * products of all pairs of word vectors. Since the dot product is bilinear,
+ * the dot product of two subset vectors (the sums of the vectors of the words
+ * of a subset) is the sum of the Gram entries of all pairs of words of the
+ * two subsets. Thus, dot products and norms of subset vectors can be derived
+ * without creating the subset vectors. The sums of the Gram rows of a subset
+ * are cached and are derived from the sums of the subset without its lowest
+ * word. Subsets containing more than half of the words are derived from the
+ * sums of their complement instead.
+ * 
+ * <p>
+ * Subsets are identified by their bit masks. An instance is not thread safe
+ * and should be created for every word set.
+ * </p>
+ * 
+ * @author m.roeder
+ * 
+ */
+public class GramMatrix {
+
+    private final int size;
+    /**
+     * The Gram matrix in row major order.
+     */
+    private final double gram[];
+    /**
+     * Cached sums of the Gram rows of the words of a subset.
+     */
+    private final IntObjectOpenHashMap<double[]> rowSums = new IntObjectOpenHashMap<double[]>();
+    /**
+     * Cached squared norms of subset vectors.
+     */
+    private final IntDoubleOpenHashMap squaredNorms = new IntDoubleOpenHashMap();
+
+    public GramMatrix(double vectors[][]) {
+        size = vectors.length;
+        gram = new double[size * size];
+        double dotProduct;
+        for (int i = 0; i < size; ++i) {
+            for (int j = i; j < size; ++j) {
+                dotProduct = VectorKernels.dotProduct(vectors[i], 0, vectors[j], 0, vectors[i].length);
+                gram[(i * size) + j] = dotProduct;
+                gram[(j * size) + i] = dotProduct;
+            }
+        }
+    }
+
+    /**
+     * Creates the Gram matrix of the given vectors which are stored as rows
+     * of a flat row-major matrix.
+     * 
+     * @param vectors
+     *            the row-major matrix of the vectors
+     * @param numberOfVectors
+     *            the number of vectors, i.e., rows of the matrix
+     */
+    public GramMatrix(double vectors[], int numberOfVectors) {
+        size = numberOfVectors;
+        gram = new double[size * size];
+        int vectorLength = (size > 0) ? (vectors.length / size) : 0;
+        double dotProduct;
+        for (int i = 0; i < size; ++i) {
+            for (int j = i; j < size; ++j) {
+                dotProduct = VectorKernels.dotProduct(vectors, i * vectorLength, vectors, j * vectorLength,
+                        vectorLength);
+                gram[(i * size) + j] = dotProduct;
+                gram[(j * size) + i] = dotProduct;
+            }
+        }
+    }
+
+    /**
+     * Returns the dot product of the vectors of the i-th and the j-th word.
+     */
+    public double get(int i, int j) {
+        return gram[(i * size) + j];
+    }
+
+    /**
+     * Returns the dot product of the two subset vectors.
+     */
+    public double dotProduct(int subset1, int subset2) {
+        return sumSubset(getRowSums(subset1), subset2);
+    }
+
+    /**
+     * Returns the squared euclidean norm of the subset vector.
+     */
+    public double squaredNorm(int subset) {
+        if (squaredNorms.containsKey(subset)) {
+            return squaredNorms.lget();
+        }
+        double squaredNorm = dotProduct(subset, subset);
+        squaredNorms.put(subset, squaredNorm);
+        return squaredNorm;
+    }
+
+    /**
+     * Writes the sums of the Gram rows of the words of the given subset into
+     * the given array. In contrast to {@link #dotProduct(int, int)}, the sums
+     * are not cached, i.e., the memory consumption does not grow with the
+     * number of subsets that are used.
+     * 
+     * @param subset
+     *            bit mask of the subset
+     * @param sums
+     *            array with at least {@link #getSize()} elements to which the
+     *            sums are written
+     */
+    public void sumRows(int subset, double sums[]) {
+        Arrays.fill(sums, 0, size, 0);
+        int rowStart;
+        for (int words = subset; words != 0; words &= words - 1) {
+            rowStart = Integer.numberOfTrailingZeros(words) * size;
+            for (int i = 0; i < size; ++i) {
+                sums[i] += gram[rowStart + i];
+            }
+        }
+    }
+
+    /**
+     * Returns the sum of the given row sums over the words of the given
+     * subset, i.e., the dot product of the subset vector with the vector the
+     * row sums have been created for.
+     */
+    public static double sumSubset(double sums[], int subset) {
+        double sum = 0;
+        for (int words = subset; words != 0; words &= words - 1) {
+            sum += sums[Integer.numberOfTrailingZeros(words)];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the sums of the Gram rows of the words of the given subset,
+     * i.e., the dot products of the subset vector with the single word
+     * vectors.
+     */
+    protected double[] getRowSums(int subset) {
+        if (rowSums.containsKey(subset)) {
+            return rowSums.lget();
+        }
+        int lowestWord = Integer.numberOfTrailingZeros(subset);
+        int rest = subset & (subset - 1);
+        int allWords = (1 << size) - 1;
+        double sums[] = new double[size];
+        if (subset == allWords) {
+            for (int i = 0; i < gram.length; ++i) {
+                sums[i % size] += gram[i];
+            }
+        } else if ((2 * Integer.bitCount(subset)) > size) {
+            double allSums[] = getRowSums(allWords);
+            double complementSums[] = getRowSums(allWords & ~subset);
+            for (int i = 0; i < size; ++i) {
+                sums[i] = allSums[i] - complementSums[i];
+            }
+        } else if (rest == 0) {
+            System.arraycopy(gram, lowestWord * size, sums, 0, size);
+        } else {
+            double restSums[] = getRowSums(rest);
+            int rowStart = lowestWord * size;
+            for (int i = 0; i < size; ++i) {
+                sums[i] = restSums[i] + gram[rowStart + i];
+            }
+        }
+        rowSums.put(subset, sums);
+        return sums;
+    }
+
+    public int getSize() {
+        return size;
+    }
+}
@@ -25,18 +25,9 @@ public class JaccardConfirmationMeasure extends AbstractVectorBasedCalculation {
     }
 
     @Override
-    protected double calculateSimilarity(double[] vector1, double[] vector2) {
-        double minSum = 0,
-                maxSum = 0;
-        for (int i = 0; i < vector1.length; ++i) {
-            if (vector1[i] < vector2[i]) {
-                minSum += vector1[i];
-                maxSum += vector2[i];
-            } else {
-                minSum += vector2[i];
-                maxSum += vector1[i];
-            }
-        }
+    protected double calculateSimilarity(double[] vector1, int offset1, double[] vector2, int offset2, int length) {
+        double minSum = VectorKernels.minSum(vector1, offset1, vector2, offset2, length);
+        double maxSum = VectorKernels.maxSum(vector1, offset1, vector2, offset2, length);
         if (maxSum > 0) {
             return minSum / maxSum;
         } else {
@@ -0,0 +1,125 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.calculations.indirect;
+
+/**
+ * Kernels for the element-wise operations of the vector creators and the
+ * indirect confirmation measures. The vectors are given as arrays with an
+ * offset, i.e., they can be rows of a flat row-major matrix. The loops are
+ * simple counted loops without method calls or data dependent branches so
+ * that the JIT compiler can unroll and vectorize them.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class VectorKernels {
+
+    private VectorKernels() {
+    }
+
+    /**
+     * Raises all values of the given range to the power of gamma. The common
+     * cases gamma=1 and gamma=2 are handled without calling
+     * {@link Math#pow(double, double)}.
+     */
+    public static void pow(double values[], int offset, int length, double gamma) {
+        int end = offset + length;
+        if (gamma == 1) {
+            return;
+        } else if (gamma == 2) {
+            for (int i = offset; i < end; ++i) {
+                values[i] = values[i] * values[i];
+            }
+        } else {
+            for (int i = offset; i < end; ++i) {
+                values[i] = Math.pow(values[i], gamma);
+            }
+        }
+    }
+
+    /**
+     * Returns the dot product of the two vectors.
+     */
+    public static double dotProduct(double vector1[], int offset1, double vector2[], int offset2, int length) {
+        double sum = 0;
+        for (int i = 0; i < length; ++i) {
+            sum += vector1[offset1 + i] * vector2[offset2 + i];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the squared euclidean norm of the vector.
+     */
+    public static double squaredNorm(double vector[], int offset, int length) {
+        double sum = 0;
+        for (int i = offset; i < (offset + length); ++i) {
+            sum += vector[i] * vector[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the sum of the element-wise minima of the two vectors.
+     */
+    public static double minSum(double vector1[], int offset1, double vector2[], int offset2, int length) {
+        double sum = 0;
+        double value1, value2;
+        for (int i = 0; i < length; ++i) {
+            value1 = vector1[offset1 + i];
+            value2 = vector2[offset2 + i];
+            sum += value1 < value2 ? value1 : value2;
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the sum of the element-wise maxima of the two vectors.
+     */
+    public static double maxSum(double vector1[], int offset1, double vector2[], int offset2, int length) {
+        double sum = 0;
+        double value1, value2;
+        for (int i = 0; i < length; ++i) {
+            value1 = vector1[offset1 + i];
+            value2 = vector2[offset2 + i];
+            sum += value1 < value2 ? value2 : value1;
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the sum of all elements of the vector.
+     */
+    public static double sum(double vector[], int offset, int length) {
+        double sum = 0;
+        for (int i = offset; i < (offset + length); ++i) {
+            sum += vector[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Writes the sum of the two vectors to the target vector.
+     */
+    public static void add(double vector1[], int offset1, double vector2[], int offset2, double target[],
+            int targetOffset, int length) {
+        for (int i = 0; i < length; ++i) {
+            target[targetOffset + i] = vector1[offset1 + i] + vector2[offset2 + i];
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.corpus;
+
+/**
+ * This is an interface for a boolean document supporting adapter that is able
+ * to count the documents containing a combination of words without handing out
+ * the complete document lists of the single words.
+ * 
+ * @author m.roeder
+ * 
+ */
+public interface ConjunctionCountingAdapter extends BooleanDocumentSupportingAdapter {
+
+    /**
+     * Determines for every given word combination the number of documents that
+     * contain all words of this combination. A combination is defined as bit
+     * mask over the given words array, i.e., if the i-th bit of the combination
+     * is set, the word words[i] is part of this combination.
+     * 
+     * @param words
+     *            the words that are used by the combinations
+     * @param combinations
+     *            the bit masks defining the word combinations that should be
+     *            counted
+     * @return the number of documents for every combination in the same order
+     *         as the combinations array
+     */
+    public int[] getNumberOfDocumentsWithAllWords(String words[], int combinations[]);
+}
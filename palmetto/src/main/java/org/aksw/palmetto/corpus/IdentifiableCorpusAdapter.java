@@ -0,0 +1,36 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.corpus;
+
+/**
+ * This is an interface for an adapter that can identify the state of its
+ * corpus, e.g., to decide whether counts that have been stored for the corpus
+ * are still valid.
+ * 
+ * @author m.roeder
+ * 
+ */
+public interface IdentifiableCorpusAdapter extends CorpusAdapter {
+
+    /**
+     * Returns a string identifying the current state of the corpus. The
+     * identity changes whenever the corpus (or any other data of the adapter
+     * influencing the counts) is changed.
+     */
+    public String getCorpusIdentity();
+}
@@ -0,0 +1,70 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.corpus;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntIntOpenHashMap;
+import com.carrotsearch.hppc.IntObjectOpenHashMap;
+
+/**
+ * This adapter supports window based probability estimation methods that
+ * handle documents which are not longer than the window as a single boolean
+ * document. It offers a split access to the corpus: documents with a length
+ * &lt;= a given maximum are returned as plain document ids (without positions
+ * and document lengths) while the word positions are only retrieved for the
+ * longer documents.
+ * 
+ * @author m.roeder
+ * 
+ */
+public interface SmallDocumentSupportingAdapter extends WindowSupportingAdapter {
+
+    /**
+     * Determines the documents that contain the given word and have a length
+     * &lt;= the given maximum document length. The ids of the found documents
+     * are appended to the given list in ascending order.
+     * 
+     * @param word
+     *            the word which should be searched
+     * @param maxDocLength
+     *            the maximum length a document can have to be seen as small
+     *            document
+     * @param documents
+     *            the list to which the document ids will be added
+     */
+    public void getSmallDocumentsWithWord(String word, int maxDocLength, IntArrayList documents);
+
+    /**
+     * Returns the positions of the given words inside the documents that are
+     * longer than the given maximum document length. Documents with a length
+     * &lt;= maxDocLength are ignored.
+     * 
+     * @param words
+     *            the words for which the positions inside the documents should
+     *            be determined
+     * @param maxDocLength
+     *            the maximum length of the documents that should be ignored
+     * @param docLengths
+     *            empty int int map in which the document lengths and counts are
+     *            inserted
+     * @return the positions of the given words inside the large documents of
+     *         the corpus
+     */
+    public IntObjectOpenHashMap<IntArrayList[]> requestWordPositionsInLargeDocuments(String words[],
+            int maxDocLength, IntIntOpenHashMap docLengths);
+}
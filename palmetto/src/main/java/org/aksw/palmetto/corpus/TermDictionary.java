@@ -0,0 +1,67 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.corpus;
+
+/**
+ * A dictionary containing the terms of a corpus together with their document
+ * frequencies and collection frequencies. It is meant to be held in memory so
+ * that the statistics of a word can be retrieved without accessing the corpus.
+ * 
+ * @author m.roeder
+ * 
+ */
+public interface TermDictionary {
+
+    /**
+     * Returns the number of documents containing the given word or 0 if the
+     * word is not part of the dictionary.
+     * 
+     * @param word
+     *            the word that should be looked up
+     * @return the document frequency of the word
+     */
+    public int getDocumentFrequency(String word);
+
+    /**
+     * Returns how often the given word occurs in the corpus, 0 if the word is
+     * not part of the dictionary or -1 if the collection frequencies are not
+     * available.
+     * 
+     * @param word
+     *            the word that should be looked up
+     * @return the collection frequency of the word
+     */
+    public long getCollectionFrequency(String word);
+
+    /**
+     * Returns the minimum document frequency a term must have to be part of
+     * the dictionary. If this value is larger than 1, a word that is not
+     * part of the dictionary might occur in less than this number of
+     * documents.
+     * 
+     * @return the minimum document frequency of the terms of this dictionary
+     */
+    public int getMinDocumentFrequency();
+
+    /**
+     * Returns the number of terms inside the dictionary.
+     * 
+     * @return the number of terms inside the dictionary
+     */
+    public long size();
+}
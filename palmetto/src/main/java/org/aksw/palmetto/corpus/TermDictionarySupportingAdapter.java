@@ -0,0 +1,36 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.corpus;
+
+/**
+ * This is an interface for an adapter that has loaded a {@link TermDictionary}
+ * of its corpus.
+ * 
+ * @author m.roeder
+ * 
+ */
+public interface TermDictionarySupportingAdapter extends CorpusAdapter {
+
+    /**
+     * Returns the term dictionary of the corpus or null if it hasn't been
+     * loaded.
+     * 
+     * @return the term dictionary of the corpus or null
+     */
+    public TermDictionary getTermDictionary();
+}
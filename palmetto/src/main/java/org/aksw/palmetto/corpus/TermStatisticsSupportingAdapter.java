@@ -0,0 +1,47 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.corpus;
+
+/**
+ * This is an interface for an adapter that offers cheap statistics about the
+ * terms of the corpus, e.g., read from the term dictionary of an index. These
+ * statistics can be used to estimate the effort of counting word sets before
+ * the counting is started.
+ * 
+ * @author m.roeder
+ * 
+ */
+public interface TermStatisticsSupportingAdapter extends CorpusAdapter {
+
+    /**
+     * Determines the number of documents containing the single words
+     * (document frequency) and the number of occurrences of the single words
+     * (term frequency) inside the corpus. If the adapter can not determine the
+     * term frequency of a word, -1 is inserted.
+     * 
+     * @param words
+     *            the words for which the statistics should be determined
+     * @param documentFrequencies
+     *            array with the same length as words in which the document
+     *            frequencies are stored
+     * @param termFrequencies
+     *            array with the same length as words in which the term
+     *            frequencies are stored
+     */
+    public void getTermStatistics(String words[], int documentFrequencies[], long termFrequencies[]);
+}
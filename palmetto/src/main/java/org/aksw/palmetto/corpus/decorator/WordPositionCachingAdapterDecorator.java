@@ -0,0 +1,318 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.corpus.decorator;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import org.aksw.palmetto.corpus.SmallDocumentSupportingAdapter;
+import org.aksw.palmetto.corpus.TermDictionary;
+import org.aksw.palmetto.corpus.TermDictionarySupportingAdapter;
+import org.aksw.palmetto.corpus.TermStatisticsSupportingAdapter;
+import org.aksw.palmetto.corpus.WindowSupportingAdapter;
+import org.aksw.palmetto.instrumentation.FlightRecorderEvent;
+import org.aksw.palmetto.instrumentation.InstrumentationRegistry;
+import org.aksw.palmetto.instrumentation.PalmettoEvents;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntIntOpenHashMap;
+import com.carrotsearch.hppc.IntObjectOpenHashMap;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * This decorator caches the documents and positions of single words that have
+ * been retrieved from the decorated adapter. Thus, if a word is part of several
+ * word sets, its positions are read only once from the corpus. The positions
+ * are stored in flat int arrays and the cache is bounded by the number of bytes
+ * these arrays need. The cache can be used by several threads at the same
+ * time.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class WordPositionCachingAdapterDecorator
+        implements SmallDocumentSupportingAdapter, TermStatisticsSupportingAdapter, TermDictionarySupportingAdapter {
+
+    /**
+     * Default memory budget of the cache (256 MB).
+     */
+    public static final long DEFAULT_MAX_CACHE_SIZE_IN_BYTES = 256L * 1024L * 1024L;
+
+    protected WindowSupportingAdapter adapter;
+    protected Cache<String, WordPositions> cache;
+    protected long maxCacheSizeInBytes;
+
+    public WordPositionCachingAdapterDecorator(WindowSupportingAdapter adapter) {
+        this(adapter, DEFAULT_MAX_CACHE_SIZE_IN_BYTES);
+    }
+
+    public WordPositionCachingAdapterDecorator(WindowSupportingAdapter adapter, long maxCacheSizeInBytes) {
+        this.adapter = adapter;
+        this.maxCacheSizeInBytes = maxCacheSizeInBytes;
+        // Guava splits the maximum weight across the segments of the cache.
+        // A single segment makes sure that the large position lists of
+        // frequent words can use the complete budget.
+        cache = CacheBuilder.newBuilder().concurrencyLevel(1).maximumWeight(maxCacheSizeInBytes)
+                .weigher(new Weigher<String, WordPositions>() {
+                    @Override
+                    public int weigh(String key, WordPositions value) {
+                        return (int) Math.min(Integer.MAX_VALUE, value.getSizeInBytes());
+                    }
+                }).recordStats().build();
+    }
+
+    @Override
+    public IntObjectOpenHashMap<IntArrayList[]> requestWordPositionsInDocuments(String[] words,
+            IntIntOpenHashMap docLengths) {
+        IntObjectOpenHashMap<IntArrayList[]> positionsInDocs = new IntObjectOpenHashMap<IntArrayList[]>();
+        for (int i = 0; i < words.length; ++i) {
+            addPositions(getWordPositions(words[i]), positionsInDocs, docLengths, i, words.length, Integer.MIN_VALUE);
+        }
+        return positionsInDocs;
+    }
+
+    @Override
+    public IntObjectOpenHashMap<IntArrayList[]> requestWordPositionsInLargeDocuments(String[] words,
+            int maxDocLength, IntIntOpenHashMap docLengths) {
+        IntObjectOpenHashMap<IntArrayList[]> positionsInDocs = new IntObjectOpenHashMap<IntArrayList[]>();
+        for (int i = 0; i < words.length; ++i) {
+            addPositions(getWordPositions(words[i]), positionsInDocs, docLengths, i, words.length, maxDocLength);
+        }
+        return positionsInDocs;
+    }
+
+    @Override
+    public void getSmallDocumentsWithWord(String word, int maxDocLength, IntArrayList documents) {
+        WordPositions wordPositions = getWordPositions(word);
+        for (int d = 0; d < wordPositions.docIds.length; ++d) {
+            if (wordPositions.docLengths[d] <= maxDocLength) {
+                documents.add(wordPositions.docIds[d]);
+            }
+        }
+    }
+
+    /**
+     * Adds the positions of a word inside the documents that are longer than
+     * the given minimum length to the given map.
+     */
+    protected void addPositions(WordPositions wordPositions, IntObjectOpenHashMap<IntArrayList[]> positionsInDocs,
+            IntIntOpenHashMap docLengths, int wordId, int numberOfWords, int excludedMaxDocLength) {
+        IntArrayList positions[];
+        IntArrayList wordPositionsInDoc;
+        int docId, start, end;
+        for (int d = 0; d < wordPositions.docIds.length; ++d) {
+            if (wordPositions.docLengths[d] <= excludedMaxDocLength) {
+                continue;
+            }
+            docId = wordPositions.docIds[d];
+            if (positionsInDocs.containsKey(docId)) {
+                positions = positionsInDocs.lget();
+            } else {
+                positions = new IntArrayList[numberOfWords];
+                positionsInDocs.put(docId, positions);
+                docLengths.put(docId, wordPositions.docLengths[d]);
+            }
+            start = wordPositions.positionOffsets[d];
+            end = wordPositions.positionOffsets[d + 1];
+            // the lists of the determiners are sorted in place, so we have to
+            // copy the cached positions
+            wordPositionsInDoc = new IntArrayList(end - start);
+            wordPositionsInDoc.add(wordPositions.positions, start, end - start);
+            positions[wordId] = wordPositionsInDoc;
+        }
+    }
+
+    /**
+     * Returns the positions of the given word either from the cache or from
+     * the decorated adapter. Concurrent requests for the same word wait for a
+     * single load of its positions. Words that need more memory than the
+     * complete cache budget are not cached.
+     */
+    protected WordPositions getWordPositions(final String word) {
+        FlightRecorderEvent event = PalmettoEvents.CACHE_LOOKUP.begin();
+        final boolean loaded[] = new boolean[1];
+        WordPositions wordPositions;
+        try {
+            wordPositions = cache.get(word, new Callable<WordPositions>() {
+                @Override
+                public WordPositions call() throws Exception {
+                    loaded[0] = true;
+                    WordPositions positions = loadWordPositions(word);
+                    if (positions.getSizeInBytes() > maxCacheSizeInBytes) {
+                        // an entry that is heavier than the cache would flush
+                        // the complete cache
+                        throw new UncachableWordPositionsException(positions);
+                    }
+                    return positions;
+                }
+            });
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncachableWordPositionsException) {
+                wordPositions = ((UncachableWordPositionsException) e.getCause()).wordPositions;
+            } else {
+                throw new IllegalStateException("Couldn't load the positions of \"" + word + "\".", e.getCause());
+            }
+        } catch (UncheckedExecutionException e) {
+            throw new IllegalStateException("Couldn't load the positions of \"" + word + "\".", e.getCause());
+        }
+        InstrumentationRegistry.get().cacheLookup(getClass().getSimpleName(), 1, loaded[0] ? 0 : 1);
+        if (event != null) {
+            event.set(PalmettoEvents.CACHE_LOOKUP_CACHE, getClass().getSimpleName());
+            event.set(PalmettoEvents.CACHE_LOOKUP_LOOKUPS, 1L);
+            event.set(PalmettoEvents.CACHE_LOOKUP_HITS, loaded[0] ? 0L : 1L);
+            event.commit();
+        }
+        return wordPositions;
+    }
+
+    protected WordPositions loadWordPositions(String word) {
+        IntIntOpenHashMap docLengths = new IntIntOpenHashMap();
+        IntObjectOpenHashMap<IntArrayList[]> positionsInDocs = adapter.requestWordPositionsInDocuments(
+                new String[] { word }, docLengths);
+        int docIds[] = new int[positionsInDocs.size()];
+        int numberOfPositions = 0;
+        int pos = 0;
+        for (int i = 0; i < positionsInDocs.allocated.length; ++i) {
+            if (positionsInDocs.allocated[i]) {
+                docIds[pos] = positionsInDocs.keys[i];
+                numberOfPositions += ((IntArrayList[]) ((Object[]) positionsInDocs.values)[i])[0].elementsCount;
+                ++pos;
+            }
+        }
+        Arrays.sort(docIds);
+        int lengths[] = new int[docIds.length];
+        int positionOffsets[] = new int[docIds.length + 1];
+        int positions[] = new int[numberOfPositions];
+        IntArrayList positionsInDoc;
+        for (int d = 0; d < docIds.length; ++d) {
+            lengths[d] = docLengths.get(docIds[d]);
+            positionsInDoc = positionsInDocs.get(docIds[d])[0];
+            System.arraycopy(positionsInDoc.buffer, 0, positions, positionOffsets[d], positionsInDoc.elementsCount);
+            positionOffsets[d + 1] = positionOffsets[d] + positionsInDoc.elementsCount;
+            Arrays.sort(positions, positionOffsets[d], positionOffsets[d + 1]);
+        }
+        return new WordPositions(docIds, lengths, positionOffsets, positions);
+    }
+
+    @Override
+    public int[][] getDocumentSizeHistogram() {
+        return adapter.getDocumentSizeHistogram();
+    }
+
+    /**
+     * Returns the statistics of the decorated adapter. If it does not offer
+     * statistics, they are derived from the (cached) positions of the words.
+     */
+    @Override
+    public void getTermStatistics(String[] words, int[] documentFrequencies, long[] termFrequencies) {
+        if (adapter instanceof TermStatisticsSupportingAdapter) {
+            ((TermStatisticsSupportingAdapter) adapter).getTermStatistics(words, documentFrequencies,
+                    termFrequencies);
+        } else {
+            WordPositions wordPositions;
+            for (int i = 0; i < words.length; ++i) {
+                wordPositions = getWordPositions(words[i]);
+                documentFrequencies[i] = wordPositions.docIds.length;
+                termFrequencies[i] = wordPositions.positions.length;
+            }
+        }
+    }
+
+    @Override
+    public TermDictionary getTermDictionary() {
+        if (adapter instanceof TermDictionarySupportingAdapter) {
+            return ((TermDictionarySupportingAdapter) adapter).getTermDictionary();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the hit, miss and eviction statistics of the cache.
+     */
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Returns the number of bytes of all cached positions.
+     */
+    public long getCacheSizeInBytes() {
+        long size = 0;
+        for (WordPositions wordPositions : cache.asMap().values()) {
+            size += wordPositions.getSizeInBytes();
+        }
+        return size;
+    }
+
+    public WindowSupportingAdapter getDecoratedAdapter() {
+        return adapter;
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+        adapter.close();
+    }
+
+    /**
+     * Transports the positions of a word that should not be cached out of the
+     * loader of the cache.
+     */
+    protected static class UncachableWordPositionsException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        protected final transient WordPositions wordPositions;
+
+        public UncachableWordPositionsException(WordPositions wordPositions) {
+            super(null, null, false, false);
+            this.wordPositions = wordPositions;
+        }
+    }
+
+    /**
+     * The documents and positions of a single word. The ids of the documents
+     * are sorted. The positions of the document docIds[i] are stored in
+     * positions[positionOffsets[i]] to positions[positionOffsets[i+1] - 1].
+     */
+    protected static class WordPositions {
+        private static final int OBJECT_OVERHEAD = 16;
+        private static final int ARRAY_OVERHEAD = 16;
+
+        public final int docIds[];
+        public final int docLengths[];
+        public final int positionOffsets[];
+        public final int positions[];
+
+        public WordPositions(int[] docIds, int[] docLengths, int[] positionOffsets, int[] positions) {
+            this.docIds = docIds;
+            this.docLengths = docLengths;
+            this.positionOffsets = positionOffsets;
+            this.positions = positions;
+        }
+
+        public long getSizeInBytes() {
+            return OBJECT_OVERHEAD + (4 * ARRAY_OVERHEAD)
+                    + (4L * (docIds.length + docLengths.length + positionOffsets.length + positions.length));
+        }
+    }
+}
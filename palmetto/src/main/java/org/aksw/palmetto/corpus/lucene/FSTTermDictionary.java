@@ -0,0 +1,152 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.corpus.lucene;
+
+import java.io.IOException;
+
+import org.aksw.palmetto.corpus.TermDictionary;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IntsRef;
+import org.apache.lucene.util.fst.Builder;
+import org.apache.lucene.util.fst.FST;
+import org.apache.lucene.util.fst.PairOutputs;
+import org.apache.lucene.util.fst.PairOutputs.Pair;
+import org.apache.lucene.util.fst.PositiveIntOutputs;
+import org.apache.lucene.util.fst.Util;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link TermDictionary} that stores the terms of a Lucene index field in a
+ * finite state transducer (FST). The document frequency and the collection
+ * frequency of a term are the outputs of the transducer. Since the FST shares
+ * prefixes and suffixes of the terms, the dictionary is small enough to be held
+ * in memory even for large indexes.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class FSTTermDictionary implements TermDictionary {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FSTTermDictionary.class);
+
+    /**
+     * Creates a dictionary containing all terms of the given field that occur
+     * in at least minDocFreq documents.
+     * 
+     * @param reader
+     *            the reader of the index
+     * @param fieldName
+     *            the name of the field whose terms should be added
+     * @param minDocFreq
+     *            the minimum document frequency a term must have to be added
+     *            to the dictionary
+     * @return the dictionary
+     * @throws IOException
+     *             if the terms of the index can not be read
+     */
+    public static FSTTermDictionary create(IndexReader reader, String fieldName, int minDocFreq) throws IOException {
+        PositiveIntOutputs singleOutputs = PositiveIntOutputs.getSingleton();
+        PairOutputs<Long, Long> outputs = new PairOutputs<Long, Long>(singleOutputs, singleOutputs);
+        Builder<Pair<Long, Long>> builder = new Builder<Pair<Long, Long>>(FST.INPUT_TYPE.BYTE1, outputs);
+        boolean collectionFreqsAvailable = true;
+        long size = 0;
+        Terms terms = MultiFields.getTerms(reader, fieldName);
+        if (terms != null) {
+            TermsEnum termsEnum = terms.iterator(null);
+            IntsRef scratch = new IntsRef();
+            BytesRef term;
+            int docFreq;
+            long collectionFreq;
+            while ((term = termsEnum.next()) != null) {
+                docFreq = termsEnum.docFreq();
+                if (docFreq >= minDocFreq) {
+                    collectionFreq = termsEnum.totalTermFreq();
+                    if (collectionFreq < 0) {
+                        collectionFreqsAvailable = false;
+                        collectionFreq = 0;
+                    }
+                    builder.add(Util.toIntsRef(term, scratch), outputs.newPair((long) docFreq, collectionFreq));
+                    ++size;
+                }
+            }
+        }
+        FST<Pair<Long, Long>> fst = builder.finish();
+        LOGGER.info("Loaded term dictionary of field \"{}\" with {} terms ({} bytes).", fieldName,
+                size, (fst != null) ? fst.sizeInBytes() : 0);
+        return new FSTTermDictionary(fst, size, minDocFreq, collectionFreqsAvailable);
+    }
+
+    /**
+     * The transducer or null if the dictionary is empty.
+     */
+    private FST<Pair<Long, Long>> fst;
+    private long size;
+    private int minDocFreq;
+    private boolean collectionFreqsAvailable;
+
+    protected FSTTermDictionary(FST<Pair<Long, Long>> fst, long size, int minDocFreq,
+            boolean collectionFreqsAvailable) {
+        this.fst = fst;
+        this.size = size;
+        this.minDocFreq = minDocFreq;
+        this.collectionFreqsAvailable = collectionFreqsAvailable;
+    }
+
+    @Override
+    public int getDocumentFrequency(String word) {
+        Pair<Long, Long> output = lookup(word);
+        return (output != null) ? output.output1.intValue() : 0;
+    }
+
+    @Override
+    public long getCollectionFrequency(String word) {
+        if (!collectionFreqsAvailable) {
+            return -1;
+        }
+        Pair<Long, Long> output = lookup(word);
+        return (output != null) ? output.output2.longValue() : 0;
+    }
+
+    private Pair<Long, Long> lookup(String word) {
+        if (fst == null) {
+            return null;
+        }
+        try {
+            return Util.get(fst, new BytesRef(word));
+        } catch (IOException e) {
+            // the FST is held in memory, i.e., this shouldn't happen
+            LOGGER.error("Error while looking up the word \"" + word + "\".", e);
+            return null;
+        }
+    }
+
+    @Override
+    public int getMinDocumentFrequency() {
+        return minDocFreq;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+}
@@ -19,22 +19,43 @@ package org.aksw.palmetto.corpus.lucene;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
-import org.aksw.palmetto.corpus.BooleanDocumentSupportingAdapter;
+import org.aksw.palmetto.corpus.ConjunctionCountingAdapter;
+import org.aksw.palmetto.corpus.IdentifiableCorpusAdapter;
+import org.aksw.palmetto.corpus.TermDictionary;
+import org.aksw.palmetto.corpus.TermDictionarySupportingAdapter;
+import org.aksw.palmetto.corpus.TermStatisticsSupportingAdapter;
+import org.aksw.palmetto.instrumentation.FlightRecorderEvent;
+import org.aksw.palmetto.instrumentation.Instrumentation;
+import org.aksw.palmetto.instrumentation.InstrumentationRegistry;
+import org.aksw.palmetto.instrumentation.PalmettoEvents;
+import org.aksw.palmetto.instrumentation.Stage;
+import org.aksw.palmetto.instrumentation.Volume;
 import org.apache.lucene.index.AtomicReader;
 import org.apache.lucene.index.AtomicReaderContext;
 import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocsAndPositionsEnum;
 import org.apache.lucene.index.DocsEnum;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermState;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.store.NIOFSDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.carrotsearch.hppc.IntArrayList;
 import com.carrotsearch.hppc.IntOpenHashSet;
 import com.carrotsearch.hppc.ObjectObjectOpenHashMap;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 /**
  * This class can make usage of a given Lucene index as corpus.
@@ -42,14 +63,33 @@ import com.carrotsearch.hppc.ObjectObjectOpenHashMap;
  * @author m.roeder
  * 
  */
-public class LuceneCorpusAdapter implements BooleanDocumentSupportingAdapter {
+public class LuceneCorpusAdapter
+        implements ConjunctionCountingAdapter, TermStatisticsSupportingAdapter, TermDictionarySupportingAdapter,
+        IdentifiableCorpusAdapter {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(LuceneCorpusAdapter.class);
 
+    /**
+     * Per default, all terms of the index are loaded into the term dictionary.
+     */
+    public static final int DEFAULT_TERM_DICTIONARY_MIN_DOC_FREQ = 1;
+
+    /**
+     * Maximum number of words for which the term states are cached.
+     */
+    public static final int DEFAULT_TERM_STATE_CACHE_SIZE = 10000;
+
     protected String fieldName;
     protected DirectoryReader dirReader;
     protected AtomicReader reader[];
     protected AtomicReaderContext contexts[];
+    protected TermDictionary termDictionary;
+    /**
+     * Caches the states of the terms inside the single leaves of the index. If
+     * a term does not occur inside a leaf, its state is null.
+     */
+    protected Cache<String, TermState[]> termStateCache = CacheBuilder.newBuilder()
+            .maximumSize(DEFAULT_TERM_STATE_CACHE_SIZE).build();
 
     /**
      * Creates a corpus adapter which uses the Lucene index with the given path
@@ -63,6 +103,25 @@ public class LuceneCorpusAdapter implements BooleanDocumentSupportingAdapter {
      */
     public static LuceneCorpusAdapter create(String indexPath, String fieldName)
             throws CorruptIndexException, IOException {
+        return create(indexPath, fieldName, DEFAULT_TERM_DICTIONARY_MIN_DOC_FREQ);
+    }
+
+    /**
+     * Creates a corpus adapter which uses the Lucene index with the given path
+     * and searches on the field with the given field name. The terms of the
+     * field that occur in at least termDictionaryMinDocFreq documents are
+     * loaded into a term dictionary. If termDictionaryMinDocFreq is &lt; 1, no
+     * term dictionary is loaded.
+     * 
+     * @param indexPath
+     * @param fieldName
+     * @param termDictionaryMinDocFreq
+     * @return
+     * @throws CorruptIndexException
+     * @throws IOException
+     */
+    public static LuceneCorpusAdapter create(String indexPath, String fieldName, int termDictionaryMinDocFreq)
+            throws CorruptIndexException, IOException {
         DirectoryReader dirReader = DirectoryReader.open(new NIOFSDirectory(new File(indexPath)));
         List<AtomicReaderContext> leaves = dirReader.leaves();
         AtomicReader reader[] = new AtomicReader[leaves.size()];
@@ -71,7 +130,9 @@ public class LuceneCorpusAdapter implements BooleanDocumentSupportingAdapter {
             contexts[i] = leaves.get(i);
             reader[i] = contexts[i].reader();
         }
-        return new LuceneCorpusAdapter(dirReader, reader, contexts, fieldName);
+        LuceneCorpusAdapter adapter = new LuceneCorpusAdapter(dirReader, reader, contexts, fieldName);
+        adapter.loadTermDictionary(termDictionaryMinDocFreq);
+        return adapter;
     }
 
     protected LuceneCorpusAdapter(DirectoryReader dirReader, AtomicReader reader[], AtomicReaderContext contexts[],
@@ -82,24 +143,136 @@ public class LuceneCorpusAdapter implements BooleanDocumentSupportingAdapter {
         this.fieldName = fieldName;
     }
 
+    /**
+     * Loads the terms of the field with at least the given document frequency
+     * into the term dictionary. If the given minimum document frequency is
+     * &lt; 1, no dictionary is loaded.
+     */
+    protected void loadTermDictionary(int minDocFreq) throws IOException {
+        if (minDocFreq > 0) {
+            termDictionary = FSTTermDictionary.create(dirReader, fieldName, minDocFreq);
+        }
+    }
+
     @Override
     public void getDocumentsWithWordAsSet(String word, IntOpenHashSet documents) {
+        Instrumentation instrumentation = InstrumentationRegistry.get();
+        long start = instrumentation.start();
+        FlightRecorderEvent event = PalmettoEvents.POSTING_FETCH.begin();
+        int visitedDocuments = 0, scannedLeaves = 0;
         DocsEnum docs = null;
-        Term term = new Term(fieldName, word);
         try {
+            TermState termStates[] = getTermStates(word);
+            BytesRef termBytes = new BytesRef(word);
             int baseDocId;
             for (int i = 0; i < reader.length; i++) {
-                docs = reader[i].termDocsEnum(term);
+                docs = getDocsEnum(i, termBytes, termStates[i]);
                 baseDocId = contexts[i].docBase;
                 if (docs != null) {
+                    ++scannedLeaves;
                     while (docs.nextDoc() != DocsEnum.NO_MORE_DOCS) {
                         documents.add(baseDocId + docs.docID());
+                        ++visitedDocuments;
                     }
                 }
             }
         } catch (IOException e) {
             LOGGER.error("Error while requesting documents for word \"" + word + "\".", e);
         }
+        if (instrumentation.isEnabled()) {
+            instrumentation.count(Volume.DOCUMENTS_VISITED, visitedDocuments);
+            instrumentation.postingsRead(word, visitedDocuments, 0);
+            instrumentation.stageFinished(Stage.POSTING_RETRIEVAL, start);
+        }
+        if (event != null) {
+            event.set(PalmettoEvents.POSTING_FETCH_TERM, word);
+            event.set(PalmettoEvents.POSTING_FETCH_DOC_FREQ, (long) visitedDocuments);
+            event.set(PalmettoEvents.POSTING_FETCH_LEAVES_SCANNED, scannedLeaves);
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns the states of the given word inside the single leaves of the
+     * index. If the word does not occur inside a leaf, the state of this leaf
+     * is null. The states are cached, i.e., the terms dictionaries of the leaves
+     * are only searched if the word hasn't been requested recently.
+     * 
+     * @param word
+     *            the word for which the states should be determined
+     * @return the states of the word for every leaf
+     * @throws IOException
+     *             if the terms dictionary of a leaf can not be read
+     */
+    protected TermState[] getTermStates(final String word) throws IOException {
+        try {
+            return termStateCache.get(word, new Callable<TermState[]>() {
+                @Override
+                public TermState[] call() throws Exception {
+                    return seekTermStates(word);
+                }
+            });
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Couldn't determine term states of word \"" + word + "\".", e.getCause());
+        }
+    }
+
+    private TermState[] seekTermStates(String word) throws IOException {
+        TermState termStates[] = new TermState[reader.length];
+        BytesRef termBytes = new BytesRef(word);
+        Terms terms;
+        TermsEnum termsEnum;
+        for (int i = 0; i < reader.length; ++i) {
+            terms = reader[i].terms(fieldName);
+            if (terms != null) {
+                termsEnum = terms.iterator(null);
+                if (termsEnum.seekExact(termBytes, true)) {
+                    termStates[i] = termsEnum.termState();
+                }
+            }
+        }
+        return termStates;
+    }
+
+    /**
+     * Returns a terms enum of the given leaf that is positioned on the given
+     * term using its state or null if the term does not occur inside the leaf.
+     */
+    protected TermsEnum getTermsEnum(int leafId, BytesRef termBytes, TermState termState) throws IOException {
+        if (termState == null) {
+            return null;
+        }
+        TermsEnum termsEnum = reader[leafId].terms(fieldName).iterator(null);
+        termsEnum.seekExact(termBytes, termState);
+        return termsEnum;
+    }
+
+    /**
+     * Returns the documents of the given leaf containing the given term or null
+     * if the term does not occur inside the leaf.
+     */
+    protected DocsEnum getDocsEnum(int leafId, BytesRef termBytes, TermState termState) throws IOException {
+        TermsEnum termsEnum = getTermsEnum(leafId, termBytes, termState);
+        if (termsEnum == null) {
+            return null;
+        }
+        return termsEnum.docs(reader[leafId].getLiveDocs(), null, DocsEnum.FLAG_NONE);
+    }
+
+    /**
+     * Returns the documents and positions of the given leaf containing the
+     * given term or null if the term does not occur inside the leaf.
+     */
+    protected DocsAndPositionsEnum getDocsAndPositionsEnum(int leafId, BytesRef termBytes, TermState termState)
+            throws IOException {
+        TermsEnum termsEnum = getTermsEnum(leafId, termBytes, termState);
+        if (termsEnum == null) {
+            return null;
+        }
+        return termsEnum.docsAndPositions(reader[leafId].getLiveDocs(), null, DocsAndPositionsEnum.FLAG_NONE);
     }
 
     /**
@@ -152,21 +325,184 @@ public class LuceneCorpusAdapter implements BooleanDocumentSupportingAdapter {
 
     @Override
     public void getDocumentsWithWord(String word, IntArrayList documents) {
+        Instrumentation instrumentation = InstrumentationRegistry.get();
+        long start = instrumentation.start();
+        FlightRecorderEvent event = PalmettoEvents.POSTING_FETCH.begin();
+        int visitedDocuments = 0, scannedLeaves = 0;
         DocsEnum docs = null;
-        Term term = new Term(fieldName, word);
         try {
+            TermState termStates[] = getTermStates(word);
+            BytesRef termBytes = new BytesRef(word);
             int baseDocId;
             for (int i = 0; i < reader.length; i++) {
-                docs = reader[i].termDocsEnum(term);
+                docs = getDocsEnum(i, termBytes, termStates[i]);
                 baseDocId = contexts[i].docBase;
                 if (docs != null) {
+                    ++scannedLeaves;
                     while (docs.nextDoc() != DocsEnum.NO_MORE_DOCS) {
                         documents.add(docs.docID() + baseDocId);
+                        ++visitedDocuments;
                     }
                 }
             }
         } catch (IOException e) {
             LOGGER.error("Error while requesting documents for word \"" + word + "\".", e);
         }
+        if (instrumentation.isEnabled()) {
+            instrumentation.count(Volume.DOCUMENTS_VISITED, visitedDocuments);
+            instrumentation.postingsRead(word, visitedDocuments, 0);
+            instrumentation.stageFinished(Stage.POSTING_RETRIEVAL, start);
+        }
+        if (event != null) {
+            event.set(PalmettoEvents.POSTING_FETCH_TERM, word);
+            event.set(PalmettoEvents.POSTING_FETCH_DOC_FREQ, (long) visitedDocuments);
+            event.set(PalmettoEvents.POSTING_FETCH_LEAVES_SCANNED, scannedLeaves);
+            event.commit();
+        }
+    }
+
+    @Override
+    public void getTermStatistics(String words[], int documentFrequencies[], long termFrequencies[]) {
+        // the statistics of a complete dictionary can be used without
+        // accessing the index
+        if ((termDictionary != null) && (termDictionary.getMinDocumentFrequency() <= 1)) {
+            for (int i = 0; i < words.length; ++i) {
+                documentFrequencies[i] = termDictionary.getDocumentFrequency(words[i]);
+                termFrequencies[i] = termDictionary.getCollectionFrequency(words[i]);
+            }
+            return;
+        }
+        Term term;
+        for (int i = 0; i < words.length; ++i) {
+            term = new Term(fieldName, words[i]);
+            try {
+                documentFrequencies[i] = dirReader.docFreq(term);
+                termFrequencies[i] = dirReader.totalTermFreq(term);
+            } catch (IOException e) {
+                LOGGER.error("Error while requesting statistics for word \"" + words[i] + "\".", e);
+                documentFrequencies[i] = 0;
+                termFrequencies[i] = -1;
+            }
+        }
+    }
+
+    /**
+     * The identity of the index comprises the version of the index, which is
+     * changed with every commit, and the number of documents.
+     */
+    @Override
+    public String getCorpusIdentity() {
+        return fieldName + ':' + dirReader.getVersion() + ':' + dirReader.maxDoc() + ':' + dirReader.numDocs();
+    }
+
+    @Override
+    public TermDictionary getTermDictionary() {
+        return termDictionary;
+    }
+
+    @Override
+    public int[] getNumberOfDocumentsWithAllWords(String words[], int combinations[]) {
+        int counts[] = new int[combinations.length];
+        BytesRef termBytes[] = new BytesRef[words.length];
+        TermState termStatesOfWords[][] = new TermState[words.length][];
+        TermState termStates[] = new TermState[words.length];
+        int docFreqs[] = new int[words.length];
+        DocsEnum docsEnums[] = new DocsEnum[words.length];
+        Terms terms;
+        TermsEnum termsEnum;
+        Bits liveDocs;
+        try {
+            for (int w = 0; w < words.length; ++w) {
+                termBytes[w] = new BytesRef(words[w]);
+                termStatesOfWords[w] = getTermStates(words[w]);
+            }
+            for (int i = 0; i < reader.length; ++i) {
+                terms = reader[i].terms(fieldName);
+                if (terms == null) {
+                    continue;
+                }
+                termsEnum = terms.iterator(null);
+                for (int w = 0; w < words.length; ++w) {
+                    termStates[w] = termStatesOfWords[w][i];
+                    if (termStates[w] != null) {
+                        termsEnum.seekExact(termBytes[w], termStates[w]);
+                        docFreqs[w] = termsEnum.docFreq();
+                    }
+                    // enums can not be reused across segments
+                    docsEnums[w] = null;
+                }
+                liveDocs = reader[i].getLiveDocs();
+                for (int c = 0; c < combinations.length; ++c) {
+                    counts[c] += countDocumentsWithAllWords(termsEnum, liveDocs, termBytes, termStates, docFreqs,
+                            docsEnums, combinations[c]);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error while counting documents for words " + Arrays.toString(words) + ".", e);
+        }
+        return counts;
+    }
+
+    /**
+     * Counts the documents of the current segment containing all words of the
+     * given combination. The documents of the rarest word are used to leapfrog
+     * the documents of the other words using {@link DocsEnum#advance(int)}.
+     * Thus, the skip lists of the index are used and the document lists of
+     * frequent words are never read completely.
+     */
+    protected int countDocumentsWithAllWords(TermsEnum termsEnum, Bits liveDocs, BytesRef termBytes[],
+            TermState termStates[], int docFreqs[], DocsEnum docsEnums[], int combination) throws IOException {
+        int wordIds[] = new int[Integer.bitCount(combination)];
+        int pos = 0, temp;
+        for (int w = 0; w < termStates.length; ++w) {
+            if ((combination & (1 << w)) != 0) {
+                if (termStates[w] == null) {
+                    return 0;
+                }
+                // insert the word sorted by its document frequency
+                wordIds[pos] = w;
+                for (int j = pos; (j > 0) && (docFreqs[wordIds[j]] < docFreqs[wordIds[j - 1]]); --j) {
+                    temp = wordIds[j];
+                    wordIds[j] = wordIds[j - 1];
+                    wordIds[j - 1] = temp;
+                }
+                ++pos;
+            }
+        }
+        if (wordIds.length == 0) {
+            return 0;
+        }
+        if ((wordIds.length == 1) && (liveDocs == null)) {
+            return docFreqs[wordIds[0]];
+        }
+        DocsEnum docs[] = new DocsEnum[wordIds.length];
+        for (int j = 0; j < wordIds.length; ++j) {
+            termsEnum.seekExact(termBytes[wordIds[j]], termStates[wordIds[j]]);
+            docsEnums[wordIds[j]] = termsEnum.docs(liveDocs, docsEnums[wordIds[j]], DocsEnum.FLAG_NONE);
+            docs[j] = docsEnums[wordIds[j]];
+        }
+        int count = 0;
+        int docId = docs[0].nextDoc();
+        int otherDocId, j;
+        while (docId != DocsEnum.NO_MORE_DOCS) {
+            for (j = 1; j < docs.length; ++j) {
+                otherDocId = docs[j].docID();
+                if (otherDocId < docId) {
+                    otherDocId = docs[j].advance(docId);
+                }
+                if (otherDocId > docId) {
+                    if (otherDocId == DocsEnum.NO_MORE_DOCS) {
+                        return count;
+                    }
+                    docId = docs[0].advance(otherDocId);
+                    break;
+                }
+            }
+            if (j == docs.length) {
+                ++count;
+                docId = docs[0].nextDoc();
+            }
+        }
+        return count;
     }
 }
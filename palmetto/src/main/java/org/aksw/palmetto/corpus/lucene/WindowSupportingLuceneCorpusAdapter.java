@@ -21,27 +21,46 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
-import org.aksw.palmetto.corpus.WindowSupportingAdapter;
+import org.aksw.palmetto.corpus.SmallDocumentSupportingAdapter;
+import org.aksw.palmetto.instrumentation.FlightRecorderEvent;
+import org.aksw.palmetto.instrumentation.Instrumentation;
+import org.aksw.palmetto.instrumentation.InstrumentationRegistry;
+import org.aksw.palmetto.instrumentation.PalmettoEvents;
+import org.aksw.palmetto.instrumentation.Stage;
+import org.aksw.palmetto.instrumentation.Volume;
 import org.apache.lucene.index.AtomicReader;
 import org.apache.lucene.index.AtomicReaderContext;
 import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.DocsAndPositionsEnum;
 import org.apache.lucene.index.DocsEnum;
-import org.apache.lucene.index.Term;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.TermState;
 import org.apache.lucene.store.NIOFSDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.carrotsearch.hppc.BitSet;
 import com.carrotsearch.hppc.IntArrayList;
 import com.carrotsearch.hppc.IntIntOpenHashMap;
 import com.carrotsearch.hppc.IntObjectOpenHashMap;
 
-public class WindowSupportingLuceneCorpusAdapter extends LuceneCorpusAdapter implements WindowSupportingAdapter {
+public class WindowSupportingLuceneCorpusAdapter extends LuceneCorpusAdapter implements SmallDocumentSupportingAdapter {
     protected int histogram[][];
     protected String docLengthFieldName;
+    protected Set<String> docLengthFieldNameSet;
+    /**
+     * Filters marking the (global) ids of all documents with a length &lt;= the
+     * key of the map.
+     */
+    protected IntObjectOpenHashMap<BitSet> smallDocumentFilters = new IntObjectOpenHashMap<BitSet>();
 
     private static final Logger LOGGER = LoggerFactory.getLogger(WindowSupportingLuceneCorpusAdapter.class);
 
@@ -49,6 +68,17 @@ public class WindowSupportingLuceneCorpusAdapter extends LuceneCorpusAdapter imp
 
     public static WindowSupportingLuceneCorpusAdapter create(String indexPath, String textFieldName,
             String docLengthFieldName) throws CorruptIndexException, IOException {
+        return create(indexPath, textFieldName, docLengthFieldName, DEFAULT_TERM_DICTIONARY_MIN_DOC_FREQ);
+    }
+
+    /**
+     * Creates a corpus adapter which uses the Lucene index with the given
+     * path. The terms of the text field that occur in at least
+     * termDictionaryMinDocFreq documents are loaded into a term dictionary. If
+     * termDictionaryMinDocFreq is &lt; 1, no term dictionary is loaded.
+     */
+    public static WindowSupportingLuceneCorpusAdapter create(String indexPath, String textFieldName,
+            String docLengthFieldName, int termDictionaryMinDocFreq) throws CorruptIndexException, IOException {
         DirectoryReader dirReader = DirectoryReader.open(new NIOFSDirectory(new File(indexPath)));
         List<AtomicReaderContext> leaves = dirReader.leaves();
         AtomicReader reader[] = new AtomicReader[leaves.size()];
@@ -78,8 +108,10 @@ public class WindowSupportingLuceneCorpusAdapter extends LuceneCorpusAdapter imp
             return null;
         }
 
-        return new WindowSupportingLuceneCorpusAdapter(dirReader, reader, contexts, textFieldName, docLengthFieldName,
-                histogram);
+        WindowSupportingLuceneCorpusAdapter adapter = new WindowSupportingLuceneCorpusAdapter(dirReader, reader,
+                contexts, textFieldName, docLengthFieldName, histogram);
+        adapter.loadTermDictionary(termDictionaryMinDocFreq);
+        return adapter;
     }
 
     protected WindowSupportingLuceneCorpusAdapter(DirectoryReader dirReader, AtomicReader[] reader,
@@ -87,6 +119,16 @@ public class WindowSupportingLuceneCorpusAdapter extends LuceneCorpusAdapter imp
         super(dirReader, reader, contexts, textFieldName);
         this.histogram = histogram;
         this.docLengthFieldName = docLengthFieldName;
+        this.docLengthFieldNameSet = Collections.singleton(docLengthFieldName);
+    }
+
+    /**
+     * Since the histogram is stored separately, its hash is added to the
+     * identity of the index.
+     */
+    @Override
+    public String getCorpusIdentity() {
+        return super.getCorpusIdentity() + ':' + docLengthFieldName + ':' + Arrays.deepHashCode(histogram);
     }
 
     @Override
@@ -104,22 +146,97 @@ public class WindowSupportingLuceneCorpusAdapter extends LuceneCorpusAdapter imp
         return positionsInDocs;
     }
 
+    @Override
+    public IntObjectOpenHashMap<IntArrayList[]> requestWordPositionsInLargeDocuments(String[] words,
+            int maxDocLength, IntIntOpenHashMap docLengths) {
+        BitSet smallDocuments = getSmallDocumentFilter(maxDocLength);
+        IntObjectOpenHashMap<IntArrayList[]> positionsInDocs = new IntObjectOpenHashMap<IntArrayList[]>();
+        for (int i = 0; i < words.length; ++i) {
+            requestDocumentsWithWord(words[i], positionsInDocs, docLengths, i, words.length, smallDocuments);
+        }
+        return positionsInDocs;
+    }
+
+    @Override
+    public void getSmallDocumentsWithWord(String word, int maxDocLength, IntArrayList documents) {
+        BitSet smallDocuments = getSmallDocumentFilter(maxDocLength);
+        Instrumentation instrumentation = InstrumentationRegistry.get();
+        long start = instrumentation.start();
+        FlightRecorderEvent event = PalmettoEvents.POSTING_FETCH.begin();
+        int visitedDocuments = 0, scannedLeaves = 0;
+        DocsEnum docs = null;
+        int globalDocId;
+        try {
+            TermState termStates[] = getTermStates(word);
+            BytesRef termBytes = new BytesRef(word);
+            int baseDocId;
+            for (int i = 0; i < reader.length; i++) {
+                docs = getDocsEnum(i, termBytes, termStates[i]);
+                baseDocId = contexts[i].docBase;
+                if (docs != null) {
+                    ++scannedLeaves;
+                    while (docs.nextDoc() != DocsEnum.NO_MORE_DOCS) {
+                        globalDocId = docs.docID() + baseDocId;
+                        if (smallDocuments.get(globalDocId)) {
+                            documents.add(globalDocId);
+                        }
+                        ++visitedDocuments;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error while requesting documents for word \"" + word + "\".", e);
+        }
+        if (instrumentation.isEnabled()) {
+            instrumentation.count(Volume.DOCUMENTS_VISITED, visitedDocuments);
+            instrumentation.postingsRead(word, visitedDocuments, 0);
+            instrumentation.stageFinished(Stage.POSTING_RETRIEVAL, start);
+        }
+        if (event != null) {
+            event.set(PalmettoEvents.POSTING_FETCH_TERM, word);
+            event.set(PalmettoEvents.POSTING_FETCH_DOC_FREQ, (long) visitedDocuments);
+            event.set(PalmettoEvents.POSTING_FETCH_LEAVES_SCANNED, scannedLeaves);
+            event.commit();
+        }
+    }
+
     protected void requestDocumentsWithWord(String word, IntObjectOpenHashMap<IntArrayList[]> positionsInDocs,
             IntIntOpenHashMap docLengths, int wordId, int numberOfWords) {
+        requestDocumentsWithWord(word, positionsInDocs, docLengths, wordId, numberOfWords, null);
+    }
+
+    /**
+     * Adds the positions of the given word to the given map. Documents that
+     * are marked in the given excludedDocuments bit set are skipped without
+     * decoding their positions or retrieving their length.
+     */
+    protected void requestDocumentsWithWord(String word, IntObjectOpenHashMap<IntArrayList[]> positionsInDocs,
+            IntIntOpenHashMap docLengths, int wordId, int numberOfWords, BitSet excludedDocuments) {
+        Instrumentation instrumentation = InstrumentationRegistry.get();
+        long start = instrumentation.start();
+        FlightRecorderEvent event = PalmettoEvents.POSTING_FETCH.begin();
+        long lookupStart, lookupTime = 0;
+        int visitedDocuments = 0, decodedPositions = 0, lookups = 0, scannedLeaves = 0;
         DocsAndPositionsEnum docPosEnum = null;
-        Term term = new Term(fieldName, word);
         int localDocId,
                 globalDocId,
                 baseDocId;
         IntArrayList positions[];
         try {
+            TermState termStates[] = getTermStates(word);
+            BytesRef termBytes = new BytesRef(word);
             for (int i = 0; i < reader.length; i++) {
-                docPosEnum = reader[i].termPositionsEnum(term);
+                docPosEnum = getDocsAndPositionsEnum(i, termBytes, termStates[i]);
                 baseDocId = contexts[i].docBase;
                 if (docPosEnum != null) {
+                    ++scannedLeaves;
                     while (docPosEnum.nextDoc() != DocsEnum.NO_MORE_DOCS) {
                         localDocId = docPosEnum.docID();
                         globalDocId = localDocId + baseDocId;
+                        ++visitedDocuments;
+                        if ((excludedDocuments != null) && (excludedDocuments.get(globalDocId))) {
+                            continue;
+                        }
                         // if this is the first word and we found a new document
                         if (!positionsInDocs.containsKey(globalDocId)) {
                             positions = new IntArrayList[numberOfWords];
@@ -134,10 +251,14 @@ public class WindowSupportingLuceneCorpusAdapter extends LuceneCorpusAdapter imp
                         for (int p = 0; p < docPosEnum.freq(); ++p) {
                             positions[wordId].add(docPosEnum.nextPosition());
                         }
+                        decodedPositions += docPosEnum.freq();
                         if (!docLengths.containsKey(globalDocId)) {
                             // Get the length of the document
+                            lookupStart = instrumentation.start();
                             docLengths.put(globalDocId, reader[i].document(localDocId).getField(docLengthFieldName)
                                     .numericValue().intValue());
+                            lookupTime += instrumentation.start() - lookupStart;
+                            ++lookups;
                         }
                     }
                 }
@@ -145,6 +266,67 @@ public class WindowSupportingLuceneCorpusAdapter extends LuceneCorpusAdapter imp
         } catch (IOException e) {
             LOGGER.error("Error while requesting documents for word \"" + word + "\".", e);
         }
+        if (instrumentation.isEnabled()) {
+            instrumentation.count(Volume.DOCUMENTS_VISITED, visitedDocuments);
+            instrumentation.count(Volume.POSITIONS_DECODED, decodedPositions);
+            instrumentation.postingsRead(word, visitedDocuments, decodedPositions);
+            if (lookups > 0) {
+                instrumentation.recordStage(Stage.DOCUMENT_LENGTH_LOOKUP, lookupTime);
+            }
+            // the time of the length lookups is not part of the retrieval
+            instrumentation.recordStage(Stage.POSTING_RETRIEVAL, (instrumentation.start() - start) - lookupTime);
+        }
+        if (event != null) {
+            event.set(PalmettoEvents.POSTING_FETCH_TERM, word);
+            event.set(PalmettoEvents.POSTING_FETCH_DOC_FREQ, (long) visitedDocuments);
+            event.set(PalmettoEvents.POSTING_FETCH_LEAVES_SCANNED, scannedLeaves);
+            event.set(PalmettoEvents.POSTING_FETCH_POSITIONS_DECODED, (long) decodedPositions);
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns a bit set marking the global ids of all documents with a length
+     * &lt;= the given maximum document length. The bit set is created with a
+     * single pass over the stored document lengths when it is requested for
+     * the first time and is reused afterwards.
+     * 
+     * @param maxDocLength
+     *            the maximum length of a small document
+     * @return a bit set marking all small documents
+     */
+    protected synchronized BitSet getSmallDocumentFilter(int maxDocLength) {
+        if (smallDocumentFilters.containsKey(maxDocLength)) {
+            return smallDocumentFilters.lget();
+        }
+        LOGGER.info("Creating filter for documents with a length <= {}...", maxDocLength);
+        Instrumentation instrumentation = InstrumentationRegistry.get();
+        long start = instrumentation.start();
+        BitSet smallDocuments = new BitSet(dirReader.maxDoc());
+        Bits liveDocs;
+        IndexableField field;
+        int count = 0;
+        try {
+            for (int i = 0; i < reader.length; i++) {
+                liveDocs = reader[i].getLiveDocs();
+                for (int d = 0; d < reader[i].maxDoc(); ++d) {
+                    if ((liveDocs == null) || liveDocs.get(d)) {
+                        field = reader[i].document(d, docLengthFieldNameSet).getField(docLengthFieldName);
+                        if ((field != null) && (field.numericValue().intValue() <= maxDocLength)) {
+                            smallDocuments.set(contexts[i].docBase + d);
+                            ++count;
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error while reading document lengths. Returning an empty filter.", e);
+            return new BitSet(0);
+        }
+        instrumentation.stageFinished(Stage.DOCUMENT_LENGTH_LOOKUP, start);
+        LOGGER.info("Found {} documents with a length <= {}.", count, maxDocLength);
+        smallDocumentFilters.put(maxDocLength, smallDocuments);
+        return smallDocuments;
     }
 
 }
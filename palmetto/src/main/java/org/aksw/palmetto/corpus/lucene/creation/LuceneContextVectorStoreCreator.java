@@ -0,0 +1,254 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.corpus.lucene.creation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.aksw.palmetto.vector.ContextVectorStore;
+import org.aksw.palmetto.vector.SparseVector;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocsEnum;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.store.SimpleFSDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.carrotsearch.hppc.IntArrayList;
+
+/**
+ * Creates a {@link ContextVectorStore} from a given Lucene index. The
+ * vocabulary comprises all terms of the given field that occur in at least
+ * minDocFreq documents. The vector of a term contains the numbers of
+ * documents in which the term co-occurs with the numberOfContextTerms
+ * vocabulary terms it co-occurs most often with.
+ * 
+ * <p>
+ * The creator keeps the vocabulary terms of all documents in memory and its
+ * effort grows with the squared document lengths. Thus, it is meant to be
+ * run once per index, e.g., on a corpus of paragraphs.
+ * </p>
+ * 
+ * @author m.roeder
+ * 
+ */
+public class LuceneContextVectorStoreCreator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LuceneContextVectorStoreCreator.class);
+
+    public static final int DEFAULT_NUMBER_OF_CONTEXT_TERMS = 100;
+
+    private String fieldName;
+    private int minDocFreq;
+    private int numberOfContextTerms;
+
+    public LuceneContextVectorStoreCreator(String fieldName, int minDocFreq) {
+        this(fieldName, minDocFreq, DEFAULT_NUMBER_OF_CONTEXT_TERMS);
+    }
+
+    public LuceneContextVectorStoreCreator(String fieldName, int minDocFreq, int numberOfContextTerms) {
+        this.fieldName = fieldName;
+        this.minDocFreq = minDocFreq;
+        this.numberOfContextTerms = numberOfContextTerms;
+    }
+
+    /**
+     * Creates the store for the index with the given path and writes it to
+     * the given file.
+     * 
+     * @return true if the store could be created and written
+     */
+    public boolean createContextVectorStore(String indexPath, File storeFile) {
+        ContextVectorStore store = createContextVectorStore(indexPath);
+        if (store == null) {
+            return false;
+        }
+        try {
+            store.writeToFile(storeFile);
+        } catch (IOException e) {
+            LOGGER.error("Couldn't write context vector store to " + storeFile + ".", e);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Creates the store for the index with the given path or returns null if
+     * an error occurred.
+     */
+    public ContextVectorStore createContextVectorStore(String indexPath) {
+        DirectoryReader dirReader = null;
+        try {
+            dirReader = DirectoryReader.open(new SimpleFSDirectory(new File(indexPath)));
+            Terms terms = MultiFields.getTerms(dirReader, fieldName);
+            if (terms == null) {
+                LOGGER.error("The index does not contain the field \"" + fieldName + "\". Returning null.");
+                return null;
+            }
+            Bits liveDocs = MultiFields.getLiveDocs(dirReader);
+            // first pass: determine the vocabulary and the terms of the
+            // single documents
+            IntArrayList documentTerms[] = new IntArrayList[dirReader.maxDoc()];
+            String vocabulary[] = readVocabulary(terms, liveDocs, documentTerms);
+            LOGGER.info("Vocabulary contains " + vocabulary.length + " terms.");
+            // second pass: count the co-occurrences of every vocabulary term
+            SparseVector vectors[] = new SparseVector[vocabulary.length];
+            int counts[] = new int[vocabulary.length];
+            IntArrayList touched = new IntArrayList();
+            TermsEnum termsEnum = terms.iterator(null);
+            DocsEnum docs = null;
+            int termId = 0, docId, otherTermId;
+            IntArrayList docTerms;
+            while ((termsEnum.next() != null) && (termId < vocabulary.length)) {
+                if (termsEnum.docFreq() < minDocFreq) {
+                    continue;
+                }
+                docs = termsEnum.docs(liveDocs, docs, DocsEnum.FLAG_NONE);
+                while ((docId = docs.nextDoc()) != DocsEnum.NO_MORE_DOCS) {
+                    docTerms = documentTerms[docId];
+                    for (int i = 0; i < docTerms.elementsCount; ++i) {
+                        otherTermId = docTerms.buffer[i];
+                        if (otherTermId != termId) {
+                            if (counts[otherTermId] == 0) {
+                                touched.add(otherTermId);
+                            }
+                            ++counts[otherTermId];
+                        }
+                    }
+                }
+                vectors[termId] = createVector(counts, touched);
+                for (int i = 0; i < touched.elementsCount; ++i) {
+                    counts[touched.buffer[i]] = 0;
+                }
+                touched.clear();
+                ++termId;
+            }
+            return new ContextVectorStore(vocabulary, vectors, numberOfContextTerms);
+        } catch (IOException e) {
+            LOGGER.error("Error while reading from index. Returning null.", e);
+            return null;
+        } finally {
+            if (dirReader != null) {
+                try {
+                    dirReader.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the terms with at least minDocFreq documents and adds their ids
+     * to the term lists of the documents containing them.
+     */
+    protected String[] readVocabulary(Terms terms, Bits liveDocs, IntArrayList documentTerms[])
+            throws IOException {
+        TermsEnum termsEnum = terms.iterator(null);
+        DocsEnum docs = null;
+        BytesRef term;
+        List<String> termList = new ArrayList<String>();
+        int docId;
+        while ((term = termsEnum.next()) != null) {
+            if (termsEnum.docFreq() < minDocFreq) {
+                continue;
+            }
+            docs = termsEnum.docs(liveDocs, docs, DocsEnum.FLAG_NONE);
+            while ((docId = docs.nextDoc()) != DocsEnum.NO_MORE_DOCS) {
+                if (documentTerms[docId] == null) {
+                    documentTerms[docId] = new IntArrayList();
+                }
+                documentTerms[docId].add(termList.size());
+            }
+            termList.add(term.utf8ToString());
+        }
+        return termList.toArray(new String[termList.size()]);
+    }
+
+    /**
+     * Creates the vector containing the numberOfContextTerms terms with the
+     * highest counts. Ties are broken in favor of the smaller term id.
+     */
+    protected SparseVector createVector(int counts[], IntArrayList touched) {
+        int selected[] = touched.toArray();
+        if (selected.length > numberOfContextTerms) {
+            // bounded min heap of the best terms, the root is the worst term
+            int heap[] = new int[numberOfContextTerms];
+            int heapSize = 0;
+            for (int i = 0; i < selected.length; ++i) {
+                if (heapSize < heap.length) {
+                    heap[heapSize] = selected[i];
+                    siftUp(heap, heapSize, counts);
+                    ++heapSize;
+                } else if (isBetter(selected[i], heap[0], counts)) {
+                    heap[0] = selected[i];
+                    siftDown(heap, heapSize, counts);
+                }
+            }
+            selected = heap;
+        }
+        Arrays.sort(selected);
+        float values[] = new float[selected.length];
+        for (int i = 0; i < selected.length; ++i) {
+            values[i] = counts[selected[i]];
+        }
+        return new SparseVector(selected, values);
+    }
+
+    private static boolean isBetter(int termId1, int termId2, int counts[]) {
+        return (counts[termId1] > counts[termId2]) || ((counts[termId1] == counts[termId2]) && (termId1 < termId2));
+    }
+
+    private static void siftUp(int heap[], int pos, int counts[]) {
+        int parent, temp;
+        while (pos > 0) {
+            parent = (pos - 1) >> 1;
+            if (isBetter(heap[parent], heap[pos], counts)) {
+                temp = heap[parent];
+                heap[parent] = heap[pos];
+                heap[pos] = temp;
+                pos = parent;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static void siftDown(int heap[], int size, int counts[]) {
+        int pos = 0, child, temp;
+        while ((child = (2 * pos) + 1) < size) {
+            if (((child + 1) < size) && isBetter(heap[child], heap[child + 1], counts)) {
+                ++child;
+            }
+            if (isBetter(heap[pos], heap[child], counts)) {
+                temp = heap[pos];
+                heap[pos] = heap[child];
+                heap[child] = temp;
+                pos = child;
+            } else {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.data;
+
+import java.util.Arrays;
+
+import org.aksw.palmetto.subsets.SegmentationPlan;
+
+/**
+ * A structure-of-arrays representation of the probabilities of several word
+ * sets that have the same size and the same segmentation. The probability
+ * tables of the single word sets are stored one after the other in a single
+ * flat array and the subset pairs are defined by a {@link SegmentationPlan}.
+ * Thus, a confirmation measure can be evaluated for all word sets of the
+ * batch in a single tight loop.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class SubsetProbabilitiesBatch {
+
+    /**
+     * The plan defining the subset pairs of the word sets.
+     */
+    public final SegmentationPlan plan;
+    /**
+     * The number of subsets of a single word set, i.e., the length of a
+     * single probability table.
+     */
+    public final int numberOfSubsets;
+    /**
+     * The probability tables of the word sets. The probability of the subset
+     * s of the i-th word set is stored at
+     * <code>probabilities[(i * numberOfSubsets) + s]</code>.
+     */
+    public double probabilities[];
+    /**
+     * The number of word sets in this batch.
+     */
+    public int size = 0;
+
+    /**
+     * Creates an empty batch for word sets with the given segmentation.
+     * 
+     * @param segments
+     *            the W' of the segmentation
+     * @param conditions
+     *            the W* for every W' of the segmentation
+     * @param wordsetSize
+     *            the number of words of the single word sets
+     * @param capacity
+     *            the expected number of word sets
+     */
+    public SubsetProbabilitiesBatch(int segments[], int conditions[][], int wordsetSize, int capacity) {
+        this(new SegmentationPlan(new SegmentationDefinition(segments, conditions, null), wordsetSize), capacity);
+    }
+
+    /**
+     * Creates an empty batch for word sets with the given segmentation plan.
+     * 
+     * @param plan
+     *            the plan of the word sets
+     * @param capacity
+     *            the expected number of word sets
+     */
+    public SubsetProbabilitiesBatch(SegmentationPlan plan, int capacity) {
+        this.plan = plan;
+        numberOfSubsets = plan.getNumberOfSubsets();
+        probabilities = new double[numberOfSubsets * Math.max(capacity, 1)];
+    }
+
+    /**
+     * Adds an empty probability table to this batch and returns the position
+     * of its first element inside {@link #probabilities}. Thus, an estimator
+     * can write the probabilities of a word set directly into the flat array
+     * without creating and copying a table of its own. Note that the array
+     * might be replaced by a larger one when a table is added.
+     * 
+     * @return the position of the first element of the new table
+     */
+    public int addTable() {
+        ensureCapacity(size + 1);
+        int tableStart = size * numberOfSubsets;
+        Arrays.fill(probabilities, tableStart, tableStart + numberOfSubsets, 0);
+        ++size;
+        return tableStart;
+    }
+
+    /**
+     * Adds the probability table of a word set to this batch. Note that the
+     * table is copied. If possible, the probabilities should be written
+     * directly into a table created with {@link #addTable()}.
+     * 
+     * @param wordsetProbabilities
+     *            the probabilities of the subsets of the word set
+     */
+    public void add(double wordsetProbabilities[]) {
+        if (wordsetProbabilities.length != numberOfSubsets) {
+            throw new IllegalArgumentException("The given probability table has " + wordsetProbabilities.length
+                    + " entries instead of " + numberOfSubsets + ".");
+        }
+        ensureCapacity(size + 1);
+        System.arraycopy(wordsetProbabilities, 0, probabilities, size * numberOfSubsets, numberOfSubsets);
+        ++size;
+    }
+
+    private void ensureCapacity(int numberOfTables) {
+        if ((numberOfTables * numberOfSubsets) > probabilities.length) {
+            probabilities = Arrays.copyOf(probabilities, Math.max(2 * probabilities.length, numberOfTables
+                    * numberOfSubsets));
+        }
+    }
+
+    /**
+     * Removes all word sets from this batch. The allocated memory is kept for
+     * reusing it.
+     */
+    public void clear() {
+        size = 0;
+    }
+}
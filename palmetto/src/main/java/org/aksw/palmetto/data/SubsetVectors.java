@@ -25,10 +25,53 @@ package org.aksw.palmetto.data;
  */
 public class SubsetVectors extends SubsetProbabilities {
 
+    /**
+     * The vectors of the single words.
+     */
     public double vectors[][];
+    /**
+     * The same vectors as a flat row-major matrix, i.e., the i-th vector
+     * starts at <code>i * getVectorLength()</code>. Can be null if the vector
+     * creator does not create a flat matrix.
+     */
+    public double flatVectors[];
+    private int numberOfVectors;
+    private int vectorLength;
 
     public SubsetVectors(int[] segments, int[][] conditions, double[][] vectors, double[] segmentProbabilities) {
         super(segments, conditions, segmentProbabilities);
         this.vectors = vectors;
+        this.numberOfVectors = vectors.length;
+        this.vectorLength = (vectors.length > 0) ? vectors[0].length : 0;
+    }
+
+    public SubsetVectors(int[] segments, int[][] conditions, double[] flatVectors, int numberOfVectors,
+            double[] segmentProbabilities) {
+        super(segments, conditions, segmentProbabilities);
+        this.flatVectors = flatVectors;
+        this.numberOfVectors = numberOfVectors;
+        this.vectorLength = (numberOfVectors > 0) ? (flatVectors.length / numberOfVectors) : 0;
+        // the single vectors are still offered to calculations that can not
+        // work on the flat matrix
+        vectors = new double[numberOfVectors][vectorLength];
+        for (int i = 0; i < numberOfVectors; ++i) {
+            System.arraycopy(flatVectors, i * vectorLength, vectors[i], 0, vectorLength);
+        }
+    }
+
+    /**
+     * Returns the vectors of the single words. Calculations that can work on
+     * the flat matrix should prefer {@link #flatVectors}.
+     */
+    public double[][] getVectors() {
+        return vectors;
+    }
+
+    public int getNumberOfVectors() {
+        return numberOfVectors;
+    }
+
+    public int getVectorLength() {
+        return vectorLength;
     }
 }
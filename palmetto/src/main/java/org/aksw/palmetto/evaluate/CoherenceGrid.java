@@ -0,0 +1,325 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.evaluate;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.aksw.palmetto.Coherence;
+import org.aksw.palmetto.DirectConfirmationBasedCoherence;
+import org.aksw.palmetto.Palmetto;
+import org.aksw.palmetto.VectorBasedCoherence;
+import org.aksw.palmetto.aggregation.Aggregation;
+import org.aksw.palmetto.calculations.direct.DirectConfirmationMeasure;
+import org.aksw.palmetto.calculations.indirect.VectorBasedConfirmationMeasure;
+import org.aksw.palmetto.corpus.CorpusAdapter;
+import org.aksw.palmetto.corpus.WindowSupportingAdapter;
+import org.aksw.palmetto.prob.ProbabilityEstimator;
+import org.aksw.palmetto.prob.bd.BooleanDocumentProbabilitySupplier;
+import org.aksw.palmetto.subsets.Segmentator;
+import org.aksw.palmetto.vector.DirectConfirmationBasedVectorCreator;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * A declarative grid of coherence configurations, i.e., the cross product of
+ * segmentations, probability models, confirmation measures and aggregations.
+ * A grid can be read from a properties file containing one comma separated
+ * list per dimension, e.g.,
+ * 
+ * <pre>
+ * segmentations=OneOne,OnePreceding,OneSet
+ * probabilityModels=bd,sw10,sw110,cw5
+ * confirmations=LogCondProbConfirmationMeasure,NormalizedLogRatioConfirmationMeasure/CosinusConfirmationMeasure
+ * aggregations=ArithmeticMean,Median
+ * </pre>
+ * 
+ * <p>
+ * Segmentations, confirmation measures and aggregations are identified by
+ * their class names which can be given relative to their default packages.
+ * The probability models are "bd" (boolean document), "sw&lt;size&gt;"
+ * (boolean sliding window) and "cw&lt;size&gt;" (context window). A
+ * confirmation of the form "&lt;direct&gt;/&lt;indirect&gt;" leads to a
+ * vector based coherence with context vectors created by the direct measure
+ * and compared by the indirect measure.
+ * </p>
+ * 
+ * <p>
+ * All coherences created for the same probability model share a single
+ * probability estimator. Thus, a {@link org.aksw.palmetto.CoherenceSuite}
+ * containing them has to determine the counts only once per model. Every
+ * coherence gets its own segmentation, confirmation and aggregation
+ * instances, i.e., the coherences can be calculated concurrently.
+ * </p>
+ * 
+ * @author m.roeder
+ * 
+ */
+public class CoherenceGrid {
+
+    public static final String SEGMENTATIONS_KEY = "segmentations";
+    public static final String PROBABILITY_MODELS_KEY = "probabilityModels";
+    public static final String CONFIRMATIONS_KEY = "confirmations";
+    public static final String AGGREGATIONS_KEY = "aggregations";
+
+    public static final String BOOLEAN_DOCUMENT_MODEL = "bd";
+    public static final String BOOLEAN_SLIDING_WINDOW_MODEL_PREFIX = "sw";
+    public static final String CONTEXT_WINDOW_MODEL_PREFIX = "cw";
+    public static final String INDIRECT_CONFIRMATION_SEPARATOR = "/";
+
+    private static final String SEGMENTATION_PACKAGE = "org.aksw.palmetto.subsets";
+    private static final String DIRECT_CONFIRMATION_PACKAGE = "org.aksw.palmetto.calculations.direct";
+    private static final String INDIRECT_CONFIRMATION_PACKAGE = "org.aksw.palmetto.calculations.indirect";
+    private static final String AGGREGATION_PACKAGE = "org.aksw.palmetto.aggregation";
+
+    /**
+     * Reads the grid from the given properties file.
+     * 
+     * @throws IOException
+     *             if the file can not be read
+     * @throws IllegalArgumentException
+     *             if the grid is not valid
+     */
+    public static CoherenceGrid read(File file) throws IOException {
+        Properties properties = new Properties();
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            properties.load(in);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+        return create(properties);
+    }
+
+    /**
+     * Creates the grid described by the given properties.
+     * 
+     * @throws IllegalArgumentException
+     *             if the grid is not valid
+     */
+    public static CoherenceGrid create(Properties properties) {
+        return new CoherenceGrid(getList(properties, SEGMENTATIONS_KEY),
+                getList(properties, PROBABILITY_MODELS_KEY), getList(properties, CONFIRMATIONS_KEY),
+                getList(properties, AGGREGATIONS_KEY));
+    }
+
+    private static String[] getList(Properties properties, String key) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            throw new IllegalArgumentException("The grid definition does not contain the \"" + key + "\" list.");
+        }
+        List<String> elements = new ArrayList<String>();
+        for (String element : value.split(",")) {
+            element = element.trim();
+            if (!element.isEmpty()) {
+                elements.add(element);
+            }
+        }
+        return elements.toArray(new String[elements.size()]);
+    }
+
+    private String segmentations[];
+    private String probabilityModels[];
+    private String confirmations[];
+    private String aggregations[];
+
+    /**
+     * Constructor. Checks that all elements of the grid can be created.
+     * 
+     * @throws IllegalArgumentException
+     *             if one of the given names is not valid
+     */
+    public CoherenceGrid(String segmentations[], String probabilityModels[], String confirmations[],
+            String aggregations[]) {
+        this.segmentations = segmentations;
+        this.probabilityModels = probabilityModels;
+        this.confirmations = confirmations;
+        this.aggregations = aggregations;
+        for (int i = 0; i < segmentations.length; ++i) {
+            createSegmentator(segmentations[i]);
+        }
+        for (int i = 0; i < probabilityModels.length; ++i) {
+            getWindowSize(probabilityModels[i]);
+        }
+        for (int i = 0; i < confirmations.length; ++i) {
+            createConfirmation(confirmations[i]);
+        }
+        for (int i = 0; i < aggregations.length; ++i) {
+            createAggregation(aggregations[i]);
+        }
+    }
+
+    /**
+     * Returns the number of coherence configurations of this grid.
+     */
+    public int getNumberOfConfigurations() {
+        return segmentations.length * probabilityModels.length * confirmations.length * aggregations.length;
+    }
+
+    /**
+     * Creates the coherences of the grid. The coherences are ordered by their
+     * probability model.
+     * 
+     * @param corpusAdapter
+     *            the adapter used for boolean document models
+     * @param windowAdapter
+     *            the adapter used for window based models (can be null if
+     *            the grid does not contain such a model). Several window
+     *            based models can share the postings if a
+     *            {@link org.aksw.palmetto.corpus.decorator.WordPositionCachingAdapterDecorator}
+     *            is used.
+     * @return the coherences of the grid
+     * @throws IllegalArgumentException
+     *             if one of the probability models can not be created with
+     *             the given adapters
+     */
+    public Coherence[] createCoherences(CorpusAdapter corpusAdapter, WindowSupportingAdapter windowAdapter) {
+        Coherence coherences[] = new Coherence[getNumberOfConfigurations()];
+        ProbabilityEstimator estimator;
+        Object confirmation[];
+        int pos = 0;
+        for (int p = 0; p < probabilityModels.length; ++p) {
+            estimator = createProbabilityEstimator(probabilityModels[p], corpusAdapter, windowAdapter);
+            for (int s = 0; s < segmentations.length; ++s) {
+                for (int c = 0; c < confirmations.length; ++c) {
+                    for (int a = 0; a < aggregations.length; ++a) {
+                        confirmation = createConfirmation(confirmations[c]);
+                        if (confirmation.length == 1) {
+                            coherences[pos] = new DirectConfirmationBasedCoherence(
+                                    createSegmentator(segmentations[s]), estimator,
+                                    (DirectConfirmationMeasure) confirmation[0], createAggregation(aggregations[a]));
+                        } else {
+                            coherences[pos] = new VectorBasedCoherence(createSegmentator(segmentations[s]),
+                                    new DirectConfirmationBasedVectorCreator(estimator,
+                                            (DirectConfirmationMeasure) confirmation[0]),
+                                    (VectorBasedConfirmationMeasure) confirmation[1],
+                                    createAggregation(aggregations[a]));
+                        }
+                        ++pos;
+                    }
+                }
+            }
+        }
+        return coherences;
+    }
+
+    protected ProbabilityEstimator createProbabilityEstimator(String model, CorpusAdapter corpusAdapter,
+            WindowSupportingAdapter windowAdapter) {
+        int windowSize = getWindowSize(model);
+        if (windowSize == 0) {
+            ProbabilityEstimator estimator = BooleanDocumentProbabilitySupplier.create(corpusAdapter,
+                    BOOLEAN_DOCUMENT_MODEL, true);
+            if (estimator == null) {
+                throw new IllegalArgumentException("The given corpus adapter does not support the \"" + model
+                        + "\" probability model.");
+            }
+            return estimator;
+        }
+        if (windowAdapter == null) {
+            throw new IllegalArgumentException("The probability model \"" + model
+                    + "\" needs a window supporting adapter.");
+        }
+        if (model.startsWith(BOOLEAN_SLIDING_WINDOW_MODEL_PREFIX)) {
+            return Palmetto.getWindowBasedProbabilityEstimator(windowSize, windowAdapter);
+        } else {
+            return Palmetto.getContextWindowBasedProbabilityEstimator(windowSize, windowAdapter);
+        }
+    }
+
+    /**
+     * Returns the window size of the given probability model or 0 if it is
+     * the boolean document model.
+     */
+    protected static int getWindowSize(String model) {
+        if (BOOLEAN_DOCUMENT_MODEL.equals(model)) {
+            return 0;
+        }
+        if (model.startsWith(BOOLEAN_SLIDING_WINDOW_MODEL_PREFIX) || model.startsWith(CONTEXT_WINDOW_MODEL_PREFIX)) {
+            try {
+                int windowSize = Integer.parseInt(model.substring(2));
+                if (windowSize > 0) {
+                    return windowSize;
+                }
+            } catch (NumberFormatException e) {
+                // handled below
+            }
+        }
+        throw new IllegalArgumentException("Unknown probability model \"" + model
+                + "\". Supported models are bd, sw<size> and cw<size>.");
+    }
+
+    protected static Segmentator createSegmentator(String name) {
+        return createInstance(SEGMENTATION_PACKAGE, name, Segmentator.class);
+    }
+
+    /**
+     * Creates the direct confirmation measure or the pair of a direct and an
+     * indirect confirmation measure described by the given name.
+     */
+    protected static Object[] createConfirmation(String name) {
+        int pos = name.indexOf(INDIRECT_CONFIRMATION_SEPARATOR);
+        if (pos < 0) {
+            return new Object[] { createInstance(DIRECT_CONFIRMATION_PACKAGE, name, DirectConfirmationMeasure.class) };
+        } else {
+            return new Object[] {
+                    createInstance(DIRECT_CONFIRMATION_PACKAGE, name.substring(0, pos).trim(),
+                            DirectConfirmationMeasure.class),
+                    createInstance(INDIRECT_CONFIRMATION_PACKAGE, name.substring(pos + 1).trim(),
+                            VectorBasedConfirmationMeasure.class) };
+        }
+    }
+
+    protected static Aggregation createAggregation(String name) {
+        return createInstance(AGGREGATION_PACKAGE, name, Aggregation.class);
+    }
+
+    /**
+     * Creates an instance of the class with the given name using its default
+     * constructor. If the name does not contain a package, the given default
+     * package is used.
+     */
+    protected static <T> T createInstance(String defaultPackage, String name, Class<T> type) {
+        String className = (name.indexOf('.') < 0) ? (defaultPackage + '.' + name) : name;
+        try {
+            return type.cast(Class.forName(className).getDeclaredConstructor().newInstance());
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Couldn't create " + type.getSimpleName() + " \"" + name + "\".", e);
+        }
+    }
+
+    public String[] getSegmentations() {
+        return segmentations;
+    }
+
+    public String[] getProbabilityModels() {
+        return probabilityModels;
+    }
+
+    public String[] getConfirmations() {
+        return confirmations;
+    }
+
+    public String[] getAggregations() {
+        return aggregations;
+    }
+}
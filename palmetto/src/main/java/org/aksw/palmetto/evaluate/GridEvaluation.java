@@ -0,0 +1,250 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.evaluate;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.aksw.palmetto.Coherence;
+import org.aksw.palmetto.CoherenceSuite;
+import org.aksw.palmetto.Palmetto;
+import org.aksw.palmetto.corpus.CorpusAdapter;
+import org.aksw.palmetto.corpus.WindowSupportingAdapter;
+import org.aksw.palmetto.corpus.decorator.WordPositionCachingAdapterDecorator;
+import org.aksw.palmetto.corpus.lucene.WindowSupportingLuceneCorpusAdapter;
+import org.aksw.palmetto.evaluate.correlation.KendallsTau;
+import org.aksw.palmetto.evaluate.correlation.PearsonsSampleCorrelationCoefficient;
+import org.aksw.palmetto.evaluate.correlation.RankCorrelationCalculator;
+import org.aksw.palmetto.evaluate.correlation.Spearman;
+import org.aksw.palmetto.io.GoldStandardReader;
+import org.aksw.palmetto.io.SimpleWordSetReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Evaluates a set of coherence configurations (e.g., created by a
+ * {@link CoherenceGrid}) against human ratings of word sets. The coherences
+ * are calculated with a {@link CoherenceSuite}, i.e., the counts are
+ * determined only once per probability model and all configurations sharing
+ * the model are derived from the same probabilities. The single
+ * configurations as well as their correlations with the gold standard are
+ * calculated concurrently.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class GridEvaluation {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GridEvaluation.class);
+
+    public static final String THREADS_OPTION = "-threads";
+
+    private static final String USAGE = "GridEvaluation [" + THREADS_OPTION
+            + " <number>] <index-directory> <grid-file> <word-set-file> <gold-standard-file>";
+
+    public static final int PEARSON_ID = 0;
+    public static final int SPEARMAN_ID = 1;
+    public static final int KENDALL_ID = 2;
+    public static final String CORRELATION_NAMES[] = { "Pearson", "Spearman", "Kendall" };
+
+    public static void main(String[] args) {
+        int numberOfThreads = Runtime.getRuntime().availableProcessors();
+        int pos = 0;
+        if ((args.length > 1) && THREADS_OPTION.equals(args[0])) {
+            try {
+                numberOfThreads = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                LOGGER.error("Couldn't parse the number of threads \"" + args[1] + "\". Usage:\n" + USAGE);
+                return;
+            }
+            pos += 2;
+        }
+        if ((args.length - pos) < 4) {
+            LOGGER.error("Wrong number of arguments. Usage:\n" + USAGE);
+            return;
+        }
+        CoherenceGrid grid;
+        try {
+            grid = CoherenceGrid.read(new File(args[pos + 1]));
+        } catch (Exception e) {
+            LOGGER.error("Couldn't read the grid. Aborting.", e);
+            return;
+        }
+        String wordsets[][] = (new SimpleWordSetReader()).readWordSets(args[pos + 2]);
+        double goldStandard[] = GoldStandardReader.readGoldStandardSavely(args[pos + 3]);
+        if ((wordsets == null) || (goldStandard == null)) {
+            LOGGER.error("Couldn't read the word sets or the gold standard. Aborting.");
+            return;
+        }
+
+        WindowSupportingLuceneCorpusAdapter corpusAdapter;
+        try {
+            corpusAdapter = WindowSupportingLuceneCorpusAdapter.create(args[pos],
+                    Palmetto.DEFAULT_TEXT_INDEX_FIELD_NAME, Palmetto.DEFAULT_DOCUMENT_LENGTH_INDEX_FIELD_NAME);
+        } catch (Exception e) {
+            LOGGER.error("Couldn't open lucene index. Aborting.", e);
+            return;
+        }
+        // the window based models share the positions of the words
+        WordPositionCachingAdapterDecorator windowAdapter = new WordPositionCachingAdapterDecorator(corpusAdapter);
+        try {
+            GridEvaluation evaluation = new GridEvaluation(numberOfThreads);
+            GridEvaluationResult result = evaluation.evaluate(grid.createCoherences(corpusAdapter, windowAdapter),
+                    wordsets, goldStandard);
+            result.print(System.out);
+        } catch (Exception e) {
+            LOGGER.error("Error while evaluating the grid. Aborting.", e);
+        } finally {
+            windowAdapter.close();
+        }
+    }
+
+    /**
+     * Evaluates the given grid on the given corpus.
+     * 
+     * @see CoherenceGrid#createCoherences(CorpusAdapter, WindowSupportingAdapter)
+     */
+    public static GridEvaluationResult evaluate(CoherenceGrid grid, CorpusAdapter corpusAdapter,
+            WindowSupportingAdapter windowAdapter, String[][] wordsets, double goldStandard[], int numberOfThreads) {
+        return (new GridEvaluation(numberOfThreads)).evaluate(grid.createCoherences(corpusAdapter, windowAdapter),
+                wordsets, goldStandard);
+    }
+
+    private int numberOfThreads;
+
+    /**
+     * Constructor.
+     * 
+     * @param numberOfThreads
+     *            the number of threads used to calculate the single
+     *            configurations. If it is 1, all calculations are done by the
+     *            calling thread.
+     */
+    public GridEvaluation(int numberOfThreads) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("The number of threads has to be at least 1.");
+        }
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * Calculates the given coherences for the given word sets and correlates
+     * them with the given gold standard.
+     * 
+     * @param coherences
+     *            the coherences that should be evaluated. They must not
+     *            share confirmation measures, segmentations or aggregations.
+     * @param wordsets
+     *            the rated word sets
+     * @param goldStandard
+     *            the human ratings of the word sets
+     * @return the coherence values and the correlations of the single
+     *         coherences
+     */
+    public GridEvaluationResult evaluate(Coherence coherences[], String[][] wordsets, double goldStandard[]) {
+        if (wordsets.length != goldStandard.length) {
+            throw new IllegalArgumentException("The number of word sets (" + wordsets.length
+                    + ") and the number of ratings (" + goldStandard.length + ") differ.");
+        }
+        CoherenceSuite suite = new CoherenceSuite(coherences);
+        ExecutorService executor = (numberOfThreads > 1) ? Executors.newFixedThreadPool(numberOfThreads) : null;
+        try {
+            long start = System.currentTimeMillis();
+            double values[][] = suite.calculateCoherences(wordsets, executor);
+            LOGGER.info("Calculated {} coherences sharing {} probability models in {}ms.", coherences.length,
+                    suite.getNumberOfProbabilityModels(), System.currentTimeMillis() - start);
+            double correlations[][] = new double[coherences.length][];
+            if (executor == null) {
+                for (int i = 0; i < coherences.length; ++i) {
+                    correlations[i] = calculateCorrelations(values[i], goldStandard);
+                }
+            } else {
+                List<Future<double[]>> futures = new ArrayList<Future<double[]>>(coherences.length);
+                for (int i = 0; i < coherences.length; ++i) {
+                    futures.add(executor.submit(new CorrelationCalculation(values[i], goldStandard)));
+                }
+                for (int i = 0; i < coherences.length; ++i) {
+                    correlations[i] = futures.get(i).get();
+                }
+            }
+            return new GridEvaluationResult(suite.getNames(), values, correlations);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the correlation calculations.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Exception while calculating correlations.", e.getCause());
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Calculates Pearson's r, Spearman's rho and Kendall's tau of the given
+     * coherence values and ratings. If one of the values is NaN, the
+     * correlations of the configuration are undefined and all of them are
+     * NaN.
+     */
+    public static double[] calculateCorrelations(double coherences[], double goldStandard[]) {
+        RankCorrelationCalculator calculators[] = new RankCorrelationCalculator[] {
+                new PearsonsSampleCorrelationCoefficient(), new Spearman(), new KendallsTau() };
+        double correlations[] = new double[calculators.length];
+        for (int i = 0; i < coherences.length; ++i) {
+            // the rank based calculators can not sort NaN values
+            if (Double.isNaN(coherences[i]) || Double.isNaN(goldStandard[i])) {
+                Arrays.fill(correlations, Double.NaN);
+                return correlations;
+            }
+        }
+        for (int i = 0; i < calculators.length; ++i) {
+            correlations[i] = calculators[i].calculateRankCorrelation(coherences, goldStandard);
+        }
+        return correlations;
+    }
+
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    /**
+     * The correlation calculation of a single configuration.
+     */
+    protected static class CorrelationCalculation implements Callable<double[]> {
+        private double coherences[];
+        private double goldStandard[];
+
+        public CorrelationCalculation(double[] coherences, double[] goldStandard) {
+            this.coherences = coherences;
+            this.goldStandard = goldStandard;
+        }
+
+        @Override
+        public double[] call() throws Exception {
+            return calculateCorrelations(coherences, goldStandard);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.evaluate;
+
+import java.io.PrintStream;
+
+/**
+ * The result of a {@link GridEvaluation} containing the coherence values and
+ * the correlations of every configuration of the grid.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class GridEvaluationResult {
+
+    private String names[];
+    private double coherences[][];
+    private double correlations[][];
+
+    public GridEvaluationResult(String[] names, double[][] coherences, double[][] correlations) {
+        this.names = names;
+        this.coherences = coherences;
+        this.correlations = correlations;
+    }
+
+    public int getNumberOfConfigurations() {
+        return names.length;
+    }
+
+    public String[] getNames() {
+        return names;
+    }
+
+    /**
+     * Returns the coherence values with the first index identifying the
+     * configuration and the second index identifying the word set.
+     */
+    public double[][] getCoherences() {
+        return coherences;
+    }
+
+    /**
+     * Returns the correlations with the first index identifying the
+     * configuration and the second index identifying the correlation (see
+     * {@link GridEvaluation#CORRELATION_NAMES}).
+     */
+    public double[][] getCorrelations() {
+        return correlations;
+    }
+
+    public double getPearson(int configurationId) {
+        return correlations[configurationId][GridEvaluation.PEARSON_ID];
+    }
+
+    public double getSpearman(int configurationId) {
+        return correlations[configurationId][GridEvaluation.SPEARMAN_ID];
+    }
+
+    public double getKendall(int configurationId) {
+        return correlations[configurationId][GridEvaluation.KENDALL_ID];
+    }
+
+    /**
+     * Prints a tab separated table containing the name and the correlations
+     * of every configuration.
+     */
+    public void print(PrintStream out) {
+        out.print("configuration");
+        for (int i = 0; i < GridEvaluation.CORRELATION_NAMES.length; ++i) {
+            out.print('\t');
+            out.print(GridEvaluation.CORRELATION_NAMES[i]);
+        }
+        out.println();
+        for (int c = 0; c < names.length; ++c) {
+            out.print(names[c]);
+            for (int i = 0; i < correlations[c].length; ++i) {
+                out.format("\t%1.5f", correlations[c][i]);
+            }
+            out.println();
+        }
+    }
+}
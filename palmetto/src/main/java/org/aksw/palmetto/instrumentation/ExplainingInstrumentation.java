@@ -0,0 +1,155 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.instrumentation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.aksw.palmetto.data.SubsetProbabilities;
+
+/**
+ * An instrumentation collecting the details of a single request, i.e., the
+ * timings of the stages, the volumes, the posting lists read for the single
+ * words, the chosen counting engines, the cache lookups and the estimated
+ * probabilities. All calls are forwarded to a delegate, e.g., the global
+ * instrumentation.
+ * 
+ * <p>
+ * An instance is meant to be used as instrumentation of a single thread (see
+ * {@link InstrumentationRegistry#setThreadInstrumentation(Instrumentation)})
+ * and is not thread safe.
+ * </p>
+ * 
+ * @author m.roeder
+ * 
+ */
+public class ExplainingInstrumentation implements Instrumentation {
+
+    /**
+     * The probabilities of word sets with more words are not recorded.
+     */
+    public static final int MAX_WORDSET_SIZE_OF_PROBABILITIES = 10;
+
+    private final Instrumentation delegate;
+    private final long stageTimes[] = new long[Stage.values().length];
+    private final long stageCounts[] = new long[Stage.values().length];
+    private final long volumes[] = new long[Volume.values().length];
+    private final Map<String, long[]> postings = new LinkedHashMap<String, long[]>();
+    private final Map<String, Long> engines = new LinkedHashMap<String, Long>();
+    private final Map<String, long[]> cacheLookups = new LinkedHashMap<String, long[]>();
+    private final List<String[]> probabilityWordsets = new ArrayList<String[]>();
+    private final List<double[]> probabilities = new ArrayList<double[]>();
+
+    public ExplainingInstrumentation() {
+        this(NoOpInstrumentation.INSTANCE);
+    }
+
+    public ExplainingInstrumentation(Instrumentation delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public long start() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void stageFinished(Stage stage, long startTime) {
+        recordStage(stage, System.nanoTime() - startTime);
+    }
+
+    @Override
+    public void recordStage(Stage stage, long nanos) {
+        stageTimes[stage.ordinal()] += nanos;
+        ++stageCounts[stage.ordinal()];
+        delegate.recordStage(stage, nanos);
+    }
+
+    @Override
+    public void count(Volume volume, long amount) {
+        volumes[volume.ordinal()] += amount;
+        delegate.count(volume, amount);
+    }
+
+    @Override
+    public void postingsRead(String word, long documents, long positions) {
+        long values[] = postings.get(word);
+        if (values == null) {
+            values = new long[2];
+            postings.put(word, values);
+        }
+        values[0] += documents;
+        values[1] += positions;
+        delegate.postingsRead(word, documents, positions);
+    }
+
+    @Override
+    public void countingEngineChosen(String engine, String wordset[]) {
+        Long count = engines.get(engine);
+        engines.put(engine, (count == null) ? 1 : (count + 1));
+        delegate.countingEngineChosen(engine, wordset);
+    }
+
+    @Override
+    public void cacheLookup(String cache, long lookups, long hits) {
+        long values[] = cacheLookups.get(cache);
+        if (values == null) {
+            values = new long[2];
+            cacheLookups.put(cache, values);
+        }
+        values[0] += lookups;
+        values[1] += hits;
+        delegate.cacheLookup(cache, lookups, hits);
+    }
+
+    @Override
+    public void probabilitiesEstimated(String[][] wordsets, SubsetProbabilities[] estimated) {
+        for (int i = 0; i < wordsets.length; ++i) {
+            if (wordsets[i].length <= MAX_WORDSET_SIZE_OF_PROBABILITIES) {
+                probabilityWordsets.add(wordsets[i]);
+                probabilities.add(Arrays.copyOf(estimated[i].probabilities, estimated[i].probabilities.length));
+            }
+        }
+        delegate.probabilitiesEstimated(wordsets, estimated);
+    }
+
+    /**
+     * Creates the explanation of the request based on the collected details.
+     * 
+     * @param names
+     *            the names of the calculated coherences
+     * @param values
+     *            the calculated coherence values (in the order of the names)
+     * @param words
+     *            the words of the request
+     * @param elapsedTime
+     *            the time (in nanoseconds) needed to answer the request
+     */
+    public Explanation createExplanation(String names[], double values[], String words[], long elapsedTime) {
+        return new Explanation(names, values, words, elapsedTime, stageTimes, stageCounts, volumes, postings,
+                engines, cacheLookups, probabilityWordsets, probabilities);
+    }
+}
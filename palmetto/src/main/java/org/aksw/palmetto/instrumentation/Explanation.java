@@ -0,0 +1,327 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.instrumentation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * The cost breakdown of a single request created by an
+ * {@link ExplainingInstrumentation}. It can be serialized as JSON object
+ * using {@link #toJson()}.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class Explanation {
+
+    private final long timestamp = System.currentTimeMillis();
+    private final String names[];
+    private final double values[];
+    private final String words[];
+    private final long elapsedTime;
+    private final long stageTimes[];
+    private final long stageCounts[];
+    private final long volumes[];
+    private final Map<String, long[]> postings;
+    private final Map<String, Long> engines;
+    private final Map<String, long[]> cacheLookups;
+    private final List<String[]> probabilityWordsets;
+    private final List<double[]> probabilities;
+
+    protected Explanation(String names[], double values[], String words[], long elapsedTime, long stageTimes[],
+            long stageCounts[], long volumes[], Map<String, long[]> postings, Map<String, Long> engines,
+            Map<String, long[]> cacheLookups, List<String[]> probabilityWordsets, List<double[]> probabilities) {
+        this.names = names;
+        this.values = values;
+        this.words = words;
+        this.elapsedTime = elapsedTime;
+        this.stageTimes = stageTimes;
+        this.stageCounts = stageCounts;
+        this.volumes = volumes;
+        this.postings = postings;
+        this.engines = engines;
+        this.cacheLookups = cacheLookups;
+        this.probabilityWordsets = probabilityWordsets;
+        this.probabilities = probabilities;
+    }
+
+    /**
+     * Returns the value of the first coherence.
+     */
+    public double getValue() {
+        return values[0];
+    }
+
+    public double[] getValues() {
+        return values;
+    }
+
+    public String[] getNames() {
+        return names;
+    }
+
+    public String[] getWords() {
+        return words;
+    }
+
+    /**
+     * Returns the time (in nanoseconds) needed to answer the request.
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * Returns the time (in milliseconds since the epoch) at which the request
+     * has been answered.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the overall time (in nanoseconds) spent in the given stage.
+     */
+    public long getStageTime(Stage stage) {
+        return stageTimes[stage.ordinal()];
+    }
+
+    public long getVolume(Volume volume) {
+        return volumes[volume.ordinal()];
+    }
+
+    /**
+     * Returns the number of documents in the posting list of the given word
+     * or -1 if the postings of the word haven't been read.
+     */
+    public long getDocumentFrequency(String word) {
+        long values[] = postings.get(word);
+        return (values == null) ? -1 : values[0];
+    }
+
+    /**
+     * Returns how often the single counting engines have been chosen.
+     */
+    public Map<String, Long> getEngines() {
+        return engines;
+    }
+
+    /**
+     * Returns the number of cache hits of the cache with the given name.
+     */
+    public long getCacheHits(String cache) {
+        long values[] = cacheLookups.get(cache);
+        return (values == null) ? 0 : values[1];
+    }
+
+    public List<String[]> getProbabilityWordsets() {
+        return probabilityWordsets;
+    }
+
+    /**
+     * Returns the estimated probabilities of the subsets of the word sets
+     * returned by {@link #getProbabilityWordsets()}.
+     */
+    public List<double[]> getProbabilities() {
+        return probabilities;
+    }
+
+    public String toJson() {
+        StringBuilder builder = new StringBuilder();
+        toJson(builder);
+        return builder.toString();
+    }
+
+    public void toJson(StringBuilder builder) {
+        builder.append("{\"coherences\":{");
+        for (int i = 0; i < names.length; ++i) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            appendString(names[i], builder);
+            builder.append(':');
+            appendNumber(values[i], builder);
+        }
+        builder.append("},\"words\":");
+        appendStrings(words, builder);
+        builder.append(",\"timestamp\":");
+        builder.append(timestamp);
+        builder.append(",\"timeMs\":");
+        appendNumber(elapsedTime / 1E6, builder);
+
+        builder.append(",\"stages\":{");
+        boolean first = true;
+        for (Stage stage : Stage.values()) {
+            if (stageCounts[stage.ordinal()] > 0) {
+                if (!first) {
+                    builder.append(',');
+                }
+                first = false;
+                appendString(stage.name(), builder);
+                builder.append(":{\"count\":");
+                builder.append(stageCounts[stage.ordinal()]);
+                builder.append(",\"timeMs\":");
+                appendNumber(stageTimes[stage.ordinal()] / 1E6, builder);
+                builder.append('}');
+            }
+        }
+        builder.append("},\"volumes\":{");
+        for (Volume volume : Volume.values()) {
+            if (volume.ordinal() > 0) {
+                builder.append(',');
+            }
+            appendString(volume.name(), builder);
+            builder.append(':');
+            builder.append(volumes[volume.ordinal()]);
+        }
+        builder.append("},\"postings\":{");
+        first = true;
+        for (Entry<String, long[]> posting : postings.entrySet()) {
+            if (!first) {
+                builder.append(',');
+            }
+            first = false;
+            appendString(posting.getKey(), builder);
+            builder.append(":{\"docFreq\":");
+            builder.append(posting.getValue()[0]);
+            builder.append(",\"positions\":");
+            builder.append(posting.getValue()[1]);
+            builder.append('}');
+        }
+        builder.append("},\"engines\":{");
+        first = true;
+        for (Entry<String, Long> engine : engines.entrySet()) {
+            if (!first) {
+                builder.append(',');
+            }
+            first = false;
+            appendString(engine.getKey(), builder);
+            builder.append(':');
+            builder.append(engine.getValue());
+        }
+        builder.append("},\"caches\":{");
+        first = true;
+        for (Entry<String, long[]> cache : cacheLookups.entrySet()) {
+            if (!first) {
+                builder.append(',');
+            }
+            first = false;
+            appendString(cache.getKey(), builder);
+            builder.append(":{\"lookups\":");
+            builder.append(cache.getValue()[0]);
+            builder.append(",\"hits\":");
+            builder.append(cache.getValue()[1]);
+            builder.append('}');
+        }
+        builder.append("},\"probabilities\":[");
+        for (int i = 0; i < probabilityWordsets.size(); ++i) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            appendProbabilities(probabilityWordsets.get(i), probabilities.get(i), builder);
+        }
+        builder.append("]}");
+    }
+
+    /**
+     * Appends the probabilities of the subsets of the given word set. Subsets
+     * with a probability of 0 are omitted since their probability is either 0
+     * or it hasn't been estimated.
+     */
+    private static void appendProbabilities(String wordset[], double probabilities[], StringBuilder builder) {
+        builder.append("{\"words\":");
+        appendStrings(wordset, builder);
+        builder.append(",\"subsets\":{");
+        boolean first = true;
+        StringBuilder subset = new StringBuilder();
+        for (int s = 1; s < probabilities.length; ++s) {
+            if (probabilities[s] != 0) {
+                if (!first) {
+                    builder.append(',');
+                }
+                first = false;
+                subset.setLength(0);
+                for (int w = 0; w < wordset.length; ++w) {
+                    if ((s & (1 << w)) != 0) {
+                        if (subset.length() > 0) {
+                            subset.append(' ');
+                        }
+                        subset.append(wordset[w]);
+                    }
+                }
+                appendString(subset.toString(), builder);
+                builder.append(':');
+                appendNumber(probabilities[s], builder);
+            }
+        }
+        builder.append("}}");
+    }
+
+    private static void appendStrings(String strings[], StringBuilder builder) {
+        builder.append('[');
+        for (int i = 0; i < strings.length; ++i) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            appendString(strings[i], builder);
+        }
+        builder.append(']');
+    }
+
+    private static void appendNumber(double value, StringBuilder builder) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            builder.append("null");
+        } else {
+            builder.append(value);
+        }
+    }
+
+    protected static void appendString(String value, StringBuilder builder) {
+        builder.append('"');
+        char c;
+        for (int i = 0; i < value.length(); ++i) {
+            c = value.charAt(i);
+            switch (c) {
+            case '"':
+                builder.append("\\\"");
+                break;
+            case '\\':
+                builder.append("\\\\");
+                break;
+            case '\n':
+                builder.append("\\n");
+                break;
+            case '\r':
+                builder.append("\\r");
+                break;
+            case '\t':
+                builder.append("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    builder.append(String.format("\\u%04x", (int) c));
+                } else {
+                    builder.append(c);
+                }
+            }
+        }
+        builder.append('"');
+    }
+}
@@ -0,0 +1,226 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.instrumentation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Accesses the JDK Flight Recorder (<code>jdk.jfr</code>) using reflection.
+ * Thus, Palmetto can still be compiled and run with JDKs that do not contain
+ * the flight recorder. In this case, {@link #isAvailable()} returns false and
+ * no events are created.
+ * 
+ * @author m.roeder
+ * 
+ */
+final class FlightRecorderBridge {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FlightRecorderBridge.class);
+
+    private static final String CATEGORY = "Palmetto";
+
+    private static final boolean AVAILABLE;
+
+    private static Constructor<?> annotationElementConstructor;
+    private static Constructor<?> valueDescriptorConstructor;
+    private static Class<? extends Annotation> nameAnnotation;
+    private static Class<? extends Annotation> labelAnnotation;
+    private static Class<? extends Annotation> descriptionAnnotation;
+    private static Class<? extends Annotation> categoryAnnotation;
+    private static Class<? extends Annotation> stackTraceAnnotation;
+    private static Class<?> listenerInterface;
+    private static Method createFactoryMethod;
+    private static Method getEventTypeMethod;
+    private static Method newEventMethod;
+    private static Method isEnabledMethod;
+    private static Method beginMethod;
+    private static Method endMethod;
+    private static Method setMethod;
+    private static Method commitMethod;
+    private static Method addListenerMethod;
+
+    static {
+        boolean available = false;
+        try {
+            Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+            Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+            Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory");
+            Class<?> eventTypeClass = Class.forName("jdk.jfr.EventType");
+            Class<?> eventClass = Class.forName("jdk.jfr.Event");
+            Class<?> flightRecorderClass = Class.forName("jdk.jfr.FlightRecorder");
+            annotationElementConstructor = annotationElementClass.getConstructor(Class.class, Object.class);
+            valueDescriptorConstructor = valueDescriptorClass.getConstructor(Class.class, String.class, List.class);
+            nameAnnotation = loadAnnotation("jdk.jfr.Name");
+            labelAnnotation = loadAnnotation("jdk.jfr.Label");
+            descriptionAnnotation = loadAnnotation("jdk.jfr.Description");
+            categoryAnnotation = loadAnnotation("jdk.jfr.Category");
+            stackTraceAnnotation = loadAnnotation("jdk.jfr.StackTrace");
+            listenerInterface = Class.forName("jdk.jfr.FlightRecorderListener");
+            createFactoryMethod = eventFactoryClass.getMethod("create", List.class, List.class);
+            getEventTypeMethod = eventFactoryClass.getMethod("getEventType");
+            newEventMethod = eventFactoryClass.getMethod("newEvent");
+            isEnabledMethod = eventTypeClass.getMethod("isEnabled");
+            beginMethod = eventClass.getMethod("begin");
+            endMethod = eventClass.getMethod("end");
+            setMethod = eventClass.getMethod("set", int.class, Object.class);
+            commitMethod = eventClass.getMethod("commit");
+            addListenerMethod = flightRecorderClass.getMethod("addListener", listenerInterface);
+            available = (Boolean) flightRecorderClass.getMethod("isAvailable").invoke(null);
+        } catch (ClassNotFoundException e) {
+            LOGGER.debug("The JDK Flight Recorder is not available. No events will be created.");
+        } catch (Throwable e) {
+            LOGGER.warn("Couldn't access the JDK Flight Recorder. No events will be created.", e);
+        }
+        AVAILABLE = available;
+    }
+
+    private FlightRecorderBridge() {
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<? extends Annotation> loadAnnotation(String className) throws ClassNotFoundException {
+        return (Class<? extends Annotation>) Class.forName(className);
+    }
+
+    /**
+     * Returns true if the flight recorder can be used.
+     */
+    static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     * Creates and registers the event factory (<code>jdk.jfr.EventFactory</code>)
+     * of an event type with the given name and fields.
+     * 
+     * @return the event factory or null if it couldn't be created
+     */
+    static Object createEventFactory(String name, String label, String description, boolean recordStackTrace,
+            String fieldNames[], String fieldLabels[], Class<?> fieldTypes[]) {
+        if (!AVAILABLE) {
+            return null;
+        }
+        try {
+            List<Object> annotations = new ArrayList<Object>();
+            annotations.add(annotationElementConstructor.newInstance(nameAnnotation, name));
+            annotations.add(annotationElementConstructor.newInstance(labelAnnotation, label));
+            annotations.add(annotationElementConstructor.newInstance(descriptionAnnotation, description));
+            annotations.add(annotationElementConstructor.newInstance(categoryAnnotation, new String[] { CATEGORY }));
+            annotations.add(annotationElementConstructor.newInstance(stackTraceAnnotation, recordStackTrace));
+            List<Object> fields = new ArrayList<Object>(fieldNames.length);
+            for (int i = 0; i < fieldNames.length; ++i) {
+                fields.add(valueDescriptorConstructor.newInstance(fieldTypes[i], fieldNames[i],
+                        Arrays.asList(annotationElementConstructor.newInstance(labelAnnotation, fieldLabels[i]))));
+            }
+            return createFactoryMethod.invoke(null, annotations, fields);
+        } catch (Throwable e) {
+            LOGGER.warn("Couldn't create flight recorder event \"" + name + "\". It won't be recorded.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns true if the events of the given factory are enabled in at
+     * least one running recording.
+     */
+    static boolean isEnabled(Object eventFactory) {
+        try {
+            return (Boolean) isEnabledMethod.invoke(getEventTypeMethod.invoke(eventFactory));
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates a new event using the given factory and starts its timing.
+     * 
+     * @return the event or null if it couldn't be created
+     */
+    static Object beginEvent(Object eventFactory) {
+        try {
+            Object event = newEventMethod.invoke(eventFactory);
+            beginMethod.invoke(event);
+            return event;
+        } catch (Throwable e) {
+            LOGGER.debug("Couldn't create flight recorder event.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Sets the given field values, ends the timing and commits the given
+     * event. Fields with null values keep their default value.
+     */
+    static void commitEvent(Object event, Object values[]) {
+        try {
+            for (int i = 0; i < values.length; ++i) {
+                if (values[i] != null) {
+                    setMethod.invoke(event, i, values[i]);
+                }
+            }
+            endMethod.invoke(event);
+            commitMethod.invoke(event);
+        } catch (Throwable e) {
+            LOGGER.debug("Couldn't commit flight recorder event.", e);
+        }
+    }
+
+    /**
+     * Registers a listener that is called every time the flight recorder has
+     * been initialized or the state of a recording changed.
+     */
+    static void addListener(final Runnable listener) {
+        if (!AVAILABLE) {
+            return;
+        }
+        try {
+            Object proxy = Proxy.newProxyInstance(FlightRecorderBridge.class.getClassLoader(),
+                    new Class<?>[] { listenerInterface }, new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                            String methodName = method.getName();
+                            if ("recorderInitialized".equals(methodName)
+                                    || "recordingStateChanged".equals(methodName)) {
+                                listener.run();
+                                return null;
+                            } else if ("equals".equals(methodName)) {
+                                return proxy == args[0];
+                            } else if ("hashCode".equals(methodName)) {
+                                return System.identityHashCode(proxy);
+                            } else if ("toString".equals(methodName)) {
+                                return "PalmettoFlightRecorderListener";
+                            }
+                            return null;
+                        }
+                    });
+            addListenerMethod.invoke(null, proxy);
+        } catch (Throwable e) {
+            LOGGER.warn("Couldn't register flight recorder listener. Events won't be recorded.", e);
+        }
+    }
+}
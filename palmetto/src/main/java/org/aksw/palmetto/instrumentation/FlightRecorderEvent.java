@@ -0,0 +1,77 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.instrumentation;
+
+/**
+ * A single event of a {@link FlightRecorderEventType} whose field values are
+ * collected until it is committed.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class FlightRecorderEvent {
+
+    private final FlightRecorderEventType type;
+    final Object event;
+    final Object values[];
+    final FlightRecorderEvent enclosingEvent;
+    private boolean ended = false;
+
+    FlightRecorderEvent(FlightRecorderEventType type, Object event, int numberOfFields,
+            FlightRecorderEvent enclosingEvent) {
+        this.type = type;
+        this.event = event;
+        this.values = new Object[numberOfFields];
+        this.enclosingEvent = enclosingEvent;
+    }
+
+    /**
+     * Sets the value of the field with the given id.
+     */
+    public void set(int fieldId, Object value) {
+        values[fieldId] = value;
+    }
+
+    /**
+     * Adds the given amount to the value of the long field with the given id.
+     */
+    public void add(int fieldId, long amount) {
+        values[fieldId] = (values[fieldId] == null) ? amount : (((Long) values[fieldId]) + amount);
+    }
+
+    /**
+     * Ends and commits this event. It must not be used afterwards.
+     */
+    public void commit() {
+        if (!ended) {
+            ended = true;
+            type.commit(this);
+        }
+    }
+
+    /**
+     * Ends this event without committing it. It has no effect if the event
+     * has already been committed. It must not be used afterwards.
+     */
+    public void discard() {
+        if (!ended) {
+            ended = true;
+            type.end(this);
+        }
+    }
+}
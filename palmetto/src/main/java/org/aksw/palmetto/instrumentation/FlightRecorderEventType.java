@@ -0,0 +1,204 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.instrumentation;
+
+/**
+ * A type of JDK Flight Recorder events with a fixed list of fields. If the
+ * flight recorder is not available or no running recording enables the
+ * type, {@link #begin()} returns null after reading a single volatile field,
+ * i.e., callers should guard the collection of event data with
+ * 
+ * <pre>
+ * FlightRecorderEvent event = PalmettoEvents.CACHE_LOOKUP.begin();
+ * ...
+ * if (event != null) {
+ *     event.set(PalmettoEvents.CACHE_LOOKUP_HITS, hits);
+ *     event.commit();
+ * }
+ * </pre>
+ * 
+ * <p>
+ * If a type provides a current event, events that collect data inside nested
+ * calls can be retrieved using {@link #getCurrentEvent()}. The event is bound
+ * to the calling thread until it is committed or discarded. Thus, callers
+ * have to make sure that such an event is discarded if an exception is
+ * thrown:
+ * </p>
+ * 
+ * <pre>
+ * FlightRecorderEvent event = PalmettoEvents.WINDOW_COUNTING.begin();
+ * try {
+ *     ...
+ *     if (event != null) {
+ *         event.commit();
+ *     }
+ * } finally {
+ *     if (event != null) {
+ *         event.discard();
+ *     }
+ * }
+ * </pre>
+ * 
+ * @author m.roeder
+ * 
+ */
+public class FlightRecorderEventType {
+
+    private final String name;
+    private final Object eventFactory;
+    private final int numberOfFields;
+    /**
+     * The current events of the single threads or null if this type does not
+     * provide a current event.
+     */
+    private final ThreadLocal<FlightRecorderEvent> currentEvents;
+    private volatile boolean enabled = false;
+
+    /**
+     * Constructor.
+     * 
+     * @param name
+     *            the unique name of the event type, e.g.,
+     *            "org.aksw.palmetto.CacheLookup"
+     * @param label
+     *            the human readable name of the events
+     * @param description
+     *            a sentence describing the events
+     * @param recordStackTrace
+     *            whether the flight recorder should record the stack trace of
+     *            an event (it should be false for very frequent events)
+     * @param fieldNames
+     *            the names of the fields
+     * @param fieldLabels
+     *            the human readable names of the fields
+     * @param fieldTypes
+     *            the types of the fields, i.e., primitive types or String
+     */
+    public FlightRecorderEventType(String name, String label, String description, boolean recordStackTrace,
+            String fieldNames[], String fieldLabels[], Class<?> fieldTypes[]) {
+        this(name, label, description, recordStackTrace, fieldNames, fieldLabels, fieldTypes, false);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param name
+     *            the unique name of the event type, e.g.,
+     *            "org.aksw.palmetto.CacheLookup"
+     * @param label
+     *            the human readable name of the events
+     * @param description
+     *            a sentence describing the events
+     * @param recordStackTrace
+     *            whether the flight recorder should record the stack trace of
+     *            an event (it should be false for very frequent events)
+     * @param fieldNames
+     *            the names of the fields
+     * @param fieldLabels
+     *            the human readable names of the fields
+     * @param fieldTypes
+     *            the types of the fields, i.e., primitive types or String
+     * @param providesCurrentEvent
+     *            whether the events of this type should be retrievable using
+     *            {@link #getCurrentEvent()}
+     */
+    public FlightRecorderEventType(String name, String label, String description, boolean recordStackTrace,
+            String fieldNames[], String fieldLabels[], Class<?> fieldTypes[], boolean providesCurrentEvent) {
+        if ((fieldNames.length != fieldLabels.length) || (fieldNames.length != fieldTypes.length)) {
+            throw new IllegalArgumentException("The number of field names, labels and types differ.");
+        }
+        this.name = name;
+        this.numberOfFields = fieldNames.length;
+        this.currentEvents = providesCurrentEvent ? new ThreadLocal<FlightRecorderEvent>() : null;
+        this.eventFactory = FlightRecorderBridge.createEventFactory(name, label, description, recordStackTrace,
+                fieldNames, fieldLabels, fieldTypes);
+    }
+
+    /**
+     * Returns true if there is a running recording that records the events of
+     * this type.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Updates the cached state returned by {@link #isEnabled()}. It is called
+     * every time the state of a recording changes.
+     */
+    protected void updateEnabled() {
+        enabled = (eventFactory != null) && FlightRecorderBridge.isEnabled(eventFactory);
+    }
+
+    /**
+     * Starts a new event of this type. If this type provides a current event,
+     * the event becomes the current event of the calling thread until it is
+     * committed or discarded.
+     * 
+     * @return the event or null if this type is not enabled
+     */
+    public FlightRecorderEvent begin() {
+        if (!enabled) {
+            return null;
+        }
+        Object event = FlightRecorderBridge.beginEvent(eventFactory);
+        if (event == null) {
+            return null;
+        }
+        if (currentEvents == null) {
+            return new FlightRecorderEvent(this, event, numberOfFields, null);
+        }
+        FlightRecorderEvent wrapper = new FlightRecorderEvent(this, event, numberOfFields, currentEvents.get());
+        currentEvents.set(wrapper);
+        return wrapper;
+    }
+
+    /**
+     * Returns the event of this type that has been begun by the calling thread
+     * and that hasn't been committed or discarded, yet, or null if there is no
+     * such event or this type does not provide a current event.
+     */
+    public FlightRecorderEvent getCurrentEvent() {
+        if (!enabled || (currentEvents == null)) {
+            return null;
+        }
+        return currentEvents.get();
+    }
+
+    void commit(FlightRecorderEvent event) {
+        end(event);
+        FlightRecorderBridge.commitEvent(event.event, event.values);
+    }
+
+    /**
+     * Removes the given event from the current events of the calling thread.
+     */
+    void end(FlightRecorderEvent event) {
+        if ((currentEvents != null) && (currentEvents.get() == event)) {
+            if (event.enclosingEvent != null) {
+                currentEvents.set(event.enclosingEvent);
+            } else {
+                currentEvents.remove();
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.aksw.palmetto.data.SubsetProbabilities;
+
+/**
+ * An instrumentation recording the wall times of the stages in
+ * {@link LogLinearHistogram}s and summing up the volumes in counters.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class HistogramInstrumentation implements Instrumentation {
+
+    private static final double REPORTED_PERCENTILES[] = new double[] { 50, 90, 99, 99.9 };
+
+    private final LogLinearHistogram stageHistograms[];
+    private final AtomicLongArray volumes = new AtomicLongArray(Volume.values().length);
+
+    public HistogramInstrumentation() {
+        stageHistograms = new LogLinearHistogram[Stage.values().length];
+        for (int i = 0; i < stageHistograms.length; ++i) {
+            stageHistograms[i] = new LogLinearHistogram();
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public long start() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void stageFinished(Stage stage, long startTime) {
+        stageHistograms[stage.ordinal()].record(System.nanoTime() - startTime);
+    }
+
+    @Override
+    public void recordStage(Stage stage, long nanos) {
+        stageHistograms[stage.ordinal()].record(nanos);
+    }
+
+    @Override
+    public void count(Volume volume, long amount) {
+        volumes.addAndGet(volume.ordinal(), amount);
+    }
+
+    /**
+     * The details of single words, word sets and caches are not recorded.
+     */
+    @Override
+    public void postingsRead(String word, long documents, long positions) {
+    }
+
+    @Override
+    public void countingEngineChosen(String engine, String wordset[]) {
+    }
+
+    @Override
+    public void cacheLookup(String cache, long lookups, long hits) {
+    }
+
+    @Override
+    public void probabilitiesEstimated(String wordsets[][], SubsetProbabilities probabilities[]) {
+    }
+
+    /**
+     * Returns the histogram of the wall times (in nanoseconds) of the given
+     * stage.
+     */
+    public LogLinearHistogram getStageHistogram(Stage stage) {
+        return stageHistograms[stage.ordinal()];
+    }
+
+    /**
+     * Returns the sum of the given volume.
+     */
+    public long getVolume(Volume volume) {
+        return volumes.get(volume.ordinal());
+    }
+
+    /**
+     * Removes all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < stageHistograms.length; ++i) {
+            stageHistograms[i].reset();
+        }
+        for (int i = 0; i < volumes.length(); ++i) {
+            volumes.set(i, 0);
+        }
+    }
+
+    /**
+     * Returns a human readable report of the recorded stages (in
+     * milliseconds) and volumes.
+     */
+    public String createReport() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-25s %10s %12s %10s", "stage", "count", "total[ms]", "mean[ms]"));
+        for (int i = 0; i < REPORTED_PERCENTILES.length; ++i) {
+            builder.append(String.format(" %10s", "p" + REPORTED_PERCENTILES[i]));
+        }
+        builder.append(String.format(" %10s%n", "max[ms]"));
+        LogLinearHistogram histogram;
+        for (Stage stage : Stage.values()) {
+            histogram = stageHistograms[stage.ordinal()];
+            builder.append(String.format("%-25s %10d %12.3f %10.3f", stage, histogram.getCount(),
+                    histogram.getSum() / 1E6, histogram.getMean() / 1E6));
+            for (int i = 0; i < REPORTED_PERCENTILES.length; ++i) {
+                builder.append(String.format(" %10.3f", histogram.getValueAtPercentile(REPORTED_PERCENTILES[i]) / 1E6));
+            }
+            builder.append(String.format(" %10.3f%n", histogram.getMax() / 1E6));
+        }
+        for (Volume volume : Volume.values()) {
+            builder.append(String.format("%-25s %10d%n", volume, getVolume(volume)));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.instrumentation;
+
+import org.aksw.palmetto.data.SubsetProbabilities;
+
+/**
+ * Interface of a component that records the wall time of the single
+ * {@link Stage}s of the coherence calculation and counts {@link Volume}s,
+ * e.g., the number of visited documents. The components of the calculation
+ * retrieve the current instrumentation from the {@link InstrumentationRegistry}.
+ * 
+ * <p>
+ * A stage is recorded using
+ * </p>
+ * 
+ * <pre>
+ * long start = instrumentation.start();
+ * ...
+ * instrumentation.stageFinished(Stage.WINDOW_COUNTING, start);
+ * </pre>
+ * 
+ * <p>
+ * Implementations have to be thread safe and should be cheap since they are
+ * called inside the hot paths of the calculation.
+ * </p>
+ * 
+ * @author m.roeder
+ * 
+ */
+public interface Instrumentation {
+
+    /**
+     * Returns true if this instrumentation records anything. Callers can use
+     * it to skip the collection of data that is expensive to determine.
+     */
+    public boolean isEnabled();
+
+    /**
+     * Returns the start time of a stage that has to be handed to
+     * {@link #stageFinished(Stage, long)}.
+     */
+    public long start();
+
+    /**
+     * Records the wall time of the given stage.
+     * 
+     * @param stage
+     *            the stage that has been finished
+     * @param startTime
+     *            the time returned by {@link #start()} when the stage started
+     */
+    public void stageFinished(Stage stage, long startTime);
+
+    /**
+     * Records the wall time of the given stage.
+     * 
+     * @param stage
+     *            the stage
+     * @param nanos
+     *            the wall time in nanoseconds
+     */
+    public void recordStage(Stage stage, long nanos);
+
+    /**
+     * Adds the given amount to the given volume.
+     */
+    public void count(Volume volume, long amount);
+
+    /**
+     * Records that the posting list of the given word has been read.
+     * 
+     * @param word
+     *            the word
+     * @param documents
+     *            the number of documents of the posting list
+     * @param positions
+     *            the number of decoded positions or 0 if the positions
+     *            haven't been read
+     */
+    public void postingsRead(String word, long documents, long positions);
+
+    /**
+     * Records that the counting engine with the given name has been chosen
+     * for counting the given word set.
+     */
+    public void countingEngineChosen(String engine, String wordset[]);
+
+    /**
+     * Records a lookup of the given number of entries in the cache with the
+     * given name.
+     */
+    public void cacheLookup(String cache, long lookups, long hits);
+
+    /**
+     * Records the probabilities that have been estimated for the given word
+     * sets. Implementations must not change the given probabilities.
+     */
+    public void probabilitiesEstimated(String wordsets[][], SubsetProbabilities probabilities[]);
+}
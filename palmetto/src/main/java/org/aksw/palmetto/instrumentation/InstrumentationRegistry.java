@@ -0,0 +1,99 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.instrumentation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds the instrumentation used by the components of the coherence
+ * calculation. Per default, the {@link NoOpInstrumentation} is used.
+ * 
+ * <p>
+ * Additionally, a single thread can use its own instrumentation, e.g., for
+ * explaining a single request (see
+ * {@link #setThreadInstrumentation(Instrumentation)}). As long as no thread
+ * uses its own instrumentation, {@link #get()} doesn't access the thread
+ * local.
+ * </p>
+ * 
+ * @author m.roeder
+ * 
+ */
+public final class InstrumentationRegistry {
+
+    private static volatile Instrumentation instrumentation = NoOpInstrumentation.INSTANCE;
+
+    private static final ThreadLocal<Instrumentation> THREAD_INSTRUMENTATIONS = new ThreadLocal<Instrumentation>();
+    private static final AtomicInteger NUMBER_OF_THREAD_INSTRUMENTATIONS = new AtomicInteger();
+
+    private InstrumentationRegistry() {
+    }
+
+    /**
+     * Returns the instrumentation of the current thread or the global
+     * instrumentation if the thread has no own instrumentation.
+     */
+    public static Instrumentation get() {
+        if (NUMBER_OF_THREAD_INSTRUMENTATIONS.get() > 0) {
+            Instrumentation threadInstrumentation = THREAD_INSTRUMENTATIONS.get();
+            if (threadInstrumentation != null) {
+                return threadInstrumentation;
+            }
+        }
+        return instrumentation;
+    }
+
+    /**
+     * Returns the global instrumentation ignoring the instrumentation of the
+     * current thread.
+     */
+    public static Instrumentation getGlobal() {
+        return instrumentation;
+    }
+
+    /**
+     * Sets the instrumentation used by all components. If null is given, the
+     * {@link NoOpInstrumentation} is used.
+     */
+    public static void set(Instrumentation instrumentation) {
+        InstrumentationRegistry.instrumentation = (instrumentation != null) ? instrumentation
+                : NoOpInstrumentation.INSTANCE;
+    }
+
+    /**
+     * Sets the instrumentation used by the current thread instead of the
+     * global instrumentation. If null is given, the thread uses the global
+     * instrumentation again.
+     * 
+     * @return the previous instrumentation of the thread or null if the thread
+     *         used the global instrumentation
+     */
+    public static Instrumentation setThreadInstrumentation(Instrumentation threadInstrumentation) {
+        Instrumentation previous = THREAD_INSTRUMENTATIONS.get();
+        if (threadInstrumentation != null) {
+            THREAD_INSTRUMENTATIONS.set(threadInstrumentation);
+            if (previous == null) {
+                NUMBER_OF_THREAD_INSTRUMENTATIONS.incrementAndGet();
+            }
+        } else if (previous != null) {
+            THREAD_INSTRUMENTATIONS.remove();
+            NUMBER_OF_THREAD_INSTRUMENTATIONS.decrementAndGet();
+        }
+        return previous;
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread safe histogram of non-negative long values (e.g., nanoseconds)
+ * following the idea of an HDR histogram. The values are counted in buckets
+ * whose width grows with their magnitude, i.e., every power of two is divided
+ * into {@value #SUB_BUCKET_COUNT} sub buckets. Thus, the recorded values have
+ * a relative error below 1/{@value #SUB_BUCKET_COUNT} while the histogram
+ * covers the complete long value range with a fixed size.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class LogLinearHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    public static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int NUMBER_OF_BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NUMBER_OF_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Adds the given value to the histogram. Negative values are recorded as
+     * 0.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets.incrementAndGet(getBucketIndex(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long currentMax = max.get();
+        while ((value > currentMax) && (!max.compareAndSet(currentMax, value))) {
+            currentMax = max.get();
+        }
+    }
+
+    protected static int getBucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int highestBit = (Long.SIZE - 1) - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (highestBit - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return ((highestBit - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT) + subBucket;
+    }
+
+    /**
+     * Returns the largest value that is counted in the bucket with the given
+     * index.
+     */
+    protected static long getHighestValueOfBucket(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index / SUB_BUCKET_COUNT) - 1;
+        long lowestValue = ((long) (SUB_BUCKET_COUNT + (index % SUB_BUCKET_COUNT))) << shift;
+        return lowestValue + (1L << shift) - 1;
+    }
+
+    /**
+     * Returns the value below or equal to which the given percentage of the
+     * recorded values are. The returned value is the highest value of the
+     * bucket containing the percentile but never larger than the maximum.
+     * 
+     * @param percentile
+     *            the percentile, e.g., 99.9
+     * @return the value at the given percentile or 0 if the histogram is empty
+     */
+    public long getValueAtPercentile(double percentile) {
+        long totalCount = count.get();
+        if (totalCount == 0) {
+            return 0;
+        }
+        long countAtPercentile = Math.max(1, (long) Math.ceil((Math.min(percentile, 100.0) / 100.0) * totalCount));
+        long seenValues = 0;
+        for (int i = 0; i < NUMBER_OF_BUCKETS; ++i) {
+            seenValues += buckets.get(i);
+            if (seenValues >= countAtPercentile) {
+                return Math.min(getHighestValueOfBucket(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getSum() {
+        return sum.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long totalCount = count.get();
+        return totalCount == 0 ? 0 : (sum.get() / (double) totalCount);
+    }
+
+    /**
+     * Removes all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < NUMBER_OF_BUCKETS; ++i) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.instrumentation;
+
+import org.aksw.palmetto.data.SubsetProbabilities;
+
+/**
+ * The default instrumentation that does not record anything. Its methods are
+ * empty, i.e., they are removed by the JIT compiler.
+ * 
+ * @author m.roeder
+ * 
+ */
+public final class NoOpInstrumentation implements Instrumentation {
+
+    public static final NoOpInstrumentation INSTANCE = new NoOpInstrumentation();
+
+    private NoOpInstrumentation() {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public long start() {
+        return 0;
+    }
+
+    @Override
+    public void stageFinished(Stage stage, long startTime) {
+    }
+
+    @Override
+    public void recordStage(Stage stage, long nanos) {
+    }
+
+    @Override
+    public void count(Volume volume, long amount) {
+    }
+
+    @Override
+    public void postingsRead(String word, long documents, long positions) {
+    }
+
+    @Override
+    public void countingEngineChosen(String engine, String wordset[]) {
+    }
+
+    @Override
+    public void cacheLookup(String cache, long lookups, long hits) {
+    }
+
+    @Override
+    public void probabilitiesEstimated(String wordsets[][], SubsetProbabilities probabilities[]) {
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.instrumentation;
+
+/**
+ * The JDK Flight Recorder event types emitted by Palmetto. They are
+ * registered when this class is loaded and are recorded if a recording is
+ * running, e.g., started with
+ * <code>-XX:StartFlightRecording</code> or <code>jcmd &lt;pid&gt; JFR.start</code>.
+ * 
+ * @author m.roeder
+ * 
+ */
+public final class PalmettoEvents {
+
+    /**
+     * The calculation of a coherence for a chunk of topics.
+     */
+    public static final FlightRecorderEventType TOPIC_EVALUATION = new FlightRecorderEventType(
+            "org.aksw.palmetto.TopicEvaluation", "Topic Evaluation",
+            "Calculation of a coherence for a chunk of topics", true,
+            new String[] { "coherence", "topics", "numberOfTopics" },
+            new String[] { "Coherence", "Topics", "Number of Topics" },
+            new Class<?>[] { String.class, String.class, int.class });
+    public static final int TOPIC_EVALUATION_COHERENCE = 0;
+    public static final int TOPIC_EVALUATION_TOPICS = 1;
+    public static final int TOPIC_EVALUATION_NUMBER_OF_TOPICS = 2;
+
+    /**
+     * The retrieval of the posting list of a single word from the index.
+     */
+    public static final FlightRecorderEventType POSTING_FETCH = new FlightRecorderEventType(
+            "org.aksw.palmetto.PostingFetch", "Posting Fetch",
+            "Retrieval of the posting list of a single word from the index", false,
+            new String[] { "term", "docFreq", "leavesScanned", "positionsDecoded" },
+            new String[] { "Term", "Document Frequency", "Leaves Scanned", "Positions Decoded" },
+            new Class<?>[] { String.class, long.class, int.class, long.class });
+    public static final int POSTING_FETCH_TERM = 0;
+    public static final int POSTING_FETCH_DOC_FREQ = 1;
+    public static final int POSTING_FETCH_LEAVES_SCANNED = 2;
+    public static final int POSTING_FETCH_POSITIONS_DECODED = 3;
+
+    /**
+     * The counting of the windows of a single topic.
+     */
+    public static final FlightRecorderEventType WINDOW_COUNTING = new FlightRecorderEventType(
+            "org.aksw.palmetto.WindowCounting", "Window Counting",
+            "Counting of the sliding windows containing the words of a single topic", false,
+            new String[] { "words", "engine", "documents", "positions" },
+            new String[] { "Words", "Engine", "Documents", "Positions" },
+            new Class<?>[] { String.class, String.class, long.class, long.class }, true);
+    public static final int WINDOW_COUNTING_WORDS = 0;
+    public static final int WINDOW_COUNTING_ENGINE = 1;
+    public static final int WINDOW_COUNTING_DOCUMENTS = 2;
+    public static final int WINDOW_COUNTING_POSITIONS = 3;
+
+    /**
+     * The lookup of several keys in one of the caches.
+     */
+    public static final FlightRecorderEventType CACHE_LOOKUP = new FlightRecorderEventType(
+            "org.aksw.palmetto.CacheLookup", "Cache Lookup",
+            "Lookup of the entries of a request in one of the caches", false,
+            new String[] { "cache", "lookups", "hits" },
+            new String[] { "Cache", "Lookups", "Hits" },
+            new Class<?>[] { String.class, long.class, long.class });
+    public static final int CACHE_LOOKUP_CACHE = 0;
+    public static final int CACHE_LOOKUP_LOOKUPS = 1;
+    public static final int CACHE_LOOKUP_HITS = 2;
+
+    private static final FlightRecorderEventType TYPES[] = new FlightRecorderEventType[] { TOPIC_EVALUATION,
+            POSTING_FETCH, WINDOW_COUNTING, CACHE_LOOKUP };
+
+    static {
+        FlightRecorderBridge.addListener(new Runnable() {
+            @Override
+            public void run() {
+                updateEnabledTypes();
+            }
+        });
+        updateEnabledTypes();
+    }
+
+    private PalmettoEvents() {
+    }
+
+    /**
+     * Returns true if the JDK Flight Recorder is available.
+     */
+    public static boolean isFlightRecorderAvailable() {
+        return FlightRecorderBridge.isAvailable();
+    }
+
+    /**
+     * Updates the cached states of the single event types. This happens
+     * automatically every time the state of a recording changes.
+     */
+    public static void updateEnabledTypes() {
+        for (int i = 0; i < TYPES.length; ++i) {
+            TYPES[i].updateEnabled();
+        }
+    }
+
+    /**
+     * Returns the given words as a single space separated string.
+     */
+    public static String toString(String words[]) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < words.length; ++i) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(words[i]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns the given word sets as a single string in which the word sets
+     * are separated by '|'.
+     */
+    public static String toString(String wordsets[][]) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < wordsets.length; ++i) {
+            if (i > 0) {
+                builder.append(" | ");
+            }
+            builder.append(toString(wordsets[i]));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.instrumentation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A ring buffer keeping the explanations of the last requests that needed
+ * more time than a given threshold.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class SlowRequestLog {
+
+    private final Explanation explanations[];
+    private final long thresholdNanos;
+    private int nextPos = 0;
+    private long numberOfSlowRequests = 0;
+
+    /**
+     * Constructor.
+     * 
+     * @param size
+     *            the number of explanations that are kept
+     * @param thresholdMillis
+     *            the minimum time (in milliseconds) a request needs to be
+     *            added to the log
+     */
+    public SlowRequestLog(int size, long thresholdMillis) {
+        if (size < 1) {
+            throw new IllegalArgumentException("The size of the log has to be at least 1.");
+        }
+        explanations = new Explanation[size];
+        thresholdNanos = thresholdMillis * 1000000L;
+    }
+
+    /**
+     * Adds the given explanation to the log if its request needed at least the
+     * threshold time. The oldest explanation is removed if the log is full.
+     * 
+     * @return true if the explanation has been added
+     */
+    public synchronized boolean offer(Explanation explanation) {
+        if (explanation.getElapsedTime() < thresholdNanos) {
+            return false;
+        }
+        explanations[nextPos] = explanation;
+        nextPos = (nextPos + 1) % explanations.length;
+        ++numberOfSlowRequests;
+        return true;
+    }
+
+    /**
+     * Returns the logged explanations ordered from the oldest to the newest.
+     */
+    public synchronized List<Explanation> getExplanations() {
+        List<Explanation> list = new ArrayList<Explanation>(explanations.length);
+        int pos;
+        for (int i = 0; i < explanations.length; ++i) {
+            pos = (nextPos + i) % explanations.length;
+            if (explanations[pos] != null) {
+                list.add(explanations[pos]);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Returns the number of slow requests that have been added since the log
+     * has been created (including the requests that are not kept anymore).
+     */
+    public synchronized long getNumberOfSlowRequests() {
+        return numberOfSlowRequests;
+    }
+
+    /**
+     * Returns the logged explanations as JSON array ordered from the oldest to
+     * the newest.
+     */
+    public String toJson() {
+        StringBuilder builder = new StringBuilder();
+        builder.append('[');
+        boolean first = true;
+        for (Explanation explanation : getExplanations()) {
+            if (!first) {
+                builder.append(',');
+            }
+            first = false;
+            explanation.toJson(builder);
+        }
+        builder.append(']');
+        return builder.toString();
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.instrumentation;
+
+/**
+ * The stages of the coherence calculation whose wall time is recorded by an
+ * {@link Instrumentation}. Note that stages can be nested, e.g., the posting
+ * retrieval is part of the probability estimation.
+ * 
+ * @author m.roeder
+ * 
+ */
+public enum Stage {
+    /**
+     * Retrieval of the documents (and positions) of words from the corpus.
+     */
+    POSTING_RETRIEVAL,
+    /**
+     * Lookup of the lengths of documents.
+     */
+    DOCUMENT_LENGTH_LOOKUP,
+    /**
+     * Counting of the windows containing the words of a word set.
+     */
+    WINDOW_COUNTING,
+    /**
+     * Estimation of the probabilities of word sets (including the counting).
+     */
+    PROBABILITY_ESTIMATION,
+    /**
+     * Creation of context vectors (excluding the probability estimation).
+     */
+    VECTOR_CREATION,
+    /**
+     * Calculation of the confirmation values and their aggregation.
+     */
+    CONFIRMATION_AGGREGATION
+}
@@ -66,7 +66,7 @@ public class SimpleWordSetReader {
         return topics.toArray(new String[topics.size()][]);
     }
 
-    private String[] parseWordSetFromLine(String line) {
+    protected static String[] parseWordSetFromLine(String line) {
         List<String> topic = new ArrayList<String>();
         StringTokenizer tokenizer = new StringTokenizer(line);
         while ((tokenizer.hasMoreTokens())) {
@@ -0,0 +1,120 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.io;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+/**
+ * A reader that reads the word sets of a file (or any other stream) lazily
+ * line by line. In contrast to the {@link SimpleWordSetReader}, only the
+ * current word set is held in memory. Empty lines are skipped. The reader
+ * keeps track of the number of lines that have been consumed which makes it
+ * possible to resume the reading at a given line offset.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class StreamingWordSetReader implements Closeable {
+
+    private BufferedReader reader;
+
+    /**
+     * Number of lines that have been consumed.
+     */
+    private long lineCount = 0;
+
+    public StreamingWordSetReader(File inputFile) throws IOException {
+        this(new FileInputStream(inputFile));
+    }
+
+    public StreamingWordSetReader(InputStream in) {
+        this.reader = new BufferedReader(new InputStreamReader(in));
+    }
+
+    /**
+     * Returns the next word set or null if the end of the stream has been
+     * reached.
+     */
+    public String[] readNextWordSet() throws IOException {
+        String line = reader.readLine();
+        String wordset[];
+        while (line != null) {
+            ++lineCount;
+            wordset = SimpleWordSetReader.parseWordSetFromLine(line);
+            if (wordset.length > 0) {
+                return wordset;
+            }
+            line = reader.readLine();
+        }
+        return null;
+    }
+
+    /**
+     * Reads up to wordsets.length word sets into the given array.
+     * 
+     * @return the number of word sets that have been read. If it is smaller
+     *         than the length of the given array, the end of the stream has
+     *         been reached.
+     */
+    public int readWordSets(String wordsets[][]) throws IOException {
+        int count = 0;
+        String wordset[];
+        while (count < wordsets.length) {
+            wordset = readNextWordSet();
+            if (wordset == null) {
+                return count;
+            }
+            wordsets[count] = wordset;
+            ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Skips the given number of lines, e.g., to resume a previous run.
+     * 
+     * @return the number of lines that have been skipped. It is smaller than
+     *         the given number if the end of the stream has been reached.
+     */
+    public long skipLines(long numberOfLines) throws IOException {
+        long skipped = 0;
+        while ((skipped < numberOfLines) && (reader.readLine() != null)) {
+            ++skipped;
+        }
+        lineCount += skipped;
+        return skipped;
+    }
+
+    /**
+     * Returns the number of lines that have been consumed so far.
+     */
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
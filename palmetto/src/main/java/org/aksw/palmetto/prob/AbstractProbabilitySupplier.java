@@ -17,9 +17,16 @@
  */
 package org.aksw.palmetto.prob;
 
+import org.aksw.palmetto.corpus.CorpusAdapter;
+import org.aksw.palmetto.corpus.TermDictionary;
+import org.aksw.palmetto.corpus.TermDictionarySupportingAdapter;
 import org.aksw.palmetto.data.CountedSubsets;
 import org.aksw.palmetto.data.SegmentationDefinition;
 import org.aksw.palmetto.data.SubsetProbabilities;
+import org.aksw.palmetto.instrumentation.InstrumentationRegistry;
+import org.aksw.palmetto.instrumentation.Volume;
+
+import com.carrotsearch.hppc.BitSet;
 
 public abstract class AbstractProbabilitySupplier implements
         ProbabilityEstimator {
@@ -28,6 +35,11 @@ public abstract class AbstractProbabilitySupplier implements
 
     protected FrequencyDeterminer freqDeterminer;
     protected int minFrequency = DEFAULT_MIN_FREQUENCY;
+    /**
+     * Dictionary used to identify words that are unknown or too rare before
+     * counting. Can be null.
+     */
+    protected TermDictionary termDictionary;
 
     protected AbstractProbabilitySupplier(FrequencyDeterminer freqDeterminer) {
         this.freqDeterminer = freqDeterminer;
@@ -35,18 +47,175 @@ public abstract class AbstractProbabilitySupplier implements
 
     public SubsetProbabilities[] getProbabilities(String wordsets[][],
             SegmentationDefinition definitions[]) {
-        CountedSubsets subsets[] = freqDeterminer.determineCounts(wordsets,
-                definitions);
+        CountedSubsets subsets[];
+        if (termDictionary != null) {
+            subsets = determineCountsOfKnownWords(wordsets, definitions);
+        } else {
+            subsets = freqDeterminer.determineCounts(wordsets, definitions);
+        }
         SubsetProbabilities probabilities[] = new SubsetProbabilities[subsets.length];
+        long allocatedBytes = 0;
         for (int i = 0; i < subsets.length; i++) {
             probabilities[i] = getProbabilities(subsets[i]);
+            // the int counts and the double probabilities
+            allocatedBytes += 12L * subsets[i].counts.length;
         }
+        InstrumentationRegistry.get().count(Volume.ARRAY_BYTES_ALLOCATED, allocatedBytes);
         return probabilities;
     }
 
     protected abstract SubsetProbabilities getProbabilities(
             CountedSubsets countedSubsets);
 
+    /**
+     * Determines the counts of the given word sets. Words that can not reach
+     * the minimum frequency (according to the term dictionary) are removed
+     * from the word sets before the counting. The counts of all subsets
+     * containing such a word are set to 0 since they would get a probability
+     * of 0 anyway.
+     */
+    protected CountedSubsets[] determineCountsOfKnownWords(String wordsets[][], SegmentationDefinition definitions[]) {
+        int rareWordMasks[] = new int[wordsets.length];
+        String reducedWordsets[][] = new String[wordsets.length][];
+        SegmentationDefinition reducedDefinitions[] = new SegmentationDefinition[wordsets.length];
+        int numberOfReducedWordsets = 0;
+        for (int i = 0; i < wordsets.length; ++i) {
+            rareWordMasks[i] = getRareWordMask(wordsets[i]);
+            if (Integer.bitCount(rareWordMasks[i]) < wordsets[i].length) {
+                reducedWordsets[numberOfReducedWordsets] = reduceWordset(wordsets[i], rareWordMasks[i]);
+                reducedDefinitions[numberOfReducedWordsets] = reduceDefinition(definitions[i], wordsets[i].length,
+                        rareWordMasks[i]);
+                ++numberOfReducedWordsets;
+            }
+        }
+        CountedSubsets reducedSubsets[] = null;
+        if (numberOfReducedWordsets > 0) {
+            if (numberOfReducedWordsets < wordsets.length) {
+                String tempWordsets[][] = new String[numberOfReducedWordsets][];
+                System.arraycopy(reducedWordsets, 0, tempWordsets, 0, numberOfReducedWordsets);
+                reducedWordsets = tempWordsets;
+                SegmentationDefinition tempDefinitions[] = new SegmentationDefinition[numberOfReducedWordsets];
+                System.arraycopy(reducedDefinitions, 0, tempDefinitions, 0, numberOfReducedWordsets);
+                reducedDefinitions = tempDefinitions;
+            }
+            reducedSubsets = freqDeterminer.determineCounts(reducedWordsets, reducedDefinitions);
+        }
+        CountedSubsets subsets[] = new CountedSubsets[wordsets.length];
+        int reducedWordsetId = 0;
+        int counts[];
+        for (int i = 0; i < wordsets.length; ++i) {
+            if (rareWordMasks[i] == 0) {
+                counts = reducedSubsets[reducedWordsetId].counts;
+                ++reducedWordsetId;
+            } else {
+                counts = new int[1 << wordsets[i].length];
+                if (Integer.bitCount(rareWordMasks[i]) < wordsets[i].length) {
+                    expandCounts(reducedSubsets[reducedWordsetId].counts, rareWordMasks[i], counts);
+                    ++reducedWordsetId;
+                }
+            }
+            subsets[i] = new CountedSubsets(definitions[i].segments, definitions[i].conditions, counts);
+        }
+        return subsets;
+    }
+
+    /**
+     * Returns a bit mask marking the words of the given word set that can not
+     * reach the minimum frequency.
+     */
+    protected int getRareWordMask(String wordset[]) {
+        // a count of 0 always leads to a probability of 0
+        long neededCount = Math.max(minFrequency, 1);
+        int mask = 0;
+        int docFreq;
+        long collectionFreq;
+        boolean pruned;
+        for (int i = 0; i < wordset.length; ++i) {
+            docFreq = termDictionary.getDocumentFrequency(wordset[i]);
+            pruned = false;
+            if (docFreq == 0) {
+                if (termDictionary.getMinDocumentFrequency() <= 1) {
+                    // the word does not occur in the corpus
+                    mask |= 1 << i;
+                    continue;
+                }
+                // the word might have been pruned from the dictionary
+                docFreq = termDictionary.getMinDocumentFrequency() - 1;
+                pruned = true;
+            }
+            collectionFreq = pruned ? -1 : termDictionary.getCollectionFrequency(wordset[i]);
+            if (getUpperBoundOfCount(docFreq, collectionFreq) < neededCount) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Returns an upper bound for the count of a single word with the given
+     * document frequency and collection frequency. If the collection frequency
+     * is not known, it is -1. The default implementation returns
+     * {@link Long#MAX_VALUE}, i.e., only words that do not occur in the
+     * corpus are removed.
+     */
+    protected long getUpperBoundOfCount(int docFreq, long collectionFreq) {
+        return Long.MAX_VALUE;
+    }
+
+    private static String[] reduceWordset(String wordset[], int removedWordsMask) {
+        String reducedWordset[] = new String[wordset.length - Integer.bitCount(removedWordsMask)];
+        int pos = 0;
+        for (int i = 0; i < wordset.length; ++i) {
+            if ((removedWordsMask & (1 << i)) == 0) {
+                reducedWordset[pos] = wordset[i];
+                ++pos;
+            }
+        }
+        return reducedWordset;
+    }
+
+    private static SegmentationDefinition reduceDefinition(SegmentationDefinition definition, int wordsetSize,
+            int removedWordsMask) {
+        if (removedWordsMask == 0) {
+            return definition;
+        }
+        BitSet neededCounts = null;
+        if (definition.neededCounts != null) {
+            neededCounts = new BitSet(1 << (wordsetSize - Integer.bitCount(removedWordsMask)));
+            int numberOfSubsets = 1 << wordsetSize;
+            for (int i = 1; i < numberOfSubsets; ++i) {
+                if (((i & removedWordsMask) == 0) && definition.neededCounts.get(i)) {
+                    neededCounts.set(reduceSubset(i, removedWordsMask, wordsetSize));
+                }
+            }
+        }
+        // the segments and conditions are not needed for counting
+        return new SegmentationDefinition(new int[0], new int[0][0], neededCounts);
+    }
+
+    private static int reduceSubset(int subset, int removedWordsMask, int wordsetSize) {
+        int reducedSubset = 0;
+        int pos = 0;
+        for (int i = 0; i < wordsetSize; ++i) {
+            if ((removedWordsMask & (1 << i)) == 0) {
+                if ((subset & (1 << i)) != 0) {
+                    reducedSubset |= 1 << pos;
+                }
+                ++pos;
+            }
+        }
+        return reducedSubset;
+    }
+
+    private static void expandCounts(int reducedCounts[], int removedWordsMask, int counts[]) {
+        int wordsetSize = Integer.numberOfTrailingZeros(counts.length);
+        for (int i = 1; i < counts.length; ++i) {
+            if ((i & removedWordsMask) == 0) {
+                counts[i] = reducedCounts[reduceSubset(i, removedWordsMask, wordsetSize)];
+            }
+        }
+    }
+
     public void setMinFrequency(int minFrequency) {
         this.minFrequency = minFrequency;
     }
@@ -55,6 +224,32 @@ public abstract class AbstractProbabilitySupplier implements
         return minFrequency;
     }
 
+    /**
+     * Sets the term dictionary that is used to identify unknown or rare words
+     * before counting. If it is set to null, all words are counted.
+     * 
+     * @param termDictionary
+     *            the term dictionary of the corpus or null
+     */
+    public void setTermDictionary(TermDictionary termDictionary) {
+        this.termDictionary = termDictionary;
+    }
+
+    public TermDictionary getTermDictionary() {
+        return termDictionary;
+    }
+
+    /**
+     * Returns the term dictionary of the given adapter or null if it does not
+     * offer a dictionary.
+     */
+    public static TermDictionary getTermDictionary(CorpusAdapter adapter) {
+        if (adapter instanceof TermDictionarySupportingAdapter) {
+            return ((TermDictionarySupportingAdapter) adapter).getTermDictionary();
+        }
+        return null;
+    }
+
     public FrequencyDeterminer getFrequencyDeterminer() {
         return freqDeterminer;
     }
@@ -0,0 +1,184 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.prob;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.aksw.palmetto.instrumentation.InstrumentationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class records the decisions of a frequency determiner that chooses
+ * between several counting engines based on estimated costs. It counts how
+ * often every engine has been chosen and keeps the last decisions for
+ * diagnostic purposes. Since decisions are recorded for every counted word
+ * set, recording a decision does not lock and the recent decisions are only
+ * formatted when they are retrieved.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class CountingEngineDecisions {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CountingEngineDecisions.class);
+
+    public static final int DEFAULT_NUMBER_OF_RECENT_DECISIONS = 100;
+
+    private String engineNames[];
+    private AtomicLongArray decisionCounts;
+    private AtomicReferenceArray<Decision> recentDecisions;
+    private AtomicInteger nextDecisionId = new AtomicInteger();
+
+    public CountingEngineDecisions(String... engineNames) {
+        this(DEFAULT_NUMBER_OF_RECENT_DECISIONS, engineNames);
+    }
+
+    public CountingEngineDecisions(int numberOfRecentDecisions, String... engineNames) {
+        this.engineNames = engineNames;
+        decisionCounts = new AtomicLongArray(engineNames.length);
+        recentDecisions = new AtomicReferenceArray<Decision>(numberOfRecentDecisions);
+    }
+
+    /**
+     * Records that the engine with the given id has been chosen for the given
+     * word set. The word set is kept and must not be changed afterwards
+     * while the estimated costs are copied.
+     * 
+     * @param engineId
+     *            the id of the chosen engine
+     * @param wordset
+     *            the word set that will be counted
+     * @param estimatedCosts
+     *            the estimated costs of all engines (in the order of the
+     *            engine names)
+     */
+    public void record(int engineId, String wordset[], double estimatedCosts[]) {
+        decisionCounts.incrementAndGet(engineId);
+        int decisionId = nextDecisionId.getAndIncrement();
+        InstrumentationRegistry.get().countingEngineChosen(engineNames[engineId], wordset);
+        if ((recentDecisions.length() > 0) || LOGGER.isDebugEnabled()) {
+            Decision decision = new Decision(engineId, wordset, estimatedCosts.clone());
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Counting engine decision: {}", toString(decision));
+            }
+            if (recentDecisions.length() > 0) {
+                // the id might overflow after 2^31 decisions
+                recentDecisions.set((decisionId & Integer.MAX_VALUE) % recentDecisions.length(), decision);
+            }
+        }
+    }
+
+    public String[] getEngineNames() {
+        return engineNames;
+    }
+
+    /**
+     * Returns how often the single engines have been chosen (in the order of
+     * the engine names).
+     */
+    public long[] getDecisionCounts() {
+        long counts[] = new long[decisionCounts.length()];
+        for (int i = 0; i < counts.length; ++i) {
+            counts[i] = decisionCounts.get(i);
+        }
+        return counts;
+    }
+
+    public long getNumberOfDecisions() {
+        long numberOfDecisions = 0;
+        for (int i = 0; i < decisionCounts.length(); ++i) {
+            numberOfDecisions += decisionCounts.get(i);
+        }
+        return numberOfDecisions;
+    }
+
+    /**
+     * Returns the last decisions ordered from the oldest to the newest.
+     */
+    public List<String> getRecentDecisions() {
+        int size = recentDecisions.length();
+        List<String> decisions = new ArrayList<String>(size);
+        if (size == 0) {
+            return decisions;
+        }
+        int nextPos = (nextDecisionId.get() & Integer.MAX_VALUE) % size;
+        Decision decision;
+        for (int i = 0; i < size; ++i) {
+            decision = recentDecisions.get((nextPos + i) % size);
+            if (decision != null) {
+                decisions.add(toString(decision));
+            }
+        }
+        return decisions;
+    }
+
+    protected String toString(Decision decision) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(Arrays.toString(decision.wordset));
+        builder.append(" -> ");
+        builder.append(engineNames[decision.engineId]);
+        builder.append(" (");
+        for (int i = 0; i < engineNames.length; ++i) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(engineNames[i]);
+            builder.append('=');
+            builder.append(String.format("%.0f", decision.estimatedCosts[i]));
+        }
+        builder.append(')');
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("CountingEngineDecisions [");
+        for (int i = 0; i < engineNames.length; ++i) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(engineNames[i]);
+            builder.append('=');
+            builder.append(decisionCounts.get(i));
+        }
+        builder.append(']');
+        return builder.toString();
+    }
+
+    /**
+     * A single recorded decision.
+     */
+    protected static class Decision {
+        public final int engineId;
+        public final String wordset[];
+        public final double estimatedCosts[];
+
+        public Decision(int engineId, String wordset[], double estimatedCosts[]) {
+            this.engineId = engineId;
+            this.wordset = wordset;
+            this.estimatedCosts = estimatedCosts;
+        }
+    }
+}
@@ -18,7 +18,9 @@
 package org.aksw.palmetto.prob.bd;
 
 import org.aksw.palmetto.corpus.BooleanDocumentSupportingAdapter;
+import org.aksw.palmetto.corpus.ConjunctionCountingAdapter;
 import org.aksw.palmetto.corpus.CorpusAdapter;
+import org.aksw.palmetto.corpus.TermStatisticsSupportingAdapter;
 import org.aksw.palmetto.data.CountedSubsets;
 import org.aksw.palmetto.data.SubsetProbabilities;
 import org.aksw.palmetto.prob.AbstractProbabilitySupplier;
@@ -40,13 +42,25 @@ public class BooleanDocumentProbabilitySupplier extends AbstractProbabilitySuppl
             boolean corpusIsLarge) {
         BooleanDocumentFrequencyDeterminer determiner = createFrequencyDeterminer(adapter, corpusIsLarge);
         if (determiner != null) {
-            return new BooleanDocumentProbabilitySupplier(determiner, probModelName);
+            BooleanDocumentProbabilitySupplier supplier = new BooleanDocumentProbabilitySupplier(determiner,
+                    probModelName);
+            supplier.setTermDictionary(getTermDictionary(adapter));
+            return supplier;
         }
         return null;
     }
 
     protected static BooleanDocumentFrequencyDeterminer createFrequencyDeterminer(CorpusAdapter adapter,
             boolean corpusIsLarge) {
+        // if the statistics of the words are available, the engine is chosen
+        // for every word set
+        if ((adapter instanceof BooleanDocumentSupportingAdapter) && (adapter instanceof TermStatisticsSupportingAdapter)) {
+            return new CostBasedBooleanDocumentFrequencyDeterminer((BooleanDocumentSupportingAdapter) adapter,
+                    (TermStatisticsSupportingAdapter) adapter);
+        }
+        if (corpusIsLarge && (adapter instanceof ConjunctionCountingAdapter)) {
+            return new ConjunctionBasedBooleanDocumentFrequencyDeterminer((ConjunctionCountingAdapter) adapter);
+        }
         if (adapter instanceof BooleanDocumentSupportingAdapter) {
             return (corpusIsLarge ? new ListBasedBooleanDocumentFrequencyDeterminer(
                     (BooleanDocumentSupportingAdapter) adapter) : new BitSetBasedBooleanDocumentFrequencyDeterminer(
@@ -80,6 +94,14 @@ public class BooleanDocumentProbabilitySupplier extends AbstractProbabilitySuppl
         return new SubsetProbabilities(countedSubsets.segments, countedSubsets.conditions, probabilities);
     }
 
+    /**
+     * A word can not be counted in more documents than its document frequency.
+     */
+    @Override
+    protected long getUpperBoundOfCount(int docFreq, long collectionFreq) {
+        return docFreq;
+    }
+
     @Override
     public String getName() {
         return "P_" + probModelName;
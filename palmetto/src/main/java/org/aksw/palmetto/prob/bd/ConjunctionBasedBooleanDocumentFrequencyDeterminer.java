@@ -0,0 +1,76 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.prob.bd;
+
+import org.aksw.palmetto.corpus.ConjunctionCountingAdapter;
+import org.aksw.palmetto.data.CountedSubsets;
+import org.aksw.palmetto.data.SegmentationDefinition;
+
+import com.carrotsearch.hppc.BitSet;
+import com.carrotsearch.hppc.IntArrayList;
+
+/**
+ * This frequency determiner lets the corpus adapter count the documents
+ * containing the word combinations directly instead of retrieving the
+ * documents of the single words and intersecting them. Only the counts of the
+ * single words, the word pairs and the word combinations marked in the
+ * {@link SegmentationDefinition#neededCounts} are determined. (If this BitSet
+ * is null, all combinations are counted.)
+ * 
+ * @author m.roeder
+ * 
+ */
+public class ConjunctionBasedBooleanDocumentFrequencyDeterminer implements BooleanDocumentFrequencyDeterminer {
+
+    private ConjunctionCountingAdapter corpusAdapter;
+
+    public ConjunctionBasedBooleanDocumentFrequencyDeterminer(ConjunctionCountingAdapter corpusAdapter) {
+        this.corpusAdapter = corpusAdapter;
+    }
+
+    public int getNumberOfDocuments() {
+        return corpusAdapter.getNumberOfDocuments();
+    }
+
+    public CountedSubsets[] determineCounts(String[][] wordsets, SegmentationDefinition[] definitions) {
+        CountedSubsets countedSubsets[] = new CountedSubsets[definitions.length];
+        int combinations[], combinationCounts[], counts[];
+        for (int i = 0; i < definitions.length; ++i) {
+            combinations = getCombinations(wordsets[i].length, definitions[i].neededCounts);
+            combinationCounts = corpusAdapter.getNumberOfDocumentsWithAllWords(wordsets[i], combinations);
+            counts = new int[(1 << wordsets[i].length)];
+            for (int j = 0; j < combinations.length; ++j) {
+                counts[combinations[j]] = combinationCounts[j];
+            }
+            countedSubsets[i] = new CountedSubsets(definitions[i].segments, definitions[i].conditions, counts);
+        }
+        return countedSubsets;
+    }
+
+    protected static int[] getCombinations(int wordsetSize, BitSet neededCounts) {
+        IntArrayList combinations = new IntArrayList();
+        int numberOfCombinations = 1 << wordsetSize;
+        for (int i = 1; i < numberOfCombinations; ++i) {
+            // the counts of single words and pairs are always determined
+            if ((Integer.bitCount(i) <= 2) || (neededCounts == null) || neededCounts.get(i)) {
+                combinations.add(i);
+            }
+        }
+        return combinations.toArray();
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.prob.bd;
+
+import org.aksw.palmetto.corpus.BooleanDocumentSupportingAdapter;
+import org.aksw.palmetto.corpus.ConjunctionCountingAdapter;
+import org.aksw.palmetto.corpus.TermStatisticsSupportingAdapter;
+import org.aksw.palmetto.data.CountedSubsets;
+import org.aksw.palmetto.data.SegmentationDefinition;
+import org.aksw.palmetto.prob.CountingEngineDecisions;
+
+import com.carrotsearch.hppc.BitSet;
+import com.carrotsearch.hppc.IntArrayList;
+
+/**
+ * This frequency determiner estimates for every word set the costs of the
+ * available boolean document counting engines based on the document
+ * frequencies of the single words and uses the cheapest engine. The word sets
+ * are grouped by the chosen engine so that every engine is called only once
+ * per request. The decisions are recorded in a {@link CountingEngineDecisions}
+ * object.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class CostBasedBooleanDocumentFrequencyDeterminer implements BooleanDocumentFrequencyDeterminer {
+
+    public static final int BIT_SET_ENGINE_ID = 0;
+    public static final int LIST_ENGINE_ID = 1;
+    public static final int CONJUNCTION_ENGINE_ID = 2;
+
+    private static final String ENGINE_NAMES[] = { "bitset", "list", "conjunction" };
+
+    /**
+     * Relative costs of reading a single posting sequentially.
+     */
+    private static final double POSTING_READ_COSTS = 1;
+    /**
+     * Relative costs of inserting into or looking up a hash set.
+     */
+    private static final double HASH_COSTS = 4;
+    /**
+     * Relative costs of advancing a posting list using its skip list.
+     */
+    private static final double ADVANCE_COSTS = 3;
+    /**
+     * Relative costs of looking up a term and creating its enum.
+     */
+    private static final double TERM_LOOKUP_COSTS = 50;
+
+    private BooleanDocumentSupportingAdapter corpusAdapter;
+    private TermStatisticsSupportingAdapter statisticsAdapter;
+    private BooleanDocumentFrequencyDeterminer engines[];
+    private CountingEngineDecisions decisions = new CountingEngineDecisions(ENGINE_NAMES);
+
+    /**
+     * Constructor. If the given corpus adapter is not a
+     * {@link ConjunctionCountingAdapter}, the conjunction engine is not used.
+     * 
+     * @param corpusAdapter
+     *            the adapter used for counting
+     * @param statisticsAdapter
+     *            the adapter offering the statistics of the words (typically
+     *            the same object as the corpusAdapter)
+     */
+    public CostBasedBooleanDocumentFrequencyDeterminer(BooleanDocumentSupportingAdapter corpusAdapter,
+            TermStatisticsSupportingAdapter statisticsAdapter) {
+        this.corpusAdapter = corpusAdapter;
+        this.statisticsAdapter = statisticsAdapter;
+        engines = new BooleanDocumentFrequencyDeterminer[] {
+                new BitSetBasedBooleanDocumentFrequencyDeterminer(corpusAdapter),
+                new ListBasedBooleanDocumentFrequencyDeterminer(corpusAdapter),
+                (corpusAdapter instanceof ConjunctionCountingAdapter) ? new ConjunctionBasedBooleanDocumentFrequencyDeterminer(
+                        (ConjunctionCountingAdapter) corpusAdapter) : null };
+    }
+
+    public int getNumberOfDocuments() {
+        return corpusAdapter.getNumberOfDocuments();
+    }
+
+    public CountedSubsets[] determineCounts(String[][] wordsets, SegmentationDefinition[] definitions) {
+        IntArrayList wordsetsOfEngines[] = new IntArrayList[engines.length];
+        for (int i = 0; i < wordsetsOfEngines.length; ++i) {
+            wordsetsOfEngines[i] = new IntArrayList();
+        }
+        double costs[] = new double[engines.length];
+        int engineId;
+        for (int i = 0; i < wordsets.length; ++i) {
+            estimateCosts(wordsets[i], definitions[i].neededCounts, costs);
+            engineId = 0;
+            for (int e = 1; e < costs.length; ++e) {
+                if (costs[e] < costs[engineId]) {
+                    engineId = e;
+                }
+            }
+            decisions.record(engineId, wordsets[i], costs);
+            wordsetsOfEngines[engineId].add(i);
+        }
+
+        CountedSubsets countedSubsets[] = new CountedSubsets[definitions.length];
+        String engineWordsets[][];
+        SegmentationDefinition engineDefinitions[];
+        CountedSubsets engineCounts[];
+        for (int e = 0; e < engines.length; ++e) {
+            if (wordsetsOfEngines[e].elementsCount > 0) {
+                engineWordsets = new String[wordsetsOfEngines[e].elementsCount][];
+                engineDefinitions = new SegmentationDefinition[engineWordsets.length];
+                for (int i = 0; i < engineWordsets.length; ++i) {
+                    engineWordsets[i] = wordsets[wordsetsOfEngines[e].buffer[i]];
+                    engineDefinitions[i] = definitions[wordsetsOfEngines[e].buffer[i]];
+                }
+                engineCounts = engines[e].determineCounts(engineWordsets, engineDefinitions);
+                for (int i = 0; i < engineCounts.length; ++i) {
+                    countedSubsets[wordsetsOfEngines[e].buffer[i]] = engineCounts[i];
+                }
+            }
+        }
+        return countedSubsets;
+    }
+
+    /**
+     * Estimates the costs of the single engines for counting the given word
+     * set.
+     */
+    protected void estimateCosts(String wordset[], BitSet neededCounts, double costs[]) {
+        int docFreqs[] = new int[wordset.length];
+        long termFreqs[] = new long[wordset.length];
+        statisticsAdapter.getTermStatistics(wordset, docFreqs, termFreqs);
+        costs[BIT_SET_ENGINE_ID] = estimateBitSetCosts(docFreqs);
+        costs[LIST_ENGINE_ID] = estimateListCosts(docFreqs);
+        if (engines[CONJUNCTION_ENGINE_ID] != null) {
+            costs[CONJUNCTION_ENGINE_ID] = estimateConjunctionCosts(docFreqs, neededCounts);
+        } else {
+            costs[CONJUNCTION_ENGINE_ID] = Double.POSITIVE_INFINITY;
+        }
+    }
+
+    protected static double estimateBitSetCosts(int docFreqs[]) {
+        double sumOfDocFreqs = 0;
+        for (int i = 0; i < docFreqs.length; ++i) {
+            sumOfDocFreqs += docFreqs[i];
+        }
+        // reading the documents into hash sets, creating the bit sets over the
+        // union of all documents and intersecting the bit sets of all subsets
+        return (sumOfDocFreqs * (POSTING_READ_COSTS + HASH_COSTS))
+                + (sumOfDocFreqs * docFreqs.length * HASH_COSTS)
+                + ((1 << docFreqs.length) * ((sumOfDocFreqs / 64) + 1));
+    }
+
+    protected static double estimateListCosts(int docFreqs[]) {
+        double costs = 0;
+        for (int i = 0; i < docFreqs.length; ++i) {
+            // reading and sorting the list
+            costs += docFreqs[i] * (POSTING_READ_COSTS + log2(docFreqs[i] + 1));
+            // merging the lists
+            costs += docFreqs[i] * docFreqs.length;
+        }
+        // summing up the counts of the subsets
+        double numberOfSubsets = 1 << docFreqs.length;
+        return costs + ((numberOfSubsets * numberOfSubsets) / 2);
+    }
+
+    protected static double estimateConjunctionCosts(int docFreqs[], BitSet neededCounts) {
+        double costs = docFreqs.length * TERM_LOOKUP_COSTS;
+        int numberOfCombinations = 1 << docFreqs.length;
+        int minDocFreq, maxDocFreq, wordCount;
+        for (int c = 1; c < numberOfCombinations; ++c) {
+            wordCount = Integer.bitCount(c);
+            if ((wordCount > 2) && (neededCounts != null) && (!neededCounts.get(c))) {
+                continue;
+            }
+            if (wordCount == 1) {
+                costs += 1;
+                continue;
+            }
+            minDocFreq = Integer.MAX_VALUE;
+            maxDocFreq = 0;
+            for (int w = 0; w < docFreqs.length; ++w) {
+                if ((c & (1 << w)) != 0) {
+                    minDocFreq = Math.min(minDocFreq, docFreqs[w]);
+                    maxDocFreq = Math.max(maxDocFreq, docFreqs[w]);
+                }
+            }
+            // the rarest word drives the advancing of the other words
+            costs += (wordCount * TERM_LOOKUP_COSTS)
+                    + (minDocFreq * (wordCount - 1) * ADVANCE_COSTS * (1 + log2(((double) maxDocFreq / (minDocFreq + 1)) + 1)));
+        }
+        return costs;
+    }
+
+    private static double log2(double value) {
+        return Math.log(value) / Math.log(2);
+    }
+
+    public CountingEngineDecisions getDecisions() {
+        return decisions;
+    }
+}
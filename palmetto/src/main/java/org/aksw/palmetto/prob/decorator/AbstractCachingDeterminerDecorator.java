@@ -0,0 +1,189 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.prob.decorator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.aksw.palmetto.data.CountedSubsets;
+import org.aksw.palmetto.data.SegmentationDefinition;
+import org.aksw.palmetto.instrumentation.FlightRecorderEvent;
+import org.aksw.palmetto.instrumentation.InstrumentationRegistry;
+import org.aksw.palmetto.instrumentation.PalmettoEvents;
+import org.aksw.palmetto.prob.FrequencyDeterminer;
+import org.aksw.palmetto.prob.bd.BooleanDocumentFrequencyDeterminer;
+
+/**
+ * Abstract class for decorators caching the counts of word sets. The counts
+ * of all word sets of a request that are not cached are determined by a single
+ * call of the decorated determiner, i.e., the determiner can still share work
+ * between the word sets of the request. Word sets occurring several times
+ * inside a request are forwarded only once.
+ * 
+ * <p>
+ * The decorator can be used for boolean document and window based
+ * determiners. Note that the methods of a
+ * {@link BooleanDocumentFrequencyDeterminer} can only be used if the decorated
+ * determiner is a boolean document based determiner.
+ * </p>
+ * 
+ * @author m.roeder
+ * 
+ */
+public abstract class AbstractCachingDeterminerDecorator extends AbstractSlidingWindowFrequencyDeterminerDecorator
+        implements BooleanDocumentFrequencyDeterminer {
+
+    private final AtomicLong requestedWordsetCount = new AtomicLong();
+    private final AtomicLong missedWordsetCount = new AtomicLong();
+    private final AtomicLong determinerCalls = new AtomicLong();
+    private final AtomicLong requestTime = new AtomicLong();
+    private final AtomicLong determinerTime = new AtomicLong();
+
+    public AbstractCachingDeterminerDecorator(FrequencyDeterminer determiner) {
+        super(determiner);
+    }
+
+    @Override
+    public CountedSubsets[] determineCounts(String[][] wordsets, SegmentationDefinition[] definitions) {
+        long startTime = System.nanoTime();
+        CountedSubsets countedSubsets[] = new CountedSubsets[definitions.length];
+        CountCacheKey keys[] = new CountCacheKey[definitions.length];
+        Map<CountCacheKey, Integer> missedKeys = new HashMap<CountCacheKey, Integer>();
+        List<String[]> missedWordsets = new ArrayList<String[]>();
+        List<SegmentationDefinition> missedDefinitions = new ArrayList<SegmentationDefinition>();
+        int counts[];
+        int hits = 0;
+        FlightRecorderEvent event = PalmettoEvents.CACHE_LOOKUP.begin();
+        for (int i = 0; i < definitions.length; ++i) {
+            keys[i] = createKey(wordsets[i], definitions[i]);
+            counts = getCachedCounts(keys[i]);
+            if (counts != null) {
+                countedSubsets[i] = new CountedSubsets(definitions[i].segments, definitions[i].conditions, counts);
+                ++hits;
+            } else if (!missedKeys.containsKey(keys[i])) {
+                missedKeys.put(keys[i], missedWordsets.size());
+                missedWordsets.add(wordsets[i]);
+                missedDefinitions.add(definitions[i]);
+            }
+        }
+        InstrumentationRegistry.get().cacheLookup(getClass().getSimpleName(), definitions.length, hits);
+        if (event != null) {
+            event.set(PalmettoEvents.CACHE_LOOKUP_CACHE, getClass().getSimpleName());
+            event.set(PalmettoEvents.CACHE_LOOKUP_LOOKUPS, (long) definitions.length);
+            event.set(PalmettoEvents.CACHE_LOOKUP_HITS, (long) hits);
+            event.commit();
+        }
+        if (missedWordsets.size() > 0) {
+            long determinerStartTime = System.nanoTime();
+            CountedSubsets determinedCounts[] = determiner.determineCounts(
+                    missedWordsets.toArray(new String[missedWordsets.size()][]),
+                    missedDefinitions.toArray(new SegmentationDefinition[missedDefinitions.size()]));
+            determinerTime.addAndGet(System.nanoTime() - determinerStartTime);
+            determinerCalls.incrementAndGet();
+            for (int i = 0; i < definitions.length; ++i) {
+                if (countedSubsets[i] == null) {
+                    counts = determinedCounts[missedKeys.get(keys[i])].counts;
+                    countedSubsets[i] = new CountedSubsets(definitions[i].segments, definitions[i].conditions,
+                            counts);
+                }
+            }
+            for (Map.Entry<CountCacheKey, Integer> missedKey : missedKeys.entrySet()) {
+                addToCache(missedKey.getKey(), determinedCounts[missedKey.getValue()].counts);
+            }
+        }
+        requestedWordsetCount.addAndGet(definitions.length);
+        missedWordsetCount.addAndGet(missedKeys.size());
+        requestTime.addAndGet(System.nanoTime() - startTime);
+        return countedSubsets;
+    }
+
+    protected CountCacheKey createKey(String wordset[], SegmentationDefinition definition) {
+        return new CountCacheKey(wordset, definition.neededCounts);
+    }
+
+    /**
+     * Returns the cached counts for the given key or null if they are not
+     * cached.
+     */
+    protected abstract int[] getCachedCounts(CountCacheKey key);
+
+    /**
+     * Adds the given counts determined by the decorated determiner to the
+     * cache.
+     */
+    protected abstract void addToCache(CountCacheKey key, int counts[]);
+
+    /**
+     * Returns the number of documents of the decorated determiner.
+     * 
+     * @throws UnsupportedOperationException
+     *             if the decorated determiner is not a
+     *             {@link BooleanDocumentFrequencyDeterminer}, e.g., a window
+     *             based determiner
+     */
+    @Override
+    public int getNumberOfDocuments() {
+        if (determiner instanceof BooleanDocumentFrequencyDeterminer) {
+            return ((BooleanDocumentFrequencyDeterminer) determiner).getNumberOfDocuments();
+        } else {
+            throw new UnsupportedOperationException("The decorated determiner "
+                    + determiner.getClass().getSimpleName()
+                    + " is not a boolean document based determiner and has no number of documents.");
+        }
+    }
+
+    /**
+     * Returns the number of word sets that have been requested.
+     */
+    public long getNumberOfRequestedWordsets() {
+        return requestedWordsetCount.get();
+    }
+
+    /**
+     * Returns the number of word sets that have been forwarded to the
+     * decorated determiner.
+     */
+    public long getNumberOfMissedWordsets() {
+        return missedWordsetCount.get();
+    }
+
+    /**
+     * Returns the number of calls of the decorated determiner.
+     */
+    public long getNumberOfDeterminerCalls() {
+        return determinerCalls.get();
+    }
+
+    /**
+     * Returns the overall time (in nanoseconds) spent for answering requests.
+     */
+    public long getRequestTime() {
+        return requestTime.get();
+    }
+
+    /**
+     * Returns the overall time (in nanoseconds) the decorated determiner
+     * needed to count the missed word sets.
+     */
+    public long getDeterminerTime() {
+        return determinerTime.get();
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.prob.decorator;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.aksw.palmetto.prob.FrequencyDeterminer;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+
+/**
+ * A thread safe caching decorator. In contrast to the
+ * {@link SimpleFrequencyCachingDeterminerDecorator}, the word sets are used as
+ * exact keys, i.e., word sets with the same hash value can not get the counts
+ * of each other. The cache is bounded by the (estimated) number of bytes the
+ * cached keys and count arrays occupy and can optionally remove counts that
+ * have not been accessed for a given time. The statistics of the cache can be
+ * retrieved using {@link #getCacheStats()} or via JMX after registering the
+ * decorator using {@link #registerMBean(String)}.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class ConcurrentFrequencyCachingDeterminerDecorator extends AbstractCachingDeterminerDecorator implements
+        ConcurrentFrequencyCachingDeterminerDecoratorMBean {
+
+    public static final long DEFAULT_MAX_CACHE_SIZE_IN_BYTES = 64L * 1024L * 1024L;
+    public static final String MBEAN_DOMAIN = "org.aksw.palmetto";
+
+    private Cache<CountCacheKey, int[]> cache;
+    private ObjectName mBeanName;
+
+    public ConcurrentFrequencyCachingDeterminerDecorator(FrequencyDeterminer determiner) {
+        this(determiner, DEFAULT_MAX_CACHE_SIZE_IN_BYTES);
+    }
+
+    public ConcurrentFrequencyCachingDeterminerDecorator(FrequencyDeterminer determiner, long maxCacheSizeInBytes) {
+        this(determiner, maxCacheSizeInBytes, 0);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param determiner
+     *            the decorated frequency determiner
+     * @param maxCacheSizeInBytes
+     *            the maximum (estimated) number of bytes of the cached keys
+     *            and count arrays
+     * @param expirationTime
+     *            time in milliseconds after which counts that have not been
+     *            accessed are removed. Counts won't expire if this value is
+     *            not larger than 0.
+     */
+    public ConcurrentFrequencyCachingDeterminerDecorator(FrequencyDeterminer determiner, long maxCacheSizeInBytes,
+            long expirationTime) {
+        super(determiner);
+        CacheBuilder<CountCacheKey, int[]> builder = CacheBuilder.newBuilder().maximumWeight(maxCacheSizeInBytes)
+                .weigher(new Weigher<CountCacheKey, int[]>() {
+                    @Override
+                    public int weigh(CountCacheKey key, int[] counts) {
+                        return (int) Math.min(key.getSizeInBytes() + CountCacheKey.getSizeInBytes(counts),
+                                Integer.MAX_VALUE);
+                    }
+                });
+        if (expirationTime > 0) {
+            builder.expireAfterAccess(expirationTime, TimeUnit.MILLISECONDS);
+        }
+        cache = builder.recordStats().build();
+    }
+
+    @Override
+    protected int[] getCachedCounts(CountCacheKey key) {
+        return cache.getIfPresent(key);
+    }
+
+    @Override
+    protected void addToCache(CountCacheKey key, int[] counts) {
+        cache.put(key, counts);
+    }
+
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    @Override
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    @Override
+    public double getHitRate() {
+        return cache.stats().hitRate();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    @Override
+    public long getSize() {
+        return cache.size();
+    }
+
+    @Override
+    public double getAverageRequestTime() {
+        long requests = getNumberOfRequestedWordsets();
+        return (requests == 0) ? 0 : (getRequestTime() / (requests * 1000000.0));
+    }
+
+    @Override
+    public double getAverageMissPenalty() {
+        long misses = getNumberOfMissedWordsets();
+        return (misses == 0) ? 0 : (getDeterminerTime() / (misses * 1000000.0));
+    }
+
+    @Override
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Registers this decorator at the platform MBean server using the object
+     * name "org.aksw.palmetto:type=FrequencyCache,name=&lt;name&gt;".
+     * 
+     * @param name
+     *            the name of the cache, e.g., the name of the window model
+     */
+    public synchronized void registerMBean(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(MBEAN_DOMAIN + ":type=FrequencyCache,name=" + ObjectName.quote(name));
+        server.registerMBean(this, objectName);
+        mBeanName = objectName;
+    }
+
+    /**
+     * Removes this decorator from the platform MBean server if it has been
+     * registered before.
+     */
+    public synchronized void unregisterMBean() throws JMException {
+        if (mBeanName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(mBeanName);
+            mBeanName = null;
+        }
+    }
+}
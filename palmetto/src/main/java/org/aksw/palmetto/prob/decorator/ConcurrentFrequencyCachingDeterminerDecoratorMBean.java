@@ -0,0 +1,57 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.prob.decorator;
+
+/**
+ * Management interface of the {@link ConcurrentFrequencyCachingDeterminerDecorator}
+ * which can be registered at an MBean server.
+ * 
+ * @author m.roeder
+ * 
+ */
+public interface ConcurrentFrequencyCachingDeterminerDecoratorMBean {
+
+    public long getHitCount();
+
+    public long getMissCount();
+
+    public double getHitRate();
+
+    public long getEvictionCount();
+
+    /**
+     * Returns the number of cached count arrays.
+     */
+    public long getSize();
+
+    /**
+     * Returns the average time (in milliseconds) needed to answer a request.
+     */
+    public double getAverageRequestTime();
+
+    /**
+     * Returns the average time (in milliseconds) the decorated determiner
+     * needed to count a missed word set.
+     */
+    public double getAverageMissPenalty();
+
+    /**
+     * Removes all counts from the cache.
+     */
+    public void clear();
+}
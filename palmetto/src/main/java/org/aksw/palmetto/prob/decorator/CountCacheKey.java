@@ -0,0 +1,167 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.prob.decorator;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import com.carrotsearch.hppc.BitSet;
+
+/**
+ * The exact key of a cached count array. It comprises the words of the word
+ * set (in their given order, since the counts are indexed by the positions of
+ * the words) and the counts that have been needed, since some determiners
+ * only determine the needed counts.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class CountCacheKey {
+
+    /**
+     * Rough estimation of the memory consumption of an object header and a
+     * reference in bytes.
+     */
+    private static final int OBJECT_OVERHEAD = 16;
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private final String words[];
+    private final BitSet neededCounts;
+    private final int hashCode;
+
+    public CountCacheKey(String words[], BitSet neededCounts) {
+        this.words = words.clone();
+        this.neededCounts = (neededCounts == null) ? null : (BitSet) neededCounts.clone();
+        hashCode = (31 * Arrays.hashCode(words)) + ((neededCounts == null) ? 0 : neededCounts.hashCode());
+    }
+
+    public String[] getWords() {
+        return words;
+    }
+
+    public BitSet getNeededCounts() {
+        return neededCounts;
+    }
+
+    /**
+     * Returns an estimation of the number of bytes this key occupies in memory.
+     */
+    public long getSizeInBytes() {
+        long size = 3 * OBJECT_OVERHEAD;
+        for (int i = 0; i < words.length; ++i) {
+            size += OBJECT_OVERHEAD + (2 * words[i].length());
+        }
+        if (neededCounts != null) {
+            size += OBJECT_OVERHEAD + (8 * neededCounts.bits.length);
+        }
+        return size;
+    }
+
+    /**
+     * Returns an estimation of the number of bytes the given count array
+     * occupies in memory.
+     */
+    public static long getSizeInBytes(int counts[]) {
+        return OBJECT_OVERHEAD + (4L * counts.length);
+    }
+
+    /**
+     * Returns the serialized form of this key. It starts with the number of
+     * words followed by the length and the UTF-8 bytes of every word. After
+     * that, the number of long values of the needed counts (or -1) and the
+     * long values themselves follow.
+     */
+    public byte[] toBytes() {
+        byte wordBytes[][] = new byte[words.length][];
+        int length = 4;
+        for (int i = 0; i < words.length; ++i) {
+            wordBytes[i] = words[i].getBytes(CHARSET);
+            if (wordBytes[i].length > 0xFFFF) {
+                throw new IllegalArgumentException("The word \"" + words[i] + "\" is too long.");
+            }
+            length += 2 + wordBytes[i].length;
+        }
+        int neededCountsLength = (neededCounts == null) ? -1 : neededCounts.wlen;
+        length += 4 + (8 * Math.max(neededCountsLength, 0));
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        bytes.putInt(words.length);
+        for (int i = 0; i < words.length; ++i) {
+            bytes.putShort((short) wordBytes[i].length);
+            bytes.put(wordBytes[i]);
+        }
+        bytes.putInt(neededCountsLength);
+        for (int i = 0; i < neededCountsLength; ++i) {
+            bytes.putLong(neededCounts.bits[i]);
+        }
+        return bytes.array();
+    }
+
+    /**
+     * Reads a key from the given buffer that has been serialized using
+     * {@link #toBytes()}.
+     */
+    public static CountCacheKey fromBytes(ByteBuffer bytes) {
+        String words[] = new String[bytes.getInt()];
+        byte wordBytes[];
+        for (int i = 0; i < words.length; ++i) {
+            wordBytes = new byte[bytes.getShort() & 0xFFFF];
+            bytes.get(wordBytes);
+            words[i] = new String(wordBytes, CHARSET);
+        }
+        int neededCountsLength = bytes.getInt();
+        BitSet neededCounts = null;
+        if (neededCountsLength >= 0) {
+            long bits[] = new long[neededCountsLength];
+            for (int i = 0; i < bits.length; ++i) {
+                bits[i] = bytes.getLong();
+            }
+            neededCounts = new BitSet(bits, bits.length);
+        }
+        return new CountCacheKey(words, neededCounts);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        CountCacheKey other = (CountCacheKey) obj;
+        if (hashCode != other.hashCode)
+            return false;
+        if (!Arrays.equals(words, other.words))
+            return false;
+        if (neededCounts == null) {
+            return other.neededCounts == null;
+        }
+        return neededCounts.equals(other.neededCounts);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(words);
+    }
+}
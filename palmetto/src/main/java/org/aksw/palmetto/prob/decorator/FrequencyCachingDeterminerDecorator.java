@@ -17,20 +17,24 @@
  */
 package org.aksw.palmetto.prob.decorator;
 
-import java.util.Arrays;
-
-import org.aksw.palmetto.data.CountedSubsets;
-import org.aksw.palmetto.data.SegmentationDefinition;
 import org.aksw.palmetto.prob.FrequencyDeterminer;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 
-public class FrequencyCachingDeterminerDecorator extends AbstractSlidingWindowFrequencyDeterminerDecorator {
+/**
+ * A caching decorator based on a Guava cache with a maximum number of cached
+ * count arrays. All misses of a request are forwarded to the decorated
+ * determiner with a single call.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class FrequencyCachingDeterminerDecorator extends AbstractCachingDeterminerDecorator {
 
     private static final int DEFAULT_CACHE_SIZE = 2000;
 
-    private Cache<CachedWordSet, int[]> cache;
+    private Cache<CountCacheKey, int[]> cache;
 
     public FrequencyCachingDeterminerDecorator(FrequencyDeterminer determiner) {
         this(determiner, DEFAULT_CACHE_SIZE);
@@ -42,53 +46,12 @@ public class FrequencyCachingDeterminerDecorator extends AbstractSlidingWindowFr
     }
 
     @Override
-    public CountedSubsets[] determineCounts(String[][] wordsets, SegmentationDefinition[] definitions) {
-        CountedSubsets countedSubsets[] = new CountedSubsets[definitions.length];
-        CachedWordSet cacheObj;
-        int counts[];
-        String singleWordSet[][] = new String[1][];
-        SegmentationDefinition singleDefinition[] = new SegmentationDefinition[1];
-        for (int i = 0; i < definitions.length; ++i) {
-            cacheObj = new CachedWordSet(wordsets[i]);
-            counts = cache.getIfPresent(cacheObj);
-            if (counts != null) {
-                countedSubsets[i] = new CountedSubsets(definitions[i].segments, definitions[i].conditions, counts);
-            } else {
-                singleWordSet[0] = wordsets[i];
-                singleDefinition[0] = definitions[i];
-                countedSubsets[i] = this.determiner.determineCounts(singleWordSet, singleDefinition)[0];
-                cache.put(cacheObj, countedSubsets[i].counts);
-            }
-        }
-        return countedSubsets;
+    protected int[] getCachedCounts(CountCacheKey key) {
+        return cache.getIfPresent(key);
     }
 
-    protected class CachedWordSet {
-        public String words[];
-
-        public CachedWordSet(String[] words) {
-            this.words = words;
-        }
-
-        @Override
-        public int hashCode() {
-            final int prime = 31;
-            int result = 1;
-            result = prime * result + Arrays.hashCode(words);
-            return result;
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj)
-                return true;
-            if (obj == null)
-                return false;
-            if (getClass() != obj.getClass())
-                return false;
-            CachedWordSet other = (CachedWordSet) obj;
-
-            return Arrays.equals(words, other.words);
-        }
+    @Override
+    protected void addToCache(CountCacheKey key, int[] counts) {
+        cache.put(key, counts);
     }
 }
@@ -0,0 +1,402 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.prob.decorator;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import org.aksw.palmetto.instrumentation.InstrumentationRegistry;
+import org.aksw.palmetto.instrumentation.Volume;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only store of count arrays inside a memory-mapped file.
+ * 
+ * <p>
+ * The file starts with a header containing the identity of the store, e.g.,
+ * the model and the corpus the counts have been determined for. If the
+ * identity of an existing file differs from the expected identity, the file is
+ * invalidated, i.e., all counts are removed. The header is followed by the
+ * records. Every record starts with its length and a CRC32 checksum of its
+ * content. When opening the file, all records are read and added to an
+ * in-memory index. The file is truncated at the first record that is
+ * incomplete or has a wrong checksum, e.g., since the process crashed while
+ * appending it.
+ * </p>
+ * 
+ * <p>
+ * Reading counts is thread safe and does not need any locking. Appending is
+ * synchronized. If the store reaches its maximum size, it is compacted, i.e.,
+ * only the records that have been read or written since the store has been
+ * opened are kept. If this is not sufficient, no further counts are appended.
+ * Note that a mapped file is limited to 2GB and that a file must not be opened
+ * by several stores at the same time.
+ * </p>
+ * 
+ * @author m.roeder
+ * 
+ */
+public class MappedCountStore implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedCountStore.class);
+
+    private static final int MAGIC_NUMBER = 0x50434353;
+    private static final int VERSION = 1;
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+    private static final int INITIAL_CAPACITY = 1 << 20;
+    /**
+     * Length and checksum of a record.
+     */
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    public static final int DEFAULT_MAX_SIZE = 1 << 30;
+
+    private final File file;
+    private final String identity;
+    private final int maxSize;
+    private RandomAccessFile randomAccessFile;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    /**
+     * The position at which the next record will be appended.
+     */
+    private int end;
+    private volatile Map<CountCacheKey, Record> index;
+    private boolean full = false;
+
+    /**
+     * Opens the store inside the given file (or creates it if it does not
+     * exist).
+     * 
+     * @param file
+     *            the file of the store
+     * @param identity
+     *            the identity the counts of the store have to have. If the
+     *            file has a different identity, its counts are removed.
+     * @param maxSize
+     *            the maximum size of the file in bytes
+     * @throws IOException
+     *             if the file can not be read or written
+     */
+    public MappedCountStore(File file, String identity, int maxSize) throws IOException {
+        this.file = file;
+        this.identity = identity;
+        this.maxSize = maxSize;
+        open();
+    }
+
+    private void open() throws IOException {
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        channel = randomAccessFile.getChannel();
+        Map<CountCacheKey, Record> index = new ConcurrentHashMap<CountCacheKey, Record>();
+        int fileSize = (int) Math.min(channel.size(), maxSize);
+        int headerEnd = -1;
+        if (fileSize > 0) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            headerEnd = readHeader(fileSize);
+            if (headerEnd < 0) {
+                LOGGER.info("The count store {} has a different identity. It will be invalidated.", file);
+            }
+        }
+        if (headerEnd < 0) {
+            channel.truncate(0);
+            end = 0;
+            mapBuffer(INITIAL_CAPACITY);
+            writeHeader();
+        } else {
+            end = readRecords(headerEnd, fileSize, index);
+            if (end < fileSize) {
+                LOGGER.debug("Truncating the count store {} from {} to {} bytes.", file, fileSize, end);
+                channel.truncate(end);
+            }
+            mapBuffer(Math.max(end, INITIAL_CAPACITY));
+        }
+        this.index = index;
+    }
+
+    /**
+     * Reads the header of the file.
+     * 
+     * @return the position of the first record or -1 if the header is not
+     *         valid or contains a different identity
+     */
+    private int readHeader(int fileSize) {
+        if (fileSize < 12) {
+            return -1;
+        }
+        if ((buffer.getInt(0) != MAGIC_NUMBER) || (buffer.getInt(4) != VERSION)) {
+            return -1;
+        }
+        int identityLength = buffer.getInt(8);
+        if ((identityLength < 0) || ((12 + identityLength) > fileSize)) {
+            return -1;
+        }
+        byte identityBytes[] = new byte[identityLength];
+        ByteBuffer view = buffer.duplicate();
+        view.position(12);
+        view.get(identityBytes);
+        if (!identity.equals(new String(identityBytes, CHARSET))) {
+            return -1;
+        }
+        return 12 + identityLength;
+    }
+
+    private void writeHeader() {
+        byte identityBytes[] = identity.getBytes(CHARSET);
+        ByteBuffer view = buffer.duplicate();
+        view.position(0);
+        view.putInt(MAGIC_NUMBER);
+        view.putInt(VERSION);
+        view.putInt(identityBytes.length);
+        view.put(identityBytes);
+        end = view.position();
+    }
+
+    /**
+     * Reads the records of the file and adds them to the given index.
+     * 
+     * @return the end of the last valid record
+     */
+    private int readRecords(int position, int fileSize, Map<CountCacheKey, Record> index) {
+        ByteBuffer view = buffer.duplicate();
+        CRC32 crc = new CRC32();
+        byte content[];
+        int length;
+        while ((position + RECORD_HEADER_SIZE) <= fileSize) {
+            length = buffer.getInt(position);
+            if ((length <= 0) || (length > (fileSize - position - RECORD_HEADER_SIZE))) {
+                break;
+            }
+            content = new byte[length];
+            view.position(position + RECORD_HEADER_SIZE);
+            view.get(content);
+            crc.reset();
+            crc.update(content);
+            if (buffer.getInt(position + 4) != (int) crc.getValue()) {
+                LOGGER.warn("Found a corrupted record at position {} of the count store {}.", position, file);
+                break;
+            }
+            try {
+                addToIndex(ByteBuffer.wrap(content), position + RECORD_HEADER_SIZE, index);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Couldn't parse the record at position " + position + " of the count store " + file
+                        + ".", e);
+                break;
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    private void addToIndex(ByteBuffer content, int contentPosition, Map<CountCacheKey, Record> index) {
+        CountCacheKey key = CountCacheKey.fromBytes(content);
+        int countsLength = content.getInt();
+        if ((countsLength < 0) || ((countsLength * 4) != content.remaining())) {
+            throw new IllegalStateException("The length of the counts does not match the record length.");
+        }
+        index.put(key, new Record(buffer, contentPosition + content.position(), countsLength));
+    }
+
+    private void mapBuffer(int capacity) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(capacity, maxSize));
+    }
+
+    /**
+     * Returns the counts stored for the given key or null if they are not
+     * stored.
+     */
+    public int[] get(CountCacheKey key) {
+        Record record = index.get(key);
+        if (record == null) {
+            return null;
+        }
+        record.used = true;
+        InstrumentationRegistry.get().count(Volume.BYTES_READ, 4L * record.length);
+        return record.readCounts();
+    }
+
+    /**
+     * Appends the given counts to the store if they are not already stored.
+     * 
+     * @return true if the counts are stored after this call
+     */
+    public synchronized boolean put(CountCacheKey key, int counts[]) throws IOException {
+        if (index.containsKey(key)) {
+            return true;
+        }
+        byte content[] = createContent(key, counts);
+        int recordSize = RECORD_HEADER_SIZE + content.length;
+        if (((long) end + recordSize) > maxSize) {
+            if (full) {
+                return false;
+            }
+            compact(true);
+            if (((long) end + recordSize) > maxSize) {
+                LOGGER.warn("The count store {} reached its maximum size. No further counts will be stored.", file);
+                full = true;
+                return false;
+            }
+        }
+        if ((end + recordSize) > buffer.capacity()) {
+            mapBuffer((int) Math.min(Math.max(2L * buffer.capacity(), (long) end + recordSize), Integer.MAX_VALUE));
+        }
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        ByteBuffer view = buffer.duplicate();
+        view.position(end + RECORD_HEADER_SIZE);
+        view.put(content);
+        view.putInt(end + 4, (int) crc.getValue());
+        // the length is written last since it marks the record as existing
+        view.putInt(end, content.length);
+        index.put(key, new Record(buffer, end + recordSize - (4 * counts.length), counts.length, true));
+        end += recordSize;
+        return true;
+    }
+
+    /**
+     * Creates the content of a record comprising the serialized key and the
+     * counts.
+     */
+    private static byte[] createContent(CountCacheKey key, int counts[]) {
+        byte keyBytes[] = key.toBytes();
+        ByteBuffer content = ByteBuffer.allocate(keyBytes.length + 4 + (4 * counts.length));
+        content.put(keyBytes);
+        content.putInt(counts.length);
+        content.asIntBuffer().put(counts);
+        return content.array();
+    }
+
+    /**
+     * Rewrites the file of the store removing records that are not needed
+     * anymore.
+     * 
+     * @param onlyUsedRecords
+     *            if true, only the records that have been read or written
+     *            since the store has been opened are kept
+     */
+    public synchronized void compact(boolean onlyUsedRecords) throws IOException {
+        File compactedFile = new File(file.getAbsolutePath() + ".compacted");
+        if (compactedFile.exists() && !compactedFile.delete()) {
+            throw new IOException("Couldn't delete " + compactedFile);
+        }
+        MappedCountStore compactedStore = new MappedCountStore(compactedFile, identity, maxSize);
+        try {
+            for (Map.Entry<CountCacheKey, Record> entry : index.entrySet()) {
+                if ((!onlyUsedRecords) || entry.getValue().used) {
+                    compactedStore.put(entry.getKey(), entry.getValue().readCounts());
+                }
+            }
+        } finally {
+            compactedStore.close();
+        }
+        LOGGER.info("Compacted the count store {} from {} to {} records.", file, index.size(),
+                compactedStore.index.size());
+        closeFile();
+        Files.move(compactedFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        full = false;
+        // readers still using records of the old index read from the old
+        // mapping which stays valid until it is garbage collected
+        open();
+    }
+
+    /**
+     * Forces the appended records to be written to the disk.
+     */
+    public synchronized void flush() {
+        buffer.force();
+    }
+
+    /**
+     * Returns the number of stored count arrays.
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Returns the number of bytes used by the header and the records.
+     */
+    public synchronized int getSizeInBytes() {
+        return end;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeFile();
+        index = new ConcurrentHashMap<CountCacheKey, Record>();
+    }
+
+    private void closeFile() throws IOException {
+        if (channel != null) {
+            buffer.force();
+            // remove the unused capacity of the mapping
+            channel.truncate(end);
+            randomAccessFile.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * The position and length of a stored count array.
+     */
+    private static class Record {
+        /**
+         * The mapping the record belongs to. Remapping the file or compacting
+         * the store does not influence existing records.
+         */
+        private final ByteBuffer buffer;
+        private final int position;
+        private final int length;
+        private volatile boolean used;
+
+        public Record(ByteBuffer buffer, int position, int length) {
+            this(buffer, position, length, false);
+        }
+
+        public Record(ByteBuffer buffer, int position, int length, boolean used) {
+            this.buffer = buffer;
+            this.position = position;
+            this.length = length;
+            this.used = used;
+        }
+
+        public int[] readCounts() {
+            int counts[] = new int[length];
+            for (int i = 0; i < length; ++i) {
+                counts[i] = buffer.getInt(position + (4 * i));
+            }
+            return counts;
+        }
+    }
+}
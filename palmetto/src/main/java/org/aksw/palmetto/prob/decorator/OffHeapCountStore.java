@@ -0,0 +1,310 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.prob.decorator;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongLongOpenHashMap;
+
+/**
+ * A store of count arrays outside of the Java heap. The records are written
+ * into direct byte buffers (slabs) that are allocated when they are needed.
+ * The only object on the heap is an index mapping a 64 bit hash of the
+ * serialized key to the slab and the position of its record. Since every
+ * record contains the serialized key, a hash collision is detected when
+ * reading the record and handled as a cache miss.
+ * 
+ * <p>
+ * If all slabs are full, the oldest slab is evicted, i.e., all its records
+ * are removed from the index and the slab is reused. Note that the size of
+ * the store is limited by the maximum amount of direct memory of the JVM
+ * (-XX:MaxDirectMemorySize).
+ * </p>
+ * 
+ * @author m.roeder
+ * 
+ */
+public class OffHeapCountStore {
+
+    public static final long DEFAULT_MAX_SIZE_IN_BYTES = 256L * 1024L * 1024L;
+    public static final int DEFAULT_SLAB_SIZE = 16 * 1024 * 1024;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int slabSize;
+    private final ByteBuffer slabs[];
+    /**
+     * The hashes of the records inside the single slabs.
+     */
+    private final LongArrayList slabRecords[];
+    private int currentSlab = -1;
+    private int slabPosition;
+    /**
+     * Maps the hashes to the addresses of the records. The stored value is
+     * the address + 1, i.e., 0 marks a missing record. This makes it possible
+     * to look up a record with a single {@link LongLongOpenHashMap#get(long)}
+     * call that does not change the state of the map and can be used by
+     * several readers at the same time (in contrast to
+     * {@link LongLongOpenHashMap#containsKey(long)} and
+     * {@link LongLongOpenHashMap#lget()}).
+     */
+    private final LongLongOpenHashMap index = new LongLongOpenHashMap();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong collisionCount = new AtomicLong();
+    private long evictedSlabs = 0;
+    private long evictedRecords = 0;
+
+    public OffHeapCountStore() {
+        this(DEFAULT_MAX_SIZE_IN_BYTES, DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param maxSizeInBytes
+     *            the maximum number of bytes of all slabs
+     * @param slabSize
+     *            the size of a single slab in bytes. If it is larger than the
+     *            maximum size, the maximum size is used instead.
+     */
+    public OffHeapCountStore(long maxSizeInBytes, int slabSize) {
+        slabSize = (int) Math.max(1, Math.min(slabSize, maxSizeInBytes));
+        this.slabSize = slabSize;
+        int numberOfSlabs = (int) Math.max(1, Math.min(maxSizeInBytes / slabSize, Integer.MAX_VALUE));
+        slabs = new ByteBuffer[numberOfSlabs];
+        slabRecords = new LongArrayList[numberOfSlabs];
+    }
+
+    /**
+     * Returns the counts stored for the given key or null if they are not
+     * stored.
+     */
+    public int[] get(CountCacheKey key) {
+        byte keyBytes[] = key.toBytes();
+        long hash = hash(keyBytes);
+        lock.readLock().lock();
+        try {
+            long address = index.get(hash) - 1;
+            if (address < 0) {
+                missCount.incrementAndGet();
+                return null;
+            }
+            ByteBuffer slab = slabs[(int) (address >>> 32)];
+            int position = (int) address;
+            if (!containsKey(slab, position, keyBytes)) {
+                collisionCount.incrementAndGet();
+                missCount.incrementAndGet();
+                return null;
+            }
+            position += 4 + keyBytes.length;
+            int counts[] = new int[slab.getInt(position)];
+            position += 4;
+            for (int i = 0; i < counts.length; ++i) {
+                counts[i] = slab.getInt(position + (4 * i));
+            }
+            hitCount.incrementAndGet();
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean containsKey(ByteBuffer slab, int position, byte keyBytes[]) {
+        if (slab.getInt(position) != keyBytes.length) {
+            return false;
+        }
+        position += 4;
+        for (int i = 0; i < keyBytes.length; ++i) {
+            if (slab.get(position + i) != keyBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the given counts to the store. If another key with the same hash
+     * is stored, it is replaced.
+     * 
+     * @return false if the record is larger than a slab and can not be stored
+     */
+    public boolean put(CountCacheKey key, int counts[]) {
+        byte keyBytes[] = key.toBytes();
+        long recordSize = 8L + keyBytes.length + (4L * counts.length);
+        if (recordSize > slabSize) {
+            return false;
+        }
+        long hash = hash(keyBytes);
+        lock.writeLock().lock();
+        try {
+            if ((currentSlab < 0) || ((slabPosition + recordSize) > slabSize)) {
+                nextSlab();
+            }
+            ByteBuffer view = slabs[currentSlab].duplicate();
+            view.position(slabPosition);
+            view.putInt(keyBytes.length);
+            view.put(keyBytes);
+            view.putInt(counts.length);
+            view.asIntBuffer().put(counts);
+            index.put(hash, ((((long) currentSlab) << 32) | slabPosition) + 1);
+            slabRecords[currentSlab].add(hash);
+            slabPosition += recordSize;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Moves to the next slab. If this slab has been used before, its records
+     * are evicted.
+     */
+    private void nextSlab() {
+        currentSlab = (currentSlab + 1) % slabs.length;
+        slabPosition = 0;
+        if (slabs[currentSlab] == null) {
+            slabs[currentSlab] = ByteBuffer.allocateDirect(slabSize);
+            slabRecords[currentSlab] = new LongArrayList();
+        } else {
+            evictRecords(currentSlab);
+            ++evictedSlabs;
+        }
+    }
+
+    private void evictRecords(int slabId) {
+        LongArrayList records = slabRecords[slabId];
+        long address;
+        for (int i = 0; i < records.elementsCount; ++i) {
+            address = index.get(records.buffer[i]) - 1;
+            // the record might have been replaced by a newer record
+            if ((address >= 0) && ((address >>> 32) == slabId)) {
+                index.remove(records.buffer[i]);
+                ++evictedRecords;
+            }
+        }
+        records.clear();
+    }
+
+    /**
+     * Removes all counts from the store. The allocated slabs are kept.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            for (int i = 0; i < slabRecords.length; ++i) {
+                if (slabRecords[i] != null) {
+                    slabRecords[i].clear();
+                }
+            }
+            currentSlab = -1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Creates a 64 bit hash of the given bytes using FNV-1a and the finalizer
+     * of MurmurHash3.
+     */
+    protected long hash(byte bytes[]) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < bytes.length; ++i) {
+            hash ^= bytes[i] & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Returns the number of stored count arrays.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of bytes of the allocated slabs.
+     */
+    public long getAllocatedBytes() {
+        lock.readLock().lock();
+        try {
+            long allocatedBytes = 0;
+            for (int i = 0; i < slabs.length; ++i) {
+                if (slabs[i] != null) {
+                    allocatedBytes += slabSize;
+                }
+            }
+            return allocatedBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the number of requests that found a record of another key with
+     * the same hash.
+     */
+    public long getCollisionCount() {
+        return collisionCount.get();
+    }
+
+    public long getNumberOfEvictedSlabs() {
+        lock.readLock().lock();
+        try {
+            return evictedSlabs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getNumberOfEvictedRecords() {
+        lock.readLock().lock();
+        try {
+            return evictedRecords;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
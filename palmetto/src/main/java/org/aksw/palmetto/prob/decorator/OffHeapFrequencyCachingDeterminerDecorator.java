@@ -0,0 +1,60 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.prob.decorator;
+
+import org.aksw.palmetto.prob.FrequencyDeterminer;
+
+/**
+ * A caching decorator that stores the counts in an {@link OffHeapCountStore},
+ * i.e., outside of the Java heap. Thus, large caches do not increase the
+ * costs of garbage collections.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class OffHeapFrequencyCachingDeterminerDecorator extends AbstractCachingDeterminerDecorator {
+
+    private OffHeapCountStore store;
+
+    public OffHeapFrequencyCachingDeterminerDecorator(FrequencyDeterminer determiner) {
+        this(determiner, new OffHeapCountStore());
+    }
+
+    public OffHeapFrequencyCachingDeterminerDecorator(FrequencyDeterminer determiner, long maxSizeInBytes) {
+        this(determiner, new OffHeapCountStore(maxSizeInBytes, OffHeapCountStore.DEFAULT_SLAB_SIZE));
+    }
+
+    public OffHeapFrequencyCachingDeterminerDecorator(FrequencyDeterminer determiner, OffHeapCountStore store) {
+        super(determiner);
+        this.store = store;
+    }
+
+    @Override
+    protected int[] getCachedCounts(CountCacheKey key) {
+        return store.get(key);
+    }
+
+    @Override
+    protected void addToCache(CountCacheKey key, int[] counts) {
+        store.put(key, counts);
+    }
+
+    public OffHeapCountStore getStore() {
+        return store;
+    }
+}
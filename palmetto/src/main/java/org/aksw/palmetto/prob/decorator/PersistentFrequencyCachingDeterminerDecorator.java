@@ -0,0 +1,133 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.prob.decorator;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.aksw.palmetto.corpus.CorpusAdapter;
+import org.aksw.palmetto.corpus.IdentifiableCorpusAdapter;
+import org.aksw.palmetto.prob.FrequencyDeterminer;
+import org.aksw.palmetto.prob.bd.BooleanDocumentFrequencyDeterminer;
+import org.aksw.palmetto.prob.window.WindowBasedFrequencyDeterminer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A caching decorator that stores the counts inside a {@link MappedCountStore}
+ * so that they survive restarts of the application. The store is identified by
+ * the model of the decorated determiner (e.g., the window model name) and the
+ * identity of the corpus. If one of them changes, the stored counts are
+ * removed.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class PersistentFrequencyCachingDeterminerDecorator extends AbstractCachingDeterminerDecorator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PersistentFrequencyCachingDeterminerDecorator.class);
+
+    private MappedCountStore store;
+
+    /**
+     * Constructor.
+     * 
+     * @param determiner
+     *            the decorated frequency determiner
+     * @param storeFile
+     *            the file in which the counts are stored
+     * @param corpusAdapter
+     *            the adapter of the corpus the counts are determined from. It
+     *            has to be an {@link IdentifiableCorpusAdapter}.
+     * @throws IOException
+     *             if the store can not be opened
+     */
+    public PersistentFrequencyCachingDeterminerDecorator(FrequencyDeterminer determiner, File storeFile,
+            CorpusAdapter corpusAdapter) throws IOException {
+        this(determiner, storeFile, getCorpusIdentity(corpusAdapter), MappedCountStore.DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param determiner
+     *            the decorated frequency determiner
+     * @param storeFile
+     *            the file in which the counts are stored
+     * @param corpusIdentity
+     *            the identity of the corpus the counts are determined from
+     * @param maxStoreSize
+     *            the maximum size of the store file in bytes
+     * @throws IOException
+     *             if the store can not be opened
+     */
+    public PersistentFrequencyCachingDeterminerDecorator(FrequencyDeterminer determiner, File storeFile,
+            String corpusIdentity, int maxStoreSize) throws IOException {
+        super(determiner);
+        store = new MappedCountStore(storeFile, getModelName(determiner) + '@' + corpusIdentity, maxStoreSize);
+        LOGGER.info("Loaded {} counts from {}.", store.size(), storeFile);
+    }
+
+    @Override
+    protected int[] getCachedCounts(CountCacheKey key) {
+        return store.get(key);
+    }
+
+    @Override
+    protected void addToCache(CountCacheKey key, int[] counts) {
+        try {
+            store.put(key, counts);
+        } catch (IOException e) {
+            LOGGER.error("Couldn't store counts of " + key + ".", e);
+        }
+    }
+
+    public MappedCountStore getStore() {
+        return store;
+    }
+
+    public void close() {
+        try {
+            store.close();
+        } catch (IOException e) {
+            LOGGER.error("Couldn't close the count store.", e);
+        }
+    }
+
+    protected static String getCorpusIdentity(CorpusAdapter corpusAdapter) {
+        if (corpusAdapter instanceof IdentifiableCorpusAdapter) {
+            return ((IdentifiableCorpusAdapter) corpusAdapter).getCorpusIdentity();
+        } else {
+            throw new IllegalArgumentException("The given corpus adapter can not be identified.");
+        }
+    }
+
+    protected static String getModelName(FrequencyDeterminer determiner) {
+        String modelName = null;
+        if (determiner instanceof WindowBasedFrequencyDeterminer) {
+            modelName = ((WindowBasedFrequencyDeterminer) determiner).getSlidingWindowModelName();
+        }
+        if ((modelName == null) && (determiner instanceof BooleanDocumentFrequencyDeterminer)) {
+            modelName = "bd";
+        }
+        if (modelName == null) {
+            modelName = determiner.getClass().getName();
+        }
+        return modelName;
+    }
+}
@@ -17,49 +17,39 @@
  */
 package org.aksw.palmetto.prob.decorator;
 
-import java.util.Arrays;
-
-import org.aksw.palmetto.data.CountedSubsets;
-import org.aksw.palmetto.data.SegmentationDefinition;
 import org.aksw.palmetto.prob.FrequencyDeterminer;
 
-import com.carrotsearch.hppc.IntObjectOpenHashMap;
+import com.carrotsearch.hppc.ObjectObjectOpenHashMap;
 
 /**
  * This decorator implements a very simple cache. Note that it has
- * disadvantages, e.g., it will never stop growing. Thus, the
+ * disadvantages, e.g., it will never stop growing and it is not thread safe.
+ * Thus, the
  * {@link org.aksw.palmetto.prob.decorator.FrequencyCachingDeterminerDecorator}
  * should be used instead.
  * 
  * @author Michael R&ouml;der (roeder@informatik.uni-leipzig.de)
  *
  */
-public class SimpleFrequencyCachingDeterminerDecorator extends AbstractSlidingWindowFrequencyDeterminerDecorator {
+public class SimpleFrequencyCachingDeterminerDecorator extends AbstractCachingDeterminerDecorator {
 
-    private IntObjectOpenHashMap<int[]> cache = new IntObjectOpenHashMap<int[]>();
+    private ObjectObjectOpenHashMap<CountCacheKey, int[]> cache = new ObjectObjectOpenHashMap<CountCacheKey, int[]>();
 
     public SimpleFrequencyCachingDeterminerDecorator(FrequencyDeterminer determiner) {
         super(determiner);
     }
 
     @Override
-    public CountedSubsets[] determineCounts(String[][] wordsets, SegmentationDefinition[] definitions) {
-        CountedSubsets countedSubsets[] = new CountedSubsets[definitions.length];
-        int wordSetHash;
-        String singleWordSet[][] = new String[1][];
-        SegmentationDefinition singleDefinition[] = new SegmentationDefinition[1];
-        for (int i = 0; i < definitions.length; ++i) {
-            wordSetHash = Arrays.hashCode(wordsets[i]);
-            if (cache.containsKey(wordSetHash)) {
-                countedSubsets[i] = new CountedSubsets(definitions[i].segments, definitions[i].conditions,
-                        cache.get(wordSetHash));
-            } else {
-                singleWordSet[0] = wordsets[i];
-                singleDefinition[0] = definitions[i];
-                countedSubsets[i] = this.determiner.determineCounts(singleWordSet, singleDefinition)[0];
-                cache.put(wordSetHash, countedSubsets[i].counts);
-            }
+    protected int[] getCachedCounts(CountCacheKey key) {
+        if (cache.containsKey(key)) {
+            return cache.lget();
+        } else {
+            return null;
         }
-        return countedSubsets;
+    }
+
+    @Override
+    protected void addToCache(CountCacheKey key, int[] counts) {
+        cache.put(key, counts);
     }
 }
@@ -0,0 +1,316 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.prob.decorator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aksw.palmetto.data.CountedSubsets;
+import org.aksw.palmetto.data.SegmentationDefinition;
+import org.aksw.palmetto.instrumentation.FlightRecorderEvent;
+import org.aksw.palmetto.instrumentation.InstrumentationRegistry;
+import org.aksw.palmetto.instrumentation.PalmettoEvents;
+import org.aksw.palmetto.prob.FrequencyDeterminer;
+
+import com.carrotsearch.hppc.BitSet;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * This decorator caches the counts of single words and word pairs
+ * independently from the word sets they have been determined for. Since the
+ * cache keys are canonical, i.e., the order of the words does not matter, word
+ * sets sharing words or containing the same words in a different order can
+ * reuse the counts determined before. The counts of a word set are assembled
+ * from the cached counts and only the missing counts are determined by the
+ * decorated determiner.
+ * 
+ * <p>
+ * Counts of larger sub sets can not be assembled from the counts of single
+ * words and pairs. If the {@link SegmentationDefinition#neededCounts} of a
+ * word set contain such a sub set (or are null), the complete word set is
+ * counted by the decorated determiner and its single and pair counts are
+ * added to the cache. Note that this decorator relies on the counts of words
+ * and pairs not depending on the other words of the word set. This holds for
+ * the boolean document, boolean sliding window and context window models.
+ * </p>
+ * 
+ * @author m.roeder
+ * 
+ */
+public class SubsetCountCachingDeterminerDecorator extends AbstractSlidingWindowFrequencyDeterminerDecorator {
+
+    private static final int DEFAULT_CACHE_SIZE = 100000;
+
+    private Cache<SubsetKey, Integer> cache;
+
+    public SubsetCountCachingDeterminerDecorator(FrequencyDeterminer determiner) {
+        this(determiner, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param determiner
+     *            the decorated frequency determiner
+     * @param cacheSize
+     *            the maximum number of single word and pair counts that are
+     *            cached
+     */
+    public SubsetCountCachingDeterminerDecorator(FrequencyDeterminer determiner, int cacheSize) {
+        super(determiner);
+        cache = CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats().build();
+    }
+
+    @Override
+    public CountedSubsets[] determineCounts(String[][] wordsets, SegmentationDefinition[] definitions) {
+        int counts[][] = new int[wordsets.length][];
+        // word sets (or parts of them) that have to be counted by the
+        // decorated determiner
+        List<String[]> requestedWordsets = new ArrayList<String[]>();
+        List<SegmentationDefinition> requestedDefinitions = new ArrayList<SegmentationDefinition>();
+        int requestIds[] = new int[wordsets.length];
+        int missingWords, hits = 0;
+        FlightRecorderEvent event = PalmettoEvents.CACHE_LOOKUP.begin();
+        for (int i = 0; i < wordsets.length; ++i) {
+            requestIds[i] = -1;
+            if (needsCompleteCounting(wordsets[i], definitions[i].neededCounts)) {
+                requestIds[i] = requestedWordsets.size();
+                requestedWordsets.add(wordsets[i]);
+                requestedDefinitions.add(definitions[i]);
+            } else {
+                counts[i] = new int[1 << wordsets[i].length];
+                missingWords = addCachedCounts(wordsets[i], counts[i]);
+                if (missingWords != 0) {
+                    requestIds[i] = requestedWordsets.size();
+                    requestedWordsets.add(getSubset(wordsets[i], missingWords));
+                    requestedDefinitions.add(createPairwiseDefinition(Integer.bitCount(missingWords)));
+                } else {
+                    ++hits;
+                }
+            }
+        }
+        InstrumentationRegistry.get().cacheLookup(getClass().getSimpleName(), wordsets.length, hits);
+        if (event != null) {
+            event.set(PalmettoEvents.CACHE_LOOKUP_CACHE, getClass().getSimpleName());
+            event.set(PalmettoEvents.CACHE_LOOKUP_LOOKUPS, (long) wordsets.length);
+            event.set(PalmettoEvents.CACHE_LOOKUP_HITS, (long) hits);
+            event.commit();
+        }
+
+        CountedSubsets requestedCounts[] = null;
+        if (requestedWordsets.size() > 0) {
+            requestedCounts = determiner.determineCounts(
+                    requestedWordsets.toArray(new String[requestedWordsets.size()][]),
+                    requestedDefinitions.toArray(new SegmentationDefinition[requestedDefinitions.size()]));
+            for (int i = 0; i < requestedCounts.length; ++i) {
+                addToCache(requestedWordsets.get(i), requestedCounts[i].counts);
+            }
+        }
+
+        CountedSubsets countedSubsets[] = new CountedSubsets[wordsets.length];
+        for (int i = 0; i < wordsets.length; ++i) {
+            if (counts[i] == null) {
+                counts[i] = requestedCounts[requestIds[i]].counts;
+            } else if (requestIds[i] >= 0) {
+                // copy the counts that have been missing in the cache
+                addMissingCounts(wordsets[i], requestedWordsets.get(requestIds[i]),
+                        requestedCounts[requestIds[i]].counts, counts[i]);
+            }
+            countedSubsets[i] = new CountedSubsets(definitions[i].segments, definitions[i].conditions, counts[i]);
+        }
+        return countedSubsets;
+    }
+
+    /**
+     * Returns true if the given word set has to be counted completely by the
+     * decorated determiner, i.e., if counts of sub sets with more than two
+     * words are needed or if the word set contains a word more than once.
+     */
+    protected static boolean needsCompleteCounting(String wordset[], BitSet neededCounts) {
+        if (wordset.length > 2) {
+            if (neededCounts == null) {
+                return true;
+            }
+            long subset = neededCounts.nextSetBit(0);
+            while (subset >= 0) {
+                if (Long.bitCount(subset) > 2) {
+                    return true;
+                }
+                subset = neededCounts.nextSetBit(subset + 1);
+            }
+        }
+        for (int i = 0; i < wordset.length; ++i) {
+            for (int j = i + 1; j < wordset.length; ++j) {
+                if (wordset[i].equals(wordset[j])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies the cached counts of the single words and pairs of the given word
+     * set into the given counts array.
+     * 
+     * @return a mask containing the words for which at least one count is
+     *         missing
+     */
+    protected int addCachedCounts(String wordset[], int counts[]) {
+        int missingWords = 0;
+        Integer count;
+        for (int i = 0; i < wordset.length; ++i) {
+            count = cache.getIfPresent(new SubsetKey(wordset[i]));
+            if (count != null) {
+                counts[1 << i] = count;
+            } else {
+                missingWords |= 1 << i;
+            }
+            for (int j = i + 1; j < wordset.length; ++j) {
+                count = cache.getIfPresent(new SubsetKey(wordset[i], wordset[j]));
+                if (count != null) {
+                    counts[(1 << i) | (1 << j)] = count;
+                } else {
+                    missingWords |= (1 << i) | (1 << j);
+                }
+            }
+        }
+        return missingWords;
+    }
+
+    /**
+     * Copies the counts of the single words and pairs of the given sub set of
+     * the word set into the counts of the word set. The words of the sub set
+     * are mapped to their ids inside the word set.
+     */
+    protected static void addMissingCounts(String wordset[], String subset[], int subsetCounts[], int counts[]) {
+        int wordIds[] = new int[subset.length];
+        for (int i = 0; i < subset.length; ++i) {
+            wordIds[i] = indexOf(wordset, subset[i]);
+        }
+        for (int i = 0; i < subset.length; ++i) {
+            counts[1 << wordIds[i]] = subsetCounts[1 << i];
+            for (int j = i + 1; j < subset.length; ++j) {
+                counts[(1 << wordIds[i]) | (1 << wordIds[j])] = subsetCounts[(1 << i) | (1 << j)];
+            }
+        }
+    }
+
+    protected void addToCache(String wordset[], int counts[]) {
+        for (int i = 0; i < wordset.length; ++i) {
+            cache.put(new SubsetKey(wordset[i]), counts[1 << i]);
+            for (int j = i + 1; j < wordset.length; ++j) {
+                if (!wordset[i].equals(wordset[j])) {
+                    cache.put(new SubsetKey(wordset[i], wordset[j]), counts[(1 << i) | (1 << j)]);
+                }
+            }
+        }
+    }
+
+    protected static String[] getSubset(String wordset[], int mask) {
+        String subset[] = new String[Integer.bitCount(mask)];
+        int pos = 0;
+        for (int i = 0; i < wordset.length; ++i) {
+            if ((mask & (1 << i)) != 0) {
+                subset[pos] = wordset[i];
+                ++pos;
+            }
+        }
+        return subset;
+    }
+
+    /**
+     * Creates a definition that only needs the counts of the single words and
+     * pairs of a word set with the given size.
+     */
+    protected static SegmentationDefinition createPairwiseDefinition(int wordsetSize) {
+        BitSet neededCounts = new BitSet(1 << wordsetSize);
+        for (int i = 0; i < wordsetSize; ++i) {
+            neededCounts.set(1 << i);
+            for (int j = i + 1; j < wordsetSize; ++j) {
+                neededCounts.set((1 << i) | (1 << j));
+            }
+        }
+        return new SegmentationDefinition(new int[0], new int[0][0], neededCounts);
+    }
+
+    private static int indexOf(String wordset[], String word) {
+        for (int i = 0; i < wordset.length; ++i) {
+            if (wordset[i].equals(word)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * The key of a single word or a word pair. The words of a pair are sorted
+     * to make the key independent from the order of the words.
+     */
+    protected static class SubsetKey {
+        private final String first;
+        private final String second;
+
+        public SubsetKey(String word) {
+            this.first = word;
+            this.second = null;
+        }
+
+        public SubsetKey(String word1, String word2) {
+            if (word1.compareTo(word2) <= 0) {
+                this.first = word1;
+                this.second = word2;
+            } else {
+                this.first = word2;
+                this.second = word1;
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + first.hashCode();
+            result = prime * result + ((second == null) ? 0 : second.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            SubsetKey other = (SubsetKey) obj;
+            if (!first.equals(other.first))
+                return false;
+            if (second == null) {
+                return other.second == null;
+            }
+            return second.equals(other.second);
+        }
+    }
+}
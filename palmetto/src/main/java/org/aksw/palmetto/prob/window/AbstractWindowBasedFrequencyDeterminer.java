@@ -20,6 +20,11 @@ package org.aksw.palmetto.prob.window;
 import org.aksw.palmetto.corpus.WindowSupportingAdapter;
 import org.aksw.palmetto.data.CountedSubsets;
 import org.aksw.palmetto.data.SegmentationDefinition;
+import org.aksw.palmetto.instrumentation.FlightRecorderEvent;
+import org.aksw.palmetto.instrumentation.Instrumentation;
+import org.aksw.palmetto.instrumentation.InstrumentationRegistry;
+import org.aksw.palmetto.instrumentation.PalmettoEvents;
+import org.aksw.palmetto.instrumentation.Stage;
 
 import com.carrotsearch.hppc.IntArrayList;
 import com.carrotsearch.hppc.IntIntOpenHashMap;
@@ -27,6 +32,8 @@ import com.carrotsearch.hppc.IntObjectOpenHashMap;
 
 public abstract class AbstractWindowBasedFrequencyDeterminer implements WindowBasedFrequencyDeterminer {
 
+      protected static final String POSITIONAL_ENGINE_NAME = "positional";
+
       protected WindowSupportingAdapter corpusAdapter;
       protected int windowSize;
       protected long wordSetCountSums[];
@@ -39,26 +46,64 @@ public abstract class AbstractWindowBasedFrequencyDeterminer implements WindowBa
       @Override
       public CountedSubsets[] determineCounts(String[][] wordsets, SegmentationDefinition[] definitions) {
           CountedSubsets countedSubsets[] = new CountedSubsets[definitions.length];
+          FlightRecorderEvent event;
           for (int i = 0; i < definitions.length; ++i) {
-              countedSubsets[i] = new CountedSubsets(definitions[i].segments,
-                      definitions[i].conditions, determineCounts(wordsets[i]));
+              event = PalmettoEvents.WINDOW_COUNTING.begin();
+              try {
+                  countedSubsets[i] = new CountedSubsets(definitions[i].segments,
+                          definitions[i].conditions, determineCounts(wordsets[i]));
+                  if (event != null) {
+                      event.set(PalmettoEvents.WINDOW_COUNTING_WORDS, PalmettoEvents.toString(wordsets[i]));
+                      event.commit();
+                  }
+              } finally {
+                  // make sure that an aborted counting does not stay the current event of this thread
+                  if (event != null) {
+                      event.discard();
+                  }
+              }
           }
           return countedSubsets;
       }
     
       protected int[] determineCounts(String wordset[]) {
           int counts[] = new int[(1 << wordset.length)];
-          IntArrayList positions[];
+          FlightRecorderEvent event = PalmettoEvents.WINDOW_COUNTING.getCurrentEvent();
+          if (event != null) {
+              event.set(PalmettoEvents.WINDOW_COUNTING_ENGINE, POSITIONAL_ENGINE_NAME);
+          }
           IntIntOpenHashMap docLengths = new IntIntOpenHashMap();
           IntObjectOpenHashMap<IntArrayList[]> positionsInDocs = corpusAdapter.requestWordPositionsInDocuments(wordset,
                   docLengths);
+          addCountsFromDocuments(positionsInDocs, docLengths, counts);
+          return counts;
+      }
+
+      protected void addCountsFromDocuments(IntObjectOpenHashMap<IntArrayList[]> positionsInDocs,
+              IntIntOpenHashMap docLengths, int[] counts) {
+          Instrumentation instrumentation = InstrumentationRegistry.get();
+          long start = instrumentation.start();
+          FlightRecorderEvent event = PalmettoEvents.WINDOW_COUNTING.getCurrentEvent();
+          long numberOfPositions = 0;
+          IntArrayList positions[];
           for (int i = 0; i < positionsInDocs.keys.length; ++i) {
               if (positionsInDocs.allocated[i]) {
                   positions = ((IntArrayList[]) ((Object[]) positionsInDocs.values)[i]);
+                  if (event != null) {
+                      for (int j = 0; j < positions.length; ++j) {
+                          if (positions[j] != null) {
+                              numberOfPositions += positions[j].elementsCount;
+                          }
+                      }
+                  }
                   addCountsFromDocument(positions, counts, docLengths.get(positionsInDocs.keys[i]));
               }
           }
-          return counts;
+          instrumentation.stageFinished(Stage.WINDOW_COUNTING, start);
+          if (event != null) {
+              event.add(PalmettoEvents.WINDOW_COUNTING_DOCUMENTS, positionsInDocs.size());
+              event.add(PalmettoEvents.WINDOW_COUNTING_POSITIONS, numberOfPositions);
+          }
       }
       
       protected abstract void addCountsFromDocument(IntArrayList[] positions, int[] counts, int docLength);
@@ -19,12 +19,62 @@ package org.aksw.palmetto.prob.window;
 
 import java.util.Arrays;
 
+import org.aksw.palmetto.corpus.SmallDocumentSupportingAdapter;
+import org.aksw.palmetto.corpus.TermStatisticsSupportingAdapter;
 import org.aksw.palmetto.corpus.WindowSupportingAdapter;
+import org.aksw.palmetto.instrumentation.FlightRecorderEvent;
+import org.aksw.palmetto.instrumentation.Instrumentation;
+import org.aksw.palmetto.instrumentation.InstrumentationRegistry;
+import org.aksw.palmetto.instrumentation.PalmettoEvents;
+import org.aksw.palmetto.instrumentation.Stage;
+import org.aksw.palmetto.prob.CountingEngineDecisions;
 
 import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntIntOpenHashMap;
 
 public class BooleanSlidingWindowFrequencyDeterminer extends AbstractWindowBasedFrequencyDeterminer {
 
+    public static final int POSITIONAL_ENGINE_ID = 0;
+    public static final int SMALL_DOCUMENT_SPLIT_ENGINE_ID = 1;
+    protected static final String SMALL_DOCUMENT_SPLIT_ENGINE_NAME = "smallDocumentSplit";
+
+    /**
+     * Relative costs of reading a single posting.
+     */
+    private static final double POSTING_READ_COSTS = 1;
+    /**
+     * Relative costs of reading and storing a single position.
+     */
+    private static final double POSITION_READ_COSTS = 1;
+    /**
+     * Relative costs of retrieving the length of a single document.
+     */
+    private static final double DOC_LENGTH_READ_COSTS = 20;
+    /**
+     * Relative costs of reading the length of a single document while creating
+     * the small document filter with a single pass over all documents.
+     */
+    private static final double FILTER_CREATION_COSTS_PER_DOCUMENT = 5;
+    /**
+     * The costs for creating the small document filter are distributed over
+     * this number of word sets since the filter is reused.
+     */
+    private static final int FILTER_CREATION_AMORTIZATION = 100;
+
+    private CountingEngineDecisions decisions = new CountingEngineDecisions(POSITIONAL_ENGINE_NAME,
+            SMALL_DOCUMENT_SPLIT_ENGINE_NAME);
+    /**
+     * Share of documents that are not longer than the window.
+     */
+    private double smallDocumentShare;
+    /**
+     * Share of tokens that are part of documents that are not longer than the
+     * window.
+     */
+    private double smallDocumentTokenShare;
+    private long numberOfDocuments;
+    private boolean smallDocumentFilterRequested;
+
     public BooleanSlidingWindowFrequencyDeterminer(WindowSupportingAdapter corpusAdapter, int windowSize) {
         super(corpusAdapter, windowSize);
     }
@@ -137,11 +187,125 @@ public class BooleanSlidingWindowFrequencyDeterminer extends AbstractWindowBased
     
     @Override
     protected int[] determineCounts(String wordset[]) {
-      int counts[] = super.determineCounts(wordset);
+      int counts[];
+      if ((corpusAdapter instanceof SmallDocumentSupportingAdapter) && useSmallDocumentSplit(wordset)) {
+          counts = determineCountsWithSmallDocumentSplit((SmallDocumentSupportingAdapter) corpusAdapter, wordset);
+      } else {
+          counts = super.determineCounts(wordset);
+      }
       addCountsOfSubsets(counts);
       return counts;
     }
 
+    /**
+     * Decides whether the small document split should be used for counting the
+     * given word set. If the corpus adapter offers term statistics, the costs of
+     * both ways are estimated using the document and term frequencies of the
+     * words and the document length histogram. Otherwise, the split is always
+     * used.
+     */
+    protected boolean useSmallDocumentSplit(String wordset[]) {
+        if (!(corpusAdapter instanceof TermStatisticsSupportingAdapter)) {
+            return true;
+        }
+        int docFreqs[] = new int[wordset.length];
+        long termFreqs[] = new long[wordset.length];
+        ((TermStatisticsSupportingAdapter) corpusAdapter).getTermStatistics(wordset, docFreqs, termFreqs);
+        double sumOfDocFreqs = 0, sumOfTermFreqs = 0;
+        for (int i = 0; i < wordset.length; ++i) {
+            sumOfDocFreqs += docFreqs[i];
+            sumOfTermFreqs += (termFreqs[i] < 0) ? docFreqs[i] : termFreqs[i];
+        }
+        double costs[] = new double[2];
+        costs[POSITIONAL_ENGINE_ID] = (sumOfDocFreqs * (POSTING_READ_COSTS + DOC_LENGTH_READ_COSTS))
+                + (sumOfTermFreqs * POSITION_READ_COSTS);
+        // the postings are read twice but the positions and lengths are only
+        // read for the large documents
+        costs[SMALL_DOCUMENT_SPLIT_ENGINE_ID] = (2 * sumOfDocFreqs * POSTING_READ_COSTS)
+                + (sumOfDocFreqs * (1 - smallDocumentShare) * DOC_LENGTH_READ_COSTS)
+                + (sumOfTermFreqs * (1 - smallDocumentTokenShare) * POSITION_READ_COSTS);
+        if (!smallDocumentFilterRequested) {
+            costs[SMALL_DOCUMENT_SPLIT_ENGINE_ID] += (numberOfDocuments * FILTER_CREATION_COSTS_PER_DOCUMENT)
+                    / FILTER_CREATION_AMORTIZATION;
+        }
+        if (costs[SMALL_DOCUMENT_SPLIT_ENGINE_ID] < costs[POSITIONAL_ENGINE_ID]) {
+            decisions.record(SMALL_DOCUMENT_SPLIT_ENGINE_ID, wordset, costs);
+            smallDocumentFilterRequested = true;
+            return true;
+        } else {
+            decisions.record(POSITIONAL_ENGINE_ID, wordset, costs);
+            return false;
+        }
+    }
+
+    /**
+     * Determines the counts of the given word set by splitting the corpus into
+     * small documents (length &lt;= window size) and large documents. The small
+     * documents are counted using their ids only while the positions of the
+     * words are retrieved only for the large documents.
+     */
+    protected int[] determineCountsWithSmallDocumentSplit(SmallDocumentSupportingAdapter adapter, String wordset[]) {
+        int counts[] = new int[(1 << wordset.length)];
+        FlightRecorderEvent event = PalmettoEvents.WINDOW_COUNTING.getCurrentEvent();
+        if (event != null) {
+            event.set(PalmettoEvents.WINDOW_COUNTING_ENGINE, SMALL_DOCUMENT_SPLIT_ENGINE_NAME);
+        }
+        addCountsFromSmallDocuments(adapter, wordset, counts);
+        IntIntOpenHashMap docLengths = new IntIntOpenHashMap();
+        addCountsFromDocuments(adapter.requestWordPositionsInLargeDocuments(wordset, windowSize, docLengths),
+                docLengths, counts);
+        return counts;
+    }
+
+    /**
+     * Every small document is a single window. Thus, the sorted lists of the
+     * small documents containing the single words are merged and the signature
+     * of every document is counted (as it is done by
+     * {@link #addCountsFromSmallDocument(IntArrayList[], int[])}).
+     */
+    protected void addCountsFromSmallDocuments(SmallDocumentSupportingAdapter adapter, String wordset[],
+            int[] counts) {
+        IntArrayList documents[] = new IntArrayList[wordset.length];
+        for (int i = 0; i < documents.length; ++i) {
+            documents[i] = new IntArrayList();
+            adapter.getSmallDocumentsWithWord(wordset[i], windowSize, documents[i]);
+        }
+        Instrumentation instrumentation = InstrumentationRegistry.get();
+        long start = instrumentation.start();
+        int posInList[] = new int[documents.length];
+        int nextDocId,
+            signature,
+            mergedDocuments = 0;
+        do {
+            nextDocId = Integer.MAX_VALUE;
+            signature = 0;
+            for (int i = 0; i < documents.length; ++i) {
+                if (posInList[i] < documents[i].elementsCount) {
+                    if (documents[i].buffer[posInList[i]] < nextDocId) {
+                        nextDocId = documents[i].buffer[posInList[i]];
+                        signature = 1 << i;
+                    } else if (documents[i].buffer[posInList[i]] == nextDocId) {
+                        signature |= 1 << i;
+                    }
+                }
+            }
+            if (signature != 0) {
+                ++counts[signature];
+                ++mergedDocuments;
+                for (int i = 0; i < posInList.length; ++i) {
+                    if ((signature & (1 << i)) != 0) {
+                        ++posInList[i];
+                    }
+                }
+            }
+        } while (signature != 0);
+        instrumentation.stageFinished(Stage.WINDOW_COUNTING, start);
+        FlightRecorderEvent event = PalmettoEvents.WINDOW_COUNTING.getCurrentEvent();
+        if (event != null) {
+            event.add(PalmettoEvents.WINDOW_COUNTING_DOCUMENTS, mergedDocuments);
+        }
+    }
+
     protected void addCountsOfSubsets(int[] counts) {
         // until now the counts contain only the windows which have exactly the matching word combination
         // --> we have to add the counts of the larger word sets to their subsets
@@ -180,7 +344,17 @@ public class BooleanSlidingWindowFrequencyDeterminer extends AbstractWindowBased
         // Go through the histogram, count the number of windows
         int numberOfWindowsInDocs = 0;
         int histogram[][] = corpusAdapter.getDocumentSizeHistogram();
+        long numberOfSmallDocuments = 0, numberOfTokens = 0, numberOfTokensInSmallDocuments = 0;
+        numberOfDocuments = 0;
+        // the filter for the new window size has not been requested, yet
+        smallDocumentFilterRequested = false;
         for (int i = 0; i < histogram.length; ++i) {
+            numberOfDocuments += histogram[i][1];
+            numberOfTokens += ((long) histogram[i][0]) * histogram[i][1];
+            if (histogram[i][0] <= this.windowSize) {
+                numberOfSmallDocuments += histogram[i][1];
+                numberOfTokensInSmallDocuments += ((long) histogram[i][0]) * histogram[i][1];
+            }
             // If this document is shorter than the window
             if (histogram[i][0] < this.windowSize) {
                 numberOfWindowsInDocs += histogram[i][1];
@@ -189,6 +363,10 @@ public class BooleanSlidingWindowFrequencyDeterminer extends AbstractWindowBased
             }
         }
 
+        smallDocumentShare = (numberOfDocuments > 0) ? ((double) numberOfSmallDocuments / numberOfDocuments) : 0;
+        smallDocumentTokenShare = (numberOfTokens > 0) ? ((double) numberOfTokensInSmallDocuments / numberOfTokens)
+                : 0;
+
         // Determine how many word sets would have been counted using the number of windows
         for (int i = 0; i < wordSetCountSums.length; ++i) {
             wordSetCountSums[i] = numberOfWindowsInDocs;
@@ -233,4 +411,12 @@ public class BooleanSlidingWindowFrequencyDeterminer extends AbstractWindowBased
         return windowSize;
     }
 
+    /**
+     * Returns the recorded decisions between the positional counting and the
+     * small document split.
+     */
+    public CountingEngineDecisions getDecisions() {
+        return decisions;
+    }
+
 }
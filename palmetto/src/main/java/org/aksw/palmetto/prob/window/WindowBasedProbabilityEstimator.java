@@ -48,6 +48,18 @@ public class WindowBasedProbabilityEstimator extends AbstractProbabilitySupplier
         return new SubsetProbabilities(countedSubsets.segments, countedSubsets.conditions, probabilities);
     }
 
+    /**
+     * If boolean sliding windows are counted, a single occurrence of a word
+     * can be part of at most window size many windows.
+     */
+    @Override
+    protected long getUpperBoundOfCount(int docFreq, long collectionFreq) {
+        if ((collectionFreq >= 0) && (freqDeterminer instanceof BooleanSlidingWindowFrequencyDeterminer)) {
+            return collectionFreq * ((BooleanSlidingWindowFrequencyDeterminer) freqDeterminer).getWindowSize();
+        }
+        return Long.MAX_VALUE;
+    }
+
     @Override
     public String getName() {
         return ((WindowBasedFrequencyDeterminer) freqDeterminer).getSlidingWindowModelName();
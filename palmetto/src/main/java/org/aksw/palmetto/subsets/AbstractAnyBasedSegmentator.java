@@ -19,11 +19,21 @@ package org.aksw.palmetto.subsets;
 
 import org.aksw.palmetto.data.SegmentationDefinition;
 
-public abstract class AbstractAnyBasedSegmentator implements Segmentator {
+import com.carrotsearch.hppc.BitSet;
+
+/**
+ * Abstract class of segmentations containing all (or all restricted)
+ * combinations of subsets as conditions. Since the number of pairs of these
+ * segmentations grows exponentially with the size of the word set, they can
+ * generate their pairs on demand (see {@link LazySegmentator}).
+ * 
+ * @author m.roeder
+ * 
+ */
+public abstract class AbstractAnyBasedSegmentator implements LazySegmentator {
 
     private int maxSingleSubSetSize = Integer.SIZE;
     private int maxSubSetUnionSize = Integer.SIZE;
-    private int factorials[];
 
     public AbstractAnyBasedSegmentator() {
     }
@@ -34,26 +44,6 @@ public abstract class AbstractAnyBasedSegmentator implements Segmentator {
         } else {
             maxSingleSubSetSize = maxSubSetSize;
         }
-        createOrIncreaseFactorials(maxSubSetSize);
-    }
-
-    private void createOrIncreaseFactorials(int subSetSize) {
-        int startId;
-        if (factorials == null) {
-            factorials = new int[subSetSize + 1];
-            factorials[0] = 1;
-            startId = 1;
-        } else {
-            // the factorials array has to grow
-            int temp[] = new int[subSetSize + 1];
-            System.arraycopy(factorials, 0, temp, 0, factorials.length);
-            startId = factorials.length;
-            factorials = temp;
-        }
-        // create all needed factorials
-        for (int i = startId; i < factorials.length; ++i) {
-            factorials[i] = factorials[i - 1] * i;
-        }
     }
 
     @Override
@@ -124,15 +114,74 @@ public abstract class AbstractAnyBasedSegmentator implements Segmentator {
         return conditions;
     }
 
+    /**
+     * Returns the number of combinations with 1 to maxElementsPerCombination
+     * elements that can be created from elementCount elements.
+     * 
+     * @throws IllegalArgumentException
+     *             if the number of combinations does not fit into an int
+     */
     protected int getNumberOfCombinations(int elementCount, int maxElementsPerCombination) {
-        if (factorials.length <= elementCount) {
-            createOrIncreaseFactorials(elementCount);
+        long numberOfCombinations = 0;
+        for (int i = 1; i <= Math.min(elementCount, maxElementsPerCombination); ++i) {
+            numberOfCombinations += binomialCoefficient(elementCount, i);
+        }
+        if (numberOfCombinations > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The number of combinations (" + numberOfCombinations
+                    + ") is too large.");
+        }
+        return (int) numberOfCombinations;
+    }
+
+    /**
+     * Returns n over k. Since the subsets are coded as int bit masks, n is
+     * never larger than 32 and the result fits into a long.
+     */
+    protected static long binomialCoefficient(int n, int k) {
+        if ((k < 0) || (k > n)) {
+            return 0;
         }
-        int numberOfCombinations = elementCount;
-        for (int i = 2; i <= maxElementsPerCombination; ++i) {
-            numberOfCombinations += factorials[elementCount] / (factorials[i] * factorials[elementCount - i]);
+        k = Math.min(k, n - k);
+        long result = 1;
+        for (int i = 1; i <= k; ++i) {
+            // the intermediate result is always n-k+i over i
+            result = (result * (n - k + i)) / i;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the maximum number of words of a condition of a segment with
+     * the given number of words or 0 if a subset with the given size is not
+     * used as segment.
+     */
+    protected abstract int getMaxConditionSize(int segmentSize, int wordsetSize);
+
+    @Override
+    public SegmentationIterator getSegmentationIterator(int wordsetSize) {
+        return new AnySegmentationIterator(wordsetSize);
+    }
+
+    @Override
+    public BitSet getNeededCounts(int wordsetSize) {
+        BitSet neededCounts = new BitSet(1L << wordsetSize);
+        neededCounts.set(1, 1L << wordsetSize);
+        return neededCounts;
+    }
+
+    @Override
+    public long getNumberOfPairs(int wordsetSize) {
+        long numberOfPairs = 0, numberOfConditions;
+        int maxConditionSize;
+        for (int segmentSize = 1; segmentSize < wordsetSize; ++segmentSize) {
+            maxConditionSize = Math.min(getMaxConditionSize(segmentSize, wordsetSize), wordsetSize - segmentSize);
+            numberOfConditions = 0;
+            for (int i = 1; i <= maxConditionSize; ++i) {
+                numberOfConditions += binomialCoefficient(wordsetSize - segmentSize, i);
+            }
+            numberOfPairs += binomialCoefficient(wordsetSize, segmentSize) * numberOfConditions;
         }
-        return numberOfCombinations;
+        return numberOfPairs;
     }
 
     protected boolean isSingleSubSetSizeRestricted() {
@@ -150,4 +199,98 @@ public abstract class AbstractAnyBasedSegmentator implements Segmentator {
     public int getMaxSubSetUnionSize() {
         return maxSubSetUnionSize;
     }
+
+    /**
+     * Iterates over the segments in ascending order. The conditions of a
+     * segment are the subsets of the remaining words (with at most the
+     * maximum condition size words) in ascending order, i.e., the pairs have
+     * the same order as inside the definitions of the segmentation.
+     * 
+     * @author m.roeder
+     * 
+     */
+    protected class AnySegmentationIterator implements SegmentationIterator {
+
+        private final int wordsetSize;
+        private final int mask;
+        private int segment = 0;
+        private int condition;
+        /**
+         * The bits of the words that are not part of the segment.
+         */
+        private final int remainingWords[];
+        private int numberOfRemainingWords;
+        private int maxConditionSize;
+        /**
+         * The current condition using the positions inside the remaining words
+         * instead of the words.
+         */
+        private int pattern;
+
+        public AnySegmentationIterator(int wordsetSize) {
+            this.wordsetSize = wordsetSize;
+            mask = (1 << wordsetSize) - 1;
+            remainingWords = new int[wordsetSize];
+        }
+
+        @Override
+        public boolean next() {
+            if ((segment != 0) && nextCondition()) {
+                return true;
+            }
+            while (nextSegment()) {
+                if (nextCondition()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean nextSegment() {
+            while (segment < (mask - 1)) {
+                ++segment;
+                maxConditionSize = getMaxConditionSize(Integer.bitCount(segment), wordsetSize);
+                if (maxConditionSize > 0) {
+                    numberOfRemainingWords = 0;
+                    for (int w = 0; w < wordsetSize; ++w) {
+                        if (((1 << w) & segment) == 0) {
+                            remainingWords[numberOfRemainingWords] = 1 << w;
+                            ++numberOfRemainingWords;
+                        }
+                    }
+                    pattern = 0;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean nextCondition() {
+            ++pattern;
+            // skip patterns with too many words. All patterns between a
+            // pattern and the sum of the pattern and its lowest bit contain
+            // the words of the pattern.
+            while (Integer.bitCount(pattern) > maxConditionSize) {
+                pattern += pattern & -pattern;
+            }
+            if (pattern >= (1 << numberOfRemainingWords)) {
+                return false;
+            }
+            condition = 0;
+            for (int p = pattern; p != 0; p &= p - 1) {
+                condition |= remainingWords[Integer.numberOfTrailingZeros(p)];
+            }
+            return true;
+        }
+
+        @Override
+        public int getSegment() {
+            return segment;
+        }
+
+        @Override
+        public int getCondition() {
+            return condition;
+        }
+    }
 }
@@ -21,7 +21,7 @@ import org.aksw.palmetto.data.SegmentationDefinition;
 
 import com.carrotsearch.hppc.BitSet;
 
-public class AllAll implements Segmentator {
+public class AllAll implements LazySegmentator {
 
     public SegmentationDefinition getSubsetDefinition(int wordsetSize) {
         /*
@@ -37,6 +37,45 @@ public class AllAll implements Segmentator {
         return new SegmentationDefinition(segments, conditions, neededCounts);
     }
 
+    @Override
+    public SegmentationIterator getSegmentationIterator(int wordsetSize) {
+        final int mask = (1 << wordsetSize) - 1;
+        return new SegmentationIterator() {
+            private boolean returned = false;
+
+            @Override
+            public boolean next() {
+                if (returned) {
+                    return false;
+                }
+                returned = true;
+                return true;
+            }
+
+            @Override
+            public int getSegment() {
+                return mask;
+            }
+
+            @Override
+            public int getCondition() {
+                return mask;
+            }
+        };
+    }
+
+    @Override
+    public BitSet getNeededCounts(int wordsetSize) {
+        BitSet neededCounts = new BitSet(1L << wordsetSize);
+        neededCounts.set((1L << wordsetSize) - 1);
+        return neededCounts;
+    }
+
+    @Override
+    public long getNumberOfPairs(int wordsetSize) {
+        return 1;
+    }
+
     @Override
     public String getName() {
         return "S^{all}_{all}";
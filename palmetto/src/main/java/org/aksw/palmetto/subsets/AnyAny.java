@@ -79,6 +79,18 @@ public class AnyAny extends AbstractAnyBasedSegmentator {
         return new SegmentationDefinition(segments, conditions, neededCounts);
     }
 
+    @Override
+    protected int getMaxConditionSize(int segmentSize, int wordsetSize) {
+        int maxSingleSubSetSize = getMaxSingleSubSetSize();
+        int maxSubSetUnionSize = getMaxSubSetUnionSize();
+        int maxSegmentSize = maxSubSetUnionSize > maxSingleSubSetSize ? maxSingleSubSetSize
+                : (maxSubSetUnionSize - 1);
+        if (segmentSize > maxSegmentSize) {
+            return 0;
+        }
+        return Math.min(maxSingleSubSetSize, maxSubSetUnionSize - segmentSize);
+    }
+
     @Override
     public String getName() {
         if (isSingleSubSetSizeRestricted()) {
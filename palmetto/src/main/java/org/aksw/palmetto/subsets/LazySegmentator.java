@@ -0,0 +1,52 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.subsets;
+
+import org.aksw.palmetto.data.SegmentationDefinition;
+
+import com.carrotsearch.hppc.BitSet;
+
+/**
+ * A {@link Segmentator} that can generate the subset pairs of a word set on
+ * demand instead of creating a {@link SegmentationDefinition} containing all
+ * of them. This is helpful for segmentations whose number of pairs grows
+ * exponentially with the size of the word set.
+ * 
+ * @author m.roeder
+ * 
+ */
+public interface LazySegmentator extends Segmentator {
+
+    /**
+     * Returns an iterator over the subset pairs of a word set with the given
+     * size. The pairs are the same as the pairs of
+     * {@link #getSubsetDefinition(int)} but their order might differ.
+     */
+    public SegmentationIterator getSegmentationIterator(int wordsetSize);
+
+    /**
+     * Returns the subsets whose counts are needed for the pairs of a word set
+     * with the given size.
+     */
+    public BitSet getNeededCounts(int wordsetSize);
+
+    /**
+     * Returns the number of subset pairs of a word set with the given size.
+     */
+    public long getNumberOfPairs(int wordsetSize);
+}
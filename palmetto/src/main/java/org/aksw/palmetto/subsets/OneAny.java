@@ -85,6 +85,16 @@ public class OneAny extends AbstractAnyBasedSegmentator {
         return new SegmentationDefinition(segments, conditions, neededCounts);
     }
 
+    @Override
+    protected int getMaxConditionSize(int segmentSize, int wordsetSize) {
+        if (segmentSize != 1) {
+            return 0;
+        }
+        int maxSingleSubSetSize = getMaxSingleSubSetSize();
+        int maxSubSetUnionSize = getMaxSubSetUnionSize();
+        return maxSubSetUnionSize > maxSingleSubSetSize ? maxSingleSubSetSize : (maxSubSetUnionSize - 1);
+    }
+
     @Override
     public String getName() {
         if (isSingleSubSetSizeRestricted()) {
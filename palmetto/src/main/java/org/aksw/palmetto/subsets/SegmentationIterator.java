@@ -0,0 +1,48 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.subsets;
+
+/**
+ * An iterator over the (segment, condition) pairs of a segmentation. The
+ * subsets are coded as bit masks. The iterator is positioned before the first
+ * pair, i.e., {@link #next()} has to be called before the first pair can be
+ * retrieved.
+ * 
+ * @author m.roeder
+ * 
+ */
+public interface SegmentationIterator {
+
+    /**
+     * Moves the iterator to the next pair.
+     * 
+     * @return true if there is a next pair, false if all pairs have been
+     *         returned
+     */
+    public boolean next();
+
+    /**
+     * Returns the segment W' of the current pair.
+     */
+    public int getSegment();
+
+    /**
+     * Returns the condition W* of the current pair.
+     */
+    public int getCondition();
+}
@@ -0,0 +1,90 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.subsets;
+
+import org.aksw.palmetto.data.SegmentationDefinition;
+
+/**
+ * A compiled form of a {@link SegmentationDefinition}. The pairs of W' and W*
+ * are stored as a flat array of (segment, condition, intersection) triples of
+ * subset ids, i.e., a confirmation measure can execute the plan in a single
+ * loop without following the jagged arrays of the definition. A plan is
+ * immutable and can be shared between threads.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class SegmentationPlan {
+
+    /**
+     * Size of the word sets this plan has been compiled for.
+     */
+    public final int wordsetSize;
+    /**
+     * The definition this plan has been compiled from. It must not be
+     * changed.
+     */
+    public final SegmentationDefinition definition;
+    /**
+     * The (segment, condition, intersection) triples of the subset pairs.
+     */
+    private final int instructions[];
+
+    public SegmentationPlan(SegmentationDefinition definition, int wordsetSize) {
+        this.definition = definition;
+        this.wordsetSize = wordsetSize;
+        int numberOfPairs = 0;
+        for (int i = 0; i < definition.segments.length; ++i) {
+            // some segmentators do not define conditions for very small word
+            // sets
+            if (definition.conditions[i] != null) {
+                numberOfPairs += definition.conditions[i].length;
+            }
+        }
+        instructions = new int[3 * numberOfPairs];
+        int pos = 0;
+        for (int i = 0; i < definition.segments.length; ++i) {
+            for (int j = 0; (definition.conditions[i] != null) && (j < definition.conditions[i].length); ++j) {
+                instructions[pos] = definition.segments[i];
+                instructions[pos + 1] = definition.conditions[i][j];
+                instructions[pos + 2] = definition.segments[i] | definition.conditions[i][j];
+                pos += 3;
+            }
+        }
+    }
+
+    /**
+     * Returns the (segment, condition, intersection) triples of the subset
+     * pairs. The returned array must not be changed.
+     */
+    public int[] getInstructions() {
+        return instructions;
+    }
+
+    public int getNumberOfPairs() {
+        return instructions.length / 3;
+    }
+
+    /**
+     * Returns the number of subsets of the word sets, i.e., the length of a
+     * probability table.
+     */
+    public int getNumberOfSubsets() {
+        return 1 << wordsetSize;
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.subsets;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.aksw.palmetto.data.SegmentationDefinition;
+
+/**
+ * A thread safe cache of the {@link SegmentationPlan}s of a single
+ * {@link Segmentator}. Every plan is compiled only once per word set size.
+ * Thus, the segmentator is not called for every single word set.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class SegmentationPlanCache {
+
+    /**
+     * The subsets are identified by int bit masks, i.e., word sets can not
+     * have more than 31 words.
+     */
+    private static final int MAX_WORDSET_SIZE = 31;
+
+    private final Segmentator segmentator;
+    private final AtomicReferenceArray<SegmentationPlan> plans = new AtomicReferenceArray<SegmentationPlan>(
+            MAX_WORDSET_SIZE + 1);
+
+    public SegmentationPlanCache(Segmentator segmentator) {
+        this.segmentator = segmentator;
+    }
+
+    /**
+     * Returns the plan for word sets of the given size.
+     */
+    public SegmentationPlan getPlan(int wordsetSize) {
+        if ((wordsetSize < 0) || (wordsetSize > MAX_WORDSET_SIZE)) {
+            throw new IllegalArgumentException("Word sets can not have " + wordsetSize + " words.");
+        }
+        SegmentationPlan plan = plans.get(wordsetSize);
+        if (plan == null) {
+            plan = new SegmentationPlan(segmentator.getSubsetDefinition(wordsetSize), wordsetSize);
+            // if another thread has been faster, its plan is used
+            if (!plans.compareAndSet(wordsetSize, null, plan)) {
+                plan = plans.get(wordsetSize);
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Returns the definition for word sets of the given size. The returned
+     * definition is shared and must not be changed.
+     */
+    public SegmentationDefinition getSubsetDefinition(int wordsetSize) {
+        return getPlan(wordsetSize).definition;
+    }
+
+    public Segmentator getSegmentator() {
+        return segmentator;
+    }
+}
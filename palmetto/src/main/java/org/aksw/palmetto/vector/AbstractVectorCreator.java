@@ -20,6 +20,9 @@ package org.aksw.palmetto.vector;
 import org.aksw.palmetto.data.SegmentationDefinition;
 import org.aksw.palmetto.data.SubsetProbabilities;
 import org.aksw.palmetto.data.SubsetVectors;
+import org.aksw.palmetto.instrumentation.Instrumentation;
+import org.aksw.palmetto.instrumentation.InstrumentationRegistry;
+import org.aksw.palmetto.instrumentation.Stage;
 import org.aksw.palmetto.prob.ProbabilityEstimator;
 
 /**
@@ -40,8 +43,26 @@ public abstract class AbstractVectorCreator implements VectorCreator {
 
     @Override
     public SubsetVectors[] getVectors(String[][] wordsets, SegmentationDefinition[] definitions) {
+        Instrumentation instrumentation = InstrumentationRegistry.get();
+        long start = instrumentation.start();
         SubsetProbabilities probabilities[] = supplier.getProbabilities(wordsets, definitions);
-        return createVectors(wordsets, definitions, probabilities);
+        instrumentation.stageFinished(Stage.PROBABILITY_ESTIMATION, start);
+        instrumentation.probabilitiesEstimated(wordsets, probabilities);
+        return getVectors(wordsets, definitions, probabilities);
+    }
+
+    /**
+     * Creates the vectors using the given probabilities instead of retrieving
+     * them from the probability estimator. The probabilities have to contain
+     * (at least) the probabilities of the single words and word pairs.
+     */
+    public SubsetVectors[] getVectors(String[][] wordsets, SegmentationDefinition[] definitions,
+            SubsetProbabilities[] probabilities) {
+        Instrumentation instrumentation = InstrumentationRegistry.get();
+        long start = instrumentation.start();
+        SubsetVectors vectors[] = createVectors(wordsets, definitions, probabilities);
+        instrumentation.stageFinished(Stage.VECTOR_CREATION, start);
+        return vectors;
     }
 
     protected abstract SubsetVectors[] createVectors(String[][] wordsets, SegmentationDefinition[] definitions,
@@ -62,6 +83,10 @@ public abstract class AbstractVectorCreator implements VectorCreator {
         supplier.setMinFrequency(minFrequency);
     }
 
+    public ProbabilityEstimator getProbabilityEstimator() {
+        return supplier;
+    }
+
     public void setProbabilityEstimator(ProbabilityEstimator supplier) {
         this.supplier = supplier;
     }
@@ -0,0 +1,134 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.vector;
+
+import java.util.Arrays;
+
+import org.aksw.palmetto.data.SegmentationDefinition;
+import org.aksw.palmetto.data.SubsetVectors;
+import org.aksw.palmetto.instrumentation.Instrumentation;
+import org.aksw.palmetto.instrumentation.InstrumentationRegistry;
+import org.aksw.palmetto.instrumentation.Stage;
+import org.aksw.palmetto.instrumentation.Volume;
+import org.aksw.palmetto.prob.ProbabilityEstimator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A vector creator that uses the context vectors of a
+ * {@link ContextVectorStore}, i.e., the dimensions of the vectors are the
+ * terms of the corpus vocabulary instead of the words of the word set.
+ * 
+ * <p>
+ * Since the context vectors are sparse, the vectors of a single word set are
+ * projected onto the union of the dimensions of its words. This does not
+ * change the similarities calculated by the indirect confirmation measures
+ * but enables them to work on small dense vectors. Words that are not part of
+ * the vocabulary have an empty vector. Dimensions with a count lower than the
+ * minimum frequency are ignored.
+ * </p>
+ * 
+ * @author m.roeder
+ * 
+ */
+public class ContextVectorCreator implements VectorCreator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContextVectorCreator.class);
+
+    private static final String PROBABILITY_ESTIMATOR_NAME = "P_bd";
+    private static final String VECTOR_CREATOR_NAME = "#cooc";
+
+    private ContextVectorStore store;
+    private int minFrequency = 0;
+
+    public ContextVectorCreator(ContextVectorStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public SubsetVectors[] getVectors(String[][] wordsets, SegmentationDefinition[] definitions) {
+        Instrumentation instrumentation = InstrumentationRegistry.get();
+        long start = instrumentation.start();
+        SubsetVectors vectors[] = new SubsetVectors[wordsets.length];
+        for (int i = 0; i < wordsets.length; ++i) {
+            vectors[i] = createVectors(wordsets[i], definitions[i]);
+            // the flat matrix and its copy as single vectors
+            instrumentation.count(Volume.ARRAY_BYTES_ALLOCATED, 16L * vectors[i].flatVectors.length);
+        }
+        instrumentation.stageFinished(Stage.VECTOR_CREATION, start);
+        return vectors;
+    }
+
+    protected SubsetVectors createVectors(String wordset[], SegmentationDefinition definition) {
+        SparseVector contextVectors[] = new SparseVector[wordset.length];
+        for (int i = 0; i < wordset.length; ++i) {
+            contextVectors[i] = store.getVector(wordset[i]);
+            if (contextVectors[i] == null) {
+                contextVectors[i] = SparseVector.EMPTY_VECTOR;
+            }
+        }
+        int dimensions[] = SparseVectorKernels.unionOfDimensions(contextVectors);
+        // make sure that the vectors have at least one dimension
+        int vectorLength = Math.max(dimensions.length, 1);
+        double flatVectors[] = new double[wordset.length * vectorLength];
+        int offset = 0, dimension;
+        for (int i = 0; i < contextVectors.length; ++i) {
+            for (int j = 0; j < contextVectors[i].dimensions.length; ++j) {
+                if (contextVectors[i].values[j] >= minFrequency) {
+                    dimension = Arrays.binarySearch(dimensions, contextVectors[i].dimensions[j]);
+                    flatVectors[offset + dimension] = contextVectors[i].values[j];
+                }
+            }
+            offset += vectorLength;
+        }
+        return new SubsetVectors(definition.segments, definition.conditions, flatVectors, wordset.length, null);
+    }
+
+    /**
+     * The context vectors are not based on a probability estimator. Thus,
+     * the given estimator is ignored.
+     */
+    @Override
+    public void setProbabilityEstimator(ProbabilityEstimator supplier) {
+        LOGGER.warn("The context vector creator does not use a probability estimator. It will be ignored.");
+    }
+
+    @Override
+    public String getProbabilityEstimatorName() {
+        return PROBABILITY_ESTIMATOR_NAME;
+    }
+
+    @Override
+    public String getVectorSpaceName() {
+        return "V^Ctx(" + store.getNumberOfContextTerms() + ")";
+    }
+
+    @Override
+    public String getVectorCreatorName() {
+        return VECTOR_CREATOR_NAME;
+    }
+
+    @Override
+    public void setMinFrequency(int minFrequency) {
+        this.minFrequency = minFrequency;
+    }
+
+    public ContextVectorStore getStore() {
+        return store;
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.vector;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.apache.commons.io.IOUtils;
+
+import com.carrotsearch.hppc.ObjectIntOpenHashMap;
+
+/**
+ * A store containing a precomputed {@link SparseVector} for every term of a
+ * corpus vocabulary. The dimensions of the vectors are the ids of the terms,
+ * i.e., the vector of a term contains the co-occurrence counts of the term
+ * with its most important context terms.
+ * 
+ * <p>
+ * The store is held in memory and can be written to and read from a binary
+ * file. It is thread safe since it is not changed after its creation.
+ * </p>
+ * 
+ * @author m.roeder
+ * 
+ */
+public class ContextVectorStore {
+
+    private static final int MAGIC_NUMBER = 0x50435653;
+    private static final int VERSION = 1;
+
+    /**
+     * The terms of the vocabulary. The position of a term is its id.
+     */
+    private final String terms[];
+    /**
+     * The context vectors of the terms.
+     */
+    private final SparseVector vectors[];
+    /**
+     * The maximum number of context terms per vector.
+     */
+    private final int numberOfContextTerms;
+    private final ObjectIntOpenHashMap<String> termIds;
+
+    public ContextVectorStore(String[] terms, SparseVector[] vectors, int numberOfContextTerms) {
+        if (terms.length != vectors.length) {
+            throw new IllegalArgumentException("The number of terms (" + terms.length
+                    + ") does not match the number of vectors (" + vectors.length + ").");
+        }
+        this.terms = terms;
+        this.vectors = vectors;
+        this.numberOfContextTerms = numberOfContextTerms;
+        termIds = new ObjectIntOpenHashMap<String>(terms.length);
+        for (int i = 0; i < terms.length; ++i) {
+            termIds.put(terms[i], i);
+        }
+    }
+
+    /**
+     * Returns the context vector of the given word or null if the word is not
+     * part of the vocabulary.
+     */
+    public SparseVector getVector(String word) {
+        if (termIds.containsKey(word)) {
+            return vectors[termIds.lget()];
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the id of the given term or -1 if the term is not part of the
+     * vocabulary.
+     */
+    public int getTermId(String term) {
+        if (termIds.containsKey(term)) {
+            return termIds.lget();
+        } else {
+            return -1;
+        }
+    }
+
+    public String getTerm(int id) {
+        return terms[id];
+    }
+
+    public int getNumberOfContextTerms() {
+        return numberOfContextTerms;
+    }
+
+    /**
+     * Returns the number of terms of the vocabulary.
+     */
+    public int size() {
+        return terms.length;
+    }
+
+    /**
+     * Writes the store to the given file.
+     * 
+     * @throws IOException
+     *             if the file can not be written
+     */
+    public void writeToFile(File file) throws IOException {
+        if ((file.getParentFile() != null) && (!file.getParentFile().exists())) {
+            file.getParentFile().mkdirs();
+        }
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            out.writeInt(MAGIC_NUMBER);
+            out.writeInt(VERSION);
+            out.writeInt(numberOfContextTerms);
+            out.writeInt(terms.length);
+            for (int i = 0; i < terms.length; ++i) {
+                out.writeUTF(terms[i]);
+                out.writeInt(vectors[i].dimensions.length);
+                for (int j = 0; j < vectors[i].dimensions.length; ++j) {
+                    out.writeInt(vectors[i].dimensions[j]);
+                    out.writeFloat(vectors[i].values[j]);
+                }
+            }
+        } finally {
+            IOUtils.closeQuietly(out);
+        }
+    }
+
+    /**
+     * Reads a store from the given file.
+     * 
+     * @throws IOException
+     *             if the file can not be read or is not a context vector store
+     */
+    public static ContextVectorStore readFromFile(File file) throws IOException {
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != MAGIC_NUMBER) {
+                throw new IOException("The file " + file + " does not contain a context vector store.");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("The context vector store " + file + " has the unsupported version "
+                        + version + ".");
+            }
+            int numberOfContextTerms = in.readInt();
+            String terms[] = new String[in.readInt()];
+            SparseVector vectors[] = new SparseVector[terms.length];
+            int dimensions[];
+            float values[];
+            for (int i = 0; i < terms.length; ++i) {
+                terms[i] = in.readUTF();
+                dimensions = new int[in.readInt()];
+                values = new float[dimensions.length];
+                for (int j = 0; j < dimensions.length; ++j) {
+                    dimensions[j] = in.readInt();
+                    values[j] = in.readFloat();
+                }
+                vectors[i] = new SparseVector(dimensions, values);
+            }
+            return new ContextVectorStore(terms, vectors, numberOfContextTerms);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+}
@@ -17,14 +17,17 @@
  */
 package org.aksw.palmetto.vector;
 
-import java.util.Arrays;
-
+import org.aksw.palmetto.calculations.direct.AccumulatingConfirmationMeasure;
+import org.aksw.palmetto.calculations.direct.AccumulatingConfirmationMeasureAdapter;
 import org.aksw.palmetto.calculations.direct.DirectConfirmationMeasure;
+import org.aksw.palmetto.calculations.indirect.VectorKernels;
 import org.aksw.palmetto.data.SegmentationDefinition;
 import org.aksw.palmetto.data.SubsetProbabilities;
 import org.aksw.palmetto.data.SubsetVectors;
 import org.aksw.palmetto.prob.ProbabilityEstimator;
 import org.aksw.palmetto.subsets.OneOneAndSelf;
+import org.aksw.palmetto.subsets.SegmentationPlan;
+import org.aksw.palmetto.subsets.SegmentationPlanCache;
 
 /**
  * This vector creator uses a direct confirmation measure to create the vectors.
@@ -37,7 +40,7 @@ public class DirectConfirmationBasedVectorCreator extends AbstractVectorCreator
     private static final int DEFAULT_GAMMA = 2;
 
     private DirectConfirmationMeasure calculation;
-    private OneOneAndSelf oneOneAndSelfCreator = new OneOneAndSelf();
+    private SegmentationPlanCache oneOneAndSelfPlans = new SegmentationPlanCache(new OneOneAndSelf());
     private double gamma;
 
     public DirectConfirmationBasedVectorCreator(ProbabilityEstimator supplier, DirectConfirmationMeasure calculation) {
@@ -62,36 +65,18 @@ public class DirectConfirmationBasedVectorCreator extends AbstractVectorCreator
     protected SubsetVectors[] createVectors(String[][] wordsets, SegmentationDefinition[] definitions,
             SubsetProbabilities[] probabilities) {
         SubsetVectors vectors[] = new SubsetVectors[wordsets.length];
-        double currentVectors[][];
-        SegmentationDefinition oneOneAndSelfDef = oneOneAndSelfCreator.getSubsetDefinition(wordsets[0].length);
-        SubsetProbabilities oneOneAndSelfProbabilities = new SubsetProbabilities(oneOneAndSelfDef.segments,
-                oneOneAndSelfDef.conditions, null);
-        double calcResult[];
-        int startId;
+        double currentVectors[];
+        AccumulatingConfirmationMeasure measure = AccumulatingConfirmationMeasureAdapter.create(calculation);
+        SegmentationPlan plan;
         for (int w = 0; w < wordsets.length; ++w) {
-            oneOneAndSelfProbabilities.probabilities = probabilities[w].probabilities;
-            calcResult = calculation.calculateConfirmationValues(oneOneAndSelfProbabilities);
-            currentVectors = new double[wordsets[w].length][wordsets[w].length];
-            startId = 0;
-            try {
-                for (int i = 0; i < wordsets[w].length; ++i) {
-                    System.arraycopy(calcResult, startId, currentVectors[i], 0, wordsets[w].length);
-                    startId += wordsets[w].length;
-                }
-            } catch (Exception e) {
-                System.err.println("ERROR w=" + w + " wordsets[w]=" + Arrays.toString(wordsets[w]) + " calcResult="
-                        + Arrays.toString(calcResult));
-            }
-
-            if (gamma != 1) {
-                for (int i = 0; i < wordsets[w].length; ++i) {
-                    for (int j = 0; j < currentVectors[i].length; ++j) {
-                        currentVectors[i][j] = Math.pow(currentVectors[i][j], gamma);
-                    }
-                }
-            }
+            plan = oneOneAndSelfPlans.getPlan(wordsets[w].length);
+            // the OneOneAndSelf plan creates the vectors as flat row-major
+            // matrix
+            currentVectors = new double[plan.getNumberOfPairs()];
+            measure.calculateConfirmationValues(probabilities[w].probabilities, plan, currentVectors);
+            VectorKernels.pow(currentVectors, 0, currentVectors.length, gamma);
             vectors[w] = new SubsetVectors(definitions[w].segments, definitions[w].conditions, currentVectors,
-                    probabilities[w].probabilities);
+                    wordsets[w].length, probabilities[w].probabilities);
         }
         return vectors;
     }
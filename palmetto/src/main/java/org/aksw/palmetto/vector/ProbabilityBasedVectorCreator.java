@@ -45,20 +45,22 @@ public class ProbabilityBasedVectorCreator extends AbstractVectorCreator {
     protected SubsetVectors[] createVectors(String[][] wordsets, SegmentationDefinition[] definitions,
             SubsetProbabilities[] probabilities) {
         SubsetVectors vectors[] = new SubsetVectors[wordsets.length];
-        double currentVectors[][];
-        int bit1;
+        double currentVectors[];
+        int bit1, size;
         for (int w = 0; w < wordsets.length; ++w) {
-            currentVectors = new double[wordsets[w].length][wordsets[w].length];
-            for (int i = 0; i < wordsets[w].length; ++i) {
+            size = wordsets[w].length;
+            // the vectors are created as flat row-major matrix
+            currentVectors = new double[size * size];
+            for (int i = 0; i < size; ++i) {
                 bit1 = 1 << i;
-                currentVectors[i][i] = probabilities[w].probabilities[bit1];
-                for (int j = i + 1; j < wordsets[w].length; ++j) {
-                    currentVectors[i][j] = probabilities[w].probabilities[bit1 | (1 << j)];
-                    currentVectors[j][i] = currentVectors[i][j];
+                currentVectors[(i * size) + i] = probabilities[w].probabilities[bit1];
+                for (int j = i + 1; j < size; ++j) {
+                    currentVectors[(i * size) + j] = probabilities[w].probabilities[bit1 | (1 << j)];
+                    currentVectors[(j * size) + i] = currentVectors[(i * size) + j];
                 }
             }
             vectors[w] = new SubsetVectors(definitions[w].segments, definitions[w].conditions, currentVectors,
-                    probabilities[w].probabilities);
+                    size, probabilities[w].probabilities);
         }
         return vectors;
     }
@@ -0,0 +1,56 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.vector;
+
+/**
+ * A sparse vector over the terms of a corpus vocabulary. The ids of the
+ * dimensions with a non-zero value are stored as sorted int array together
+ * with their values. Instances should be treated as immutable.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class SparseVector {
+
+    public static final SparseVector EMPTY_VECTOR = new SparseVector(new int[0], new float[0]);
+
+    /**
+     * The sorted ids of the dimensions.
+     */
+    public final int dimensions[];
+    /**
+     * The values of the dimensions.
+     */
+    public final float values[];
+
+    public SparseVector(int[] dimensions, float[] values) {
+        if (dimensions.length != values.length) {
+            throw new IllegalArgumentException("The number of dimensions (" + dimensions.length
+                    + ") does not match the number of values (" + values.length + ").");
+        }
+        this.dimensions = dimensions;
+        this.values = values;
+    }
+
+    /**
+     * Returns the number of non-zero dimensions of this vector.
+     */
+    public int size() {
+        return dimensions.length;
+    }
+}
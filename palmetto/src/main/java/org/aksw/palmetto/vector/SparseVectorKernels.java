@@ -0,0 +1,69 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.vector;
+
+/**
+ * Kernels for {@link SparseVector}s. The vectors are processed by merging
+ * their sorted dimensions, i.e., the effort depends on the number of
+ * non-zero dimensions instead of the size of the vocabulary.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class SparseVectorKernels {
+
+    private SparseVectorKernels() {
+    }
+
+    /**
+     * Returns the sorted union of the dimensions of the given vectors.
+     */
+    public static int[] unionOfDimensions(SparseVector vectors[]) {
+        int union[] = new int[0];
+        int merged[];
+        int pos1, pos2, pos;
+        for (int v = 0; v < vectors.length; ++v) {
+            merged = new int[union.length + vectors[v].dimensions.length];
+            pos1 = 0;
+            pos2 = 0;
+            pos = 0;
+            while ((pos1 < union.length) || (pos2 < vectors[v].dimensions.length)) {
+                if ((pos2 >= vectors[v].dimensions.length)
+                        || ((pos1 < union.length) && (union[pos1] < vectors[v].dimensions[pos2]))) {
+                    merged[pos] = union[pos1];
+                    ++pos1;
+                } else if ((pos1 >= union.length) || (union[pos1] > vectors[v].dimensions[pos2])) {
+                    merged[pos] = vectors[v].dimensions[pos2];
+                    ++pos2;
+                } else {
+                    merged[pos] = union[pos1];
+                    ++pos1;
+                    ++pos2;
+                }
+                ++pos;
+            }
+            if (pos < merged.length) {
+                union = new int[pos];
+                System.arraycopy(merged, 0, union, 0, pos);
+            } else {
+                union = merged;
+            }
+        }
+        return union;
+    }
+}
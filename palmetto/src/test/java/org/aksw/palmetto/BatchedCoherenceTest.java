@@ -0,0 +1,148 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.aksw.palmetto.aggregation.Aggregation;
+import org.aksw.palmetto.aggregation.ArithmeticMean;
+import org.aksw.palmetto.aggregation.Median;
+import org.aksw.palmetto.calculations.direct.DirectConfirmationMeasure;
+import org.aksw.palmetto.calculations.direct.LogCondProbConfirmationMeasure;
+import org.aksw.palmetto.calculations.direct.LogRatioConfirmationMeasure;
+import org.aksw.palmetto.calculations.direct.OlssonsConfirmationMeasure;
+import org.aksw.palmetto.data.SegmentationDefinition;
+import org.aksw.palmetto.data.SubsetProbabilities;
+import org.aksw.palmetto.data.SubsetProbabilitiesBatch;
+import org.aksw.palmetto.prob.FrequencyDeterminer;
+import org.aksw.palmetto.prob.ProbabilityEstimator;
+import org.aksw.palmetto.subsets.OneOne;
+import org.aksw.palmetto.subsets.OneSet;
+import org.aksw.palmetto.subsets.Segmentator;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that the coherences of word sets that are evaluated in batches of
+ * word sets with the same size equal the coherences calculated for every
+ * single word set. The batches are filled like an estimator would fill them,
+ * i.e., the probabilities are written directly into the flat array of the
+ * batch.
+ */
+public class BatchedCoherenceTest implements ProbabilityEstimator {
+
+    private static final double DOUBLE_PRECISION_DELTA = 0.00000001;
+
+    /**
+     * Word sets with runs of different sizes.
+     */
+    private static final String WORDSETS[][] = new String[][] { { "a", "b", "c" }, { "b", "c", "d" },
+            { "c", "d", "e", "f" }, { "a", "b", "c", "d" }, { "e", "f", "g" }, { "a", "e", "i", "j", "k" },
+            { "b", "d", "f", "h" } };
+
+    @Test
+    public void test() {
+        Segmentator segmentators[] = new Segmentator[] { new OneOne(), new OneSet() };
+        DirectConfirmationMeasure measures[] = new DirectConfirmationMeasure[] {
+                new LogCondProbConfirmationMeasure(), new LogRatioConfirmationMeasure(),
+                new OlssonsConfirmationMeasure() };
+        Aggregation aggregations[] = new Aggregation[] { new ArithmeticMean(), new Median() };
+        for (int s = 0; s < segmentators.length; ++s) {
+            for (int m = 0; m < measures.length; ++m) {
+                for (int a = 0; a < aggregations.length; ++a) {
+                    DirectConfirmationBasedCoherence coherence = new DirectConfirmationBasedCoherence(
+                            segmentators[s], this, measures[m], aggregations[a]);
+                    double expected[] = coherence.calculateCoherences(WORDSETS);
+                    SegmentationDefinition definition;
+                    for (int i = 0; i < WORDSETS.length; ++i) {
+                        definition = segmentators[s].getSubsetDefinition(WORDSETS[i].length);
+                        Assert.assertEquals(aggregations[a].summarize(measures[m].calculateConfirmationValues(
+                                getProbabilities(WORDSETS[i], definition))), expected[i], DOUBLE_PRECISION_DELTA);
+                    }
+                    // evaluate every run of word sets with the same size as
+                    // batch
+                    SubsetProbabilitiesBatch batch;
+                    double values[];
+                    int runStart = 0, runEnd, tableStart;
+                    while (runStart < WORDSETS.length) {
+                        runEnd = runStart + 1;
+                        while ((runEnd < WORDSETS.length)
+                                && (WORDSETS[runEnd].length == WORDSETS[runStart].length)) {
+                            ++runEnd;
+                        }
+                        batch = new SubsetProbabilitiesBatch(coherence.getPlanCache().getPlan(
+                                WORDSETS[runStart].length), 1);
+                        for (int i = runStart; i < runEnd; ++i) {
+                            tableStart = batch.addTable();
+                            fillTable(WORDSETS[i], batch.probabilities, tableStart);
+                        }
+                        values = coherence.calculateCoherences(batch);
+                        Assert.assertEquals(runEnd - runStart, values.length);
+                        for (int i = 0; i < values.length; ++i) {
+                            Assert.assertEquals(expected[runStart + i], values[i], DOUBLE_PRECISION_DELTA);
+                        }
+                        runStart = runEnd;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public SubsetProbabilities[] getProbabilities(String[][] wordsets, SegmentationDefinition[] definitions) {
+        SubsetProbabilities probabilities[] = new SubsetProbabilities[wordsets.length];
+        for (int i = 0; i < wordsets.length; ++i) {
+            probabilities[i] = getProbabilities(wordsets[i], definitions[i]);
+        }
+        return probabilities;
+    }
+
+    private static SubsetProbabilities getProbabilities(String wordset[], SegmentationDefinition definition) {
+        double table[] = new double[1 << wordset.length];
+        fillTable(wordset, table, 0);
+        return new SubsetProbabilities(definition.segments, definition.conditions, table);
+    }
+
+    private static void fillTable(String wordset[], double probabilities[], int tableStart) {
+        // the probabilities depend only on the word set
+        Random random = new Random(Arrays.hashCode(wordset));
+        for (int j = 1; j < (1 << wordset.length); ++j) {
+            // a subset is not more probable than its subsets
+            probabilities[tableStart + j] = random.nextDouble() / Integer.bitCount(j);
+        }
+    }
+
+    @Override
+    public FrequencyDeterminer getFrequencyDeterminer() {
+        return null;
+    }
+
+    @Override
+    public void setFrequencyDeterminer(FrequencyDeterminer determiner) {
+    }
+
+    @Override
+    public void setMinFrequency(int minFrequency) {
+    }
+
+    @Override
+    public String getName() {
+        return "P_test";
+    }
+}
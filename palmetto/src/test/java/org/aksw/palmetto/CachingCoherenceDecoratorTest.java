@@ -0,0 +1,98 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+public class CachingCoherenceDecoratorTest {
+
+    private static final double DELTA = 0.0000001;
+
+    /**
+     * A coherence that returns the sum of the word lengths and counts the
+     * calculated word sets.
+     */
+    private static class WordLengthCoherence implements Coherence {
+        private final String name;
+        private int calculatedWordsets = 0;
+        private int calls = 0;
+
+        public WordLengthCoherence(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public double[] calculateCoherences(String[][] wordsets) {
+            ++calls;
+            calculatedWordsets += wordsets.length;
+            double coherences[] = new double[wordsets.length];
+            for (int i = 0; i < wordsets.length; ++i) {
+                for (int j = 0; j < wordsets[i].length; ++j) {
+                    coherences[i] += wordsets[i][j].length() * (j + 1);
+                }
+            }
+            return coherences;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+
+    @Test
+    public void testCaching() {
+        WordLengthCoherence coherence = new WordLengthCoherence("test");
+        CachingCoherenceDecorator decorator = new CachingCoherenceDecorator(coherence);
+        Assert.assertEquals("test", decorator.getName());
+        Assert.assertArrayEquals(new double[] { 5, 4 },
+                decorator.calculateCoherences(new String[][] { { "a", "bb" }, { "bb", "a" } }), DELTA);
+        Assert.assertEquals(2, coherence.calculatedWordsets);
+        // the cached values are reused and the missing value is calculated
+        Assert.assertArrayEquals(new double[] { 4, 7, 5 },
+                decorator.calculateCoherences(new String[][] { { "bb", "a" }, { "a", "ccc" }, { "a", "bb" } }),
+                DELTA);
+        Assert.assertEquals(3, coherence.calculatedWordsets);
+        Assert.assertEquals(2, coherence.calls);
+        decorator.calculateCoherences(new String[][] { { "a", "ccc" } });
+        Assert.assertEquals(2, coherence.calls);
+        Assert.assertEquals(3, decorator.getCacheStats().hitCount());
+        Assert.assertEquals(3, decorator.getCacheStats().missCount());
+    }
+
+    @Test
+    public void testSharedCache() {
+        Cache<CachingCoherenceDecorator.CoherenceResultKey, Double> cache = CacheBuilder.newBuilder()
+                .maximumSize(100).build();
+        WordLengthCoherence coherence1 = new WordLengthCoherence("test1");
+        WordLengthCoherence coherence2 = new WordLengthCoherence("test2");
+        CachingCoherenceDecorator decorator1 = new CachingCoherenceDecorator(coherence1, cache);
+        CachingCoherenceDecorator decorator2 = new CachingCoherenceDecorator(coherence2, cache);
+        String wordsets[][] = new String[][] { { "a", "bb" } };
+        decorator1.calculateCoherences(wordsets);
+        decorator2.calculateCoherences(wordsets);
+        // the values of different coherences are not mixed up
+        Assert.assertEquals(1, coherence1.calculatedWordsets);
+        Assert.assertEquals(1, coherence2.calculatedWordsets);
+        Assert.assertEquals(2, cache.size());
+    }
+}
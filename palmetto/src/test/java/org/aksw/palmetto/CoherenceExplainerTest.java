@@ -0,0 +1,108 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.aksw.palmetto.corpus.lucene.WindowSupportingLuceneCorpusAdapter;
+import org.aksw.palmetto.instrumentation.Explanation;
+import org.aksw.palmetto.instrumentation.InstrumentationRegistry;
+import org.aksw.palmetto.instrumentation.NoOpInstrumentation;
+import org.aksw.palmetto.instrumentation.Stage;
+import org.aksw.palmetto.instrumentation.Volume;
+import org.aksw.palmetto.prob.AbstractLuceneIndexBasedTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CoherenceExplainerTest extends AbstractLuceneIndexBasedTest {
+
+    private static final double DOUBLE_PRECISION_DELTA = 0.00000001;
+
+    private static final String WORDS[] = new String[] { "w0", "w3", "w7" };
+
+    @Test
+    public void testExplainCoherence() throws IOException {
+        WindowSupportingLuceneCorpusAdapter adapter = createAdapter(48);
+        try {
+            Coherence coherence = new CachingCoherenceDecorator(Palmetto.getCoherence("npmi", adapter));
+            double expected = Palmetto.getCoherence("npmi", adapter).calculateCoherences(new String[][] { WORDS })[0];
+
+            Explanation explanation = CoherenceExplainer.explain(coherence, WORDS);
+            Assert.assertSame(NoOpInstrumentation.INSTANCE, InstrumentationRegistry.get());
+            Assert.assertEquals(expected, explanation.getValue(), DOUBLE_PRECISION_DELTA);
+            Assert.assertArrayEquals(WORDS, explanation.getWords());
+            Assert.assertTrue(explanation.getElapsedTime() > 0);
+            Assert.assertTrue(explanation.getStageTime(Stage.PROBABILITY_ESTIMATION) > 0);
+            Assert.assertTrue(explanation.getStageTime(Stage.CONFIRMATION_AGGREGATION) > 0);
+            Assert.assertTrue(explanation.getVolume(Volume.DOCUMENTS_VISITED) > 0);
+            for (int i = 0; i < WORDS.length; ++i) {
+                Assert.assertTrue(explanation.getDocumentFrequency(WORDS[i]) > 0);
+            }
+            Assert.assertFalse(explanation.getEngines().isEmpty());
+            Assert.assertEquals(0, explanation.getCacheHits("CachingCoherenceDecorator"));
+            Assert.assertEquals(1, explanation.getProbabilityWordsets().size());
+            double probabilities[] = explanation.getProbabilities().get(0);
+            Assert.assertEquals(1 << WORDS.length, probabilities.length);
+            Assert.assertTrue(probabilities[1] > 0);
+
+            String json = explanation.toJson();
+            Assert.assertTrue(json.startsWith("{\"coherences\":{\"" + coherence.getName() + "\":"));
+            Assert.assertTrue(json.contains("\"words\":[\"w0\",\"w3\",\"w7\"]"));
+            Assert.assertTrue(json.contains("\"w3\":{\"docFreq\":"));
+            Assert.assertTrue(json.contains("\"PROBABILITY_ESTIMATION\":{\"count\":1,"));
+            Assert.assertTrue(json.contains("\"w0 w7\":"));
+
+            // the second request is answered by the cache
+            explanation = CoherenceExplainer.explain(coherence, WORDS);
+            Assert.assertEquals(expected, explanation.getValue(), DOUBLE_PRECISION_DELTA);
+            Assert.assertEquals(1, explanation.getCacheHits("CachingCoherenceDecorator"));
+            Assert.assertEquals(0, explanation.getStageTime(Stage.PROBABILITY_ESTIMATION));
+            Assert.assertEquals(-1, explanation.getDocumentFrequency(WORDS[0]));
+        } finally {
+            adapter.close();
+        }
+    }
+
+    @Test
+    public void testExplainSuite() throws IOException {
+        WindowSupportingLuceneCorpusAdapter adapter = createAdapter(49);
+        try {
+            Coherence coherences[] = new Coherence[] { Palmetto.getCoherence("uci", adapter),
+                    Palmetto.getCoherence("npmi", adapter), Palmetto.getCoherence("c_v", adapter) };
+            CoherenceSuite suite = new CoherenceSuite(coherences);
+            double expected[][] = suite.calculateCoherences(new String[][] { WORDS });
+            Explanation explanation = CoherenceExplainer.explain(suite, WORDS);
+            Assert.assertArrayEquals(suite.getNames(), explanation.getNames());
+            for (int i = 0; i < coherences.length; ++i) {
+                Assert.assertEquals(expected[i][0], explanation.getValues()[i], DOUBLE_PRECISION_DELTA);
+            }
+            // one estimation per probability model
+            Assert.assertEquals(suite.getNumberOfProbabilityModels(), explanation.getProbabilityWordsets().size());
+            Assert.assertTrue(explanation.getStageTime(Stage.VECTOR_CREATION) > 0);
+        } finally {
+            adapter.close();
+        }
+    }
+
+    private WindowSupportingLuceneCorpusAdapter createAdapter(long seed) throws IOException {
+        File indexDir = createRandomIndex(seed, 200, 300);
+        return WindowSupportingLuceneCorpusAdapter.create(indexDir.getAbsolutePath(),
+                Palmetto.DEFAULT_TEXT_INDEX_FIELD_NAME, Palmetto.DEFAULT_DOCUMENT_LENGTH_INDEX_FIELD_NAME);
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.aksw.palmetto.corpus.decorator.WordPositionCachingAdapterDecorator;
+import org.aksw.palmetto.corpus.lucene.WindowSupportingLuceneCorpusAdapter;
+import org.aksw.palmetto.prob.AbstractLuceneIndexBasedTest;
+import org.apache.lucene.index.CorruptIndexException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CoherenceSuiteTest extends AbstractLuceneIndexBasedTest {
+
+    private static final double DOUBLE_PRECISION_DELTA = 0.00000001;
+
+    private static final String COHERENCE_NAMES[] = new String[] { "umass", "uci", "npmi", "c_a", "c_p", "c_v" };
+
+    private static final String WORDSETS[][] = new String[][] { { "w0", "w1" }, { "w0", "w3", "w7" },
+            { "w1", "w2", "w4", "w6" }, { "w5", "unknown", "w2" }, { "w7", "w6", "w5", "w4", "w3" },
+            { "w0", "w1" } };
+
+    @Test
+    public void testSuiteResults() throws CorruptIndexException, IOException {
+        WindowSupportingLuceneCorpusAdapter adapter = createAdapter(31);
+        try {
+            Coherence coherences[] = new Coherence[COHERENCE_NAMES.length];
+            for (int i = 0; i < coherences.length; ++i) {
+                coherences[i] = Palmetto.getCoherence(COHERENCE_NAMES[i], adapter);
+            }
+            CoherenceSuite suite = new CoherenceSuite(coherences);
+            // UCI and NPMI share the same probability model
+            Assert.assertEquals(coherences.length - 1, suite.getNumberOfProbabilityModels());
+            compareResults(suite, coherences);
+        } finally {
+            adapter.close();
+        }
+    }
+
+    @Test
+    public void testSuiteWithSharedPostings() throws CorruptIndexException, IOException {
+        WindowSupportingLuceneCorpusAdapter adapter = createAdapter(32);
+        try {
+            WordPositionCachingAdapterDecorator decorator = new WordPositionCachingAdapterDecorator(adapter);
+            Coherence coherences[] = new Coherence[COHERENCE_NAMES.length - 1];
+            Coherence suiteCoherences[] = new Coherence[COHERENCE_NAMES.length - 1];
+            for (int i = 0; i < coherences.length; ++i) {
+                coherences[i] = Palmetto.getCoherence(COHERENCE_NAMES[i + 1], adapter);
+                suiteCoherences[i] = Palmetto.getCoherence(COHERENCE_NAMES[i + 1], decorator);
+            }
+            compareResults(new CoherenceSuite(suiteCoherences), coherences);
+            // the positions of every known word have been read only once (the
+            // unknown word is removed by the term dictionary)
+            Assert.assertEquals(NUMBER_OF_WORDS, decorator.getCacheStats().missCount());
+        } finally {
+            adapter.close();
+        }
+    }
+
+    @Test
+    public void testIndependentCoherences() throws CorruptIndexException, IOException {
+        WindowSupportingLuceneCorpusAdapter adapter = createAdapter(33);
+        try {
+            Coherence coherences[] = new Coherence[] { Palmetto.getCoherence("uci", adapter),
+                    new CachingCoherenceDecorator(Palmetto.getCoherence("npmi", adapter)) };
+            CoherenceSuite suite = new CoherenceSuite(coherences);
+            Assert.assertEquals(2, suite.getNumberOfProbabilityModels());
+            compareResults(suite, coherences);
+        } finally {
+            adapter.close();
+        }
+    }
+
+    @Test
+    public void testCachingSuite() throws CorruptIndexException, IOException {
+        WindowSupportingLuceneCorpusAdapter adapter = createAdapter(34);
+        try {
+            Coherence coherences[] = new Coherence[COHERENCE_NAMES.length];
+            for (int i = 0; i < coherences.length; ++i) {
+                coherences[i] = Palmetto.getCoherence(COHERENCE_NAMES[i], adapter);
+            }
+            CoherenceSuite suite = Palmetto.createSuite(coherences, 0);
+            CoherenceSuite cachingSuite = Palmetto.createSuite(coherences, 100);
+            Assert.assertTrue(cachingSuite instanceof CachingCoherenceSuite);
+            // the cache must not change the sharing of the probability models
+            Assert.assertEquals(suite.getNumberOfProbabilityModels(), cachingSuite.getNumberOfProbabilityModels());
+            Assert.assertEquals(coherences.length - 1, cachingSuite.getNumberOfProbabilityModels());
+            compareResults(cachingSuite, coherences);
+            Assert.assertEquals(0, ((CachingCoherenceSuite) cachingSuite).getCacheStats().hitCount());
+            // the second request is answered by the cache
+            compareResults(cachingSuite, coherences);
+            Assert.assertEquals(WORDSETS.length, ((CachingCoherenceSuite) cachingSuite).getCacheStats().hitCount());
+        } finally {
+            adapter.close();
+        }
+    }
+
+    private void compareResults(CoherenceSuite suite, Coherence coherences[]) {
+        double suiteValues[][] = suite.calculateCoherences(WORDSETS);
+        Assert.assertEquals(coherences.length, suiteValues.length);
+        String names[] = suite.getNames();
+        double expectedValues[];
+        for (int i = 0; i < coherences.length; ++i) {
+            Assert.assertEquals(coherences[i].getName(), names[i]);
+            expectedValues = coherences[i].calculateCoherences(WORDSETS);
+            Assert.assertEquals(expectedValues.length, suiteValues[i].length);
+            for (int j = 0; j < expectedValues.length; ++j) {
+                Assert.assertEquals(names[i] + " of word set " + j, expectedValues[j], suiteValues[i][j],
+                        DOUBLE_PRECISION_DELTA);
+            }
+        }
+    }
+
+    private WindowSupportingLuceneCorpusAdapter createAdapter(long seed) throws CorruptIndexException, IOException {
+        File indexDir = createRandomIndex(seed, 300, 20);
+        return WindowSupportingLuceneCorpusAdapter.create(indexDir.getAbsolutePath(),
+                Palmetto.DEFAULT_TEXT_INDEX_FIELD_NAME, Palmetto.DEFAULT_DOCUMENT_LENGTH_INDEX_FIELD_NAME);
+    }
+}
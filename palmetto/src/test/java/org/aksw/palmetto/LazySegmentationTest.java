@@ -0,0 +1,178 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.aksw.palmetto.aggregation.ArithmeticMean;
+import org.aksw.palmetto.aggregation.Min;
+import org.aksw.palmetto.calculations.direct.DirectConfirmationMeasure;
+import org.aksw.palmetto.calculations.direct.LogCondProbConfirmationMeasure;
+import org.aksw.palmetto.calculations.direct.NormalizedLogRatioConfirmationMeasure;
+import org.aksw.palmetto.calculations.direct.OlssonsConfirmationMeasure;
+import org.aksw.palmetto.calculations.indirect.CentroidConfirmationMeasure;
+import org.aksw.palmetto.calculations.indirect.CosinusConfirmationMeasure;
+import org.aksw.palmetto.calculations.indirect.DiceConfirmationMeasure;
+import org.aksw.palmetto.calculations.indirect.JaccardConfirmationMeasure;
+import org.aksw.palmetto.calculations.indirect.VectorBasedConfirmationMeasure;
+import org.aksw.palmetto.data.SegmentationDefinition;
+import org.aksw.palmetto.data.SubsetProbabilities;
+import org.aksw.palmetto.prob.FrequencyDeterminer;
+import org.aksw.palmetto.prob.ProbabilityEstimator;
+import org.aksw.palmetto.subsets.AnyAny;
+import org.aksw.palmetto.subsets.OneAny;
+import org.aksw.palmetto.subsets.Segmentator;
+import org.aksw.palmetto.vector.DirectConfirmationBasedVectorCreator;
+import org.aksw.palmetto.vector.ProbabilityBasedVectorCreator;
+import org.aksw.palmetto.vector.VectorCreator;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that the coherences of lazily segmented word sets equal the
+ * coherences calculated with materialized segmentations.
+ */
+public class LazySegmentationTest implements ProbabilityEstimator {
+
+    private static final double DOUBLE_PRECISION_DELTA = 0.00000001;
+
+    private static final String WORDSETS[][] = new String[][] { { "a", "b", "c" }, { "c", "d", "e", "f" },
+            { "f", "g", "h", "i", "j", "k" } };
+
+    @Test
+    public void test() {
+        Segmentator segmentators[] = new Segmentator[] { new AnyAny(), new OneAny(2, false) };
+        DirectConfirmationMeasure measures[] = new DirectConfirmationMeasure[] {
+                new LogCondProbConfirmationMeasure(), new OlssonsConfirmationMeasure() };
+        for (int s = 0; s < segmentators.length; ++s) {
+            for (int m = 0; m < measures.length; ++m) {
+                DirectConfirmationBasedCoherence coherence = new DirectConfirmationBasedCoherence(segmentators[s],
+                        this, measures[m], new ArithmeticMean());
+                DirectConfirmationBasedCoherence lazyCoherence = new DirectConfirmationBasedCoherence(
+                        segmentators[s], this, measures[m], new ArithmeticMean());
+                lazyCoherence.setLazySegmentationThreshold(0);
+                Assert.assertArrayEquals(coherence.calculateCoherences(WORDSETS),
+                        lazyCoherence.calculateCoherences(WORDSETS), DOUBLE_PRECISION_DELTA);
+                // an aggregation that does not accumulate its values
+                coherence = new DirectConfirmationBasedCoherence(segmentators[s], this, measures[m], new Min());
+                lazyCoherence = new DirectConfirmationBasedCoherence(segmentators[s], this, measures[m], new Min());
+                lazyCoherence.setLazySegmentationThreshold(0);
+                Assert.assertArrayEquals(coherence.calculateCoherences(WORDSETS),
+                        lazyCoherence.calculateCoherences(WORDSETS), DOUBLE_PRECISION_DELTA);
+            }
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void testVectorBasedCoherence() {
+        Segmentator segmentators[] = new Segmentator[] { new AnyAny(), new OneAny(2, false) };
+        VectorCreator vectorCreators[] = new VectorCreator[] { new ProbabilityBasedVectorCreator(this),
+                new DirectConfirmationBasedVectorCreator(this, new NormalizedLogRatioConfirmationMeasure()) };
+        VectorBasedConfirmationMeasure measures[] = new VectorBasedConfirmationMeasure[] {
+                new CosinusConfirmationMeasure(), new DiceConfirmationMeasure(), new JaccardConfirmationMeasure(),
+                new CentroidConfirmationMeasure() };
+        for (int s = 0; s < segmentators.length; ++s) {
+            for (int v = 0; v < vectorCreators.length; ++v) {
+                for (int m = 0; m < measures.length; ++m) {
+                    VectorBasedCoherence coherence = new VectorBasedCoherence(segmentators[s], vectorCreators[v],
+                            measures[m], new ArithmeticMean());
+                    VectorBasedCoherence lazyCoherence = new VectorBasedCoherence(segmentators[s],
+                            vectorCreators[v], measures[m], new ArithmeticMean());
+                    lazyCoherence.setLazySegmentationThreshold(0);
+                    Assert.assertTrue(lazyCoherence.isSegmentedLazily(WORDSETS[WORDSETS.length - 1].length));
+                    Assert.assertArrayEquals(coherence.calculateCoherences(WORDSETS),
+                            lazyCoherence.calculateCoherences(WORDSETS), DOUBLE_PRECISION_DELTA);
+                    // an aggregation that does not accumulate its values
+                    coherence = new VectorBasedCoherence(segmentators[s], vectorCreators[v], measures[m],
+                            new Min());
+                    lazyCoherence = new VectorBasedCoherence(segmentators[s], vectorCreators[v], measures[m],
+                            new Min());
+                    lazyCoherence.setLazySegmentationThreshold(0);
+                    Assert.assertArrayEquals(coherence.calculateCoherences(WORDSETS),
+                            lazyCoherence.calculateCoherences(WORDSETS), DOUBLE_PRECISION_DELTA);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testVectorBasedCoherenceSuite() {
+        VectorBasedCoherence coherence = new VectorBasedCoherence(new AnyAny(),
+                new ProbabilityBasedVectorCreator(this), new CosinusConfirmationMeasure(), new ArithmeticMean());
+        VectorBasedCoherence lazyCoherence = new VectorBasedCoherence(new AnyAny(),
+                new ProbabilityBasedVectorCreator(this), new CosinusConfirmationMeasure(), new ArithmeticMean());
+        lazyCoherence.setLazySegmentationThreshold(0);
+        double expected[] = coherence.calculateCoherences(WORDSETS);
+        CoherenceSuite suite = new CoherenceSuite(new Coherence[] { coherence, lazyCoherence });
+        double values[][] = suite.calculateCoherences(WORDSETS);
+        Assert.assertArrayEquals(expected, values[0], DOUBLE_PRECISION_DELTA);
+        Assert.assertArrayEquals(expected, values[1], DOUBLE_PRECISION_DELTA);
+    }
+
+    @Test
+    public void testSuite() {
+        DirectConfirmationBasedCoherence coherence = new DirectConfirmationBasedCoherence(new AnyAny(), this,
+                new LogCondProbConfirmationMeasure(), new ArithmeticMean());
+        DirectConfirmationBasedCoherence lazyCoherence = new DirectConfirmationBasedCoherence(new AnyAny(), this,
+                new LogCondProbConfirmationMeasure(), new ArithmeticMean());
+        lazyCoherence.setLazySegmentationThreshold(0);
+        double expected[] = coherence.calculateCoherences(WORDSETS);
+        CoherenceSuite suite = new CoherenceSuite(new Coherence[] { coherence, lazyCoherence });
+        double values[][] = suite.calculateCoherences(WORDSETS);
+        Assert.assertArrayEquals(expected, values[0], DOUBLE_PRECISION_DELTA);
+        Assert.assertArrayEquals(expected, values[1], DOUBLE_PRECISION_DELTA);
+    }
+
+    @Override
+    public SubsetProbabilities[] getProbabilities(String[][] wordsets, SegmentationDefinition[] definitions) {
+        SubsetProbabilities probabilities[] = new SubsetProbabilities[wordsets.length];
+        double table[];
+        Random random;
+        for (int i = 0; i < wordsets.length; ++i) {
+            // the probabilities depend only on the word set
+            random = new Random(Arrays.hashCode(wordsets[i]));
+            table = new double[1 << wordsets[i].length];
+            for (int j = 1; j < table.length; ++j) {
+                // a subset is not more probable than its subsets
+                table[j] = random.nextDouble() / Integer.bitCount(j);
+            }
+            probabilities[i] = new SubsetProbabilities(definitions[i].segments, definitions[i].conditions, table);
+        }
+        return probabilities;
+    }
+
+    @Override
+    public FrequencyDeterminer getFrequencyDeterminer() {
+        return null;
+    }
+
+    @Override
+    public void setFrequencyDeterminer(FrequencyDeterminer determiner) {
+    }
+
+    @Override
+    public void setMinFrequency(int minFrequency) {
+    }
+
+    @Override
+    public String getName() {
+        return "P_test";
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import org.aksw.palmetto.io.StreamingWordSetReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StreamingCoherencePipelineTest {
+
+    private static final String INPUT = "a b c\n\nd e\nf g h i\n  \nj k\nl m n\no\np q r s t\n";
+    private static final int NUMBER_OF_WORDSETS = 7;
+
+    @Test
+    public void testChunking() throws IOException {
+        String expected = runPipeline(new WordCountCoherence(-1), NUMBER_OF_WORDSETS, null);
+        for (int chunkSize = 1; chunkSize <= NUMBER_OF_WORDSETS + 1; ++chunkSize) {
+            WordCountCoherence coherence = new WordCountCoherence(-1);
+            Assert.assertEquals(expected, runPipeline(coherence, chunkSize, null));
+            // no chunk is larger than the chunk size
+            Assert.assertTrue(coherence.maxRequestSize <= chunkSize);
+            Assert.assertEquals((NUMBER_OF_WORDSETS + chunkSize - 1) / chunkSize, coherence.numberOfRequests);
+        }
+        // the ids and values are printed in the same format as before
+        Assert.assertTrue(expected.startsWith(String.format("%5d\t%3.5f\t%s%n", 0, 3.0, "[a, b, c]")));
+        Assert.assertTrue(expected.contains(String.format("%5d\t%3.5f\t%s%n", 6, 5.0, "[p, q, r, s, t]")));
+    }
+
+    @Test
+    public void testResume() throws IOException {
+        String expected = runPipeline(new WordCountCoherence(-1), 2, null);
+
+        File checkpointFile = File.createTempFile("checkpoint", ".txt");
+        Assert.assertTrue(checkpointFile.delete());
+        checkpointFile.deleteOnExit();
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bout);
+        // the first run crashes while processing the third chunk
+        try {
+            new StreamingCoherencePipeline(new CoherenceSuite(new WordCountCoherence(2)), 2).run(
+                    new StreamingWordSetReader(new ByteArrayInputStream(INPUT.getBytes())), out, checkpointFile);
+            Assert.fail("Expected an exception.");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        Assert.assertTrue(checkpointFile.exists());
+        // the second run resumes after the second chunk
+        WordCountCoherence coherence = new WordCountCoherence(-1);
+        long processed = new StreamingCoherencePipeline(new CoherenceSuite(coherence), 2).run(
+                new StreamingWordSetReader(new ByteArrayInputStream(INPUT.getBytes())), out, checkpointFile);
+        out.close();
+        Assert.assertEquals(NUMBER_OF_WORDSETS - 4, processed);
+        Assert.assertEquals(2, coherence.numberOfRequests);
+        Assert.assertEquals(expected, bout.toString());
+    }
+
+    @Test
+    public void testHeaderOfSeveralCoherences() throws IOException {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bout);
+        new StreamingCoherencePipeline(new CoherenceSuite(new WordCountCoherence(-1), new WordCountCoherence(-1)))
+                .run(new StreamingWordSetReader(new ByteArrayInputStream(INPUT.getBytes())), out);
+        out.close();
+        String lines[] = bout.toString().split("\n");
+        Assert.assertEquals(NUMBER_OF_WORDSETS + 1, lines.length);
+        Assert.assertEquals("    #\twords\twords\twords", lines[0]);
+        Assert.assertEquals(String.format("%5d\t%3.5f\t%3.5f\t%s", 1, 2.0, 2.0, "[d, e]"), lines[2]);
+    }
+
+    private String runPipeline(Coherence coherence, int chunkSize, File checkpointFile) throws IOException {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bout);
+        StreamingWordSetReader reader = new StreamingWordSetReader(new ByteArrayInputStream(INPUT.getBytes()));
+        long processed = new StreamingCoherencePipeline(new CoherenceSuite(coherence), chunkSize).run(reader, out,
+                checkpointFile);
+        reader.close();
+        out.close();
+        Assert.assertEquals(NUMBER_OF_WORDSETS, processed);
+        return bout.toString();
+    }
+
+    /**
+     * Simple coherence returning the number of words of a word set. It fails
+     * with an exception when it receives the request with the given id.
+     */
+    private static class WordCountCoherence implements Coherence {
+
+        private int failingRequest;
+        public int numberOfRequests = 0;
+        public int maxRequestSize = 0;
+
+        public WordCountCoherence(int failingRequest) {
+            this.failingRequest = failingRequest;
+        }
+
+        @Override
+        public double[] calculateCoherences(String[][] wordsets) {
+            if (numberOfRequests == failingRequest) {
+                throw new IllegalStateException("Simulated crash.");
+            }
+            ++numberOfRequests;
+            maxRequestSize = Math.max(maxRequestSize, wordsets.length);
+            double coherences[] = new double[wordsets.length];
+            for (int i = 0; i < wordsets.length; ++i) {
+                coherences[i] = wordsets[i].length;
+            }
+            return coherences;
+        }
+
+        @Override
+        public String getName() {
+            return "words";
+        }
+    }
+}
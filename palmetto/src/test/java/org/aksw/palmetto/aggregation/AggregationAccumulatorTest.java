@@ -0,0 +1,176 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.aggregation;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AggregationAccumulatorTest {
+
+    private static final double DOUBLE_PRECISION_DELTA = 0.00000001;
+
+    @Test
+    public void testAccumulators() {
+        Aggregation aggregations[] = new Aggregation[] { new ArithmeticMean(), new Median(), new Min(), new Max(),
+                new GeometricMean(), new HarmonicMean(), new QuadraticMean() };
+        AggregationAccumulator accumulator;
+        for (int i = 0; i < aggregations.length; ++i) {
+            accumulator = BufferingAggregationAccumulator.create(aggregations[i]);
+            Assert.assertFalse(accumulator instanceof BufferingAggregationAccumulator);
+            checkAccumulator(aggregations[i], accumulator);
+        }
+    }
+
+    @Test
+    public void testBufferingAdapter() {
+        Aggregation aggregations[] = new Aggregation[] { new ArithmeticMean(), new Median(), new Min(), new Max(),
+                new GeometricMean(), new HarmonicMean(), new QuadraticMean() };
+        for (int i = 0; i < aggregations.length; ++i) {
+            checkAccumulator(aggregations[i], new BufferingAggregationAccumulator(aggregations[i]));
+        }
+    }
+
+    @Test
+    public void testUndefinedValues() {
+        double values[] = new double[] { 0.5, 0, -0.25, 0.75 };
+        Aggregation aggregations[] = new Aggregation[] { new GeometricMean(), new HarmonicMean(), new Min(),
+                new Max() };
+        AggregationAccumulator accumulator;
+        for (int i = 0; i < aggregations.length; ++i) {
+            accumulator = ((AccumulatingAggregation) aggregations[i]).createAccumulator();
+            for (int j = 0; j < values.length; ++j) {
+                accumulator.add(values[j]);
+            }
+            Assert.assertEquals(aggregations[i].getName(), aggregations[i].summarize(values.clone()),
+                    accumulator.getResult(), DOUBLE_PRECISION_DELTA);
+        }
+    }
+
+    @Test
+    public void testQuickselectMedian() {
+        Random random = new Random(49);
+        Median median = new Median();
+        double values[], original[], sorted[], expected;
+        for (int r = 0; r < 200; ++r) {
+            values = new double[1 + random.nextInt(100)];
+            for (int i = 0; i < values.length; ++i) {
+                // use a small range of values to create ties
+                values[i] = random.nextInt(10);
+                if (random.nextInt(20) == 0) {
+                    values[i] = Double.NaN;
+                }
+            }
+            original = Arrays.copyOf(values, values.length);
+            sorted = Arrays.copyOf(values, values.length);
+            Arrays.sort(sorted);
+            if ((sorted.length & 1) > 0) {
+                expected = sorted[sorted.length / 2];
+            } else {
+                expected = (sorted[sorted.length / 2] + sorted[(sorted.length / 2) - 1]) / 2;
+            }
+            Assert.assertEquals(expected, median.summarize(values), DOUBLE_PRECISION_DELTA);
+            // the given values are not reordered
+            Assert.assertArrayEquals(original, values, 0);
+        }
+    }
+
+    @Test
+    public void testApproximatedMedian() {
+        Median median = new Median(true);
+        AggregationAccumulator accumulator = median.createAccumulator();
+        Assert.assertFalse(accumulator instanceof Median.MedianAccumulator);
+        // a small number of values leads to an exact median
+        accumulator.add(3);
+        accumulator.add(1);
+        accumulator.add(Double.NaN);
+        accumulator.add(2);
+        accumulator.add(10);
+        // NaN is treated as the largest value
+        Assert.assertEquals(3, accumulator.getResult(), DOUBLE_PRECISION_DELTA);
+
+        Random random = new Random(490);
+        double values[] = new double[100000];
+        accumulator.reset();
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = random.nextGaussian();
+            accumulator.add(values[i]);
+        }
+        Assert.assertEquals(median.summarize(values), accumulator.getResult(), 0.01);
+    }
+
+    @Test
+    public void testUndefinedMedianValues() {
+        Median exactMedian = new Median();
+        Median approximateMedian = new Median(true);
+        AggregationAccumulator exact = exactMedian.createAccumulator();
+        AggregationAccumulator approximate = approximateMedian.createAccumulator();
+        double valueSets[][] = new double[][] { { Double.NaN }, { Double.NaN, Double.NaN, Double.NaN },
+                { 1, Double.NaN }, { 4, Double.NaN, 1 }, { 4, Double.NaN, 1, 2 }, { 5, Double.NaN, 1, Double.NaN },
+                // more values than markers but at least half of them is NaN
+                { 3, 1, 4, 1, 5, 9, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN } };
+        double expected;
+        for (int i = 0; i < valueSets.length; ++i) {
+            exact.reset();
+            approximate.reset();
+            for (int j = 0; j < valueSets[i].length; ++j) {
+                exact.add(valueSets[i][j]);
+                approximate.add(valueSets[i][j]);
+            }
+            expected = exactMedian.summarize(valueSets[i].clone());
+            Assert.assertEquals(Arrays.toString(valueSets[i]), expected, exact.getResult(), DOUBLE_PRECISION_DELTA);
+            Assert.assertEquals(Arrays.toString(valueSets[i]), expected, approximate.getResult(),
+                    DOUBLE_PRECISION_DELTA);
+        }
+
+        // a tenth of the values is NaN, i.e., the median is above the middle
+        // of the other values
+        Random random = new Random(491);
+        double values[] = new double[100000];
+        approximate.reset();
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = (random.nextInt(10) == 0) ? Double.NaN : random.nextGaussian();
+            approximate.add(values[i]);
+        }
+        expected = exactMedian.summarize(values);
+        Assert.assertTrue(expected > 0.1);
+        Assert.assertEquals(expected, approximate.getResult(), 0.02);
+    }
+
+    private void checkAccumulator(Aggregation aggregation, AggregationAccumulator accumulator) {
+        Random random = new Random(40);
+        double values[], copy[];
+        for (int r = 0; r < 10; ++r) {
+            values = new double[1 + random.nextInt(20)];
+            for (int i = 0; i < values.length; ++i) {
+                values[i] = random.nextDouble();
+            }
+            accumulator.reset();
+            for (int i = 0; i < values.length; ++i) {
+                accumulator.add(values[i]);
+            }
+            double result = accumulator.getResult();
+            copy = Arrays.copyOf(values, values.length);
+            Assert.assertEquals(aggregation.getName(), aggregation.summarize(copy), result, DOUBLE_PRECISION_DELTA);
+            // the result can be requested several times
+            Assert.assertEquals(aggregation.getName(), result, accumulator.getResult(), DOUBLE_PRECISION_DELTA);
+        }
+    }
+}
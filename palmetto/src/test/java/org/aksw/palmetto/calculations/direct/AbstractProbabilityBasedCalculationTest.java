@@ -17,9 +17,11 @@
  */
 package org.aksw.palmetto.calculations.direct;
 
+import org.aksw.palmetto.aggregation.AggregationAccumulator;
 import org.aksw.palmetto.aggregation.ArithmeticMean;
 import org.aksw.palmetto.data.SegmentationDefinition;
 import org.aksw.palmetto.data.SubsetProbabilities;
+import org.aksw.palmetto.data.SubsetProbabilitiesBatch;
 import org.aksw.palmetto.subsets.Segmentator;
 import org.junit.Assert;
 import org.junit.Test;
@@ -53,4 +55,25 @@ public abstract class AbstractProbabilityBasedCalculationTest {
                 (new ArithmeticMean()).summarize(calculation.calculateConfirmationValues(subProbs)),
                 DOUBLE_PRECISION_DELTA);
     }
+
+    @Test
+    public void testAccumulation() {
+        SegmentationDefinition subsets = subsetCreator.getSubsetDefinition(wordsetSize);
+        SubsetProbabilities subProbs = new SubsetProbabilities(subsets.segments, subsets.conditions, probabilities);
+        AccumulatingConfirmationMeasure measure = AccumulatingConfirmationMeasureAdapter.create(calculation);
+        AggregationAccumulator accumulator = (new ArithmeticMean()).createAccumulator();
+        Assert.assertEquals(expectedCoherence, measure.aggregateConfirmationValues(subProbs, accumulator),
+                DOUBLE_PRECISION_DELTA);
+
+        // a batch containing the probabilities twice
+        SubsetProbabilitiesBatch batch = new SubsetProbabilitiesBatch(subsets.segments, subsets.conditions,
+                wordsetSize, 1);
+        batch.add(probabilities);
+        batch.add(probabilities);
+        double results[] = new double[3];
+        measure.aggregateConfirmationValues(batch, accumulator, results, 1);
+        Assert.assertEquals(0, results[0], DOUBLE_PRECISION_DELTA);
+        Assert.assertEquals(expectedCoherence, results[1], DOUBLE_PRECISION_DELTA);
+        Assert.assertEquals(expectedCoherence, results[2], DOUBLE_PRECISION_DELTA);
+    }
 }
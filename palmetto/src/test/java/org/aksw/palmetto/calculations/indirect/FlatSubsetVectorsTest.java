@@ -0,0 +1,103 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.calculations.indirect;
+
+import java.util.Random;
+
+import org.aksw.palmetto.data.SegmentationDefinition;
+import org.aksw.palmetto.data.SubsetVectors;
+import org.aksw.palmetto.subsets.AnyAny;
+import org.aksw.palmetto.subsets.OneOne;
+import org.aksw.palmetto.subsets.Segmentator;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that the vector based measures return the same values for vectors
+ * given as flat matrix and as single arrays.
+ */
+public class FlatSubsetVectorsTest {
+
+    private static final double DOUBLE_PRECISION_DELTA = 0.00000001;
+
+    private static final int WORDSET_SIZE = 5;
+    private static final int VECTOR_LENGTH = 7;
+
+    @Test
+    public void testDice() {
+        check(new DiceConfirmationMeasure());
+    }
+
+    @Test
+    public void testJaccard() {
+        check(new JaccardConfirmationMeasure());
+    }
+
+    @Test
+    public void testCosinus() {
+        check(new CosinusConfirmationMeasure());
+    }
+
+    @Test
+    public void testVectorsView() {
+        double vectors[][] = createRandomVectors(12);
+        SubsetVectors flat = new SubsetVectors(null, null, flatten(vectors), WORDSET_SIZE, null);
+        Assert.assertEquals(WORDSET_SIZE, flat.getNumberOfVectors());
+        Assert.assertEquals(VECTOR_LENGTH, flat.getVectorLength());
+        // callers reading the public field still get the single vectors
+        double view[][] = flat.vectors;
+        Assert.assertNotNull(view);
+        Assert.assertSame(view, flat.getVectors());
+        for (int i = 0; i < vectors.length; ++i) {
+            Assert.assertArrayEquals(vectors[i], view[i], 0);
+        }
+    }
+
+    private void check(AbstractVectorBasedCalculation measure) {
+        Segmentator segmentators[] = new Segmentator[] { new AnyAny(), new OneOne() };
+        for (int s = 0; s < segmentators.length; ++s) {
+            SegmentationDefinition definition = segmentators[s].getSubsetDefinition(WORDSET_SIZE);
+            double vectors[][] = createRandomVectors(13 + s);
+            SubsetVectors flat = new SubsetVectors(definition.segments, definition.conditions, flatten(vectors),
+                    WORDSET_SIZE, null);
+            Assert.assertArrayEquals(
+                    measure.calculateConfirmationValues(new SubsetVectors(definition.segments,
+                            definition.conditions, vectors, null)),
+                    measure.calculateConfirmationValues(flat), DOUBLE_PRECISION_DELTA);
+        }
+    }
+
+    private static double[][] createRandomVectors(long seed) {
+        Random random = new Random(seed);
+        double vectors[][] = new double[WORDSET_SIZE][VECTOR_LENGTH];
+        for (int i = 0; i < vectors.length; ++i) {
+            for (int j = 0; j < vectors[i].length; ++j) {
+                vectors[i][j] = random.nextDouble();
+            }
+        }
+        return vectors;
+    }
+
+    private static double[] flatten(double vectors[][]) {
+        double flatVectors[] = new double[vectors.length * VECTOR_LENGTH];
+        for (int i = 0; i < vectors.length; ++i) {
+            System.arraycopy(vectors[i], 0, flatVectors, i * VECTOR_LENGTH, VECTOR_LENGTH);
+        }
+        return flatVectors;
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.calculations.indirect;
+
+import java.util.Random;
+
+import org.aksw.palmetto.data.SegmentationDefinition;
+import org.aksw.palmetto.data.SubsetVectors;
+import org.aksw.palmetto.subsets.AnyAny;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GramMatrixTest {
+
+    private static final double DOUBLE_PRECISION_DELTA = 0.00000001;
+
+    private static final int WORDSET_SIZE = 6;
+    private static final int VECTOR_LENGTH = 9;
+
+    @Test
+    public void testDotProducts() {
+        double vectors[][] = createRandomVectors(50);
+        GramMatrix gram = new GramMatrix(vectors);
+        Assert.assertEquals(WORDSET_SIZE, gram.getSize());
+        int numberOfSubsets = 1 << WORDSET_SIZE;
+        double subsetVectors[][] = new double[numberOfSubsets][];
+        for (int s = 1; s < numberOfSubsets; ++s) {
+            subsetVectors[s] = createSubsetVector(s, vectors);
+        }
+        for (int s1 = 1; s1 < numberOfSubsets; ++s1) {
+            Assert.assertEquals(dotProduct(subsetVectors[s1], subsetVectors[s1]), gram.squaredNorm(s1),
+                    DOUBLE_PRECISION_DELTA);
+            for (int s2 = 1; s2 < numberOfSubsets; ++s2) {
+                Assert.assertEquals(dotProduct(subsetVectors[s1], subsetVectors[s2]), gram.dotProduct(s1, s2),
+                        DOUBLE_PRECISION_DELTA);
+            }
+        }
+    }
+
+    @Test
+    public void testCosineWithAnyAny() {
+        CosinusConfirmationMeasure measure = new CosinusConfirmationMeasure();
+        SegmentationDefinition definition = (new AnyAny()).getSubsetDefinition(WORDSET_SIZE);
+        double vectors[][] = createRandomVectors(51);
+        // a zero vector leads to undefined similarities
+        vectors[2] = new double[VECTOR_LENGTH];
+        double values[] = measure.calculateConfirmationValues(new SubsetVectors(definition.segments,
+                definition.conditions, vectors, null));
+        int pos = 0;
+        for (int i = 0; i < definition.segments.length; ++i) {
+            for (int j = 0; j < definition.conditions[i].length; ++j) {
+                Assert.assertEquals(measure.calculateSimilarity(createSubsetVector(definition.segments[i], vectors),
+                        createSubsetVector(definition.conditions[i][j], vectors)), values[pos],
+                        DOUBLE_PRECISION_DELTA);
+                ++pos;
+            }
+        }
+        Assert.assertEquals(values.length, pos);
+    }
+
+    private static double[][] createRandomVectors(long seed) {
+        Random random = new Random(seed);
+        double vectors[][] = new double[WORDSET_SIZE][VECTOR_LENGTH];
+        for (int i = 0; i < vectors.length; ++i) {
+            for (int j = 0; j < vectors[i].length; ++j) {
+                vectors[i][j] = random.nextDouble() - 0.3;
+            }
+        }
+        return vectors;
+    }
+
+    private static double[] createSubsetVector(int subset, double vectors[][]) {
+        double vector[] = new double[VECTOR_LENGTH];
+        for (int i = 0; i < vectors.length; ++i) {
+            if ((subset & (1 << i)) != 0) {
+                for (int j = 0; j < vector.length; ++j) {
+                    vector[j] += vectors[i][j];
+                }
+            }
+        }
+        return vector;
+    }
+
+    private static double dotProduct(double vector1[], double vector2[]) {
+        double sum = 0;
+        for (int i = 0; i < vector1.length; ++i) {
+            sum += vector1[i] * vector2[i];
+        }
+        return sum;
+    }
+}
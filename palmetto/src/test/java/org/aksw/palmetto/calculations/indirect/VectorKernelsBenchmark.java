@@ -0,0 +1,141 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.calculations.indirect;
+
+import java.util.Random;
+
+import org.aksw.palmetto.data.SegmentationDefinition;
+import org.aksw.palmetto.data.SubsetVectors;
+import org.aksw.palmetto.subsets.OneOne;
+import org.aksw.palmetto.subsets.OneSet;
+
+/**
+ * A simple benchmark comparing the vector kernels with the former scalar
+ * implementation (element-wise {@link Math#pow(double, double)} and cosine
+ * similarities of explicitly created subset vectors). Note that subsets are
+ * represented as int bit masks, i.e., word sets may not contain more than 31
+ * words. It is not executed during the build. Run it with
+ * <code>java -cp target/classes:target/test-classes:... org.aksw.palmetto.calculations.indirect.VectorKernelsBenchmark</code>.
+ */
+public class VectorKernelsBenchmark {
+
+    private static final int TOPIC_SIZES[] = new int[] { 10, 15, 20, 25, 30 };
+    private static final int NUMBER_OF_TOPICS = 200;
+    private static final int WARM_UP_ROUNDS = 20;
+    private static final int ROUNDS = 20;
+    private static final double GAMMA = 2;
+
+    public static void main(String[] args) {
+        System.out.println("size\tsegmentation\tscalar (us/topic)\tkernels (us/topic)");
+        for (int s = 0; s < TOPIC_SIZES.length; ++s) {
+            run(TOPIC_SIZES[s], new OneOne().getSubsetDefinition(TOPIC_SIZES[s]), "OneOne");
+            run(TOPIC_SIZES[s], new OneSet().getSubsetDefinition(TOPIC_SIZES[s]), "OneSet");
+        }
+    }
+
+    private static void run(int size, SegmentationDefinition definition, String segmentationName) {
+        Random random = new Random(size);
+        double flatVectors[][] = new double[NUMBER_OF_TOPICS][size * size];
+        for (int t = 0; t < NUMBER_OF_TOPICS; ++t) {
+            for (int i = 0; i < flatVectors[t].length; ++i) {
+                flatVectors[t][i] = random.nextDouble() - 0.2;
+            }
+        }
+        CosinusConfirmationMeasure measure = new CosinusConfirmationMeasure();
+        double checksum = 0;
+        for (int r = 0; r < WARM_UP_ROUNDS; ++r) {
+            checksum += runScalar(flatVectors, size, definition, measure);
+            checksum += runKernels(flatVectors, size, definition, measure);
+        }
+        long scalarTime = 0, kernelTime = 0, start;
+        for (int r = 0; r < ROUNDS; ++r) {
+            start = System.nanoTime();
+            checksum += runScalar(flatVectors, size, definition, measure);
+            scalarTime += System.nanoTime() - start;
+            start = System.nanoTime();
+            checksum += runKernels(flatVectors, size, definition, measure);
+            kernelTime += System.nanoTime() - start;
+        }
+        double divisor = 1000.0 * ROUNDS * NUMBER_OF_TOPICS;
+        System.out.format("%d\t%s\t%.2f\t%.2f\t(checksum %.3f)%n", size, segmentationName, scalarTime / divisor,
+                kernelTime / divisor, checksum);
+    }
+
+    private static double runScalar(double flatVectors[][], int size, SegmentationDefinition definition,
+            CosinusConfirmationMeasure measure) {
+        double sum = 0;
+        double vectors[][];
+        for (int t = 0; t < flatVectors.length; ++t) {
+            vectors = new double[size][size];
+            for (int i = 0; i < size; ++i) {
+                for (int j = 0; j < size; ++j) {
+                    vectors[i][j] = Math.pow(flatVectors[t][(i * size) + j], GAMMA);
+                }
+            }
+            for (int i = 0; i < definition.segments.length; ++i) {
+                double segmentVector[] = createVector(definition.segments[i], vectors);
+                for (int j = 0; j < definition.conditions[i].length; ++j) {
+                    sum += scalarCosine(segmentVector, createVector(definition.conditions[i][j], vectors));
+                }
+            }
+        }
+        return sum;
+    }
+
+    private static double runKernels(double flatVectors[][], int size, SegmentationDefinition definition,
+            CosinusConfirmationMeasure measure) {
+        double sum = 0;
+        double vectors[], values[];
+        for (int t = 0; t < flatVectors.length; ++t) {
+            vectors = flatVectors[t].clone();
+            VectorKernels.pow(vectors, 0, vectors.length, GAMMA);
+            values = measure.calculateConfirmationValues(new SubsetVectors(definition.segments,
+                    definition.conditions, vectors, size, null));
+            for (int i = 0; i < values.length; ++i) {
+                sum += values[i];
+            }
+        }
+        return sum;
+    }
+
+    private static double[] createVector(int id, double vectors[][]) {
+        double vector[] = new double[vectors[0].length];
+        for (int i = 0; i < vectors.length; ++i) {
+            if (((1 << i) & id) != 0) {
+                for (int j = 0; j < vector.length; ++j) {
+                    vector[j] += vectors[i][j];
+                }
+            }
+        }
+        return vector;
+    }
+
+    private static double scalarCosine(double vector1[], double vector2[]) {
+        double length1 = 0, length2 = 0, sum = 0;
+        for (int i = 0; i < vector1.length; ++i) {
+            sum += vector1[i] * vector2[i];
+            length1 += Math.pow(vector1[i], 2);
+            length2 += Math.pow(vector2[i], 2);
+        }
+        if ((length1 > 0) && (length2 > 0)) {
+            return sum / (Math.sqrt(length1) * Math.sqrt(length2));
+        } else {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.calculations.indirect;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class VectorKernelsTest {
+
+    private static final double DOUBLE_PRECISION_DELTA = 0.00000001;
+
+    @Test
+    public void testKernels() {
+        Random random = new Random(43);
+        double flat[] = new double[23];
+        for (int i = 0; i < flat.length; ++i) {
+            flat[i] = random.nextDouble() - 0.5;
+        }
+        int offset1 = 2, offset2 = 13, length = 10;
+        double dot = 0, norm = 0, min = 0, max = 0, sum = 0;
+        for (int i = 0; i < length; ++i) {
+            dot += flat[offset1 + i] * flat[offset2 + i];
+            norm += Math.pow(flat[offset1 + i], 2);
+            min += Math.min(flat[offset1 + i], flat[offset2 + i]);
+            max += Math.max(flat[offset1 + i], flat[offset2 + i]);
+            sum += flat[offset1 + i];
+        }
+        Assert.assertEquals(dot, VectorKernels.dotProduct(flat, offset1, flat, offset2, length),
+                DOUBLE_PRECISION_DELTA);
+        Assert.assertEquals(norm, VectorKernels.squaredNorm(flat, offset1, length), DOUBLE_PRECISION_DELTA);
+        Assert.assertEquals(min, VectorKernels.minSum(flat, offset1, flat, offset2, length), DOUBLE_PRECISION_DELTA);
+        Assert.assertEquals(max, VectorKernels.maxSum(flat, offset1, flat, offset2, length), DOUBLE_PRECISION_DELTA);
+        Assert.assertEquals(sum, VectorKernels.sum(flat, offset1, length), DOUBLE_PRECISION_DELTA);
+
+        double target[] = new double[length + 1];
+        VectorKernels.add(flat, offset1, flat, offset2, target, 1, length);
+        Assert.assertEquals(0, target[0], 0);
+        for (int i = 0; i < length; ++i) {
+            Assert.assertEquals(flat[offset1 + i] + flat[offset2 + i], target[i + 1], DOUBLE_PRECISION_DELTA);
+        }
+    }
+
+    @Test
+    public void testPow() {
+        double gammas[] = new double[] { 0, 1, 2, 3, 0.5 };
+        double values[] = new double[] { 0.5, -0.25, 0, 2, 0.1, -1 };
+        double result[];
+        for (int g = 0; g < gammas.length; ++g) {
+            result = values.clone();
+            // only the middle of the array is changed
+            VectorKernels.pow(result, 1, values.length - 2, gammas[g]);
+            Assert.assertEquals(values[0], result[0], 0);
+            Assert.assertEquals(values[values.length - 1], result[values.length - 1], 0);
+            for (int i = 1; i < (values.length - 1); ++i) {
+                Assert.assertEquals(Math.pow(values[i], gammas[g]), result[i], DOUBLE_PRECISION_DELTA);
+            }
+        }
+    }
+}
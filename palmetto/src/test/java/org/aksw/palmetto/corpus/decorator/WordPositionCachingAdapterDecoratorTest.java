@@ -0,0 +1,235 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.corpus.decorator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.aksw.palmetto.Palmetto;
+import org.aksw.palmetto.corpus.WindowSupportingAdapter;
+import org.aksw.palmetto.corpus.lucene.WindowSupportingLuceneCorpusAdapter;
+import org.aksw.palmetto.data.CountedSubsets;
+import org.aksw.palmetto.data.SegmentationDefinition;
+import org.aksw.palmetto.prob.AbstractLuceneIndexBasedTest;
+import org.aksw.palmetto.prob.window.BooleanSlidingWindowFrequencyDeterminer;
+import org.aksw.palmetto.prob.window.ContextWindowFrequencyDeterminer;
+import org.aksw.palmetto.prob.window.WindowBasedFrequencyDeterminer;
+import org.apache.lucene.index.CorruptIndexException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntIntOpenHashMap;
+import com.carrotsearch.hppc.IntObjectOpenHashMap;
+
+public class WordPositionCachingAdapterDecoratorTest extends AbstractLuceneIndexBasedTest {
+
+    private static final String WORDSETS[][] = new String[][] { { "w0", "w1" }, { "w0", "w3", "w7" },
+            { "w1", "w2", "w4", "w6" }, { "w5", "unknown", "w2" }, { "w7", "w6", "w5", "w4", "w3" } };
+
+    @Test
+    public void testCounts() throws CorruptIndexException, IOException {
+        WindowSupportingLuceneCorpusAdapter adapter = createAdapter(17);
+        try {
+            WordPositionCachingAdapterDecorator decorator = new WordPositionCachingAdapterDecorator(adapter);
+            for (int windowSize : new int[] { 3, 10 }) {
+                compareCounts(new BooleanSlidingWindowFrequencyDeterminer(adapter, windowSize),
+                        new BooleanSlidingWindowFrequencyDeterminer(decorator, windowSize));
+                compareCounts(new ContextWindowFrequencyDeterminer(adapter, windowSize),
+                        new ContextWindowFrequencyDeterminer(decorator, windowSize));
+            }
+            // every word has been loaded only once
+            Assert.assertEquals(NUMBER_OF_WORDS + 1, decorator.getCacheStats().missCount());
+            Assert.assertTrue(decorator.getCacheStats().hitCount() > 0);
+            Assert.assertEquals(0, decorator.getCacheStats().evictionCount());
+        } finally {
+            adapter.close();
+        }
+    }
+
+    @Test
+    public void testMemoryBudget() throws CorruptIndexException, IOException {
+        WindowSupportingLuceneCorpusAdapter adapter = createAdapter(18);
+        try {
+            // the budget is sufficient for half of the words
+            WordPositionCachingAdapterDecorator decorator = new WordPositionCachingAdapterDecorator(adapter);
+            for (int i = 0; i < NUMBER_OF_WORDS; ++i) {
+                decorator.getWordPositions("w" + i);
+            }
+            long budget = decorator.getCacheSizeInBytes() / 2;
+            decorator = new WordPositionCachingAdapterDecorator(adapter, budget);
+            compareCounts(new BooleanSlidingWindowFrequencyDeterminer(adapter, 5),
+                    new BooleanSlidingWindowFrequencyDeterminer(decorator, 5));
+            Assert.assertTrue(decorator.getCacheStats().evictionCount() > 0);
+            Assert.assertTrue(decorator.getCacheSizeInBytes() <= budget);
+        } finally {
+            adapter.close();
+        }
+    }
+
+    /**
+     * A word that needs more than a quarter of the budget has to be cached as
+     * long as it fits into the complete budget.
+     */
+    @Test
+    public void testLargeEntry() throws CorruptIndexException, IOException {
+        WindowSupportingLuceneCorpusAdapter adapter = createAdapter(19);
+        try {
+            WordPositionCachingAdapterDecorator decorator = new WordPositionCachingAdapterDecorator(adapter);
+            decorator.getWordPositions("w0");
+            long size = decorator.getCacheSizeInBytes();
+            Assert.assertTrue(size > 0);
+
+            decorator = new WordPositionCachingAdapterDecorator(adapter, 2 * size);
+            decorator.getWordPositions("w0");
+            decorator.getWordPositions("w0");
+            Assert.assertEquals(0, decorator.getCacheStats().evictionCount());
+            Assert.assertEquals(1, decorator.getCacheStats().hitCount());
+            Assert.assertEquals(size, decorator.getCacheSizeInBytes());
+        } finally {
+            adapter.close();
+        }
+    }
+
+    private WindowSupportingLuceneCorpusAdapter createAdapter(long seed) throws CorruptIndexException, IOException {
+        File indexDir = createRandomIndex(seed, 300, 20);
+        return WindowSupportingLuceneCorpusAdapter.create(indexDir.getAbsolutePath(),
+                Palmetto.DEFAULT_TEXT_INDEX_FIELD_NAME, Palmetto.DEFAULT_DOCUMENT_LENGTH_INDEX_FIELD_NAME);
+    }
+
+    private void compareCounts(WindowBasedFrequencyDeterminer expectedDeterminer,
+            WindowBasedFrequencyDeterminer determiner) {
+        SegmentationDefinition definitions[] = new SegmentationDefinition[WORDSETS.length];
+        for (int i = 0; i < definitions.length; ++i) {
+            definitions[i] = new SegmentationDefinition(new int[0], new int[0][0], null);
+        }
+        CountedSubsets expected[] = expectedDeterminer.determineCounts(WORDSETS, definitions);
+        CountedSubsets counted[] = determiner.determineCounts(WORDSETS, definitions);
+        for (int i = 0; i < WORDSETS.length; ++i) {
+            Assert.assertArrayEquals("Counts of " + Arrays.toString(WORDSETS[i]) + " differ.", expected[i].counts,
+                    counted[i].counts);
+        }
+    }
+
+    /**
+     * Makes sure that the decorator can be used for adapters without term
+     * statistics.
+     */
+    @Test
+    public void testStatisticsFromPositions() throws CorruptIndexException, IOException {
+        final WindowSupportingLuceneCorpusAdapter adapter = createAdapter(19);
+        try {
+            WordPositionCachingAdapterDecorator decorator = new WordPositionCachingAdapterDecorator(
+                    new WindowSupportingAdapter() {
+                        @Override
+                        public void close() {
+                        }
+
+                        @Override
+                        public int[][] getDocumentSizeHistogram() {
+                            return adapter.getDocumentSizeHistogram();
+                        }
+
+                        @Override
+                        public IntObjectOpenHashMap<IntArrayList[]> requestWordPositionsInDocuments(String[] words,
+                                IntIntOpenHashMap docLengths) {
+                            return adapter.requestWordPositionsInDocuments(words, docLengths);
+                        }
+                    });
+            String words[] = { "w0", "w4", "unknown" };
+            int expectedDocFreqs[] = new int[words.length];
+            long expectedTermFreqs[] = new long[words.length];
+            adapter.getTermStatistics(words, expectedDocFreqs, expectedTermFreqs);
+            int docFreqs[] = new int[words.length];
+            long termFreqs[] = new long[words.length];
+            decorator.getTermStatistics(words, docFreqs, termFreqs);
+            Assert.assertArrayEquals(expectedDocFreqs, docFreqs);
+            Assert.assertArrayEquals(expectedTermFreqs, termFreqs);
+        } finally {
+            adapter.close();
+        }
+    }
+
+    /**
+     * Concurrent requests for the same word have to wait for a single load of
+     * its positions.
+     */
+    @Test
+    public void testConcurrentLoading() throws CorruptIndexException, IOException, InterruptedException {
+        final WindowSupportingLuceneCorpusAdapter adapter = createAdapter(20);
+        final AtomicInteger loadCount = new AtomicInteger();
+        try {
+            final WordPositionCachingAdapterDecorator decorator = new WordPositionCachingAdapterDecorator(
+                    new WindowSupportingAdapter() {
+                        @Override
+                        public void close() {
+                        }
+
+                        @Override
+                        public int[][] getDocumentSizeHistogram() {
+                            return adapter.getDocumentSizeHistogram();
+                        }
+
+                        @Override
+                        public IntObjectOpenHashMap<IntArrayList[]> requestWordPositionsInDocuments(String[] words,
+                                IntIntOpenHashMap docLengths) {
+                            loadCount.incrementAndGet();
+                            try {
+                                // make sure that the other threads request the
+                                // word while it is loaded
+                                Thread.sleep(100);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            return adapter.requestWordPositionsInDocuments(words, docLengths);
+                        }
+                    });
+            final CountDownLatch startSignal = new CountDownLatch(1);
+            final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+            Thread threads[] = new Thread[8];
+            for (int t = 0; t < threads.length; ++t) {
+                threads[t] = new Thread() {
+                    @Override
+                    public void run() {
+                        try {
+                            startSignal.await();
+                            Assert.assertTrue(decorator.getWordPositions("w0").docIds.length > 0);
+                        } catch (Throwable e) {
+                            error.compareAndSet(null, e);
+                        }
+                    }
+                };
+                threads[t].start();
+            }
+            startSignal.countDown();
+            for (int t = 0; t < threads.length; ++t) {
+                threads[t].join();
+            }
+            if (error.get() != null) {
+                throw new AssertionError(error.get());
+            }
+            Assert.assertEquals(1, loadCount.get());
+        } finally {
+            adapter.close();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.corpus.lucene;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.aksw.palmetto.Palmetto;
+import org.aksw.palmetto.prob.AbstractLuceneIndexBasedTest;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.NIOFSDirectory;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FSTTermDictionaryTest extends AbstractLuceneIndexBasedTest {
+
+    private static final String UNKNOWN_WORDS[] = { "unknown", "w", "w00", "" };
+
+    @Test
+    public void test() throws IOException {
+        File indexDir = createRandomIndex(7, 200, 20);
+        DirectoryReader reader = DirectoryReader.open(new NIOFSDirectory(indexDir));
+        try {
+            FSTTermDictionary dictionary = FSTTermDictionary.create(reader, Palmetto.DEFAULT_TEXT_INDEX_FIELD_NAME, 1);
+            Assert.assertEquals(NUMBER_OF_WORDS, dictionary.size());
+            Term term;
+            for (int i = 0; i < NUMBER_OF_WORDS; ++i) {
+                term = new Term(Palmetto.DEFAULT_TEXT_INDEX_FIELD_NAME, "w" + i);
+                Assert.assertEquals(reader.docFreq(term), dictionary.getDocumentFrequency(term.text()));
+                Assert.assertEquals(reader.totalTermFreq(term), dictionary.getCollectionFrequency(term.text()));
+            }
+            for (int i = 0; i < UNKNOWN_WORDS.length; ++i) {
+                Assert.assertEquals(0, dictionary.getDocumentFrequency(UNKNOWN_WORDS[i]));
+                Assert.assertEquals(0, dictionary.getCollectionFrequency(UNKNOWN_WORDS[i]));
+            }
+
+            // prune all words that are not very frequent
+            int minDocFreq = reader.docFreq(new Term(Palmetto.DEFAULT_TEXT_INDEX_FIELD_NAME, "w3"));
+            dictionary = FSTTermDictionary.create(reader, Palmetto.DEFAULT_TEXT_INDEX_FIELD_NAME, minDocFreq);
+            Assert.assertEquals(minDocFreq, dictionary.getMinDocumentFrequency());
+            int docFreq;
+            for (int i = 0; i < NUMBER_OF_WORDS; ++i) {
+                term = new Term(Palmetto.DEFAULT_TEXT_INDEX_FIELD_NAME, "w" + i);
+                docFreq = reader.docFreq(term);
+                Assert.assertEquals(docFreq >= minDocFreq ? docFreq : 0,
+                        dictionary.getDocumentFrequency(term.text()));
+            }
+        } finally {
+            reader.close();
+        }
+    }
+}
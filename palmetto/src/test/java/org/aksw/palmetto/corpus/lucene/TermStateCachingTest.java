@@ -0,0 +1,83 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.corpus.lucene;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.aksw.palmetto.Palmetto;
+import org.aksw.palmetto.prob.AbstractLuceneIndexBasedTest;
+import org.apache.lucene.index.DocsEnum;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermState;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.carrotsearch.hppc.IntArrayList;
+
+public class TermStateCachingTest extends AbstractLuceneIndexBasedTest {
+
+    @Test
+    public void test() throws IOException {
+        File indexDir = createRandomIndex(3, 200, 20);
+        LuceneCorpusAdapter adapter = LuceneCorpusAdapter.create(indexDir.getAbsolutePath(),
+                Palmetto.DEFAULT_TEXT_INDEX_FIELD_NAME);
+        try {
+            Assert.assertTrue("The test needs an index with several leaves.", adapter.reader.length > 1);
+            String words[] = { "w0", "w5", "w7", "unknown" };
+            IntArrayList documents = new IntArrayList();
+            for (int i = 0; i < words.length; ++i) {
+                int expected[] = getDocumentsWithoutCache(adapter, words[i]);
+                // the second request uses the cached states
+                for (int r = 0; r < 2; ++r) {
+                    documents.clear();
+                    adapter.getDocumentsWithWord(words[i], documents);
+                    Assert.assertArrayEquals(expected, documents.toArray());
+                }
+                TermState states[] = adapter.termStateCache.getIfPresent(words[i]);
+                Assert.assertNotNull(states);
+                Assert.assertEquals(adapter.reader.length, states.length);
+                for (int l = 0; l < states.length; ++l) {
+                    // a leaf has a state iff it contains the word
+                    Assert.assertEquals(adapter.reader[l].docFreq(new Term(adapter.fieldName, words[i])) > 0,
+                            states[l] != null);
+                }
+            }
+        } finally {
+            adapter.close();
+        }
+    }
+
+    private int[] getDocumentsWithoutCache(LuceneCorpusAdapter adapter, String word) throws IOException {
+        IntArrayList documents = new IntArrayList();
+        Term term = new Term(adapter.fieldName, word);
+        DocsEnum docs;
+        for (int i = 0; i < adapter.reader.length; ++i) {
+            docs = adapter.reader[i].termDocsEnum(term);
+            if (docs != null) {
+                while (docs.nextDoc() != DocsEnum.NO_MORE_DOCS) {
+                    documents.add(docs.docID() + adapter.contexts[i].docBase);
+                }
+            }
+        }
+        int result[] = documents.toArray();
+        Arrays.sort(result);
+        return result;
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.corpus.lucene.creation;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.aksw.palmetto.Palmetto;
+import org.aksw.palmetto.corpus.lucene.LuceneCorpusAdapter;
+import org.aksw.palmetto.prob.AbstractLuceneIndexBasedTest;
+import org.aksw.palmetto.vector.ContextVectorStore;
+import org.aksw.palmetto.vector.SparseVector;
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.carrotsearch.hppc.IntOpenHashSet;
+
+public class LuceneContextVectorStoreCreatorTest extends AbstractLuceneIndexBasedTest {
+
+    @Test
+    public void testCounts() throws IOException {
+        File indexDir = createRandomIndex(44, 300, 10);
+        int counts[][] = countCooccurrences(indexDir);
+
+        LuceneContextVectorStoreCreator creator = new LuceneContextVectorStoreCreator(
+                Palmetto.DEFAULT_TEXT_INDEX_FIELD_NAME, 1, NUMBER_OF_WORDS);
+        ContextVectorStore store = creator.createContextVectorStore(indexDir.getAbsolutePath());
+        Assert.assertNotNull(store);
+        Assert.assertEquals(NUMBER_OF_WORDS, store.size());
+        for (int i = 0; i < NUMBER_OF_WORDS; ++i) {
+            SparseVector vector = store.getVector("w" + i);
+            float expected[] = new float[NUMBER_OF_WORDS];
+            for (int j = 0; j < NUMBER_OF_WORDS; ++j) {
+                if (i != j) {
+                    expected[store.getTermId("w" + j)] = counts[i][j];
+                }
+            }
+            float actual[] = new float[NUMBER_OF_WORDS];
+            for (int j = 0; j < vector.size(); ++j) {
+                if (j > 0) {
+                    Assert.assertTrue(vector.dimensions[j - 1] < vector.dimensions[j]);
+                }
+                actual[vector.dimensions[j]] = vector.values[j];
+            }
+            Assert.assertArrayEquals(expected, actual, 0);
+        }
+
+        // write and read the store
+        File storeFile = File.createTempFile("context", ".vectors");
+        try {
+            store.writeToFile(storeFile);
+            ContextVectorStore readStore = ContextVectorStore.readFromFile(storeFile);
+            Assert.assertEquals(store.size(), readStore.size());
+            Assert.assertEquals(store.getNumberOfContextTerms(), readStore.getNumberOfContextTerms());
+            for (int i = 0; i < store.size(); ++i) {
+                Assert.assertEquals(store.getTerm(i), readStore.getTerm(i));
+                Assert.assertArrayEquals(store.getVector(store.getTerm(i)).dimensions,
+                        readStore.getVector(store.getTerm(i)).dimensions);
+                Assert.assertArrayEquals(store.getVector(store.getTerm(i)).values,
+                        readStore.getVector(store.getTerm(i)).values, 0);
+            }
+        } finally {
+            FileUtils.deleteQuietly(storeFile);
+        }
+    }
+
+    @Test
+    public void testTopTerms() {
+        File indexDir = createRandomIndex(45, 300, 10);
+        int counts[][] = countCooccurrences(indexDir);
+        int numberOfContextTerms = 3;
+
+        LuceneContextVectorStoreCreator creator = new LuceneContextVectorStoreCreator(
+                Palmetto.DEFAULT_TEXT_INDEX_FIELD_NAME, 1, numberOfContextTerms);
+        ContextVectorStore store = creator.createContextVectorStore(indexDir.getAbsolutePath());
+        Assert.assertNotNull(store);
+        for (int i = 0; i < NUMBER_OF_WORDS; ++i) {
+            SparseVector vector = store.getVector("w" + i);
+            Assert.assertEquals(numberOfContextTerms, vector.size());
+            // every term that is not part of the vector must not have a
+            // higher count than the terms of the vector
+            float minCount = Float.MAX_VALUE;
+            IntOpenHashSet selected = new IntOpenHashSet();
+            for (int j = 0; j < vector.size(); ++j) {
+                minCount = Math.min(minCount, vector.values[j]);
+                selected.add(vector.dimensions[j]);
+                Assert.assertEquals(counts[i][Integer.parseInt(store.getTerm(vector.dimensions[j]).substring(1))],
+                        vector.values[j], 0);
+            }
+            for (int j = 0; j < NUMBER_OF_WORDS; ++j) {
+                if ((i != j) && (!selected.contains(store.getTermId("w" + j)))) {
+                    Assert.assertTrue(counts[i][j] <= minCount);
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the documents in which two words co-occur using the corpus
+     * adapter.
+     */
+    private static int[][] countCooccurrences(File indexDir) {
+        int counts[][] = new int[NUMBER_OF_WORDS][NUMBER_OF_WORDS];
+        LuceneCorpusAdapter adapter = null;
+        try {
+            adapter = LuceneCorpusAdapter.create(indexDir.getAbsolutePath(), Palmetto.DEFAULT_TEXT_INDEX_FIELD_NAME);
+            IntOpenHashSet documents[] = new IntOpenHashSet[NUMBER_OF_WORDS];
+            for (int i = 0; i < NUMBER_OF_WORDS; ++i) {
+                documents[i] = new IntOpenHashSet();
+                adapter.getDocumentsWithWordAsSet("w" + i, documents[i]);
+            }
+            for (int i = 0; i < NUMBER_OF_WORDS; ++i) {
+                for (int j = 0; j < NUMBER_OF_WORDS; ++j) {
+                    for (int d = 0; d < documents[i].keys.length; ++d) {
+                        if (documents[i].allocated[d] && documents[j].contains(documents[i].keys[d])) {
+                            ++counts[i][j];
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Assert.fail(e.getMessage());
+        } finally {
+            if (adapter != null) {
+                adapter.close();
+            }
+        }
+        return counts;
+    }
+}
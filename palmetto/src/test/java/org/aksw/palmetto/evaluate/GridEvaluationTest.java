@@ -0,0 +1,162 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.evaluate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Properties;
+import java.util.Random;
+
+import org.aksw.palmetto.Coherence;
+import org.aksw.palmetto.Palmetto;
+import org.aksw.palmetto.corpus.decorator.WordPositionCachingAdapterDecorator;
+import org.aksw.palmetto.corpus.lucene.WindowSupportingLuceneCorpusAdapter;
+import org.aksw.palmetto.prob.AbstractLuceneIndexBasedTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GridEvaluationTest extends AbstractLuceneIndexBasedTest {
+
+    private static final double DOUBLE_PRECISION_DELTA = 0.00000001;
+
+    private static Properties createGridProperties() {
+        Properties properties = new Properties();
+        properties.setProperty(CoherenceGrid.SEGMENTATIONS_KEY, "OneOne, OnePreceding");
+        properties.setProperty(CoherenceGrid.PROBABILITY_MODELS_KEY, "bd,sw10,cw5");
+        properties.setProperty(CoherenceGrid.CONFIRMATIONS_KEY,
+                "NormalizedLogRatioConfirmationMeasure,LogCondProbConfirmationMeasure/CosinusConfirmationMeasure");
+        properties.setProperty(CoherenceGrid.AGGREGATIONS_KEY, "ArithmeticMean,org.aksw.palmetto.aggregation.Median");
+        return properties;
+    }
+
+    @Test
+    public void testGridDefinition() {
+        CoherenceGrid grid = CoherenceGrid.create(createGridProperties());
+        Assert.assertEquals(24, grid.getNumberOfConfigurations());
+        Assert.assertArrayEquals(new String[] { "OneOne", "OnePreceding" }, grid.getSegmentations());
+
+        String invalidValues[][] = new String[][] { { CoherenceGrid.PROBABILITY_MODELS_KEY, "bd,sw0" },
+                { CoherenceGrid.PROBABILITY_MODELS_KEY, "pw10" },
+                { CoherenceGrid.SEGMENTATIONS_KEY, "OneNone" },
+                { CoherenceGrid.CONFIRMATIONS_KEY, "CosinusConfirmationMeasure" },
+                { CoherenceGrid.AGGREGATIONS_KEY, "Mode" } };
+        Properties properties;
+        for (int i = 0; i < invalidValues.length; ++i) {
+            properties = createGridProperties();
+            properties.setProperty(invalidValues[i][0], invalidValues[i][1]);
+            try {
+                CoherenceGrid.create(properties);
+                Assert.fail("The grid definition " + invalidValues[i][1] + " should have been rejected.");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        properties = createGridProperties();
+        properties.remove(CoherenceGrid.AGGREGATIONS_KEY);
+        try {
+            CoherenceGrid.create(properties);
+            Assert.fail("A grid without aggregations should have been rejected.");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testEvaluation() throws IOException {
+        Random random = new Random(50);
+        String wordsets[][] = new String[15][];
+        double goldStandard[] = new double[wordsets.length];
+        int ids[];
+        for (int i = 0; i < wordsets.length; ++i) {
+            ids = new int[] { 0, 1, 2, 3, 4, 5, 6, 7 };
+            wordsets[i] = new String[4];
+            for (int j = 0; j < wordsets[i].length; ++j) {
+                int k = j + random.nextInt(ids.length - j);
+                int temp = ids[k];
+                ids[k] = ids[j];
+                ids[j] = temp;
+                wordsets[i][j] = "w" + ids[j];
+            }
+            goldStandard[i] = random.nextDouble() * 3;
+        }
+
+        File indexDir = createRandomIndex(50, 200, 300);
+        WindowSupportingLuceneCorpusAdapter adapter = WindowSupportingLuceneCorpusAdapter.create(
+                indexDir.getAbsolutePath(), Palmetto.DEFAULT_TEXT_INDEX_FIELD_NAME,
+                Palmetto.DEFAULT_DOCUMENT_LENGTH_INDEX_FIELD_NAME);
+        WordPositionCachingAdapterDecorator windowAdapter = new WordPositionCachingAdapterDecorator(adapter);
+        try {
+            CoherenceGrid grid = CoherenceGrid.create(createGridProperties());
+            GridEvaluationResult result = GridEvaluation.evaluate(grid, adapter, windowAdapter, wordsets,
+                    goldStandard, 4);
+            GridEvaluationResult sequentialResult = GridEvaluation.evaluate(grid, adapter, windowAdapter,
+                    wordsets, goldStandard, 1);
+            Assert.assertEquals(grid.getNumberOfConfigurations(), result.getNumberOfConfigurations());
+            Assert.assertArrayEquals(sequentialResult.getNames(), result.getNames());
+
+            // every configuration has to lead to the same values as a
+            // coherence that is calculated on its own
+            Coherence coherences[] = grid.createCoherences(adapter, windowAdapter);
+            double expectedValues[], expectedCorrelations[];
+            for (int i = 0; i < coherences.length; ++i) {
+                Assert.assertEquals(coherences[i].getName(), result.getNames()[i]);
+                expectedValues = coherences[i].calculateCoherences(wordsets);
+                Assert.assertArrayEquals(result.getNames()[i], expectedValues, result.getCoherences()[i],
+                        DOUBLE_PRECISION_DELTA);
+                Assert.assertArrayEquals(result.getNames()[i], expectedValues, sequentialResult.getCoherences()[i],
+                        DOUBLE_PRECISION_DELTA);
+                expectedCorrelations = GridEvaluation.calculateCorrelations(expectedValues, goldStandard);
+                Assert.assertEquals(expectedCorrelations[GridEvaluation.PEARSON_ID], result.getPearson(i),
+                        DOUBLE_PRECISION_DELTA);
+                Assert.assertEquals(expectedCorrelations[GridEvaluation.SPEARMAN_ID], result.getSpearman(i),
+                        DOUBLE_PRECISION_DELTA);
+                Assert.assertEquals(expectedCorrelations[GridEvaluation.KENDALL_ID], result.getKendall(i),
+                        DOUBLE_PRECISION_DELTA);
+            }
+        } finally {
+            windowAdapter.close();
+        }
+    }
+
+    @Test
+    public void testUndefinedCoherences() {
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        double correlations[];
+        System.setOut(new PrintStream(output));
+        try {
+            correlations = GridEvaluation.calculateCorrelations(new double[] { 0.3, Double.NaN, 0.1, 0.7 },
+                    new double[] { 1, 2, 3, 4 });
+        } finally {
+            System.setOut(stdout);
+        }
+        Assert.assertEquals(GridEvaluation.CORRELATION_NAMES.length, correlations.length);
+        for (int i = 0; i < correlations.length; ++i) {
+            Assert.assertTrue(Double.isNaN(correlations[i]));
+        }
+        // the calculators must not write to the standard output
+        Assert.assertEquals(0, output.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDifferentNumberOfRatings() {
+        (new GridEvaluation(2)).evaluate(new Coherence[0], new String[][] { { "w0", "w1" } }, new double[0]);
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.instrumentation;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.aksw.palmetto.Coherence;
+import org.aksw.palmetto.CoherenceSuite;
+import org.aksw.palmetto.Palmetto;
+import org.aksw.palmetto.corpus.lucene.WindowSupportingLuceneCorpusAdapter;
+import org.aksw.palmetto.prob.AbstractLuceneIndexBasedTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HistogramInstrumentationTest extends AbstractLuceneIndexBasedTest {
+
+    private static final String WORDSETS[][] = new String[][] { { "w0", "w1" }, { "w0", "w3", "w7" },
+            { "w1", "w2", "w4", "w6" } };
+
+    @Test
+    public void testStagesOfCoherences() throws IOException {
+        File indexDir = createRandomIndex(46, 200, 300);
+        WindowSupportingLuceneCorpusAdapter adapter = WindowSupportingLuceneCorpusAdapter.create(
+                indexDir.getAbsolutePath(), Palmetto.DEFAULT_TEXT_INDEX_FIELD_NAME,
+                Palmetto.DEFAULT_DOCUMENT_LENGTH_INDEX_FIELD_NAME);
+        HistogramInstrumentation instrumentation = new HistogramInstrumentation();
+        InstrumentationRegistry.set(instrumentation);
+        try {
+            double expected[] = Palmetto.getCoherence("c_v", adapter).calculateCoherences(WORDSETS);
+            // every stage of the vector based coherence has been recorded (the
+            // documents are long enough to be counted with and without windows)
+            for (Stage stage : new Stage[] { Stage.POSTING_RETRIEVAL, Stage.DOCUMENT_LENGTH_LOOKUP,
+                    Stage.WINDOW_COUNTING, Stage.PROBABILITY_ESTIMATION, Stage.VECTOR_CREATION,
+                    Stage.CONFIRMATION_AGGREGATION }) {
+                Assert.assertTrue(stage.toString(), instrumentation.getStageHistogram(stage).getCount() > 0);
+            }
+            Assert.assertTrue(instrumentation.getVolume(Volume.DOCUMENTS_VISITED) > 0);
+            Assert.assertTrue(instrumentation.getVolume(Volume.POSITIONS_DECODED) > 0);
+            Assert.assertTrue(instrumentation.getVolume(Volume.ARRAY_BYTES_ALLOCATED) > 0);
+            String report = instrumentation.createReport();
+            for (Stage stage : Stage.values()) {
+                Assert.assertTrue(report.contains(stage.toString()));
+            }
+
+            instrumentation.reset();
+            Assert.assertEquals(0, instrumentation.getStageHistogram(Stage.WINDOW_COUNTING).getCount());
+            Assert.assertEquals(0, instrumentation.getVolume(Volume.DOCUMENTS_VISITED));
+            double values[][] = new CoherenceSuite(new Coherence[] { Palmetto.getCoherence("c_v", adapter) })
+                    .calculateCoherences(WORDSETS);
+            Assert.assertArrayEquals(expected, values[0], 0.00000001);
+            Assert.assertEquals(1, instrumentation.getStageHistogram(Stage.PROBABILITY_ESTIMATION).getCount());
+            Assert.assertEquals(1, instrumentation.getStageHistogram(Stage.VECTOR_CREATION).getCount());
+            Assert.assertEquals(1, instrumentation.getStageHistogram(Stage.CONFIRMATION_AGGREGATION).getCount());
+        } finally {
+            InstrumentationRegistry.set(null);
+            adapter.close();
+        }
+        Assert.assertSame(NoOpInstrumentation.INSTANCE, InstrumentationRegistry.get());
+    }
+}
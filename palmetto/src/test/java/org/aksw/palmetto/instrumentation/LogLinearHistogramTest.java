@@ -0,0 +1,100 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.instrumentation;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LogLinearHistogramTest {
+
+    @Test
+    public void testSmallValues() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        for (int i = 1; i <= 10; ++i) {
+            histogram.record(i);
+        }
+        // values below the number of sub buckets are counted exactly
+        Assert.assertEquals(5, histogram.getValueAtPercentile(50));
+        Assert.assertEquals(9, histogram.getValueAtPercentile(90));
+        Assert.assertEquals(10, histogram.getValueAtPercentile(100));
+        Assert.assertEquals(10, histogram.getCount());
+        Assert.assertEquals(55, histogram.getSum());
+        Assert.assertEquals(10, histogram.getMax());
+        Assert.assertEquals(5.5, histogram.getMean(), 0.000001);
+    }
+
+    @Test
+    public void testRelativeError() {
+        Random random = new Random(42);
+        long values[] = new long[100000];
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        for (int i = 0; i < values.length; ++i) {
+            // log-uniformly distributed values between 1 and 2^40
+            values[i] = (long) Math.pow(2, random.nextDouble() * 40);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        double percentiles[] = new double[] { 1, 10, 50, 90, 99, 99.9 };
+        long expected, actual;
+        for (int i = 0; i < percentiles.length; ++i) {
+            expected = values[(int) Math.ceil((percentiles[i] / 100.0) * values.length) - 1];
+            actual = histogram.getValueAtPercentile(percentiles[i]);
+            Assert.assertTrue("p" + percentiles[i] + ": " + actual + " < " + expected, actual >= expected);
+            Assert.assertTrue("p" + percentiles[i] + ": " + actual + " vs. " + expected,
+                    (actual - expected) <= (expected / LogLinearHistogram.SUB_BUCKET_COUNT));
+        }
+        Assert.assertEquals(values[values.length - 1], histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testBuckets() {
+        long value;
+        int index;
+        for (int shift = 0; shift < 62; ++shift) {
+            for (int offset = -1; offset <= 1; ++offset) {
+                value = (1L << shift) + offset;
+                if (value < 0) {
+                    continue;
+                }
+                index = LogLinearHistogram.getBucketIndex(value);
+                Assert.assertTrue(value <= LogLinearHistogram.getHighestValueOfBucket(index));
+                if (index > 0) {
+                    Assert.assertTrue(value > LogLinearHistogram.getHighestValueOfBucket(index - 1));
+                }
+            }
+        }
+        Assert.assertTrue(LogLinearHistogram.getHighestValueOfBucket(LogLinearHistogram.getBucketIndex(Long.MAX_VALUE)) > 0);
+    }
+
+    @Test
+    public void testReset() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        histogram.record(1000);
+        histogram.record(-5);
+        Assert.assertEquals(2, histogram.getCount());
+        Assert.assertEquals(1000, histogram.getSum());
+        histogram.reset();
+        Assert.assertEquals(0, histogram.getCount());
+        Assert.assertEquals(0, histogram.getSum());
+        Assert.assertEquals(0, histogram.getMax());
+        Assert.assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+}
@@ -0,0 +1,219 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.instrumentation;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.aksw.palmetto.CachingCoherenceDecorator;
+import org.aksw.palmetto.Coherence;
+import org.aksw.palmetto.Palmetto;
+import org.aksw.palmetto.corpus.lucene.WindowSupportingLuceneCorpusAdapter;
+import org.aksw.palmetto.prob.AbstractLuceneIndexBasedTest;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Records the Palmetto events with the JDK Flight Recorder. The flight
+ * recorder is accessed using reflection since it is not available in all
+ * JDKs.
+ */
+public class PalmettoEventsTest extends AbstractLuceneIndexBasedTest {
+
+    private static final String WORDSETS[][] = new String[][] { { "w0", "w1" }, { "w0", "w3", "w7" },
+            { "w1", "w2", "w4", "w6" } };
+
+    @Test
+    public void testDisabledEvents() {
+        Assume.assumeTrue(!PalmettoEvents.TOPIC_EVALUATION.isEnabled());
+        Assert.assertNull(PalmettoEvents.TOPIC_EVALUATION.begin());
+        Assert.assertNull(PalmettoEvents.TOPIC_EVALUATION.getCurrentEvent());
+    }
+
+    @Test
+    public void testNestedEvents() throws Exception {
+        Assume.assumeTrue(PalmettoEvents.isFlightRecorderAvailable());
+        Object recording = startRecording(PalmettoEvents.WINDOW_COUNTING);
+        Assert.assertTrue(PalmettoEvents.WINDOW_COUNTING.isEnabled());
+        List<Object> events;
+        try {
+            FlightRecorderEvent outerEvent = PalmettoEvents.WINDOW_COUNTING.begin();
+            Assert.assertNotNull(outerEvent);
+            outerEvent.set(PalmettoEvents.WINDOW_COUNTING_WORDS, "outer");
+            FlightRecorderEvent innerEvent = PalmettoEvents.WINDOW_COUNTING.begin();
+            innerEvent.set(PalmettoEvents.WINDOW_COUNTING_WORDS, "inner");
+            Assert.assertSame(innerEvent, PalmettoEvents.WINDOW_COUNTING.getCurrentEvent());
+            PalmettoEvents.WINDOW_COUNTING.getCurrentEvent().add(PalmettoEvents.WINDOW_COUNTING_DOCUMENTS, 2);
+            PalmettoEvents.WINDOW_COUNTING.getCurrentEvent().add(PalmettoEvents.WINDOW_COUNTING_DOCUMENTS, 3);
+            innerEvent.set(PalmettoEvents.WINDOW_COUNTING_POSITIONS, 1L);
+            innerEvent.commit();
+            // discarding a committed event has no effect
+            innerEvent.discard();
+            Assert.assertSame(outerEvent, PalmettoEvents.WINDOW_COUNTING.getCurrentEvent());
+            outerEvent.commit();
+            Assert.assertNull(PalmettoEvents.WINDOW_COUNTING.getCurrentEvent());
+        } finally {
+            events = stopRecording(recording);
+        }
+        Assert.assertFalse(PalmettoEvents.WINDOW_COUNTING.isEnabled());
+
+        List<String> words = new ArrayList<String>();
+        for (Object event : events) {
+            if (PalmettoEvents.WINDOW_COUNTING.getName().equals(getEventName(event))) {
+                words.add((String) getValue(event, "words"));
+                if ("inner".equals(words.get(words.size() - 1))) {
+                    Assert.assertEquals(5L, getValue(event, "documents"));
+                    Assert.assertEquals(1L, getValue(event, "positions"));
+                } else {
+                    Assert.assertEquals(0L, getValue(event, "documents"));
+                }
+            }
+        }
+        Assert.assertEquals(2, words.size());
+        Assert.assertTrue(words.contains("inner"));
+        Assert.assertTrue(words.contains("outer"));
+    }
+
+    @Test
+    public void testDiscardedEvents() throws Exception {
+        Assume.assumeTrue(PalmettoEvents.isFlightRecorderAvailable());
+        Object recording = startRecording(PalmettoEvents.WINDOW_COUNTING, PalmettoEvents.CACHE_LOOKUP);
+        List<Object> events;
+        try {
+            FlightRecorderEvent outerEvent = PalmettoEvents.WINDOW_COUNTING.begin();
+            outerEvent.set(PalmettoEvents.WINDOW_COUNTING_WORDS, "outer");
+            FlightRecorderEvent innerEvent = PalmettoEvents.WINDOW_COUNTING.begin();
+            innerEvent.set(PalmettoEvents.WINDOW_COUNTING_WORDS, "inner");
+            // simulates a counting that has been aborted by an exception
+            innerEvent.discard();
+            Assert.assertSame(outerEvent, PalmettoEvents.WINDOW_COUNTING.getCurrentEvent());
+            outerEvent.discard();
+            Assert.assertNull(PalmettoEvents.WINDOW_COUNTING.getCurrentEvent());
+            // types that do not provide a current event never bind an event to the thread
+            FlightRecorderEvent lookupEvent = PalmettoEvents.CACHE_LOOKUP.begin();
+            Assert.assertNotNull(lookupEvent);
+            Assert.assertNull(PalmettoEvents.CACHE_LOOKUP.getCurrentEvent());
+            lookupEvent.commit();
+        } finally {
+            events = stopRecording(recording);
+        }
+        int windowCountings = 0, cacheLookups = 0;
+        for (Object event : events) {
+            if (PalmettoEvents.WINDOW_COUNTING.getName().equals(getEventName(event))) {
+                ++windowCountings;
+            } else if (PalmettoEvents.CACHE_LOOKUP.getName().equals(getEventName(event))) {
+                ++cacheLookups;
+            }
+        }
+        Assert.assertEquals(0, windowCountings);
+        Assert.assertEquals(1, cacheLookups);
+    }
+
+    @Test
+    public void testCoherenceEvents() throws Exception {
+        Assume.assumeTrue(PalmettoEvents.isFlightRecorderAvailable());
+        File indexDir = createRandomIndex(47, 200, 300);
+        WindowSupportingLuceneCorpusAdapter adapter = WindowSupportingLuceneCorpusAdapter.create(
+                indexDir.getAbsolutePath(), Palmetto.DEFAULT_TEXT_INDEX_FIELD_NAME,
+                Palmetto.DEFAULT_DOCUMENT_LENGTH_INDEX_FIELD_NAME);
+        Coherence coherence = new CachingCoherenceDecorator(Palmetto.getCoherence("npmi", adapter));
+        Object recording = startRecording(PalmettoEvents.TOPIC_EVALUATION, PalmettoEvents.POSTING_FETCH,
+                PalmettoEvents.WINDOW_COUNTING, PalmettoEvents.CACHE_LOOKUP);
+        List<Object> events;
+        try {
+            coherence.calculateCoherences(WORDSETS);
+        } finally {
+            events = stopRecording(recording);
+            adapter.close();
+        }
+
+        int topicEvaluations = 0, windowCountings = 0;
+        Set<String> fetchedTerms = new HashSet<String>();
+        Set<String> engines = new HashSet<String>();
+        String name;
+        for (Object event : events) {
+            name = getEventName(event);
+            if (PalmettoEvents.TOPIC_EVALUATION.getName().equals(name)) {
+                Assert.assertEquals(coherence.getName(), getValue(event, "coherence"));
+                Assert.assertEquals(WORDSETS.length, getValue(event, "numberOfTopics"));
+                ++topicEvaluations;
+            } else if (PalmettoEvents.POSTING_FETCH.getName().equals(name)) {
+                fetchedTerms.add((String) getValue(event, "term"));
+                Assert.assertTrue(((Long) getValue(event, "docFreq")) > 0);
+                Assert.assertTrue(((Integer) getValue(event, "leavesScanned")) > 0);
+            } else if (PalmettoEvents.WINDOW_COUNTING.getName().equals(name)) {
+                engines.add((String) getValue(event, "engine"));
+                Assert.assertTrue(((Long) getValue(event, "documents")) > 0);
+                ++windowCountings;
+            } else if (PalmettoEvents.CACHE_LOOKUP.getName().equals(name)) {
+                Assert.assertEquals("CachingCoherenceDecorator", getValue(event, "cache"));
+                Assert.assertEquals((long) WORDSETS.length, getValue(event, "lookups"));
+                Assert.assertEquals(0L, getValue(event, "hits"));
+            }
+        }
+        Assert.assertEquals(1, topicEvaluations);
+        Assert.assertEquals(WORDSETS.length, windowCountings);
+        Assert.assertTrue(fetchedTerms.contains("w4"));
+        Assert.assertFalse(engines.contains(null));
+    }
+
+    @Test
+    public void testToString() {
+        Assert.assertEquals("a b | c", PalmettoEvents.toString(new String[][] { { "a", "b" }, { "c" } }));
+    }
+
+    private static Object startRecording(FlightRecorderEventType... types) throws Exception {
+        Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+        Object recording = recordingClass.getConstructor().newInstance();
+        for (int i = 0; i < types.length; ++i) {
+            recordingClass.getMethod("enable", String.class).invoke(recording, types[i].getName());
+        }
+        recordingClass.getMethod("start").invoke(recording);
+        return recording;
+    }
+
+    private static List<Object> stopRecording(Object recording) throws Exception {
+        Class<?> recordingClass = recording.getClass();
+        Class<?> pathClass = Class.forName("java.nio.file.Path");
+        File recordingFile = File.createTempFile("palmetto", ".jfr");
+        try {
+            recordingClass.getMethod("stop").invoke(recording);
+            recordingClass.getMethod("dump", pathClass).invoke(recording, recordingFile.toPath());
+            recordingClass.getMethod("close").invoke(recording);
+            return new ArrayList<Object>((List<?>) Class.forName("jdk.jfr.consumer.RecordingFile")
+                    .getMethod("readAllEvents", pathClass).invoke(null, recordingFile.toPath()));
+        } finally {
+            recordingFile.delete();
+        }
+    }
+
+    private static String getEventName(Object event) throws Exception {
+        Object type = event.getClass().getMethod("getEventType").invoke(event);
+        return (String) type.getClass().getMethod("getName").invoke(type);
+    }
+
+    private static Object getValue(Object event, String field) throws Exception {
+        Method getValue = Class.forName("jdk.jfr.consumer.RecordedObject").getMethod("getValue", String.class);
+        return getValue.invoke(event, field);
+    }
+}
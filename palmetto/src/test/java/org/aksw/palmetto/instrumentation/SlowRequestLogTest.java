@@ -0,0 +1,65 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.instrumentation;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SlowRequestLogTest {
+
+    @Test
+    public void testRingBuffer() {
+        SlowRequestLog log = new SlowRequestLog(3, 10);
+        Assert.assertEquals("[]", log.toJson());
+        // faster than the threshold
+        Assert.assertFalse(log.offer(createExplanation("fast", 9999999L)));
+        for (int i = 0; i < 5; ++i) {
+            Assert.assertTrue(log.offer(createExplanation("w" + i, 10000000L + i)));
+        }
+        Assert.assertEquals(5, log.getNumberOfSlowRequests());
+        List<Explanation> explanations = log.getExplanations();
+        Assert.assertEquals(3, explanations.size());
+        for (int i = 0; i < explanations.size(); ++i) {
+            Assert.assertEquals("w" + (i + 2), explanations.get(i).getWords()[0]);
+        }
+        String json = log.toJson();
+        Assert.assertTrue(json.startsWith("[{\"coherences\":{\"C\":0.5},\"words\":[\"w2\"]"));
+        Assert.assertTrue(json.endsWith("]"));
+        Assert.assertFalse(json.contains("\"fast\""));
+    }
+
+    @Test
+    public void testJsonEscaping() {
+        ExplainingInstrumentation instrumentation = new ExplainingInstrumentation();
+        instrumentation.postingsRead("a\"b", 3, 0);
+        instrumentation.postingsRead("a\"b", 2, 0);
+        Explanation explanation = instrumentation.createExplanation(new String[] { "C" },
+                new double[] { Double.NaN }, new String[] { "a\"b", "c\\d" }, 0);
+        String json = explanation.toJson();
+        Assert.assertTrue(json.startsWith("{\"coherences\":{\"C\":null},\"words\":[\"a\\\"b\",\"c\\\\d\"]"));
+        Assert.assertTrue(json.contains("\"postings\":{\"a\\\"b\":{\"docFreq\":5,\"positions\":0}}"));
+        Assert.assertEquals(5, explanation.getDocumentFrequency("a\"b"));
+    }
+
+    private static Explanation createExplanation(String word, long elapsedTime) {
+        return new ExplainingInstrumentation().createExplanation(new String[] { "C" }, new double[] { 0.5 },
+                new String[] { word }, elapsedTime);
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.prob;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.aksw.palmetto.Palmetto;
+import org.aksw.palmetto.corpus.lucene.WindowSupportingLuceneCorpusAdapter;
+import org.aksw.palmetto.corpus.lucene.creation.IndexableDocument;
+import org.aksw.palmetto.corpus.lucene.creation.LuceneIndexHistogramCreator;
+import org.aksw.palmetto.corpus.lucene.creation.PositionStoringLuceneIndexCreator;
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+
+/**
+ * Abstract class for tests that need a small, randomly generated Lucene index
+ * containing documents of different lengths. The words of the index are the
+ * strings "w0", "w1", ... The index is created once per test class and deleted
+ * after the tests.
+ * 
+ * @author m.roeder
+ * 
+ */
+public abstract class AbstractLuceneIndexBasedTest {
+
+    protected static final int NUMBER_OF_WORDS = 8;
+
+    private static List<File> createdIndexes = new ArrayList<File>();
+
+    /**
+     * Creates a new index with the given number of documents. The documents
+     * have lengths between 1 and maxDocLength.
+     * 
+     * @return the directory of the created index
+     */
+    protected static File createRandomIndex(long seed, int numberOfDocuments, int maxDocLength) {
+        Random random = new Random(seed);
+        List<IndexableDocument> documents = new ArrayList<IndexableDocument>(numberOfDocuments);
+        StringBuilder text = new StringBuilder();
+        int length;
+        for (int d = 0; d < numberOfDocuments; ++d) {
+            length = random.nextInt(maxDocLength) + 1;
+            text.delete(0, text.length());
+            for (int t = 0; t < length; ++t) {
+                if (t > 0) {
+                    text.append(' ');
+                }
+                // make the first words more frequent than the last words
+                text.append('w');
+                text.append(Math.min(random.nextInt(NUMBER_OF_WORDS), random.nextInt(NUMBER_OF_WORDS)));
+            }
+            documents.add(new IndexableDocument(text.toString(), length));
+        }
+        File indexDir = new File(FileUtils.getTempDirectoryPath() + File.separator + "temp_index"
+                + Long.toString(System.nanoTime()));
+        Assert.assertTrue(indexDir.mkdir());
+        createdIndexes.add(indexDir);
+        PositionStoringLuceneIndexCreator creator = new PositionStoringLuceneIndexCreator(
+                Palmetto.DEFAULT_TEXT_INDEX_FIELD_NAME, Palmetto.DEFAULT_DOCUMENT_LENGTH_INDEX_FIELD_NAME,
+                numberOfDocuments / 3);
+        Assert.assertTrue(creator.createIndex(indexDir, documents.iterator()));
+        LuceneIndexHistogramCreator hCreator = new LuceneIndexHistogramCreator(
+                Palmetto.DEFAULT_DOCUMENT_LENGTH_INDEX_FIELD_NAME);
+        hCreator.createLuceneIndexHistogram(indexDir.getAbsolutePath());
+        return indexDir;
+    }
+
+    @AfterClass
+    public static void deleteIndexes() {
+        for (File indexDir : createdIndexes) {
+            try {
+                FileUtils.deleteDirectory(indexDir);
+                FileUtils.forceDelete(
+                        new File(indexDir.getAbsolutePath() + WindowSupportingLuceneCorpusAdapter.HISTOGRAM_FILE_SUFFIX));
+            } catch (IOException e) {
+                // nothing to do
+            }
+        }
+        createdIndexes.clear();
+    }
+}
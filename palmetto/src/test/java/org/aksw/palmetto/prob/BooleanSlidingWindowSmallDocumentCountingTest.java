@@ -0,0 +1,137 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.prob;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.aksw.palmetto.Palmetto;
+import org.aksw.palmetto.corpus.SmallDocumentSupportingAdapter;
+import org.aksw.palmetto.corpus.WindowSupportingAdapter;
+import org.aksw.palmetto.corpus.lucene.WindowSupportingLuceneCorpusAdapter;
+import org.aksw.palmetto.data.CountedSubsets;
+import org.aksw.palmetto.data.SegmentationDefinition;
+import org.aksw.palmetto.prob.window.BooleanSlidingWindowFrequencyDeterminer;
+import org.apache.lucene.index.CorruptIndexException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntIntOpenHashMap;
+import com.carrotsearch.hppc.IntObjectOpenHashMap;
+
+/**
+ * Checks that the counts of the {@link BooleanSlidingWindowFrequencyDeterminer}
+ * do not change if documents that are not larger than the window are counted
+ * using their ids instead of the positions of the words.
+ * 
+ * @author m.roeder
+ * 
+ */
+@RunWith(Parameterized.class)
+public class BooleanSlidingWindowSmallDocumentCountingTest extends AbstractLuceneIndexBasedTest {
+
+    private static final String WORDSETS[][] = new String[][] { { "w0", "w1" }, { "w0", "w3", "w7" },
+            { "w1", "w2", "w4", "w6" }, { "w5", "unknown", "w2" } };
+
+    @Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][] { { 2 }, { 5 }, { 10 }, { 30 } });
+    }
+
+    private int windowSize;
+
+    public BooleanSlidingWindowSmallDocumentCountingTest(int windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    @Test
+    public void test() throws CorruptIndexException, IOException {
+        File indexDir = createRandomIndex(42, 200, 25);
+        final WindowSupportingLuceneCorpusAdapter adapter = WindowSupportingLuceneCorpusAdapter.create(
+                indexDir.getAbsolutePath(), Palmetto.DEFAULT_TEXT_INDEX_FIELD_NAME,
+                Palmetto.DEFAULT_DOCUMENT_LENGTH_INDEX_FIELD_NAME);
+        try {
+            // this adapter hides the small document support and forces the
+            // determiner to count all windows using the word positions
+            WindowSupportingAdapter positionsOnlyAdapter = new WindowSupportingAdapter() {
+                @Override
+                public void close() {
+                }
+
+                @Override
+                public IntObjectOpenHashMap<IntArrayList[]> requestWordPositionsInDocuments(String[] words,
+                        IntIntOpenHashMap docLengths) {
+                    return adapter.requestWordPositionsInDocuments(words, docLengths);
+                }
+
+                @Override
+                public int[][] getDocumentSizeHistogram() {
+                    return adapter.getDocumentSizeHistogram();
+                }
+            };
+            final int splitCountings[] = new int[1];
+            SegmentationDefinition definitions[] = new SegmentationDefinition[WORDSETS.length];
+            for (int i = 0; i < definitions.length; ++i) {
+                definitions[i] = new SegmentationDefinition(new int[0], new int[0][0], null);
+            }
+            CountedSubsets expected[] = new BooleanSlidingWindowFrequencyDeterminer(positionsOnlyAdapter, windowSize)
+                    .determineCounts(WORDSETS, definitions);
+            BooleanSlidingWindowFrequencyDeterminer determiner = new BooleanSlidingWindowFrequencyDeterminer(adapter,
+                    windowSize);
+            CountedSubsets counted[] = determiner.determineCounts(WORDSETS, definitions);
+            // the adapter offers term statistics so every word set should have
+            // been planned
+            Assert.assertEquals(WORDSETS.length, determiner.getDecisions().getNumberOfDecisions());
+            for (int i = 0; i < WORDSETS.length; ++i) {
+                Assert.assertArrayEquals("Counts of " + Arrays.toString(WORDSETS[i]) + " differ.", expected[i].counts,
+                        counted[i].counts);
+            }
+            // the cost estimation might prefer the positional counting, so we
+            // force the determiner to always use the split
+            BooleanSlidingWindowFrequencyDeterminer splittingDeterminer = new BooleanSlidingWindowFrequencyDeterminer(
+                    adapter, windowSize) {
+                @Override
+                protected boolean useSmallDocumentSplit(String wordset[]) {
+                    super.useSmallDocumentSplit(wordset);
+                    return true;
+                }
+
+                @Override
+                protected int[] determineCountsWithSmallDocumentSplit(SmallDocumentSupportingAdapter adapter,
+                        String wordset[]) {
+                    ++splitCountings[0];
+                    return super.determineCountsWithSmallDocumentSplit(adapter, wordset);
+                }
+            };
+            counted = splittingDeterminer.determineCounts(WORDSETS, definitions);
+            Assert.assertEquals(WORDSETS.length, splitCountings[0]);
+            for (int i = 0; i < WORDSETS.length; ++i) {
+                Assert.assertArrayEquals("Counts of " + Arrays.toString(WORDSETS[i]) + " differ.", expected[i].counts,
+                        counted[i].counts);
+            }
+        } finally {
+            adapter.close();
+        }
+    }
+}
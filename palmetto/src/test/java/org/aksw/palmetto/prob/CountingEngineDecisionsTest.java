@@ -0,0 +1,68 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.prob;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CountingEngineDecisionsTest {
+
+    @Test
+    public void testRecentDecisions() {
+        CountingEngineDecisions decisions = new CountingEngineDecisions(3, "a", "b");
+        double costs[] = new double[2];
+        for (int i = 0; i < 5; ++i) {
+            costs[0] = i;
+            costs[1] = 10 * i;
+            decisions.record(i % 2, new String[] { "w" + i }, costs);
+        }
+        Assert.assertArrayEquals(new long[] { 3, 2 }, decisions.getDecisionCounts());
+        Assert.assertEquals(5, decisions.getNumberOfDecisions());
+        // the costs are copied when a decision is recorded
+        Assert.assertEquals(Arrays.asList("[w2] -> a (a=2, b=20)", "[w3] -> b (a=3, b=30)", "[w4] -> a (a=4, b=40)"),
+                decisions.getRecentDecisions());
+        Assert.assertEquals("CountingEngineDecisions [a=3, b=2]", decisions.toString());
+    }
+
+    @Test
+    public void testConcurrentDecisions() throws InterruptedException {
+        final CountingEngineDecisions decisions = new CountingEngineDecisions(10, "a", "b");
+        Thread threads[] = new Thread[4];
+        for (int t = 0; t < threads.length; ++t) {
+            final int engineId = t % 2;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; ++i) {
+                        decisions.record(engineId, new String[] { "w" + i }, new double[] { i, i });
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; ++t) {
+            threads[t].join();
+        }
+        Assert.assertArrayEquals(new long[] { 2000, 2000 }, decisions.getDecisionCounts());
+        List<String> recent = decisions.getRecentDecisions();
+        Assert.assertEquals(10, recent.size());
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.prob;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.aksw.palmetto.Palmetto;
+import org.aksw.palmetto.corpus.TermDictionary;
+import org.aksw.palmetto.corpus.lucene.WindowSupportingLuceneCorpusAdapter;
+import org.aksw.palmetto.data.SegmentationDefinition;
+import org.aksw.palmetto.data.SubsetProbabilities;
+import org.aksw.palmetto.prob.bd.BooleanDocumentProbabilitySupplier;
+import org.aksw.palmetto.prob.window.WindowBasedProbabilityEstimator;
+import org.aksw.palmetto.subsets.AnyAny;
+import org.aksw.palmetto.subsets.OnePreceding;
+import org.aksw.palmetto.subsets.Segmentator;
+import org.apache.lucene.index.CorruptIndexException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that removing unknown and rare words with the help of the term
+ * dictionary does not change the probabilities.
+ * 
+ * @author m.roeder
+ * 
+ */
+public class TermDictionaryBasedWordRemovalTest extends AbstractLuceneIndexBasedTest {
+
+    private static final String WORDSETS[][] = new String[][] { { "w0", "w1" }, { "w0", "unknown", "w7" },
+            { "w1", "w7", "w4", "w6" }, { "unknown", "w7" }, { "w7", "w6", "w5", "w4", "w3" } };
+
+    private static final int MIN_FREQUENCY = 60;
+
+    @Test
+    public void testBooleanDocument() throws CorruptIndexException, IOException {
+        WindowSupportingLuceneCorpusAdapter adapter = createAdapter(11);
+        try {
+            BooleanDocumentProbabilitySupplier supplier = BooleanDocumentProbabilitySupplier.create(adapter, "bd",
+                    true);
+            Assert.assertNotNull(supplier.getTermDictionary());
+            compare(supplier, new AnyAny());
+            compare(supplier, new OnePreceding());
+        } finally {
+            adapter.close();
+        }
+    }
+
+    @Test
+    public void testBooleanSlidingWindow() throws CorruptIndexException, IOException {
+        WindowSupportingLuceneCorpusAdapter adapter = createAdapter(12);
+        try {
+            WindowBasedProbabilityEstimator estimator = Palmetto.getWindowBasedProbabilityEstimator(4, adapter);
+            Assert.assertNotNull(estimator.getTermDictionary());
+            compare(estimator, new AnyAny());
+            compare(estimator, new OnePreceding());
+        } finally {
+            adapter.close();
+        }
+    }
+
+    private WindowSupportingLuceneCorpusAdapter createAdapter(long seed) throws CorruptIndexException, IOException {
+        File indexDir = createRandomIndex(seed, 300, 20);
+        return WindowSupportingLuceneCorpusAdapter.create(indexDir.getAbsolutePath(),
+                Palmetto.DEFAULT_TEXT_INDEX_FIELD_NAME, Palmetto.DEFAULT_DOCUMENT_LENGTH_INDEX_FIELD_NAME);
+    }
+
+    private void compare(AbstractProbabilitySupplier supplier, Segmentator segmentator) {
+        supplier.setMinFrequency(MIN_FREQUENCY);
+        SegmentationDefinition definitions[] = new SegmentationDefinition[WORDSETS.length];
+        for (int i = 0; i < definitions.length; ++i) {
+            definitions[i] = segmentator.getSubsetDefinition(WORDSETS[i].length);
+        }
+        SubsetProbabilities withDictionary[] = supplier.getProbabilities(WORDSETS, definitions);
+        TermDictionary dictionary = supplier.getTermDictionary();
+        supplier.setTermDictionary(null);
+        SubsetProbabilities withoutDictionary[] = supplier.getProbabilities(WORDSETS, definitions);
+        supplier.setTermDictionary(dictionary);
+        for (int i = 0; i < WORDSETS.length; ++i) {
+            Assert.assertArrayEquals("Probabilities of " + Arrays.toString(WORDSETS[i]) + " differ.",
+                    withoutDictionary[i].probabilities, withDictionary[i].probabilities, 0);
+            Assert.assertArrayEquals(withoutDictionary[i].segments, withDictionary[i].segments);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.prob.bd;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.aksw.palmetto.Palmetto;
+import org.aksw.palmetto.corpus.lucene.LuceneCorpusAdapter;
+import org.aksw.palmetto.data.CountedSubsets;
+import org.aksw.palmetto.data.SegmentationDefinition;
+import org.aksw.palmetto.prob.AbstractLuceneIndexBasedTest;
+import org.aksw.palmetto.subsets.AnyAny;
+import org.aksw.palmetto.subsets.OnePreceding;
+import org.apache.lucene.index.CorruptIndexException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CostBasedBooleanDocumentFrequencyDeterminerTest extends AbstractLuceneIndexBasedTest {
+
+    private static final String WORDSETS[][] = new String[][] { { "w0", "w1" }, { "w0", "w3", "w7" },
+            { "w1", "w2", "w4", "w6" }, { "w5", "unknown", "w2" }, { "w7", "w6", "w5", "w4", "w3" } };
+
+    @Test
+    public void testCounts() throws CorruptIndexException, IOException {
+        File indexDir = createRandomIndex(5, 300, 20);
+        LuceneCorpusAdapter adapter = LuceneCorpusAdapter.create(indexDir.getAbsolutePath(),
+                Palmetto.DEFAULT_TEXT_INDEX_FIELD_NAME);
+        try {
+            SegmentationDefinition definitions[] = new SegmentationDefinition[WORDSETS.length];
+            AnyAny anyAny = new AnyAny();
+            for (int i = 0; i < definitions.length; ++i) {
+                definitions[i] = anyAny.getSubsetDefinition(WORDSETS[i].length);
+            }
+            CountedSubsets expected[] = new ListBasedBooleanDocumentFrequencyDeterminer(adapter)
+                    .determineCounts(WORDSETS, definitions);
+            CostBasedBooleanDocumentFrequencyDeterminer determiner = new CostBasedBooleanDocumentFrequencyDeterminer(
+                    adapter, adapter);
+            CountedSubsets counted[] = determiner.determineCounts(WORDSETS, definitions);
+            for (int i = 0; i < WORDSETS.length; ++i) {
+                Assert.assertArrayEquals("Counts of " + Arrays.toString(WORDSETS[i]) + " differ.", expected[i].counts,
+                        counted[i].counts);
+            }
+            Assert.assertEquals(WORDSETS.length, determiner.getDecisions().getNumberOfDecisions());
+            Assert.assertEquals(WORDSETS.length, determiner.getDecisions().getRecentDecisions().size());
+        } finally {
+            adapter.close();
+        }
+    }
+
+    @Test
+    public void testCostEstimation() {
+        // a very frequent and a rare word should be counted using the skip
+        // lists
+        int docFreqs[] = new int[] { 3000000, 300 };
+        SegmentationDefinition definition = (new OnePreceding()).getSubsetDefinition(docFreqs.length);
+        double conjunctionCosts = CostBasedBooleanDocumentFrequencyDeterminer.estimateConjunctionCosts(docFreqs,
+                definition.neededCounts);
+        Assert.assertTrue(conjunctionCosts < CostBasedBooleanDocumentFrequencyDeterminer.estimateBitSetCosts(docFreqs));
+        Assert.assertTrue(conjunctionCosts < CostBasedBooleanDocumentFrequencyDeterminer.estimateListCosts(docFreqs));
+
+        // a few rare words should be counted using the materialized lists
+        docFreqs = new int[] { 10, 12, 8 };
+        definition = (new AnyAny()).getSubsetDefinition(docFreqs.length);
+        double listCosts = CostBasedBooleanDocumentFrequencyDeterminer.estimateListCosts(docFreqs);
+        Assert.assertTrue(listCosts < CostBasedBooleanDocumentFrequencyDeterminer.estimateConjunctionCosts(docFreqs,
+                definition.neededCounts));
+    }
+}
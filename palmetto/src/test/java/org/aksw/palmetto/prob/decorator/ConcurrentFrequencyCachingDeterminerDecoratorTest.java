@@ -0,0 +1,197 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.prob.decorator;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.aksw.palmetto.data.CountedSubsets;
+import org.aksw.palmetto.data.SegmentationDefinition;
+import org.aksw.palmetto.prob.FrequencyDeterminer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.carrotsearch.hppc.BitSet;
+
+public class ConcurrentFrequencyCachingDeterminerDecoratorTest implements FrequencyDeterminer {
+
+    private static final SegmentationDefinition DEFINITION = new SegmentationDefinition(new int[0], new int[0][0],
+            null);
+
+    private AtomicInteger determinerCalls = new AtomicInteger();
+    private AtomicInteger determinedWordsets = new AtomicInteger();
+
+    /**
+     * The counts of a word set are derived from its words.
+     */
+    @Override
+    public CountedSubsets[] determineCounts(String[][] wordsets, SegmentationDefinition[] definitions) {
+        determinerCalls.incrementAndGet();
+        determinedWordsets.addAndGet(wordsets.length);
+        CountedSubsets countedSubsets[] = new CountedSubsets[wordsets.length];
+        for (int i = 0; i < wordsets.length; ++i) {
+            countedSubsets[i] = new CountedSubsets(definitions[i].segments, definitions[i].conditions,
+                    createCounts(wordsets[i], definitions[i]));
+        }
+        return countedSubsets;
+    }
+
+    private static int[] createCounts(String wordset[], SegmentationDefinition definition) {
+        int counts[] = new int[1 << wordset.length];
+        for (int i = 0; i < wordset.length; ++i) {
+            counts[1 << i] = wordset[i].charAt(0) + (31 * i);
+        }
+        if (definition.neededCounts != null) {
+            counts[0] = (int) definition.neededCounts.cardinality();
+        }
+        return counts;
+    }
+
+    private static SegmentationDefinition[] createDefinitions(int count) {
+        SegmentationDefinition definitions[] = new SegmentationDefinition[count];
+        for (int i = 0; i < count; ++i) {
+            definitions[i] = DEFINITION;
+        }
+        return definitions;
+    }
+
+    @Test
+    public void testExactKeys() {
+        ConcurrentFrequencyCachingDeterminerDecorator decorator = new ConcurrentFrequencyCachingDeterminerDecorator(
+                this);
+        // "Aa" and "BB" have the same hash code
+        String wordsets[][] = new String[][] { { "Aa" }, { "BB" } };
+        decorator.determineCounts(wordsets, createDefinitions(2));
+        for (int i = 0; i < wordsets.length; ++i) {
+            Assert.assertArrayEquals(createCounts(wordsets[i], DEFINITION),
+                    decorator.determineCounts(new String[][] { wordsets[i] }, createDefinitions(1))[0].counts);
+        }
+        // the order of the words matters
+        Assert.assertArrayEquals(createCounts(new String[] { "BB", "Aa" }, DEFINITION),
+                decorator.determineCounts(new String[][] { { "BB", "Aa" } }, createDefinitions(1))[0].counts);
+        // the needed counts are part of the key
+        BitSet neededCounts = new BitSet(4);
+        neededCounts.set(1);
+        SegmentationDefinition definition = new SegmentationDefinition(new int[0], new int[0][0], neededCounts);
+        Assert.assertArrayEquals(createCounts(wordsets[0], definition),
+                decorator.determineCounts(new String[][] { wordsets[0] },
+                        new SegmentationDefinition[] { definition })[0].counts);
+        Assert.assertEquals(4, determinedWordsets.get());
+    }
+
+    @Test
+    public void testBatching() {
+        ConcurrentFrequencyCachingDeterminerDecorator decorator = new ConcurrentFrequencyCachingDeterminerDecorator(
+                this);
+        decorator.determineCounts(new String[][] { { "a", "b" } }, createDefinitions(1));
+        String wordsets[][] = new String[][] { { "c" }, { "a", "b" }, { "d", "e" }, { "c" }, { "f" } };
+        CountedSubsets counts[] = decorator.determineCounts(wordsets, createDefinitions(wordsets.length));
+        for (int i = 0; i < wordsets.length; ++i) {
+            Assert.assertArrayEquals(createCounts(wordsets[i], DEFINITION), counts[i].counts);
+        }
+        // all misses have been forwarded with a single call and only once
+        Assert.assertEquals(2, determinerCalls.get());
+        Assert.assertEquals(4, determinedWordsets.get());
+        Assert.assertEquals(6, decorator.getNumberOfRequestedWordsets());
+        Assert.assertEquals(4, decorator.getNumberOfMissedWordsets());
+        Assert.assertEquals(1, decorator.getHitCount());
+    }
+
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        final ConcurrentFrequencyCachingDeterminerDecorator decorator = new ConcurrentFrequencyCachingDeterminerDecorator(
+                this, 20000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+        for (int t = 0; t < 8; ++t) {
+            final long seed = t;
+            results.add(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    Random random = new Random(seed);
+                    String wordset[];
+                    for (int r = 0; r < 2000; ++r) {
+                        wordset = new String[random.nextInt(4) + 1];
+                        for (int w = 0; w < wordset.length; ++w) {
+                            wordset[w] = Character.toString((char) ('a' + random.nextInt(10)));
+                        }
+                        if (!Arrays.equals(createCounts(wordset, DEFINITION),
+                                decorator.determineCounts(new String[][] { wordset }, createDefinitions(1))[0].counts)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            }));
+        }
+        executor.shutdown();
+        for (Future<Boolean> result : results) {
+            Assert.assertTrue(result.get());
+        }
+        Assert.assertTrue(decorator.getHitCount() > 0);
+        // the bound of the cache has been reached
+        Assert.assertTrue(decorator.getEvictionCount() > 0);
+    }
+
+    @Test
+    public void testExpiration() throws InterruptedException {
+        ConcurrentFrequencyCachingDeterminerDecorator decorator = new ConcurrentFrequencyCachingDeterminerDecorator(
+                this, ConcurrentFrequencyCachingDeterminerDecorator.DEFAULT_MAX_CACHE_SIZE_IN_BYTES, 10);
+        decorator.determineCounts(new String[][] { { "a" } }, createDefinitions(1));
+        Thread.sleep(50);
+        decorator.determineCounts(new String[][] { { "a" } }, createDefinitions(1));
+        Assert.assertEquals(2, determinedWordsets.get());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testNumberOfDocumentsOfNonBooleanDeterminer() {
+        // this test class is not a boolean document based determiner
+        new ConcurrentFrequencyCachingDeterminerDecorator(this).getNumberOfDocuments();
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        ConcurrentFrequencyCachingDeterminerDecorator decorator = new ConcurrentFrequencyCachingDeterminerDecorator(
+                this);
+        decorator.registerMBean("test");
+        try {
+            decorator.determineCounts(new String[][] { { "a" }, { "a" } }, createDefinitions(2));
+            decorator.determineCounts(new String[][] { { "a" } }, createDefinitions(1));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(ConcurrentFrequencyCachingDeterminerDecorator.MBEAN_DOMAIN
+                    + ":type=FrequencyCache,name=" + ObjectName.quote("test"));
+            Assert.assertEquals(1L, server.getAttribute(name, "HitCount"));
+            Assert.assertEquals(1L, server.getAttribute(name, "Size"));
+            server.invoke(name, "clear", new Object[0], new String[0]);
+            Assert.assertEquals(0L, decorator.getSize());
+        } finally {
+            decorator.unregisterMBean();
+        }
+    }
+}
@@ -43,6 +43,7 @@ public class FrequencyCachingDeterminerDecoratorTest implements FrequencyDetermi
     private Map<WordSet, int[]> notRequested = new HashMap<WordSet, int[]>();
     private FrequencyDeterminerDecorator cache;
     private Random rand;
+    private int determinerCalls = 0;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FrequencyCachingDeterminerDecoratorTest.class);
 
@@ -52,7 +53,9 @@ public class FrequencyCachingDeterminerDecoratorTest implements FrequencyDetermi
     @Parameters
     public static Collection<Object[]> data() {
         return Arrays.asList(new Object[][] { { new SimpleFrequencyCachingDeterminerDecorator(null) },
-                { new FrequencyCachingDeterminerDecorator(null) } });
+                { new FrequencyCachingDeterminerDecorator(null) },
+                { new ConcurrentFrequencyCachingDeterminerDecorator(null) },
+                { new OffHeapFrequencyCachingDeterminerDecorator(null) } });
     }
 
     public FrequencyCachingDeterminerDecoratorTest(FrequencyDeterminerDecorator cache) {
@@ -94,7 +97,10 @@ public class FrequencyCachingDeterminerDecoratorTest implements FrequencyDetermi
                 wordsets[j] = chooseWordSet();
                 definitions[j] = definition;
             }
+            determinerCalls = 0;
             result = cache.determineCounts(wordsets, definitions);
+            // all misses have to be forwarded with a single call
+            Assert.assertTrue(determinerCalls <= 1);
             Assert.assertEquals(wordsets.length, result.length);
             for (int j = 0; j < result.length; ++j) {
                 Assert.assertArrayEquals(values.get(new WordSet(wordsets[j])), result[j].counts);
@@ -104,6 +110,7 @@ public class FrequencyCachingDeterminerDecoratorTest implements FrequencyDetermi
 
     @Override
     public CountedSubsets[] determineCounts(String[][] wordsets, SegmentationDefinition[] definitions) {
+        ++determinerCalls;
         CountedSubsets countedSubsets[] = new CountedSubsets[definitions.length];
         WordSet wordSetObj;
         for (int i = 0; i < definitions.length; ++i) {
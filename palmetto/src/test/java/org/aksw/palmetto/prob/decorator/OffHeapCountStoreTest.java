@@ -0,0 +1,143 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.prob.decorator;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.carrotsearch.hppc.BitSet;
+
+public class OffHeapCountStoreTest {
+
+    private static CountCacheKey createKey(int id) {
+        BitSet neededCounts = new BitSet(64);
+        neededCounts.set(id % 64);
+        return new CountCacheKey(new String[] { "w" + id, "wörd" }, neededCounts);
+    }
+
+    private static int[] createCounts(int id) {
+        return new int[] { id, -id, 2 * id, Integer.MAX_VALUE - id };
+    }
+
+    @Test
+    public void testSlabEviction() {
+        // every record has less than 55 bytes, i.e., a slab can contain 4
+        // records
+        OffHeapCountStore store = new OffHeapCountStore(4 * 220, 220);
+        for (int i = 0; i < 16; ++i) {
+            Assert.assertTrue(store.put(createKey(i), createCounts(i)));
+        }
+        Assert.assertEquals(16, store.size());
+        Assert.assertEquals(0, store.getNumberOfEvictedSlabs());
+        Assert.assertEquals(4 * 220, store.getAllocatedBytes());
+        for (int i = 0; i < 16; ++i) {
+            Assert.assertArrayEquals(createCounts(i), store.get(createKey(i)));
+        }
+        // the next record evicts the oldest slab
+        Assert.assertTrue(store.put(createKey(16), createCounts(16)));
+        Assert.assertEquals(1, store.getNumberOfEvictedSlabs());
+        Assert.assertEquals(4, store.getNumberOfEvictedRecords());
+        Assert.assertEquals(13, store.size());
+        for (int i = 0; i < 4; ++i) {
+            Assert.assertNull(store.get(createKey(i)));
+        }
+        for (int i = 4; i < 17; ++i) {
+            Assert.assertArrayEquals(createCounts(i), store.get(createKey(i)));
+        }
+        Assert.assertEquals(29, store.getHitCount());
+        Assert.assertEquals(4, store.getMissCount());
+        // records larger than a slab are not stored
+        Assert.assertFalse(store.put(createKey(17), new int[100]));
+
+        store.clear();
+        Assert.assertEquals(0, store.size());
+        Assert.assertNull(store.get(createKey(16)));
+        Assert.assertTrue(store.put(createKey(16), createCounts(16)));
+        Assert.assertArrayEquals(createCounts(16), store.get(createKey(16)));
+    }
+
+    @Test
+    public void testHashCollisions() {
+        // a store for which all keys have the same hash
+        OffHeapCountStore store = new OffHeapCountStore(1000, 500) {
+            @Override
+            protected long hash(byte[] bytes) {
+                return 42;
+            }
+        };
+        Assert.assertTrue(store.put(createKey(1), createCounts(1)));
+        Assert.assertArrayEquals(createCounts(1), store.get(createKey(1)));
+        // the other key is not mistaken for the stored key
+        Assert.assertNull(store.get(createKey(2)));
+        Assert.assertEquals(1, store.getCollisionCount());
+        // the newer record replaces the older one
+        Assert.assertTrue(store.put(createKey(2), createCounts(2)));
+        Assert.assertArrayEquals(createCounts(2), store.get(createKey(2)));
+        Assert.assertNull(store.get(createKey(1)));
+        Assert.assertEquals(1, store.size());
+    }
+
+    @Test
+    public void testConcurrentReads() throws InterruptedException {
+        final OffHeapCountStore store = new OffHeapCountStore(1 << 20, 1 << 16);
+        // only the keys with an even id are stored, i.e., the readers mix
+        // hits and misses
+        for (int i = 0; i < 200; i += 2) {
+            Assert.assertTrue(store.put(createKey(i), createCounts(i)));
+        }
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Thread readers[] = new Thread[8];
+        for (int t = 0; t < readers.length; ++t) {
+            final int offset = t;
+            readers[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        int id;
+                        int counts[];
+                        for (int r = 0; r < 20000; ++r) {
+                            id = (r + offset) % 200;
+                            counts = store.get(createKey(id));
+                            if ((id & 1) == 0) {
+                                Assert.assertArrayEquals(createCounts(id), counts);
+                            } else {
+                                Assert.assertNull(counts);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        error.compareAndSet(null, e);
+                    }
+                }
+            };
+        }
+        for (int t = 0; t < readers.length; ++t) {
+            readers[t].start();
+        }
+        for (int t = 0; t < readers.length; ++t) {
+            readers[t].join();
+        }
+        if (error.get() != null) {
+            throw new AssertionError(error.get());
+        }
+        Assert.assertEquals(0, store.getCollisionCount());
+        Assert.assertEquals(readers.length * 10000, store.getHitCount());
+        Assert.assertEquals(readers.length * 10000, store.getMissCount());
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.prob.decorator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.aksw.palmetto.Palmetto;
+import org.aksw.palmetto.corpus.lucene.WindowSupportingLuceneCorpusAdapter;
+import org.aksw.palmetto.data.CountedSubsets;
+import org.aksw.palmetto.data.SegmentationDefinition;
+import org.aksw.palmetto.prob.AbstractLuceneIndexBasedTest;
+import org.aksw.palmetto.prob.FrequencyDeterminer;
+import org.aksw.palmetto.prob.window.BooleanSlidingWindowFrequencyDeterminer;
+import org.aksw.palmetto.subsets.OneOne;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.carrotsearch.hppc.BitSet;
+
+public class PersistentFrequencyCachingDeterminerDecoratorTest extends AbstractLuceneIndexBasedTest implements
+        FrequencyDeterminer {
+
+    private static final String WORDSETS[][] = new String[][] { { "w0", "w1" }, { "w2", "w0", "w3" },
+            { "wü", "w5", "w6", "w7" }, { "w1" } };
+
+    private File storeFile;
+    private int determinedWordsets = 0;
+
+    @Before
+    public void createStoreFile() {
+        storeFile = new File(FileUtils.getTempDirectoryPath() + File.separator + "temp_count_store"
+                + Long.toString(System.nanoTime()));
+    }
+
+    @After
+    public void deleteStoreFile() {
+        storeFile.delete();
+    }
+
+    /**
+     * The counts of a word set are derived from its words.
+     */
+    @Override
+    public CountedSubsets[] determineCounts(String[][] wordsets, SegmentationDefinition[] definitions) {
+        determinedWordsets += wordsets.length;
+        CountedSubsets countedSubsets[] = new CountedSubsets[wordsets.length];
+        for (int i = 0; i < wordsets.length; ++i) {
+            countedSubsets[i] = new CountedSubsets(definitions[i].segments, definitions[i].conditions,
+                    createCounts(wordsets[i]));
+        }
+        return countedSubsets;
+    }
+
+    private static int[] createCounts(String wordset[]) {
+        int counts[] = new int[1 << wordset.length];
+        for (int i = 0; i < counts.length; ++i) {
+            counts[i] = wordset[Integer.numberOfTrailingZeros(i | counts.length) % wordset.length].hashCode() + i;
+        }
+        return counts;
+    }
+
+    private static SegmentationDefinition[] createDefinitions() {
+        SegmentationDefinition definitions[] = new SegmentationDefinition[WORDSETS.length];
+        for (int i = 0; i < definitions.length; ++i) {
+            definitions[i] = new OneOne().getSubsetDefinition(WORDSETS[i].length);
+        }
+        return definitions;
+    }
+
+    private void checkCounts(FrequencyDeterminer determiner) {
+        CountedSubsets counts[] = determiner.determineCounts(WORDSETS, createDefinitions());
+        for (int i = 0; i < WORDSETS.length; ++i) {
+            Assert.assertArrayEquals(createCounts(WORDSETS[i]), counts[i].counts);
+        }
+    }
+
+    @Test
+    public void testWarmStart() throws IOException {
+        PersistentFrequencyCachingDeterminerDecorator decorator = new PersistentFrequencyCachingDeterminerDecorator(
+                this, storeFile, "corpus", MappedCountStore.DEFAULT_MAX_SIZE);
+        checkCounts(decorator);
+        checkCounts(decorator);
+        Assert.assertEquals(WORDSETS.length, determinedWordsets);
+        decorator.close();
+
+        decorator = new PersistentFrequencyCachingDeterminerDecorator(this, storeFile, "corpus",
+                MappedCountStore.DEFAULT_MAX_SIZE);
+        Assert.assertEquals(WORDSETS.length, decorator.getStore().size());
+        checkCounts(decorator);
+        Assert.assertEquals(WORDSETS.length, determinedWordsets);
+        decorator.close();
+
+        // a different corpus invalidates the store
+        decorator = new PersistentFrequencyCachingDeterminerDecorator(this, storeFile, "changedCorpus",
+                MappedCountStore.DEFAULT_MAX_SIZE);
+        Assert.assertEquals(0, decorator.getStore().size());
+        checkCounts(decorator);
+        Assert.assertEquals(2 * WORDSETS.length, determinedWordsets);
+        decorator.close();
+    }
+
+    @Test
+    public void testCrashRecovery() throws IOException {
+        PersistentFrequencyCachingDeterminerDecorator decorator = new PersistentFrequencyCachingDeterminerDecorator(
+                this, storeFile, "corpus", MappedCountStore.DEFAULT_MAX_SIZE);
+        checkCounts(decorator);
+        decorator.close();
+        long validLength = storeFile.length();
+
+        // simulate an incomplete record at the end of the file
+        RandomAccessFile file = new RandomAccessFile(storeFile, "rw");
+        try {
+            file.seek(validLength);
+            file.writeInt(100);
+            file.writeInt(42);
+            file.writeInt(1);
+        } finally {
+            file.close();
+        }
+        String identity = PersistentFrequencyCachingDeterminerDecorator.getModelName(this) + "@corpus";
+        MappedCountStore store = new MappedCountStore(storeFile, identity, MappedCountStore.DEFAULT_MAX_SIZE);
+        Assert.assertEquals(WORDSETS.length, store.size());
+        Assert.assertEquals(validLength, store.getSizeInBytes());
+        store.close();
+        Assert.assertEquals(validLength, storeFile.length());
+
+        // simulate a corrupted record
+        file = new RandomAccessFile(storeFile, "rw");
+        try {
+            file.seek(validLength - 1);
+            byte lastByte = file.readByte();
+            file.seek(validLength - 1);
+            file.writeByte(lastByte + 1);
+        } finally {
+            file.close();
+        }
+        store = new MappedCountStore(storeFile, identity, MappedCountStore.DEFAULT_MAX_SIZE);
+        Assert.assertEquals(WORDSETS.length - 1, store.size());
+        store.close();
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        MappedCountStore store = new MappedCountStore(storeFile, "corpus", 2000);
+        BitSet neededCounts = new BitSet(16);
+        neededCounts.set(3);
+        CountCacheKey key = new CountCacheKey(new String[] { "a", "b" }, neededCounts);
+        int counts[] = new int[] { 1, 2, 3, 4 };
+        Assert.assertTrue(store.put(key, counts));
+        store.close();
+
+        store = new MappedCountStore(storeFile, "corpus", 2000);
+        Assert.assertArrayEquals(counts, store.get(key));
+        // fill the store with counts that are not used afterwards
+        CountCacheKey otherKey = null;
+        int i = 0;
+        while (store.size() < 41) {
+            otherKey = new CountCacheKey(new String[] { Integer.toString(i) }, null);
+            Assert.assertTrue(store.put(otherKey, new int[] { i, i }));
+            ++i;
+        }
+        store.close();
+
+        store = new MappedCountStore(storeFile, "corpus", 2000);
+        Assert.assertEquals(41, store.size());
+        Assert.assertArrayEquals(counts, store.get(key));
+        Assert.assertArrayEquals(new int[] { i - 1, i - 1 }, store.get(otherKey));
+        // the next counts do not fit into the store. Only the two used counts
+        // are kept.
+        CountCacheKey largeKey = new CountCacheKey(new String[] { "x", "y", "z" }, null);
+        int largeCounts[] = new int[300];
+        Assert.assertTrue(store.put(largeKey, largeCounts));
+        Assert.assertEquals(3, store.size());
+        Assert.assertArrayEquals(counts, store.get(key));
+        Assert.assertArrayEquals(largeCounts, store.get(largeKey));
+        Assert.assertNull(store.get(new CountCacheKey(new String[] { "0" }, null)));
+        // counts larger than the store are not stored. The store is compacted
+        // again keeping the counts that have been read since the last
+        // compaction.
+        Assert.assertFalse(store.put(new CountCacheKey(new String[] { "too large" }, null), new int[1000]));
+        store.close();
+
+        store = new MappedCountStore(storeFile, "corpus", 2000);
+        Assert.assertEquals(2, store.size());
+        Assert.assertArrayEquals(largeCounts, store.get(largeKey));
+        store.close();
+    }
+
+    @Test
+    public void testWindowCounts() throws IOException {
+        File indexDir = createRandomIndex(31, 100, 20);
+        WindowSupportingLuceneCorpusAdapter adapter = WindowSupportingLuceneCorpusAdapter.create(
+                indexDir.getAbsolutePath(), Palmetto.DEFAULT_TEXT_INDEX_FIELD_NAME,
+                Palmetto.DEFAULT_DOCUMENT_LENGTH_INDEX_FIELD_NAME);
+        try {
+            BooleanSlidingWindowFrequencyDeterminer determiner = new BooleanSlidingWindowFrequencyDeterminer(adapter,
+                    10);
+            CountedSubsets expected[] = determiner.determineCounts(WORDSETS, createDefinitions());
+            for (int r = 0; r < 2; ++r) {
+                PersistentFrequencyCachingDeterminerDecorator decorator = new PersistentFrequencyCachingDeterminerDecorator(
+                        determiner, storeFile, adapter);
+                CountedSubsets counts[] = decorator.determineCounts(WORDSETS, createDefinitions());
+                for (int i = 0; i < WORDSETS.length; ++i) {
+                    Assert.assertArrayEquals(expected[i].counts, counts[i].counts);
+                }
+                Assert.assertEquals((r == 0) ? WORDSETS.length : 0, decorator.getNumberOfMissedWordsets());
+                decorator.close();
+            }
+            // another window size leads to a different identity
+            determiner.setWindowSize(20);
+            PersistentFrequencyCachingDeterminerDecorator decorator = new PersistentFrequencyCachingDeterminerDecorator(
+                    determiner, storeFile, adapter);
+            Assert.assertEquals(0, decorator.getStore().size());
+            decorator.close();
+        } finally {
+            adapter.close();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.prob.decorator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.aksw.palmetto.Palmetto;
+import org.aksw.palmetto.corpus.lucene.WindowSupportingLuceneCorpusAdapter;
+import org.aksw.palmetto.data.CountedSubsets;
+import org.aksw.palmetto.data.SegmentationDefinition;
+import org.aksw.palmetto.prob.AbstractLuceneIndexBasedTest;
+import org.aksw.palmetto.prob.FrequencyDeterminer;
+import org.aksw.palmetto.prob.window.BooleanSlidingWindowFrequencyDeterminer;
+import org.aksw.palmetto.prob.window.ContextWindowFrequencyDeterminer;
+import org.aksw.palmetto.subsets.OneAny;
+import org.aksw.palmetto.subsets.OneOne;
+import org.aksw.palmetto.subsets.Segmentator;
+import org.apache.lucene.index.CorruptIndexException;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class SubsetCountCachingDeterminerDecoratorTest extends AbstractLuceneIndexBasedTest {
+
+    /**
+     * Word sets sharing words, containing the same words in different orders
+     * and containing unknown words.
+     */
+    private static final String WORDSETS[][] = new String[][] { { "w0", "w1", "w2" }, { "w2", "w0", "w1" },
+            { "w1", "w2", "w3", "w4" }, { "w4", "unknown", "w0" }, { "w5", "w6" }, { "w6", "w5", "w7", "w3" },
+            { "w3", "w7" } };
+
+    private static WindowSupportingLuceneCorpusAdapter adapter;
+
+    @BeforeClass
+    public static void createAdapter() throws CorruptIndexException, IOException {
+        File indexDir = createRandomIndex(23, 200, 30);
+        adapter = WindowSupportingLuceneCorpusAdapter.create(indexDir.getAbsolutePath(),
+                Palmetto.DEFAULT_TEXT_INDEX_FIELD_NAME, Palmetto.DEFAULT_DOCUMENT_LENGTH_INDEX_FIELD_NAME);
+    }
+
+    @AfterClass
+    public static void closeAdapter() {
+        adapter.close();
+    }
+
+    @Test
+    public void testBooleanSlidingWindow() {
+        compareCounts(new BooleanSlidingWindowFrequencyDeterminer(adapter, 5), new OneOne(), false);
+        compareCounts(new BooleanSlidingWindowFrequencyDeterminer(adapter, 10), new OneAny(), true);
+    }
+
+    @Test
+    public void testContextWindow() {
+        compareCounts(new ContextWindowFrequencyDeterminer(adapter, 5), new OneOne(), false);
+    }
+
+    @Test
+    public void testCacheHits() {
+        RequestCountingDeterminer countingDeterminer = new RequestCountingDeterminer(
+                new BooleanSlidingWindowFrequencyDeterminer(adapter, 5));
+        SubsetCountCachingDeterminerDecorator decorator = new SubsetCountCachingDeterminerDecorator(
+                countingDeterminer);
+        Segmentator segmentator = new OneOne();
+        determineCounts(decorator, segmentator, new String[] { "w0", "w1", "w2" });
+        Assert.assertEquals(1, countingDeterminer.requestedWordsets);
+        Assert.assertEquals(3, countingDeterminer.requestedWords);
+        // a permutation of the word set does not need a request
+        determineCounts(decorator, segmentator, new String[] { "w2", "w0", "w1" });
+        Assert.assertEquals(1, countingDeterminer.requestedWordsets);
+        // only the new word has to be counted together with the known words
+        determineCounts(decorator, segmentator, new String[] { "w1", "w3", "w0" });
+        Assert.assertEquals(2, countingDeterminer.requestedWordsets);
+        Assert.assertEquals(6, countingDeterminer.requestedWords);
+        // a sub set of the known words does not need a request
+        determineCounts(decorator, segmentator, new String[] { "w3", "w2" });
+        Assert.assertEquals(3, countingDeterminer.requestedWordsets);
+        determineCounts(decorator, segmentator, new String[] { "w3", "w0" });
+        Assert.assertEquals(3, countingDeterminer.requestedWordsets);
+        Assert.assertTrue(decorator.getCacheStats().hitCount() > 0);
+    }
+
+    private void compareCounts(FrequencyDeterminer determiner, Segmentator segmentator, boolean compareAllCounts) {
+        SubsetCountCachingDeterminerDecorator decorator = new SubsetCountCachingDeterminerDecorator(determiner);
+        SegmentationDefinition definitions[] = new SegmentationDefinition[WORDSETS.length];
+        for (int i = 0; i < definitions.length; ++i) {
+            definitions[i] = segmentator.getSubsetDefinition(WORDSETS[i].length);
+        }
+        CountedSubsets expected[] = determiner.determineCounts(WORDSETS, definitions);
+        // request the word sets twice, one after the other and all at once
+        for (int r = 0; r < 2; ++r) {
+            CountedSubsets counted[];
+            for (int i = 0; i < WORDSETS.length; ++i) {
+                counted = decorator.determineCounts(new String[][] { WORDSETS[i] },
+                        new SegmentationDefinition[] { definitions[i] });
+                compareCounts(WORDSETS[i], definitions[i], expected[i].counts, counted[0].counts, compareAllCounts);
+            }
+            counted = decorator.determineCounts(WORDSETS, definitions);
+            for (int i = 0; i < WORDSETS.length; ++i) {
+                compareCounts(WORDSETS[i], definitions[i], expected[i].counts, counted[i].counts, compareAllCounts);
+            }
+        }
+    }
+
+    private void compareCounts(String wordset[], SegmentationDefinition definition, int expected[], int counted[],
+            boolean compareAllCounts) {
+        if (compareAllCounts) {
+            Assert.assertArrayEquals(expected, counted);
+        } else {
+            for (int j = 1; j < expected.length; ++j) {
+                if (definition.neededCounts.get(j)) {
+                    Assert.assertEquals("Count of subset " + j + " of " + Arrays.toString(wordset) + " differs.",
+                            expected[j], counted[j]);
+                }
+            }
+        }
+    }
+
+    private static void determineCounts(FrequencyDeterminer determiner, Segmentator segmentator, String wordset[]) {
+        determiner.determineCounts(new String[][] { wordset },
+                new SegmentationDefinition[] { segmentator.getSubsetDefinition(wordset.length) });
+    }
+
+    private static class RequestCountingDeterminer implements FrequencyDeterminer {
+
+        private FrequencyDeterminer determiner;
+        private int requestedWordsets = 0;
+        private int requestedWords = 0;
+
+        public RequestCountingDeterminer(FrequencyDeterminer determiner) {
+            this.determiner = determiner;
+        }
+
+        @Override
+        public CountedSubsets[] determineCounts(String[][] wordsets, SegmentationDefinition[] definitions) {
+            requestedWordsets += wordsets.length;
+            for (int i = 0; i < wordsets.length; ++i) {
+                requestedWords += wordsets[i].length;
+            }
+            return determiner.determineCounts(wordsets, definitions);
+        }
+    }
+}
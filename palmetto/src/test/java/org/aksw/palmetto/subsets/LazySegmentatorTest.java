@@ -0,0 +1,81 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.subsets;
+
+import org.aksw.palmetto.data.SegmentationDefinition;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that the lazy segmentations return the same pairs as the
+ * definitions of the segmentations.
+ */
+public class LazySegmentatorTest {
+
+    private static final LazySegmentator SEGMENTATORS[] = new LazySegmentator[] { new AnyAny(),
+            new AnyAny(2, false), new AnyAny(1, false), new AnyAny(3, true), new OneAny(), new OneAny(2, false),
+            new OneAny(3, true), new AllAll() };
+
+    @Test
+    public void testPairs() {
+        for (int s = 0; s < SEGMENTATORS.length; ++s) {
+            for (int wordsetSize = 1; wordsetSize < 10; ++wordsetSize) {
+                SegmentationDefinition definition = SEGMENTATORS[s].getSubsetDefinition(wordsetSize);
+                SegmentationIterator iterator = SEGMENTATORS[s].getSegmentationIterator(wordsetSize);
+                long numberOfPairs = 0;
+                for (int i = 0; i < definition.segments.length; ++i) {
+                    // some segmentations have no conditions for single words
+                    if (definition.conditions[i] == null) {
+                        continue;
+                    }
+                    for (int j = 0; j < definition.conditions[i].length; ++j) {
+                        Assert.assertTrue(iterator.next());
+                        Assert.assertEquals(definition.segments[i], iterator.getSegment());
+                        Assert.assertEquals(definition.conditions[i][j], iterator.getCondition());
+                        ++numberOfPairs;
+                    }
+                }
+                Assert.assertFalse(iterator.next());
+                Assert.assertEquals(SEGMENTATORS[s].getName() + " with " + wordsetSize + " words", numberOfPairs,
+                        SEGMENTATORS[s].getNumberOfPairs(wordsetSize));
+                Assert.assertEquals(definition.neededCounts, SEGMENTATORS[s].getNeededCounts(wordsetSize));
+            }
+        }
+    }
+
+    @Test
+    public void testLargeWordsets() {
+        // 3^20 - 2^21 + 1 pairs
+        Assert.assertEquals(3484687250L, new AnyAny().getNumberOfPairs(20));
+        // 20 segments with 19 + 171 conditions
+        Assert.assertEquals(3800, new OneAny(2, false).getNumberOfPairs(20));
+        Assert.assertEquals(1, new AllAll().getNumberOfPairs(20));
+        // the number of segments of a restricted segmentation has
+        // overflowed for word sets with more than 12 words
+        AnyAny segmentator = new AnyAny(2, false);
+        Assert.assertEquals(210, segmentator.getSubsetDefinition(20).segments.length);
+        long numberOfPairs = 0;
+        SegmentationIterator iterator = segmentator.getSegmentationIterator(20);
+        while (iterator.next()) {
+            Assert.assertEquals(0, iterator.getSegment() & iterator.getCondition());
+            Assert.assertTrue(Integer.bitCount(iterator.getCondition()) <= 2);
+            ++numberOfPairs;
+        }
+        Assert.assertEquals(segmentator.getNumberOfPairs(20), numberOfPairs);
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.subsets;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.aksw.palmetto.data.SegmentationDefinition;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SegmentationPlanCacheTest {
+
+    private static final Segmentator SEGMENTATORS[] = new Segmentator[] { new OneOne(), new OnePreceding(),
+            new OneSucceeding(), new OneSet(), new OneAll(), new AllOne(), new OneAny(), new AnyAny(),
+            new OneOneAndSelf() };
+
+    @Test
+    public void testInstructions() {
+        for (int s = 0; s < SEGMENTATORS.length; ++s) {
+            SegmentationPlanCache cache = new SegmentationPlanCache(SEGMENTATORS[s]);
+            for (int wordsetSize = 1; wordsetSize < 6; ++wordsetSize) {
+                SegmentationPlan plan = cache.getPlan(wordsetSize);
+                Assert.assertEquals(wordsetSize, plan.wordsetSize);
+                Assert.assertEquals(1 << wordsetSize, plan.getNumberOfSubsets());
+                SegmentationDefinition definition = SEGMENTATORS[s].getSubsetDefinition(wordsetSize);
+                int instructions[] = plan.getInstructions();
+                int pos = 0;
+                for (int i = 0; i < definition.segments.length; ++i) {
+                    for (int j = 0; (definition.conditions[i] != null) && (j < definition.conditions[i].length); ++j) {
+                        Assert.assertEquals(definition.segments[i], instructions[pos]);
+                        Assert.assertEquals(definition.conditions[i][j], instructions[pos + 1]);
+                        Assert.assertEquals(definition.segments[i] | definition.conditions[i][j],
+                                instructions[pos + 2]);
+                        pos += 3;
+                    }
+                }
+                Assert.assertEquals(instructions.length, pos);
+                Assert.assertEquals(pos / 3, plan.getNumberOfPairs());
+                // the plan is compiled only once
+                Assert.assertSame(plan, cache.getPlan(wordsetSize));
+                Assert.assertSame(plan.definition, cache.getSubsetDefinition(wordsetSize));
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final SegmentationPlanCache cache = new SegmentationPlanCache(new OneOne());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<SegmentationPlan[]>> futures = new ArrayList<Future<SegmentationPlan[]>>();
+            for (int t = 0; t < 8; ++t) {
+                futures.add(executor.submit(new Callable<SegmentationPlan[]>() {
+                    @Override
+                    public SegmentationPlan[] call() throws Exception {
+                        SegmentationPlan plans[] = new SegmentationPlan[10];
+                        for (int i = 0; i < plans.length; ++i) {
+                            plans[i] = cache.getPlan(i + 1);
+                        }
+                        return plans;
+                    }
+                }));
+            }
+            SegmentationPlan expected[] = futures.get(0).get();
+            for (Future<SegmentationPlan[]> future : futures) {
+                SegmentationPlan plans[] = future.get();
+                for (int i = 0; i < plans.length; ++i) {
+                    Assert.assertSame(expected[i], plans[i]);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLargeWordset() {
+        (new SegmentationPlanCache(new OneOne())).getPlan(32);
+    }
+}
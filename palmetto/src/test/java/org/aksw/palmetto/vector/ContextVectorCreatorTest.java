@@ -0,0 +1,109 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.vector;
+
+import org.aksw.palmetto.VectorBasedCoherence;
+import org.aksw.palmetto.aggregation.ArithmeticMean;
+import org.aksw.palmetto.calculations.indirect.CosinusConfirmationMeasure;
+import org.aksw.palmetto.calculations.indirect.JaccardConfirmationMeasure;
+import org.aksw.palmetto.calculations.indirect.VectorKernels;
+import org.aksw.palmetto.subsets.OneOne;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that the indirect confirmation measures calculate the same
+ * similarities on the projected context vectors as on the context vectors
+ * spanning the complete vocabulary.
+ */
+public class ContextVectorCreatorTest {
+
+    private static final double DOUBLE_PRECISION_DELTA = 0.00001;
+
+    private static final String TERMS[] = new String[] { "a", "b", "c", "d", "e" };
+    private static final SparseVector VECTORS[] = new SparseVector[] {
+            new SparseVector(new int[] { 1, 2, 4 }, new float[] { 3, 1, 2 }),
+            new SparseVector(new int[] { 0, 2 }, new float[] { 3, 5 }),
+            new SparseVector(new int[] { 0, 1, 3 }, new float[] { 1, 5, 1 }),
+            new SparseVector(new int[] { 2, 4 }, new float[] { 1, 7 }),
+            new SparseVector(new int[] { 0, 3 }, new float[] { 2, 7 }) };
+
+    private static final String WORDSETS[][] = new String[][] { { "a", "b", "c" }, { "b", "d" },
+            { "a", "e", "unknown" } };
+
+    @Test
+    public void test() {
+        ContextVectorStore store = new ContextVectorStore(TERMS, VECTORS, 3);
+        VectorBasedCoherence cosine = new VectorBasedCoherence(new OneOne(), new ContextVectorCreator(store),
+                new CosinusConfirmationMeasure(), new ArithmeticMean());
+        VectorBasedCoherence jaccard = new VectorBasedCoherence(new OneOne(), new ContextVectorCreator(store),
+                new JaccardConfirmationMeasure(), new ArithmeticMean());
+        double cosineValues[] = cosine.calculateCoherences(WORDSETS);
+        double jaccardValues[] = jaccard.calculateCoherences(WORDSETS);
+
+        double vector1[], vector2[];
+        double cosineSum, jaccardSum;
+        int count;
+        for (int w = 0; w < WORDSETS.length; ++w) {
+            cosineSum = 0;
+            jaccardSum = 0;
+            count = 0;
+            for (int i = 0; i < WORDSETS[w].length; ++i) {
+                for (int j = 0; j < WORDSETS[w].length; ++j) {
+                    if (i != j) {
+                        vector1 = getVector(store, WORDSETS[w][i]);
+                        vector2 = getVector(store, WORDSETS[w][j]);
+                        cosineSum += cosine(vector1, vector2);
+                        jaccardSum += VectorKernels.minSum(vector1, 0, vector2, 0, TERMS.length)
+                                / VectorKernels.maxSum(vector1, 0, vector2, 0, TERMS.length);
+                        ++count;
+                    }
+                }
+            }
+            Assert.assertEquals(cosineSum / count, cosineValues[w], DOUBLE_PRECISION_DELTA);
+            Assert.assertEquals(jaccardSum / count, jaccardValues[w], DOUBLE_PRECISION_DELTA);
+        }
+        Assert.assertEquals("C(P_bd,V^Ctx(3),#cooc,S^{one}_{one},m_cos,sigma_a)", cosine.getName());
+    }
+
+    private static double cosine(double vector1[], double vector2[]) {
+        double length1 = VectorKernels.squaredNorm(vector1, 0, vector1.length);
+        double length2 = VectorKernels.squaredNorm(vector2, 0, vector2.length);
+        if ((length1 > 0) && (length2 > 0)) {
+            return VectorKernels.dotProduct(vector1, 0, vector2, 0, vector1.length)
+                    / (Math.sqrt(length1) * Math.sqrt(length2));
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the context vector of the given word with one dimension per
+     * term of the vocabulary.
+     */
+    private static double[] getVector(ContextVectorStore store, String word) {
+        double vector[] = new double[TERMS.length];
+        SparseVector sparse = store.getVector(word);
+        if (sparse != null) {
+            for (int i = 0; i < sparse.dimensions.length; ++i) {
+                vector[sparse.dimensions[i]] = sparse.values[i];
+            }
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.vector;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.aksw.palmetto.calculations.direct.LogRatioConfirmationMeasure;
+import org.aksw.palmetto.calculations.direct.NormalizedLogRatioConfirmationMeasure;
+import org.aksw.palmetto.calculations.direct.OlssonsConfirmationMeasure;
+import org.aksw.palmetto.data.SegmentationDefinition;
+import org.aksw.palmetto.data.SubsetProbabilities;
+import org.aksw.palmetto.data.SubsetVectors;
+import org.aksw.palmetto.prob.FrequencyDeterminer;
+import org.aksw.palmetto.prob.ProbabilityEstimator;
+import org.aksw.palmetto.subsets.OneOne;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that the vectors of word sets with different sizes do not depend on
+ * the other word sets of the same request.
+ */
+public class MixedWordsetSizesVectorCreatorTest implements ProbabilityEstimator {
+
+    private static final double DOUBLE_PRECISION_DELTA = 0.00000001;
+
+    private static final String WORDSETS[][] = new String[][] { { "a", "b" }, { "c", "d", "e" },
+            { "f", "g", "h", "i" }, { "j", "k" } };
+
+    @Test
+    public void test() {
+        DirectConfirmationBasedVectorCreator creators[] = new DirectConfirmationBasedVectorCreator[] {
+                new DirectConfirmationBasedVectorCreator(this, new LogRatioConfirmationMeasure()),
+                new DirectConfirmationBasedVectorCreator(this, new NormalizedLogRatioConfirmationMeasure(), 2),
+                new DirectConfirmationBasedVectorCreator(this, new OlssonsConfirmationMeasure()) };
+        OneOne segmentator = new OneOne();
+        SegmentationDefinition definitions[] = new SegmentationDefinition[WORDSETS.length];
+        for (int i = 0; i < WORDSETS.length; ++i) {
+            definitions[i] = segmentator.getSubsetDefinition(WORDSETS[i].length);
+        }
+        for (int c = 0; c < creators.length; ++c) {
+            SubsetVectors vectors[] = creators[c].getVectors(WORDSETS, definitions);
+            for (int i = 0; i < WORDSETS.length; ++i) {
+                SubsetVectors single[] = creators[c].getVectors(new String[][] { WORDSETS[i] },
+                        new SegmentationDefinition[] { definitions[i] });
+                Assert.assertEquals(WORDSETS[i].length, vectors[i].vectors.length);
+                for (int j = 0; j < WORDSETS[i].length; ++j) {
+                    Assert.assertArrayEquals(single[0].vectors[j], vectors[i].vectors[j], DOUBLE_PRECISION_DELTA);
+                }
+            }
+        }
+    }
+
+    @Override
+    public SubsetProbabilities[] getProbabilities(String[][] wordsets, SegmentationDefinition[] definitions) {
+        SubsetProbabilities probabilities[] = new SubsetProbabilities[wordsets.length];
+        double table[];
+        Random random;
+        for (int i = 0; i < wordsets.length; ++i) {
+            // the probabilities depend only on the word set
+            random = new Random(Arrays.hashCode(wordsets[i]));
+            table = new double[1 << wordsets[i].length];
+            for (int j = 1; j < table.length; ++j) {
+                table[j] = random.nextDouble() / Integer.bitCount(j);
+            }
+            probabilities[i] = new SubsetProbabilities(definitions[i].segments, definitions[i].conditions, table);
+        }
+        return probabilities;
+    }
+
+    @Override
+    public FrequencyDeterminer getFrequencyDeterminer() {
+        return null;
+    }
+
+    @Override
+    public void setFrequencyDeterminer(FrequencyDeterminer determiner) {
+    }
+
+    @Override
+    public String getName() {
+        return "P_test";
+    }
+
+    @Override
+    public void setMinFrequency(int minFrequency) {
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Palmetto - Palmetto is a quality measure tool for topics.
+ * Copyright © 2014 Data Science Group (DICE) (michael.roeder@uni-paderborn.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aksw.palmetto.vector;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compares the results of the sparse kernels with the dense vectors.
+ */
+public class SparseVectorKernelsTest {
+
+    private static final int NUMBER_OF_DIMENSIONS = 50;
+
+    @Test
+    public void testUnionOfDimensions() {
+        Random random = new Random(44);
+        double dense1[], dense2[];
+        SparseVector sparse1, sparse2;
+        for (int r = 0; r < 100; ++r) {
+            dense1 = new double[NUMBER_OF_DIMENSIONS];
+            dense2 = new double[NUMBER_OF_DIMENSIONS];
+            sparse1 = createRandomVector(random, dense1);
+            sparse2 = createRandomVector(random, dense2);
+            int union[] = SparseVectorKernels.unionOfDimensions(new SparseVector[] { sparse1, sparse2 });
+            int pos = 0;
+            for (int d = 0; d < NUMBER_OF_DIMENSIONS; ++d) {
+                if ((dense1[d] != 0) || (dense2[d] != 0)) {
+                    Assert.assertTrue(pos < union.length);
+                    Assert.assertEquals(d, union[pos]);
+                    ++pos;
+                }
+            }
+            Assert.assertEquals(pos, union.length);
+        }
+    }
+
+    @Test
+    public void testEmptyVectors() {
+        SparseVector vector = new SparseVector(new int[] { 3 }, new float[] { 2 });
+        Assert.assertArrayEquals(new int[] { 3 },
+                SparseVectorKernels.unionOfDimensions(new SparseVector[] { SparseVector.EMPTY_VECTOR, vector }));
+    }
+
+    /**
+     * Creates a random sparse vector and writes its values into the given
+     * dense vector.
+     */
+    private static SparseVector createRandomVector(Random random, double dense[]) {
+        int count = 0;
+        for (int d = 0; d < dense.length; ++d) {
+            if (random.nextInt(4) == 0) {
+                // use floats to get the same values in both vectors
+                dense[d] = (float) (random.nextDouble() - 0.3);
+                ++count;
+            }
+        }
+        int dimensions[] = new int[count];
+        float values[] = new float[count];
+        count = 0;
+        for (int d = 0; d < dense.length; ++d) {
+            if (dense[d] != 0) {
+                dimensions[count] = d;
+                values[count] = (float) dense[d];
+                ++count;
+            }
+        }
+        return new SparseVector(dimensions, values);
+    }
+}
@@ -19,13 +19,27 @@ package org.aksw.palmetto.webapp;
 
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
+import org.aksw.palmetto.CachingCoherenceDecorator;
 import org.aksw.palmetto.Coherence;
+import org.aksw.palmetto.CoherenceExplainer;
+import org.aksw.palmetto.CoherenceSuite;
 import org.aksw.palmetto.corpus.BooleanDocumentSupportingAdapter;
+import org.aksw.palmetto.corpus.TermDictionary;
+import org.aksw.palmetto.corpus.TermDictionarySupportingAdapter;
 import org.aksw.palmetto.corpus.WindowSupportingAdapter;
+import org.aksw.palmetto.corpus.decorator.WordPositionCachingAdapterDecorator;
+import org.aksw.palmetto.instrumentation.Explanation;
+import org.aksw.palmetto.instrumentation.SlowRequestLog;
 import org.aksw.palmetto.webapp.config.PalmettoConfiguration;
 import org.aksw.palmetto.webapp.config.RootConfig;
 import org.slf4j.Logger;
@@ -44,6 +58,13 @@ public class PalmettoApplication {
     private static final Logger LOGGER = LoggerFactory.getLogger(PalmettoApplication.class);
 
     private static final String MAX_NUMBER_OF_WORDS_PROPERTY_KEY = "org.aksw.palmetto.webapp.resources.AbstractCoherenceResource.maxWords";
+    private static final String REJECT_UNKNOWN_WORDS_PROPERTY_KEY = "org.aksw.palmetto.webapp.resources.AbstractCoherenceResource.rejectUnknownWords";
+    private static final String WORD_POSITION_CACHE_SIZE_PROPERTY_KEY = "org.aksw.palmetto.webapp.resources.AbstractCoherenceResource.wordPositionCacheSize";
+    private static final String COHERENCE_CACHE_SIZE_PROPERTY_KEY = "org.aksw.palmetto.webapp.resources.AbstractCoherenceResource.coherenceCacheSize";
+    private static final String SLOW_REQUEST_LOG_SIZE_PROPERTY_KEY = "org.aksw.palmetto.webapp.resources.AbstractCoherenceResource.slowRequestLogSize";
+    private static final String SLOW_REQUEST_THRESHOLD_PROPERTY_KEY = "org.aksw.palmetto.webapp.resources.AbstractCoherenceResource.slowRequestThreshold";
+
+    private static final long DEFAULT_SLOW_REQUEST_THRESHOLD = 1000;
 
     // private static final String WORDS_REQUEST_PARAMETER_NAME = "words";
     private static final String WORD_SEPARATOR = " ";
@@ -57,7 +78,39 @@ public class PalmettoApplication {
     protected Coherence npmiCoherence;
     protected Coherence uciCoherence;
     protected Coherence umassCoherence;
+    /**
+     * The undecorated coherences that can be combined to a
+     * {@link CoherenceSuite}, mapped by the names used in the requests.
+     */
+    protected Map<String, Coherence> suiteCoherences = new LinkedHashMap<String, Coherence>();
+    /**
+     * The suites that have already been created, mapped by the selection of
+     * coherences they contain. The i-th bit of the selection marks the i-th
+     * coherence of {@link #suiteCoherences}.
+     */
+    protected ConcurrentMap<Integer, CoherenceSuite> suites = new ConcurrentHashMap<Integer, CoherenceSuite>();
     protected int maxNumberOfWords;
+    protected boolean rejectUnknownWords = false;
+    /**
+     * Size of the cache for word positions in MB. The cache is disabled if the
+     * size is not larger than 0.
+     */
+    protected long wordPositionCacheSize = 0;
+    /**
+     * Number of coherence values that are cached. The cache is disabled if
+     * the size is not larger than 0.
+     */
+    protected int coherenceCacheSize = 0;
+    /**
+     * The term dictionary of the corpus that is used to reject unknown words.
+     * Is null if unknown words are not rejected.
+     */
+    protected TermDictionary termDictionary;
+    /**
+     * Keeps the explanations of the last slow requests. Is null if the log is
+     * disabled.
+     */
+    protected SlowRequestLog slowRequestLog;
     protected int calcCounts = 0;
 
     public PalmettoApplication() {
@@ -69,17 +122,54 @@ public class PalmettoApplication {
             LOGGER.error(errormsg, e);
             throw new IllegalStateException(errormsg, e);
         }
+        rejectUnknownWords = PalmettoConfiguration.getInstance().getBoolean(REJECT_UNKNOWN_WORDS_PROPERTY_KEY, false);
+        wordPositionCacheSize = PalmettoConfiguration.getInstance().getLong(WORD_POSITION_CACHE_SIZE_PROPERTY_KEY, 0);
+        coherenceCacheSize = PalmettoConfiguration.getInstance().getInt(COHERENCE_CACHE_SIZE_PROPERTY_KEY, 0);
+        int slowRequestLogSize = PalmettoConfiguration.getInstance().getInt(SLOW_REQUEST_LOG_SIZE_PROPERTY_KEY, 0);
+        if (slowRequestLogSize > 0) {
+            slowRequestLog = new SlowRequestLog(slowRequestLogSize, PalmettoConfiguration.getInstance().getLong(
+                    SLOW_REQUEST_THRESHOLD_PROPERTY_KEY, DEFAULT_SLOW_REQUEST_THRESHOLD));
+        }
     }
 
     @PostConstruct
     public void init() throws Exception {
         luceneAdapter = RootConfig.createLuceneAdapter();
-        caCoherence = RootConfig.createCACoherence(luceneAdapter);
-        cpCoherence = RootConfig.createCPCoherence(luceneAdapter);
-        cvCoherence = RootConfig.createCVCoherence(luceneAdapter);
-        npmiCoherence = RootConfig.createNPMICoherence(luceneAdapter);
-        uciCoherence = RootConfig.createUCICoherence(luceneAdapter);
+        // the window based coherences share the positions of the words
+        WindowSupportingAdapter windowAdapter = luceneAdapter;
+        if (wordPositionCacheSize > 0) {
+            windowAdapter = new WordPositionCachingAdapterDecorator(luceneAdapter,
+                    wordPositionCacheSize * 1024L * 1024L);
+        }
+        caCoherence = RootConfig.createCACoherence(windowAdapter);
+        cpCoherence = RootConfig.createCPCoherence(windowAdapter);
+        cvCoherence = RootConfig.createCVCoherence(windowAdapter);
+        npmiCoherence = RootConfig.createNPMICoherence(windowAdapter);
+        uciCoherence = RootConfig.createUCICoherence(windowAdapter);
         umassCoherence = RootConfig.createUMassCoherence(luceneAdapter);
+        suiteCoherences.put("ca", caCoherence);
+        suiteCoherences.put("cp", cpCoherence);
+        suiteCoherences.put("cv", cvCoherence);
+        suiteCoherences.put("npmi", npmiCoherence);
+        suiteCoherences.put("uci", uciCoherence);
+        suiteCoherences.put("umass", umassCoherence);
+        if (coherenceCacheSize > 0) {
+            caCoherence = new CachingCoherenceDecorator(caCoherence, coherenceCacheSize);
+            cpCoherence = new CachingCoherenceDecorator(cpCoherence, coherenceCacheSize);
+            cvCoherence = new CachingCoherenceDecorator(cvCoherence, coherenceCacheSize);
+            npmiCoherence = new CachingCoherenceDecorator(npmiCoherence, coherenceCacheSize);
+            uciCoherence = new CachingCoherenceDecorator(uciCoherence, coherenceCacheSize);
+            umassCoherence = new CachingCoherenceDecorator(umassCoherence, coherenceCacheSize);
+        }
+        if (rejectUnknownWords) {
+            if (luceneAdapter instanceof TermDictionarySupportingAdapter) {
+                termDictionary = ((TermDictionarySupportingAdapter) luceneAdapter).getTermDictionary();
+            }
+            if ((termDictionary == null) || (termDictionary.getMinDocumentFrequency() > 1)) {
+                LOGGER.warn("The corpus adapter has no complete term dictionary. Unknown words won't be rejected.");
+                termDictionary = null;
+            }
+        }
     }
 
     @PreDestroy
@@ -88,63 +178,149 @@ public class PalmettoApplication {
     }
 
     @RequestMapping(value = "ca")
-    public ResponseEntity<String> caService(@RequestParam(value = "words") String words) {
+    public ResponseEntity<String> caService(@RequestParam(value = "words") String words,
+            @RequestParam(value = "explain", required = false, defaultValue = "false") boolean explain) {
         LOGGER.info("CA     words=\"" + words + "\".");
-        return calculate(words, caCoherence);
+        return calculate(words, caCoherence, explain);
     }
 
     @RequestMapping(value = "cp")
-    public ResponseEntity<String> cpService(@RequestParam(value = "words") String words) {
+    public ResponseEntity<String> cpService(@RequestParam(value = "words") String words,
+            @RequestParam(value = "explain", required = false, defaultValue = "false") boolean explain) {
         LOGGER.info("CP     words=\"" + words + "\".");
-        return calculate(words, cpCoherence);
+        return calculate(words, cpCoherence, explain);
     }
 
     @RequestMapping(value = "cv")
-    public ResponseEntity<String> cvService(@RequestParam(value = "words") String words) {
+    public ResponseEntity<String> cvService(@RequestParam(value = "words") String words,
+            @RequestParam(value = "explain", required = false, defaultValue = "false") boolean explain) {
         LOGGER.info("CV     words=\"" + words + "\".");
-        return calculate(words, cvCoherence);
+        return calculate(words, cvCoherence, explain);
     }
 
     @RequestMapping(value = "npmi")
-    public ResponseEntity<String> npmiService(@RequestParam(value = "words") String words) {
+    public ResponseEntity<String> npmiService(@RequestParam(value = "words") String words,
+            @RequestParam(value = "explain", required = false, defaultValue = "false") boolean explain) {
         LOGGER.info("NPMI   words=\"" + words + "\".");
-        return calculate(words, npmiCoherence);
+        return calculate(words, npmiCoherence, explain);
     }
 
     @RequestMapping(value = "uci")
-    public ResponseEntity<String> uciService(@RequestParam(value = "words") String words) {
+    public ResponseEntity<String> uciService(@RequestParam(value = "words") String words,
+            @RequestParam(value = "explain", required = false, defaultValue = "false") boolean explain) {
         LOGGER.info("UCI    words=\"" + words + "\".");
-        return calculate(words, uciCoherence);
+        return calculate(words, uciCoherence, explain);
     }
 
     @RequestMapping(value = "umass")
-    public ResponseEntity<String> umassService(@RequestParam(value = "words") String words) {
+    public ResponseEntity<String> umassService(@RequestParam(value = "words") String words,
+            @RequestParam(value = "explain", required = false, defaultValue = "false") boolean explain) {
         LOGGER.info("UMass  words=\"" + words + "\".");
-        return calculate(words, umassCoherence);
+        return calculate(words, umassCoherence, explain);
     }
 
     @RequestMapping(value = "calculate")
     public ResponseEntity<String> calculate(@RequestParam(value = "coherence") String coherence,
-            @RequestParam(value = "words") String words) {
+            @RequestParam(value = "words") String words,
+            @RequestParam(value = "explain", required = false, defaultValue = "false") boolean explain) {
         coherence = coherence.toLowerCase();
         switch (coherence) {
         case "ca":
-            return caService(words);
+            return caService(words, explain);
         case "cp":
-            return cpService(words);
+            return cpService(words, explain);
         case "cv":
-            return cvService(words);
+            return cvService(words, explain);
         case "npmi":
-            return npmiService(words);
+            return npmiService(words, explain);
         case "uci":
-            return uciService(words);
+            return uciService(words, explain);
         case "umass":
-            return umassService(words);
+            return umassService(words, explain);
         default:
             return new ResponseEntity<String>("The given coherence value is not known.", HttpStatus.BAD_REQUEST);
         }
     }
 
+    /**
+     * Calculates several coherences for the given words at once. The
+     * coherences sharing a probability model share their counts. If no
+     * coherences are given, all coherences are calculated. The result is a
+     * JSON object mapping the coherence names to their values. If explain is
+     * true, the explanation of the request is returned instead.
+     */
+    @RequestMapping(value = "suite")
+    public ResponseEntity<String> suiteService(@RequestParam(value = "words") String words,
+            @RequestParam(value = "coherences", required = false) String coherences,
+            @RequestParam(value = "explain", required = false, defaultValue = "false") boolean explain) {
+        LOGGER.info("Suite  coherences=\"" + coherences + "\" words=\"" + words + "\".");
+        String names[];
+        if ((coherences == null) || coherences.trim().isEmpty()) {
+            names = suiteCoherences.keySet().toArray(new String[suiteCoherences.size()]);
+        } else {
+            names = coherences.toLowerCase().split(",");
+        }
+        int coherenceIds[] = new int[names.length];
+        int selection = 0;
+        for (int i = 0; i < names.length; ++i) {
+            names[i] = names[i].trim();
+            coherenceIds[i] = getSuiteCoherenceId(names[i]);
+            if (coherenceIds[i] < 0) {
+                return new ResponseEntity<String>("The coherence \"" + names[i] + "\" is not known.",
+                        HttpStatus.BAD_REQUEST);
+            }
+            selection |= 1 << coherenceIds[i];
+        }
+        if (words.equals("")) {
+            return new ResponseEntity<String>("The request doesn't contain any words.", HttpStatus.BAD_REQUEST);
+        }
+        String array[] = words.split(WORD_SEPARATOR);
+        ResponseEntity<String> error = checkWords(array);
+        if (error != null) {
+            return error;
+        }
+        CoherenceSuite suite = getSuite(selection);
+        // the suite contains the selected coherences in the order of the
+        // suite coherences
+        double suiteValues[];
+        if (explain || (slowRequestLog != null)) {
+            Explanation explanation = CoherenceExplainer.explain(suite, array);
+            logSlowRequest(explanation);
+            if (explain) {
+                return new ResponseEntity<String>(explanation.toJson(), HttpStatus.OK);
+            }
+            suiteValues = explanation.getValues();
+        } else {
+            double valuesOfSuite[][] = suite.calculateCoherences(new String[][] { array });
+            suiteValues = new double[valuesOfSuite.length];
+            for (int i = 0; i < suiteValues.length; ++i) {
+                suiteValues[i] = valuesOfSuite[i][0];
+            }
+        }
+        double values[][] = new double[names.length][];
+        for (int i = 0; i < names.length; ++i) {
+            values[i] = new double[] {
+                    suiteValues[Integer.bitCount(selection & ((1 << coherenceIds[i]) - 1))] };
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append('{');
+        for (int i = 0; i < names.length; ++i) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append('"');
+            builder.append(names[i]);
+            builder.append("\":");
+            if (Double.isNaN(values[i][0]) || Double.isInfinite(values[i][0])) {
+                builder.append("null");
+            } else {
+                builder.append(values[i][0]);
+            }
+        }
+        builder.append('}');
+        return new ResponseEntity<String>(builder.toString(), HttpStatus.OK);
+    }
+
     @RequestMapping(value = "df")
     public ResponseEntity<byte[]> requestDocFreq(@RequestParam(value = "words") String words) {
         if (luceneAdapter instanceof BooleanDocumentSupportingAdapter) {
@@ -177,6 +353,59 @@ public class PalmettoApplication {
         }
     }
 
+    /**
+     * Returns the explanations of the last slow requests as JSON array ordered
+     * from the oldest to the newest request.
+     */
+    @RequestMapping(value = "slowRequests")
+    public ResponseEntity<String> slowRequestsService() {
+        if (slowRequestLog == null) {
+            return new ResponseEntity<String>("The slow request log is disabled.", HttpStatus.NOT_IMPLEMENTED);
+        }
+        return new ResponseEntity<String>(slowRequestLog.toJson(), HttpStatus.OK);
+    }
+
+    /**
+     * Returns the id of the suite coherence with the given name, i.e., its
+     * position in {@link #suiteCoherences}, or -1 if there is no such
+     * coherence.
+     */
+    protected int getSuiteCoherenceId(String name) {
+        int id = 0;
+        for (String suiteCoherenceName : suiteCoherences.keySet()) {
+            if (suiteCoherenceName.equals(name)) {
+                return id;
+            }
+            ++id;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the suite containing the suite coherences marked by the given
+     * selection. Since there are only a few suite coherences, the suites are
+     * created once and reused for all further requests.
+     */
+    protected CoherenceSuite getSuite(int selection) {
+        CoherenceSuite suite = suites.get(selection);
+        if (suite == null) {
+            List<Coherence> selected = new ArrayList<Coherence>();
+            int id = 0;
+            for (Coherence coherence : suiteCoherences.values()) {
+                if ((selection & (1 << id)) != 0) {
+                    selected.add(coherence);
+                }
+                ++id;
+            }
+            suite = new CoherenceSuite(selected.toArray(new Coherence[selected.size()]));
+            CoherenceSuite previous = suites.putIfAbsent(selection, suite);
+            if (previous != null) {
+                suite = previous;
+            }
+        }
+        return suite;
+    }
+
     protected synchronized void postRequestHandling() {
         ++calcCounts;
         if (calcCounts >= GC_TRIGGER) {
@@ -185,18 +414,55 @@ public class PalmettoApplication {
         }
     }
 
-    protected ResponseEntity<String> calculate(String words, Coherence coherence) {
+    /**
+     * Calculates the given coherence for the given words. If explain is true,
+     * the explanation of the request is returned instead of the plain value.
+     */
+    protected ResponseEntity<String> calculate(String words, Coherence coherence, boolean explain) {
         if (words.equals("")) {
             return new ResponseEntity<String>("The request doesn't contain any words.", HttpStatus.BAD_REQUEST);
         }
         String array[] = words.split(WORD_SEPARATOR);
+        ResponseEntity<String> error = checkWords(array);
+        if (error != null) {
+            return error;
+        }
+        if (explain || (slowRequestLog != null)) {
+            Explanation explanation = CoherenceExplainer.explain(coherence, array);
+            logSlowRequest(explanation);
+            if (explain) {
+                return new ResponseEntity<String>(explanation.toJson(), HttpStatus.OK);
+            }
+            return new ResponseEntity<String>(Double.toString(explanation.getValue()), HttpStatus.OK);
+        }
+        return new ResponseEntity<String>(
+                Double.toString(coherence.calculateCoherences(new String[][] { array })[0]), HttpStatus.OK);
+    }
+
+    protected void logSlowRequest(Explanation explanation) {
+        if ((slowRequestLog != null) && slowRequestLog.offer(explanation)) {
+            LOGGER.warn("Slow request: {}", explanation.toJson());
+        }
+    }
+
+    /**
+     * Checks the given words and returns an error response if they can not be
+     * processed or null if they are valid.
+     */
+    protected ResponseEntity<String> checkWords(String array[]) {
         if (array.length > maxNumberOfWords) {
             return new ResponseEntity<String>("The request contains too many words. This service supports a maximum of "
                     + maxNumberOfWords + " words.", HttpStatus.BAD_REQUEST);
-        } else {
-            return new ResponseEntity<String>(
-                    Double.toString(coherence.calculateCoherences(new String[][] { array })[0]), HttpStatus.OK);
         }
+        if (termDictionary != null) {
+            for (int i = 0; i < array.length; ++i) {
+                if (termDictionary.getDocumentFrequency(array[i]) == 0) {
+                    return new ResponseEntity<String>("The request contains the word \"" + array[i]
+                            + "\" which is not known.", HttpStatus.BAD_REQUEST);
+                }
+            }
+        }
+        return null;
     }
 
     // /**
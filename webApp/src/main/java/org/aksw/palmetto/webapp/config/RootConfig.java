@@ -110,6 +110,7 @@ public class RootConfig {
         WindowBasedProbabilityEstimator probEstimator = new WindowBasedProbabilityEstimator(
                 new ContextWindowFrequencyDeterminer(corpusAdapter, windowSize));
         probEstimator.setMinFrequency(WindowBasedProbabilityEstimator.DEFAULT_MIN_FREQUENCY * windowSize);
+        probEstimator.setTermDictionary(WindowBasedProbabilityEstimator.getTermDictionary(corpusAdapter));
         return new VectorBasedCoherence(new OneOne(),
                 new DirectConfirmationBasedVectorCreator(probEstimator, new NormalizedLogRatioConfirmationMeasure()),
                 new CosinusConfirmationMeasure(), new ArithmeticMean());
@@ -126,6 +127,7 @@ public class RootConfig {
         WindowBasedProbabilityEstimator probEstimator = new WindowBasedProbabilityEstimator(
                 new BooleanSlidingWindowFrequencyDeterminer(corpusAdapter, windowSize));
         probEstimator.setMinFrequency(WindowBasedProbabilityEstimator.DEFAULT_MIN_FREQUENCY * windowSize);
+        probEstimator.setTermDictionary(WindowBasedProbabilityEstimator.getTermDictionary(corpusAdapter));
         return new DirectConfirmationBasedCoherence(new OnePreceding(), probEstimator,
                 new FitelsonConfirmationMeasure(), new ArithmeticMean());
     }
@@ -141,6 +143,7 @@ public class RootConfig {
         WindowBasedProbabilityEstimator probEstimator = new WindowBasedProbabilityEstimator(
                 new BooleanSlidingWindowFrequencyDeterminer(corpusAdapter, windowSize));
         probEstimator.setMinFrequency(WindowBasedProbabilityEstimator.DEFAULT_MIN_FREQUENCY * windowSize);
+        probEstimator.setTermDictionary(WindowBasedProbabilityEstimator.getTermDictionary(corpusAdapter));
         return new VectorBasedCoherence(new OneSet(),
                 new DirectConfirmationBasedVectorCreator(probEstimator, new NormalizedLogRatioConfirmationMeasure()),
                 new CosinusConfirmationMeasure(), new ArithmeticMean());
@@ -157,6 +160,7 @@ public class RootConfig {
         WindowBasedProbabilityEstimator probEstimator = new WindowBasedProbabilityEstimator(
                 new BooleanSlidingWindowFrequencyDeterminer(corpusAdapter, windowSize));
         probEstimator.setMinFrequency(WindowBasedProbabilityEstimator.DEFAULT_MIN_FREQUENCY * windowSize);
+        probEstimator.setTermDictionary(WindowBasedProbabilityEstimator.getTermDictionary(corpusAdapter));
         return new DirectConfirmationBasedCoherence(new OneOne(), probEstimator,
                 new NormalizedLogRatioConfirmationMeasure(), new ArithmeticMean());
     }
@@ -172,6 +176,7 @@ public class RootConfig {
         WindowBasedProbabilityEstimator probEstimator = new WindowBasedProbabilityEstimator(
                 new BooleanSlidingWindowFrequencyDeterminer(corpusAdapter, windowSize));
         probEstimator.setMinFrequency(WindowBasedProbabilityEstimator.DEFAULT_MIN_FREQUENCY * windowSize);
+        probEstimator.setTermDictionary(WindowBasedProbabilityEstimator.getTermDictionary(corpusAdapter));
         return new DirectConfirmationBasedCoherence(new OneOne(), probEstimator, new LogRatioConfirmationMeasure(),
                 new ArithmeticMean());
     }